@@ -65,6 +65,12 @@ public abstract class CommonConstants {
 	 */
 	public static boolean USE_SAVEGAME_COMPRESSION = false;
 
+	/**
+	 * If greater than 0, a snapshot of the game state is added to the seek index of the replay every this many minutes of game time. Replays
+	 * can then be continued from the snapshots instead of being simulated from the start.
+	 */
+	public static int REPLAY_SNAPSHOT_INTERVAL_MINUTES = 0;
+
 	/**
 	 * Enables the AI submodule.
 	 */
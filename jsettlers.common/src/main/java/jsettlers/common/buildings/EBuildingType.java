@@ -164,6 +164,9 @@ public enum EBuildingType {
 		flag = file.getFlag();
 		bricklayers = file.getBricklayers();
 		occupierPlaces = file.getOccupyerPlaces();
+		for (int i = 0; i < occupierPlaces.length; i++) {
+			occupierPlaces[i].setBuildingType(this, i);
+		}
 		guiImage = file.getGuiImage();
 
 		images = file.getImages();
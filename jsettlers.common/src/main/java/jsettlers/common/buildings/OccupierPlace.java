@@ -34,6 +34,13 @@ public class OccupierPlace implements Serializable {
 
 	private final boolean looksRight;
 
+	/**
+	 * The building type defining this place and the index of this place in {@link EBuildingType#getOccupierPlaces()}. The places of the
+	 * building types are shared by all buildings of a type, so they are serialized as a reference to keep them shared after loading.
+	 */
+	private transient EBuildingType buildingType;
+	private transient int index;
+
 	public OccupierPlace(int offsetX, int offsetY, ESoldierClass soldierClass, RelativePoint position, boolean looksRight) {
 		if (position == null || soldierClass == null) {
 			throw new NullPointerException();
@@ -89,4 +96,33 @@ public class OccupierPlace implements Serializable {
 	public final RelativePoint getPosition() {
 		return position;
 	}
+
+	final void setBuildingType(EBuildingType buildingType, int index) {
+		this.buildingType = buildingType;
+		this.index = index;
+	}
+
+	private Object writeReplace() {
+		if (buildingType != null) {
+			return new SharedOccupierPlace(buildingType, index);
+		} else {
+			return this;
+		}
+	}
+
+	private static final class SharedOccupierPlace implements Serializable {
+		private static final long serialVersionUID = 4215316718093215540L;
+
+		private final EBuildingType buildingType;
+		private final int index;
+
+		SharedOccupierPlace(EBuildingType buildingType, int index) {
+			this.buildingType = buildingType;
+			this.index = index;
+		}
+
+		private Object readResolve() {
+			return buildingType.getOccupierPlaces()[index];
+		}
+	}
 }
@@ -21,6 +21,7 @@ import static jsettlers.common.movable.EMovableType.SWORDSMAN_L2;
 import static jsettlers.common.movable.EMovableType.SWORDSMAN_L3;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
@@ -56,6 +57,7 @@ import jsettlers.logic.map.grid.objects.AbstractHexMapObject;
 import jsettlers.logic.map.grid.objects.ObjectsGrid;
 import jsettlers.logic.map.grid.partition.PartitionsGrid;
 import jsettlers.logic.movable.Movable;
+import jsettlers.logic.movable.MovableStore;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.player.Team;
 
@@ -82,17 +84,19 @@ public class AiStatistics {
 	private final ObjectsGrid objectsGrid;
 	private final PartitionsGrid partitionsGrid;
 	private final MovableGrid movableGrid;
+	private final MovableStore movableStore;
 	private final FlagsGrid flagsGrid;
 	private final AbstractConstructionMarkableMap constructionMarksGrid;
 	private final AiMapInformation aiMapInformation;
 
 	public AiStatistics(MainGrid mainGrid) {
-		this.buildings = Building.getAllBuildings();
+		this.buildings = mainGrid.getGameContext().getAllBuildings();
 		this.mainGrid = mainGrid;
 		this.landscapeGrid = mainGrid.getLandscapeGrid();
 		this.objectsGrid = mainGrid.getObjectsGrid();
 		this.partitionsGrid = mainGrid.getPartitionsGrid();
 		this.movableGrid = mainGrid.getMovableGrid();
+		this.movableStore = mainGrid.getGameContext().getMovableStore();
 		this.flagsGrid = mainGrid.getFlagsGrid();
 		this.constructionMarksGrid = mainGrid.getConstructionMarksGrid();
 		this.playerStatistics = new PlayerStatistic[mainGrid.getGuiInputGrid().getNumberOfPlayers()];
@@ -128,6 +132,7 @@ public class AiStatistics {
 
 		updateBuildingStatistics();
 		updateMapStatistics();
+		updateMovableStatistics();
 	}
 
 	private void updateBuildingStatistics() {
@@ -200,22 +205,6 @@ public class AiStatistics {
 				if (landscapeGrid.getLandscapeTypeAt(x, y).isGrass()) {
 					aiMapInformation.resourceAndGrassCount[mapInformationPlayerId][aiMapInformation.GRASS_INDEX]++;
 				}
-				Movable movable = movableGrid.getMovableAt(x, y);
-				if (movable != null) {
-					byte movablePlayerId = movable.getPlayerId();
-					PlayerStatistic movablePlayerStatistic = playerStatistics[movablePlayerId];
-					EMovableType movableType = movable.getMovableType();
-					if (!movablePlayerStatistic.movablePositions.containsKey(movableType)) {
-						movablePlayerStatistic.movablePositions.put(movableType, new Vector<ShortPoint2D>());
-					}
-					movablePlayerStatistic.movablePositions.get(movableType).add(movable.getPos());
-					if (player != null
-							&& player.playerId != movablePlayerId
-							&& movableType.isSoldier()
-							&& getEnemiesOf(player.playerId).contains(movablePlayerId)) {
-						playerStatistics[player.playerId].enemyTroopsInTown.addNoCollission(movable.getPos().x, movable.getPos().y);
-					}
-				}
 				if (player == null) {
 					updateFreeLand(x, y);
 				} else if (partitionsGrid.getPartitionIdAt(x, y) == playerStatistics[player.playerId].partitionIdToBuildOn) {
@@ -225,6 +214,45 @@ public class AiStatistics {
 		}
 	}
 
+	/**
+	 * Collects the positions of the visible movables from the {@link MovableStore}, so the {@link Movable} objects don't need to be touched. The
+	 * movables are visited in the order of a scan over the grid (x, then y), because the AI picks movables by their position in the lists.
+	 */
+	private void updateMovableStatistics() {
+		int numberOfMovables = movableStore.getNumberOfMovables();
+		long[] movablesInGridOrder = new long[numberOfMovables];
+		int numberOfVisibleMovables = 0;
+		for (int i = 0; i < numberOfMovables; i++) {
+			int id = movableStore.getLivingID(i);
+			if (movableStore.isVisible(id)) {
+				movablesInGridOrder[numberOfVisibleMovables++] = ((long) movableStore.getX(id)) << 48 | ((long) movableStore.getY(id)) << 32
+						| (id & 0xFFFFFFFFL);
+			}
+		}
+		Arrays.sort(movablesInGridOrder, 0, numberOfVisibleMovables);
+
+		for (int i = 0; i < numberOfVisibleMovables; i++) {
+			int id = (int) movablesInGridOrder[i];
+			short x = movableStore.getX(id);
+			short y = movableStore.getY(id);
+			byte movablePlayerId = movableStore.getPlayerId(id);
+			PlayerStatistic movablePlayerStatistic = playerStatistics[movablePlayerId];
+			EMovableType movableType = movableStore.getMovableType(id);
+			if (!movablePlayerStatistic.movablePositions.containsKey(movableType)) {
+				movablePlayerStatistic.movablePositions.put(movableType, new Vector<ShortPoint2D>());
+			}
+			movablePlayerStatistic.movablePositions.get(movableType).add(new ShortPoint2D(x, y));
+
+			Player player = partitionsGrid.getPlayerAt(x, y);
+			if (player != null
+					&& player.playerId != movablePlayerId
+					&& movableType.isSoldier()
+					&& getEnemiesOf(player.playerId).contains(movablePlayerId)) {
+				playerStatistics[player.playerId].enemyTroopsInTown.addNoCollission(x, y);
+			}
+		}
+	}
+
 	private void updatePlayerLand(short x, short y, Player player) {
 		int playerId = player.playerId;
 		PlayerStatistic playerStatistic = playerStatistics[playerId];
@@ -31,6 +31,13 @@ public final class CachedViewCircle {
 	final byte[] sight;
 	final int size;
 
+	final int minX;
+	final int maxX;
+	final int minY;
+	final int maxY;
+	private final int gridWidth;
+	private final byte[] sightGrid;
+
 	public CachedViewCircle(int radius) {
 		radius -= FogOfWar.PADDING / 2;
 		MapCircle circle = new MapCircle(0, 0, radius + FogOfWar.PADDING);
@@ -63,6 +70,41 @@ public final class CachedViewCircle {
 
 			i++;
 		}
+
+		int minX = 0, maxX = 0, minY = 0, maxY = 0;
+		for (i = 0; i < size; i++) {
+			minX = Math.min(minX, x[i]);
+			maxX = Math.max(maxX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+		this.minX = minX;
+		this.maxX = maxX;
+		this.minY = minY;
+		this.maxY = maxY;
+
+		gridWidth = maxX - minX + 1;
+		sightGrid = new byte[gridWidth * (maxY - minY + 1)];
+		for (i = 0; i < size; i++) {
+			int gridIdx = (x[i] - minX) + (y[i] - minY) * gridWidth;
+			sightGrid[gridIdx] = (byte) Math.max(sightGrid[gridIdx], sight[i]);
+		}
+	}
+
+	/**
+	 * Gets the sight this circle gives to the position with the given offset to its center.
+	 * 
+	 * @param dx
+	 *            x offset to the center
+	 * @param dy
+	 *            y offset to the center
+	 * @return The sight or 0 if the position isn't part of the circle.
+	 */
+	public byte getSight(int dx, int dy) {
+		if (dx < minX || dx > maxX || dy < minY || dy > maxY) {
+			return 0;
+		}
+		return sightGrid[(dx - minX) + (dy - minY) * gridWidth];
 	}
 
 	private int countElements(MapCircle circle) {
@@ -75,36 +117,4 @@ public final class CachedViewCircle {
 
 		return counter;
 	}
-
-	public CachedViewCircleIterator iterator(int xOffset, int yOffset) {
-		return new CachedViewCircleIterator(xOffset, yOffset);
-	}
-
-	public final class CachedViewCircleIterator {
-		private final int xOffset;
-		private final int yOffset;
-
-		private int idx;
-
-		public CachedViewCircleIterator(int xOffset, int yOffset) {
-			this.xOffset = xOffset;
-			this.yOffset = yOffset;
-		}
-
-		public boolean hasNext() {
-			return ++idx < size;
-		}
-
-		public int getCurrX() {
-			return x[idx] + xOffset;
-		}
-
-		public int getCurrY() {
-			return y[idx] + yOffset;
-		}
-
-		public byte getCurrSight() {
-			return sight[idx];
-		}
-	}
 }
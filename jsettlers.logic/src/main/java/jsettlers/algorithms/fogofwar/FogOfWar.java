@@ -17,9 +17,16 @@ package jsettlers.algorithms.fogofwar;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import jsettlers.algorithms.fogofwar.CachedViewCircle.CachedViewCircleIterator;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.player.IPlayerable;
 import jsettlers.common.position.ShortPoint2D;
@@ -46,9 +53,16 @@ public final class FogOfWar implements Serializable {
 	byte[][] sight;
 
 	private transient boolean enabled = Constants.FOG_OF_WAR_DEFAULT_ENABLED;
-	private transient IFogOfWarGrid grid;
+	transient IFogOfWarGrid grid;
 	private transient boolean canceled;
 
+	/**
+	 * The pool used to update the stripes of the sight in parallel. If this is null, the stripes are updated by the fog of war thread itself.
+	 */
+	transient ForkJoinPool pool;
+
+	private static ForkJoinPool sharedPool;
+
 	public FogOfWar(short width, short height) {
 		this(width, height, (byte) 0);
 	}
@@ -58,11 +72,26 @@ public final class FogOfWar implements Serializable {
 		this.height = height;
 		this.player = player;
 		this.sight = new byte[width][height];
+		this.pool = getSharedPool();
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
 		enabled = true;
+		pool = getSharedPool();
+	}
+
+	/**
+	 * Gets the pool shared by the fog of war instances of all players.
+	 * 
+	 * @return The shared pool or null if there is only one processor available.
+	 */
+	private static synchronized ForkJoinPool getSharedPool() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		if (sharedPool == null && processors > 1) {
+			sharedPool = new ForkJoinPool(processors);
+		}
+		return sharedPool;
 	}
 
 	public void start(IFogOfWarGrid grid) {
@@ -103,12 +132,12 @@ public final class FogOfWar implements Serializable {
 	final class NewFoWThread extends Thread {
 		private static final byte DIM_DOWN_SPEED = 10;
 		private final CircleDrawer drawer;
-		private byte[][] buffer;
+		private final IdentityHashMap<IViewDistancable, ViewCircle> viewCircles = new IdentityHashMap<IViewDistancable, ViewCircle>();
+		private int pass;
 
 		NewFoWThread() {
 			super("FoWThread");
 			super.setDaemon(true);
-			this.buffer = new byte[width][height];
 			drawer = new CircleDrawer();
 		}
 
@@ -128,50 +157,58 @@ public final class FogOfWar implements Serializable {
 			}
 		}
 
-		private final void rebuildSight() {
-			drawer.setBuffer(buffer);
-
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					byte currSight = sight[x][y];
-
-					if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
-						byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
-						if (newSight < CommonConstants.FOG_OF_WAR_EXPLORED) {
-							buffer[x][y] = CommonConstants.FOG_OF_WAR_EXPLORED;
-						} else {
-							buffer[x][y] = newSight;
-						}
-					} else {
-						buffer[x][y] = sight[x][y];
-					}
-				}
-			}
-
-			ConcurrentLinkedQueue<? extends IViewDistancable> buildings = grid.getBuildingViewDistancables();
-			applyViewDistances(buildings);
+		/**
+		 * Updates the sight with the changes since the last call. Only the view circles of objects that appeared, moved, changed their view
+		 * distance or disappeared are drawn or removed. Afterwards only the positions that are no longer in view are dimmed down. The changes are
+		 * applied in horizontal stripes of the map that are processed in parallel if a pool is available.
+		 */
+		final void rebuildSight() {
+			pass++;
 
-			ConcurrentLinkedQueue<? extends IViewDistancable> movables = grid.getMovableViewDistancables();
-			applyViewDistances(movables);
+			updateViewCircles(grid.getBuildingViewDistancables());
+			updateViewCircles(grid.getMovableViewDistancables());
+			removeOutdatedViewCircles();
 
-			byte[][] temp = sight;
-			sight = buffer;
-			buffer = temp;
+			drawer.applyChanges(pool);
 		}
 
-		private final void applyViewDistances(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
+		private final void updateViewCircles(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
 			for (IViewDistancable curr : objects) {
 				if (isPlayerOK(curr)) {
 					short distance = curr.getViewDistance();
-					if (distance > 0) {
-						ShortPoint2D pos = curr.getPos();
-						if (pos != null)
-							drawer.drawCircleToBuffer(pos.x, pos.y, distance);
+					ShortPoint2D pos = curr.getPos();
+					if (distance > 0 && pos != null) {
+						ViewCircle circle = viewCircles.get(curr);
+
+						if (circle == null) {
+							circle = new ViewCircle(pos.x, pos.y, drawer.getCachedCircle(distance));
+							viewCircles.put(curr, circle);
+							drawer.addCircle(circle);
+
+						} else if (circle.x != pos.x || circle.y != pos.y || circle.circle != drawer.getCachedCircle(distance)) {
+							drawer.removeCircle(circle);
+							circle = new ViewCircle(pos.x, pos.y, drawer.getCachedCircle(distance));
+							viewCircles.put(curr, circle);
+							drawer.addCircle(circle);
+						}
+
+						circle.lastPass = pass;
 					}
 				}
 			}
 		}
 
+		private final void removeOutdatedViewCircles() {
+			Iterator<ViewCircle> iterator = viewCircles.values().iterator();
+			while (iterator.hasNext()) {
+				ViewCircle circle = iterator.next();
+				if (circle.lastPass != pass) {
+					drawer.removeCircle(circle);
+					iterator.remove();
+				}
+			}
+		}
+
 		private final void mySleep(int ms) {
 			try {
 				Thread.sleep(ms);
@@ -182,39 +219,119 @@ public final class FogOfWar implements Serializable {
 
 	}
 
+	/**
+	 * The view circle of an {@link IViewDistancable} as it has been drawn in the last pass.
+	 */
+	static final class ViewCircle {
+		final int x;
+		final int y;
+		final CachedViewCircle circle;
+		int lastPass;
+
+		ViewCircle(int x, int y, CachedViewCircle circle) {
+			this.x = x;
+			this.y = y;
+			this.circle = circle;
+		}
+	}
+
 	final class CircleDrawer {
-		private byte[][] buffer;
+		private static final int BUCKET_SIZE = 16;
+		private static final int STRIPE_HEIGHT = 2 * BUCKET_SIZE; // a bucket must not span multiple stripes
+
 		private final CachedViewCircle[] cachedCircles = new CachedViewCircle[MAX_VIEWDISTANCE];
 
-		public final void setBuffer(byte[][] buffer) {
-			this.buffer = buffer;
+		/**
+		 * The maximum sight above {@link CommonConstants#FOG_OF_WAR_EXPLORED} the current view circles give to each position.
+		 */
+		private final byte[][] viewSight = new byte[width][height];
+
+		private final int bucketsX = (width + BUCKET_SIZE - 1) / BUCKET_SIZE;
+		private final int bucketsY = (height + BUCKET_SIZE - 1) / BUCKET_SIZE;
+		private final List<List<ViewCircle>> bucketCircles;
+		private final boolean[] dirtyBuckets;
+
+		private final Stripe[] stripes;
+		private final ArrayList<ViewCircle> addedCircles = new ArrayList<ViewCircle>();
+		private final ArrayList<ViewCircle> removedCircles = new ArrayList<ViewCircle>();
+
+		CircleDrawer() {
+			bucketCircles = new ArrayList<List<ViewCircle>>(bucketsX * bucketsY);
+			dirtyBuckets = new boolean[bucketsX * bucketsY];
+			for (int i = 0; i < bucketsX * bucketsY; i++) {
+				bucketCircles.add(new ArrayList<ViewCircle>());
+			}
+
+			stripes = new Stripe[(height + STRIPE_HEIGHT - 1) / STRIPE_HEIGHT];
+			for (int i = 0; i < stripes.length; i++) {
+				stripes[i] = new Stripe(i * STRIPE_HEIGHT, Math.min(height, (i + 1) * STRIPE_HEIGHT));
+			}
+
+			// positions that have been in view when the game was saved need to be dimmed down if they are not in view any more
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					if (sight[x][y] > CommonConstants.FOG_OF_WAR_EXPLORED) {
+						stripes[y / STRIPE_HEIGHT].addDimmingPosition(x, y);
+					}
+				}
+			}
 		}
 
 		/**
-		 * Draws a circle to the buffer line. Each point is only brightened and onlydrawn if its x coordinate is in [0, mapWidth - 1] and its computed
-		 * y coordinate is bigger than 0.
+		 * Schedules the given circle to be drawn by the next call to {@link #applyChanges(ForkJoinPool)}.
 		 */
-		final void drawCircleToBuffer(int bufferX, int bufferY, int viewDistance) {
-			CachedViewCircle circle = getCachedCircle(viewDistance);
-			CachedViewCircleIterator iterator = circle.iterator(bufferX, bufferY);
+		final void addCircle(ViewCircle viewCircle) {
+			forEachBucket(viewCircle, true);
+			addedCircles.add(viewCircle);
+		}
 
-			while (iterator.hasNext()) {
-				final int x = iterator.getCurrX();
-				final int y = iterator.getCurrY();
-
-				if (x >= 0 && x < width && y > 0 && y < height) {
-					byte oldSight = buffer[x][y];
-					if (oldSight < CommonConstants.FOG_OF_WAR_VISIBLE) {
-						byte newSight = iterator.getCurrSight();
-						if (oldSight < newSight) {
-							buffer[x][y] = newSight;
-						}
+		/**
+		 * Schedules the given circle to be removed by the next call to {@link #applyChanges(ForkJoinPool)}.
+		 */
+		final void removeCircle(ViewCircle viewCircle) {
+			forEachBucket(viewCircle, false);
+			removedCircles.add(viewCircle);
+		}
+
+		/**
+		 * Applies the added and removed circles to the sight and dims down the positions that are no longer in view. Every stripe only writes
+		 * its own rows, so the result does not depend on whether and in which order the stripes are processed in parallel.
+		 * 
+		 * @param pool
+		 *            The pool to process the stripes with or null to process them in the calling thread.
+		 */
+		final void applyChanges(ForkJoinPool pool) {
+			if (pool == null || stripes.length == 1) {
+				for (Stripe stripe : stripes) {
+					stripe.update();
+				}
+			} else {
+				pool.invoke(new UpdateStripesAction(stripes, 0, stripes.length));
+			}
+
+			addedCircles.clear();
+			removedCircles.clear();
+		}
+
+		private void forEachBucket(ViewCircle viewCircle, boolean add) {
+			final CachedViewCircle circle = viewCircle.circle;
+			final int minBucketX = Math.max(0, (viewCircle.x + circle.minX) / BUCKET_SIZE);
+			final int maxBucketX = Math.min(bucketsX - 1, (viewCircle.x + circle.maxX) / BUCKET_SIZE);
+			final int minBucketY = Math.max(0, (viewCircle.y + circle.minY) / BUCKET_SIZE);
+			final int maxBucketY = Math.min(bucketsY - 1, (viewCircle.y + circle.maxY) / BUCKET_SIZE);
+
+			for (int bucketY = minBucketY; bucketY <= maxBucketY; bucketY++) {
+				for (int bucketX = minBucketX; bucketX <= maxBucketX; bucketX++) {
+					if (add) {
+						bucketCircles.get(bucketX + bucketY * bucketsX).add(viewCircle);
+					} else {
+						bucketCircles.get(bucketX + bucketY * bucketsX).remove(viewCircle);
 					}
 				}
 			}
 		}
 
-		private CachedViewCircle getCachedCircle(int viewDistance) {
+		CachedViewCircle getCachedCircle(int viewDistance) {
 			int radius = Math.min(viewDistance + PADDING, MAX_VIEWDISTANCE - 1);
 			if (cachedCircles[radius] == null) {
 				cachedCircles[radius] = new CachedViewCircle(radius);
@@ -222,6 +339,210 @@ public final class FogOfWar implements Serializable {
 
 			return cachedCircles[radius];
 		}
+
+		/**
+		 * A horizontal stripe of the map with the rows minY (inclusive) to maxY (exclusive) and the positions of these rows that need to be dimmed
+		 * down.
+		 */
+		final class Stripe {
+			private final int minY;
+			private final int maxY;
+			private final BitSet dimmingPositionsSet;
+			private int[] dimmingPositions = new int[64];
+			private int dimmingPositionsCount;
+			private int[] dirtyBucketIndexes = new int[16];
+			private int dirtyBucketsCount;
+
+			Stripe(int minY, int maxY) {
+				this.minY = minY;
+				this.maxY = maxY;
+				this.dimmingPositionsSet = new BitSet(width * (maxY - minY));
+			}
+
+			final void update() {
+				for (ViewCircle circle : removedCircles) {
+					removeCircle(circle);
+				}
+				recalculateDirtyBuckets();
+				for (ViewCircle circle : addedCircles) {
+					addCircle(circle);
+				}
+				dimDown();
+			}
+
+			/**
+			 * Draws the part of the circle inside this stripe to the sight. Each point is only brightened and only drawn if its x coordinate is in
+			 * [0, mapWidth - 1] and its computed y coordinate is bigger than 0.
+			 * <p />
+			 * Sight values above {@link CommonConstants#FOG_OF_WAR_EXPLORED} are also kept in the view sight, so they don't dim down until the
+			 * circle is removed again.
+			 */
+			private void addCircle(ViewCircle viewCircle) {
+				final CachedViewCircle circle = viewCircle.circle;
+				if (!intersects(viewCircle)) {
+					return;
+				}
+
+				for (int i = 0; i < circle.size; i++) {
+					final int x = circle.x[i] + viewCircle.x;
+					final int y = circle.y[i] + viewCircle.y;
+
+					if (isInStripe(x, y)) {
+						final byte newSight = circle.sight[i];
+
+						if (newSight > CommonConstants.FOG_OF_WAR_EXPLORED && viewSight[x][y] < newSight) {
+							viewSight[x][y] = newSight;
+						}
+						if (sight[x][y] < newSight) {
+							sight[x][y] = newSight;
+						}
+					}
+				}
+			}
+
+			/**
+			 * Marks the buckets of all positions whose view sight is given by the removed circle as dirty.
+			 */
+			private void removeCircle(ViewCircle viewCircle) {
+				final CachedViewCircle circle = viewCircle.circle;
+				if (!intersects(viewCircle)) {
+					return;
+				}
+
+				for (int i = 0; i < circle.size; i++) {
+					final int x = circle.x[i] + viewCircle.x;
+					final int y = circle.y[i] + viewCircle.y;
+
+					if (isInStripe(x, y) && circle.sight[i] > CommonConstants.FOG_OF_WAR_EXPLORED && viewSight[x][y] == circle.sight[i]) {
+						final int bucket = x / BUCKET_SIZE + y / BUCKET_SIZE * bucketsX;
+						if (!dirtyBuckets[bucket]) {
+							dirtyBuckets[bucket] = true;
+							if (dirtyBucketsCount == dirtyBucketIndexes.length) {
+								dirtyBucketIndexes = Arrays.copyOf(dirtyBucketIndexes, dirtyBucketsCount * 2);
+							}
+							dirtyBucketIndexes[dirtyBucketsCount++] = bucket;
+						}
+					}
+				}
+			}
+
+			/**
+			 * Recalculates the view sight of the dirty buckets from the circles still registered for them. Every position that lost its view is
+			 * scheduled for dimming down. Recalculating whole buckets once per pass bounds the costs by a full rebuild, even if all objects moved.
+			 */
+			private void recalculateDirtyBuckets() {
+				for (int i = 0; i < dirtyBucketsCount; i++) {
+					final int bucket = dirtyBucketIndexes[i];
+					dirtyBuckets[bucket] = false;
+
+					final int minX = bucket % bucketsX * BUCKET_SIZE;
+					final int maxX = Math.min(width, minX + BUCKET_SIZE);
+					final int minY = Math.max(1, bucket / bucketsX * BUCKET_SIZE);
+					final int maxY = Math.min(height, bucket / bucketsX * BUCKET_SIZE + BUCKET_SIZE);
+
+					for (int x = minX; x < maxX; x++) {
+						for (int y = minY; y < maxY; y++) {
+							viewSight[x][y] = 0;
+						}
+					}
+
+					for (ViewCircle curr : bucketCircles.get(bucket)) {
+						final CachedViewCircle circle = curr.circle;
+						final int fromX = Math.max(minX, curr.x + circle.minX);
+						final int toX = Math.min(maxX - 1, curr.x + circle.maxX);
+						final int fromY = Math.max(minY, curr.y + circle.minY);
+						final int toY = Math.min(maxY - 1, curr.y + circle.maxY);
+
+						for (int x = fromX; x <= toX; x++) {
+							for (int y = fromY; y <= toY; y++) {
+								final byte currSight = circle.getSight(x - curr.x, y - curr.y);
+								if (currSight > CommonConstants.FOG_OF_WAR_EXPLORED && currSight > viewSight[x][y]) {
+									viewSight[x][y] = currSight;
+								}
+							}
+						}
+					}
+
+					for (int x = minX; x < maxX; x++) {
+						for (int y = minY; y < maxY; y++) {
+							if (sight[x][y] > Math.max(viewSight[x][y], CommonConstants.FOG_OF_WAR_EXPLORED)) {
+								addDimmingPosition(x, y);
+							}
+						}
+					}
+				}
+
+				dirtyBucketsCount = 0;
+			}
+
+			private void dimDown() {
+				int remaining = 0;
+
+				for (int i = 0; i < dimmingPositionsCount; i++) {
+					final int idx = dimmingPositions[i];
+					final int x = idx % width;
+					final int y = idx / width + minY;
+
+					final byte minSight = (byte) Math.max(viewSight[x][y], CommonConstants.FOG_OF_WAR_EXPLORED);
+					final byte newSight = (byte) Math.max(sight[x][y] - NewFoWThread.DIM_DOWN_SPEED, minSight);
+					sight[x][y] = newSight;
+
+					if (newSight > minSight) {
+						dimmingPositions[remaining++] = idx;
+					} else {
+						dimmingPositionsSet.clear(idx);
+					}
+				}
+
+				dimmingPositionsCount = remaining;
+			}
+
+			private void addDimmingPosition(int x, int y) {
+				final int idx = x + (y - minY) * width;
+				if (!dimmingPositionsSet.get(idx)) {
+					dimmingPositionsSet.set(idx);
+					if (dimmingPositionsCount == dimmingPositions.length) {
+						dimmingPositions = Arrays.copyOf(dimmingPositions, dimmingPositionsCount * 2);
+					}
+					dimmingPositions[dimmingPositionsCount++] = idx;
+				}
+			}
+
+			private boolean intersects(ViewCircle viewCircle) {
+				return viewCircle.y + viewCircle.circle.maxY >= minY && viewCircle.y + viewCircle.circle.minY < maxY;
+			}
+
+			private boolean isInStripe(int x, int y) {
+				return x >= 0 && x < width && y > 0 && y >= minY && y < maxY;
+			}
+		}
+	}
+
+	/**
+	 * Updates a range of stripes by recursively splitting it into halves.
+	 */
+	private static final class UpdateStripesAction extends RecursiveAction {
+		private static final long serialVersionUID = -1815385467153463620L;
+
+		private final CircleDrawer.Stripe[] stripes;
+		private final int from;
+		private final int to;
+
+		UpdateStripesAction(CircleDrawer.Stripe[] stripes, int from, int to) {
+			this.stripes = stripes;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				stripes[from].update();
+			} else {
+				int middle = (from + to) / 2;
+				invokeAll(new UpdateStripesAction(stripes, from, middle), new UpdateStripesAction(stripes, middle, to));
+			}
+		}
 	}
 
 	public void cancel() {
@@ -136,6 +136,26 @@ public class Path implements Serializable {
 		return pathX.length;
 	}
 
+	/**
+	 * 
+	 * @param idx
+	 *            index of the step in the interval [0, pathlength -1]
+	 * @return x coordinate of the given step independent of the current progress on the path.
+	 */
+	public final short getXAt(int idx) {
+		return pathX[idx];
+	}
+
+	/**
+	 * 
+	 * @param idx
+	 *            index of the step in the interval [0, pathlength -1]
+	 * @return y coordinate of the given step independent of the current progress on the path.
+	 */
+	public final short getYAt(int idx) {
+		return pathY[idx];
+	}
+
 	/**
 	 * increases the path counter
 	 */
@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path;
+
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.grid.flags.IBlockingChangedListener;
+
+/**
+ * An LRU cache of paths in front of an {@link AbstractAStar}.
+ * <p />
+ * A query is answered from the cache if a cached route leads to the same target and passes the start position (the suffix of the route is
+ * returned) or if a cached route starts at the same position and passes the target (the prefix is returned). Routes are only shared between
+ * requesters that see the same blocked positions: all requesters that may walk on every player's ground or all requesters of the same player
+ * that need their player's ground.
+ * <p />
+ * Routes are dropped as soon as a position on them is reported via {@link #blockingChanged(int, int, boolean)} or
+ * {@link #invalidatePosition(int, int)}. Blocking changes are forwarded to the wrapped path finder if it is an {@link IBlockingChangedListener}
+ * itself.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class PathCache extends AbstractAStar implements IBlockingChangedListener {
+	public static final int DEFAULT_CAPACITY = 512;
+
+	private static final int ANY_PLAYER_GROUP = -1;
+
+	private final AbstractAStar pathfinder;
+	private final short width;
+	private final short height;
+	private final int capacity;
+
+	private final Entry[] entriesByTarget;
+	private final Entry[] entriesByStart;
+	private final int bucketMask;
+
+	/**
+	 * Number of cached routes passing each position. Used to skip the invalidation for positions not on any route.
+	 */
+	private final short[] routesOnPosition;
+
+	private Entry mostRecentlyUsed;
+	private Entry leastRecentlyUsed;
+	private int size;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	/**
+	 * Creates a new path cache.
+	 * 
+	 * @param pathfinder
+	 *            The path finder used on cache misses.
+	 * @param width
+	 *            Width of the map.
+	 * @param height
+	 *            Height of the map.
+	 * @param capacity
+	 *            Maximum number of cached routes.
+	 */
+	public PathCache(AbstractAStar pathfinder, short width, short height, int capacity) {
+		this.pathfinder = pathfinder;
+		this.width = width;
+		this.height = height;
+		this.capacity = capacity;
+
+		int buckets = Integer.highestOneBit(capacity * 2 - 1) << 1;
+		this.entriesByTarget = new Entry[buckets];
+		this.entriesByStart = new Entry[buckets];
+		this.bucketMask = buckets - 1;
+
+		this.routesOnPosition = new short[width * height];
+	}
+
+	public PathCache(AbstractAStar pathfinder, short width, short height) {
+		this(pathfinder, width, height, DEFAULT_CAPACITY);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		if (!isInBounds(sx, sy) || !isInBounds(tx, ty) || (sx == tx && sy == ty)) {
+			return pathfinder.findPath(requester, sx, sy, tx, ty);
+		}
+
+		final int group = requester.needsPlayersGround() ? requester.getPlayerId() : ANY_PLAYER_GROUP;
+		final int startIdx = getFlatIdx(sx, sy);
+		final int targetIdx = getFlatIdx(tx, ty);
+
+		Path path = findSuffix(group, startIdx, targetIdx);
+		if (path == null) {
+			path = findPrefix(group, startIdx, targetIdx);
+		}
+		if (path != null) {
+			hits++;
+			return path;
+		}
+
+		misses++;
+		path = pathfinder.findPath(requester, sx, sy, tx, ty);
+		if (path != null) {
+			addEntry(group, startIdx, path);
+		}
+		return path;
+	}
+
+	@Override
+	public void blockingChanged(int x, int y, boolean newBlockingValue) {
+		invalidatePosition(x, y);
+
+		if (pathfinder instanceof IBlockingChangedListener) {
+			((IBlockingChangedListener) pathfinder).blockingChanged(x, y, newBlockingValue);
+		}
+	}
+
+	/**
+	 * Drops all cached routes passing the given position. This needs to be called whenever the walkability of the position changes for any
+	 * requester, e.g. if it changes its player.
+	 * 
+	 * @param x
+	 *            x coordinate of the position.
+	 * @param y
+	 *            y coordinate of the position.
+	 */
+	public void invalidatePosition(int x, int y) {
+		final int idx = getFlatIdx(x, y);
+		if (routesOnPosition[idx] == 0) {
+			return;
+		}
+
+		Entry entry = mostRecentlyUsed;
+		while (entry != null && routesOnPosition[idx] > 0) {
+			Entry next = entry.lessRecentlyUsed;
+			if (entry.contains(x, y)) {
+				removeEntry(entry);
+				invalidations++;
+			}
+			entry = next;
+		}
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * 
+	 * @return The share of queries answered by the cache in the interval [0, 1].
+	 */
+	public float getHitRate() {
+		long queries = hits + misses;
+		return queries == 0 ? 0 : ((float) hits) / queries;
+	}
+
+	/**
+	 * 
+	 * @return Number of routes dropped because the cache was full.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * 
+	 * @return Number of routes dropped because a position on them changed.
+	 */
+	public long getInvalidations() {
+		return invalidations;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	private Path findSuffix(int group, int startIdx, int targetIdx) {
+		final short sx = (short) getX(startIdx);
+		final short sy = (short) getY(startIdx);
+
+		for (Entry entry = entriesByTarget[getBucket(group, targetIdx)]; entry != null; entry = entry.nextWithSameTargetBucket) {
+			if (entry.group == group && entry.targetIdx == targetIdx) {
+				int startPosition = entry.indexOf(sx, sy, 0);
+				if (startPosition >= 0) {
+					markAsUsed(entry);
+					return entry.createPath(startPosition, entry.xs.length - 1);
+				}
+			}
+		}
+		return null;
+	}
+
+	private Path findPrefix(int group, int startIdx, int targetIdx) {
+		final short tx = (short) getX(targetIdx);
+		final short ty = (short) getY(targetIdx);
+
+		for (Entry entry = entriesByStart[getBucket(group, startIdx)]; entry != null; entry = entry.nextWithSameStartBucket) {
+			if (entry.group == group && entry.startIdx == startIdx) {
+				int targetPosition = entry.indexOf(tx, ty, 1);
+				if (targetPosition > 0) {
+					markAsUsed(entry);
+					return entry.createPath(0, targetPosition);
+				}
+			}
+		}
+		return null;
+	}
+
+	private void addEntry(int group, int startIdx, Path path) {
+		final int length = path.getLength();
+		final short[] xs = new short[length + 1];
+		final short[] ys = new short[length + 1];
+		xs[0] = (short) getX(startIdx);
+		ys[0] = (short) getY(startIdx);
+		for (int i = 0; i < length; i++) {
+			xs[i + 1] = path.getXAt(i);
+			ys[i + 1] = path.getYAt(i);
+		}
+
+		Entry entry = new Entry(group, startIdx, getFlatIdx(xs[length], ys[length]), xs, ys);
+		for (int i = 0; i <= length; i++) {
+			routesOnPosition[getFlatIdx(xs[i], ys[i])]++;
+		}
+
+		int targetBucket = getBucket(group, entry.targetIdx);
+		entry.nextWithSameTargetBucket = entriesByTarget[targetBucket];
+		entriesByTarget[targetBucket] = entry;
+
+		int startBucket = getBucket(group, startIdx);
+		entry.nextWithSameStartBucket = entriesByStart[startBucket];
+		entriesByStart[startBucket] = entry;
+
+		linkAsMostRecentlyUsed(entry);
+		size++;
+
+		if (size > capacity) {
+			removeEntry(leastRecentlyUsed);
+			evictions++;
+		}
+	}
+
+	private void removeEntry(Entry entry) {
+		for (int i = 0; i < entry.xs.length; i++) {
+			routesOnPosition[getFlatIdx(entry.xs[i], entry.ys[i])]--;
+		}
+
+		int targetBucket = getBucket(entry.group, entry.targetIdx);
+		if (entriesByTarget[targetBucket] == entry) {
+			entriesByTarget[targetBucket] = entry.nextWithSameTargetBucket;
+		} else {
+			Entry curr = entriesByTarget[targetBucket];
+			while (curr.nextWithSameTargetBucket != entry) {
+				curr = curr.nextWithSameTargetBucket;
+			}
+			curr.nextWithSameTargetBucket = entry.nextWithSameTargetBucket;
+		}
+
+		int startBucket = getBucket(entry.group, entry.startIdx);
+		if (entriesByStart[startBucket] == entry) {
+			entriesByStart[startBucket] = entry.nextWithSameStartBucket;
+		} else {
+			Entry curr = entriesByStart[startBucket];
+			while (curr.nextWithSameStartBucket != entry) {
+				curr = curr.nextWithSameStartBucket;
+			}
+			curr.nextWithSameStartBucket = entry.nextWithSameStartBucket;
+		}
+
+		unlink(entry);
+		size--;
+	}
+
+	private void markAsUsed(Entry entry) {
+		if (mostRecentlyUsed != entry) {
+			unlink(entry);
+			linkAsMostRecentlyUsed(entry);
+		}
+	}
+
+	private void linkAsMostRecentlyUsed(Entry entry) {
+		entry.moreRecentlyUsed = null;
+		entry.lessRecentlyUsed = mostRecentlyUsed;
+		if (mostRecentlyUsed != null) {
+			mostRecentlyUsed.moreRecentlyUsed = entry;
+		} else {
+			leastRecentlyUsed = entry;
+		}
+		mostRecentlyUsed = entry;
+	}
+
+	private void unlink(Entry entry) {
+		if (entry.moreRecentlyUsed != null) {
+			entry.moreRecentlyUsed.lessRecentlyUsed = entry.lessRecentlyUsed;
+		} else {
+			mostRecentlyUsed = entry.lessRecentlyUsed;
+		}
+		if (entry.lessRecentlyUsed != null) {
+			entry.lessRecentlyUsed.moreRecentlyUsed = entry.moreRecentlyUsed;
+		} else {
+			leastRecentlyUsed = entry.moreRecentlyUsed;
+		}
+		entry.moreRecentlyUsed = null;
+		entry.lessRecentlyUsed = null;
+	}
+
+	private int getBucket(int group, int flatIdx) {
+		int hash = flatIdx * 31 + group;
+		return (hash ^ (hash >>> 16)) & bucketMask;
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	private int getX(int flatIdx) {
+		return flatIdx % width;
+	}
+
+	private int getY(int flatIdx) {
+		return flatIdx / width;
+	}
+
+	/**
+	 * A cached route. The positions include the start position at index 0.
+	 */
+	private static final class Entry {
+		final int group;
+		final int startIdx;
+		final int targetIdx;
+		final short[] xs;
+		final short[] ys;
+
+		Entry nextWithSameTargetBucket;
+		Entry nextWithSameStartBucket;
+		Entry moreRecentlyUsed;
+		Entry lessRecentlyUsed;
+
+		Entry(int group, int startIdx, int targetIdx, short[] xs, short[] ys) {
+			this.group = group;
+			this.startIdx = startIdx;
+			this.targetIdx = targetIdx;
+			this.xs = xs;
+			this.ys = ys;
+		}
+
+		int indexOf(short x, short y, int fromIndex) {
+			for (int i = fromIndex; i < xs.length; i++) {
+				if (xs[i] == x && ys[i] == y) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		boolean contains(int x, int y) {
+			return indexOf((short) x, (short) y, 0) >= 0;
+		}
+
+		/**
+		 * Creates a path leading from the position at index from to the position at index to.
+		 */
+		Path createPath(int from, int to) {
+			Path path = new Path(to - from);
+			for (int i = from + 1; i <= to; i++) {
+				path.insertAt(i - from - 1, xs[i], ys[i]);
+			}
+			return path;
+		}
+	}
+}
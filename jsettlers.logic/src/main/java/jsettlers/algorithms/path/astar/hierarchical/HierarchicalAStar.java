@@ -0,0 +1,811 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.grid.flags.IBlockingChangedListener;
+
+/**
+ * Hierarchical A* (HPA*) for long distance queries.
+ * <p />
+ * The map is divided into clusters of {@value #CLUSTER_SIZE}x{@value #CLUSTER_SIZE} positions. Every run of free positions along the border of
+ * two clusters is an entrance. The entrance positions are the nodes of an abstract graph that are connected by their distances inside the
+ * cluster and by the single step over the border. Long queries are first solved on the abstract graph and then refined cluster by cluster.
+ * <p />
+ * Short queries, blocked start positions and queries that can not be answered by the abstract graph are delegated to the given full grid
+ * {@link AbstractAStar}. The abstract graph only knows the blocked positions of the map, therefore paths of requesters that need their
+ * player's ground are checked after the refinement and are also delegated if they leave the player's ground.
+ * <p />
+ * Every change of the blocking state needs to be reported via {@link #blockingChanged(int, int, boolean)}. The affected clusters are rebuilt
+ * before the next hierarchical query.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class HierarchicalAStar extends AbstractAStar implements IBlockingChangedListener {
+	public static final int CLUSTER_SIZE = 16;
+
+	/**
+	 * Queries with a shorter on grid distance are always delegated to the full grid search.
+	 */
+	public static final int MIN_HIERARCHICAL_DISTANCE = 3 * CLUSTER_SIZE;
+
+	/**
+	 * Entrances longer than this get an abstract node at each end instead of a single one in the middle.
+	 */
+	private static final int MAX_SINGLE_NODE_ENTRANCE_LENGTH = 6;
+
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private static final int[] NO_ENTRANCES = new int[0];
+
+	private static final int NORTH = 0;
+	private static final int EAST = 1;
+	private static final int SOUTH = 2;
+	private static final int WEST = 3;
+
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+
+	/**
+	 * Requester used to build the abstract graph. It may walk on every player's ground, so only the blocked positions are considered.
+	 */
+	private static final IPathCalculatable ANY_PLAYER_REQUESTER = new IPathCalculatable() {
+		private static final long serialVersionUID = -4219186102592516315L;
+
+		@Override
+		public ShortPoint2D getPos() {
+			return null;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return -1;
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return false;
+		}
+	};
+
+	private final IAStarPathMap map;
+	private final AbstractAStar fullAStar;
+
+	private final short width;
+	private final short height;
+	private final int clustersX;
+	private final int clustersY;
+
+	/**
+	 * Entrances to the east / south neighbor of a cluster. Every entrance is stored as pair of flat indexes: first the position in the cluster,
+	 * second the position in the neighbor cluster.
+	 */
+	private final int[][] eastEntrances;
+	private final int[][] southEntrances;
+
+	/**
+	 * Flat indexes of the abstract nodes of each cluster. They are ordered by the border they belong to (north, east, south, west).
+	 */
+	private final int[][] clusterNodes;
+	private final int[][] clusterBorderOffsets;
+	private final int[][] clusterDistances;
+	private final int[] clusterNodeIdBase;
+
+	private final BitSet dirtyClusters;
+	private final BitSet clustersToUpdate;
+
+	private int numberOfNodes;
+	private int[] nodeCluster = new int[0];
+
+	private int[] nodeCosts = new int[0];
+	private int[] nodeParents = new int[0];
+	private int[] nodeOpenedStamps = new int[0];
+	private int[] nodeClosedStamps = new int[0];
+	private int currentStamp = 0;
+
+	private int[] heapNodes = new int[64];
+	private int[] heapRanks = new int[64];
+	private int heapSize;
+
+	private final int[] entranceBuffer;
+	private final int[] localQueue;
+	private final int[] localParents;
+	private final int[] startDistances;
+	private final int[] targetDistances;
+	private final int[] refinementDistances;
+
+	private int[] abstractPath = new int[64];
+	private int abstractPathLength;
+	private int[] pathBuffer = new int[256];
+	private int pathLength;
+
+	private long hierarchicalQueries;
+	private long delegatedQueries;
+	private long expandedAbstractNodes;
+	private long expandedLocalNodes;
+
+	/**
+	 * Creates a new hierarchical path finder.
+	 * 
+	 * @param map
+	 *            The map to find the paths on.
+	 * @param fullAStar
+	 *            The full grid path finder used for short queries and as fall back.
+	 * @param width
+	 *            Width of the map.
+	 * @param height
+	 *            Height of the map.
+	 */
+	public HierarchicalAStar(IAStarPathMap map, AbstractAStar fullAStar, short width, short height) {
+		this.map = map;
+		this.fullAStar = fullAStar;
+		this.width = width;
+		this.height = height;
+
+		this.clustersX = (width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		this.clustersY = (height + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		int numberOfClusters = clustersX * clustersY;
+
+		this.eastEntrances = new int[numberOfClusters][];
+		this.southEntrances = new int[numberOfClusters][];
+		this.clusterNodes = new int[numberOfClusters][];
+		this.clusterBorderOffsets = new int[numberOfClusters][];
+		this.clusterDistances = new int[numberOfClusters][];
+		this.clusterNodeIdBase = new int[numberOfClusters];
+
+		this.dirtyClusters = new BitSet(numberOfClusters);
+		this.dirtyClusters.set(0, numberOfClusters);
+		this.clustersToUpdate = new BitSet(numberOfClusters);
+
+		this.entranceBuffer = new int[4 * CLUSTER_SIZE];
+		this.localQueue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+		this.localParents = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+		this.startDistances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+		this.targetDistances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+		this.refinementDistances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+	}
+
+	/**
+	 * Creates a new hierarchical path finder using a {@link BucketQueueAStar} as full grid path finder.
+	 * 
+	 * @param map
+	 *            The map to find the paths on.
+	 * @param width
+	 *            Width of the map.
+	 * @param height
+	 *            Height of the map.
+	 */
+	public HierarchicalAStar(IAStarPathMap map, short width, short height) {
+		this(map, new BucketQueueAStar(map, width, height), width, height);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		if (!isInBounds(sx, sy) || !isInBounds(tx, ty) || getHeuristicCost(sx, sy, tx, ty) < MIN_HIERARCHICAL_DISTANCE
+				|| map.isBlocked(requester, sx, sy) || map.isBlocked(requester, tx, ty)
+				|| map.getBlockedPartition(sx, sy) != map.getBlockedPartition(tx, ty)) {
+			return fullAStar.findPath(requester, sx, sy, tx, ty);
+		}
+
+		updateDirtyClusters();
+
+		if (findAbstractPath(sx, sy, tx, ty) && refineAbstractPath(sx, sy, tx, ty)
+				&& (!requester.needsPlayersGround() || isPathWalkable(requester))) {
+			hierarchicalQueries++;
+			return createPath();
+		} else {
+			delegatedQueries++;
+			return fullAStar.findPath(requester, sx, sy, tx, ty);
+		}
+	}
+
+	@Override
+	public void blockingChanged(int x, int y, boolean newBlockingValue) {
+		dirtyClusters.set(getCluster(x, y));
+	}
+
+	/**
+	 * 
+	 * @return Number of queries answered by the abstract graph.
+	 */
+	public long getHierarchicalQueries() {
+		return hierarchicalQueries;
+	}
+
+	/**
+	 * 
+	 * @return Number of long distance queries that had to be delegated to the full grid search.
+	 */
+	public long getDelegatedQueries() {
+		return delegatedQueries;
+	}
+
+	/**
+	 * 
+	 * @return Number of nodes expanded on the abstract graph.
+	 */
+	public long getExpandedAbstractNodes() {
+		return expandedAbstractNodes;
+	}
+
+	/**
+	 * 
+	 * @return Number of positions expanded by the searches inside of the clusters (including the ones for rebuilding clusters).
+	 */
+	public long getExpandedLocalNodes() {
+		return expandedLocalNodes;
+	}
+
+	/**
+	 * 
+	 * @return Number of nodes of the abstract graph.
+	 */
+	public int getNumberOfAbstractNodes() {
+		updateDirtyClusters();
+		return numberOfNodes;
+	}
+
+	private boolean findAbstractPath(int sx, int sy, int tx, int ty) {
+		final int startCluster = getCluster(sx, sy);
+		final int targetCluster = getCluster(tx, ty);
+		final int startNode = numberOfNodes;
+		final int targetNode = numberOfNodes + 1;
+
+		searchCluster(startCluster, getFlatIdx(sx, sy), startDistances, false, -1);
+		searchCluster(targetCluster, getFlatIdx(tx, ty), targetDistances, false, -1);
+
+		nextStamp();
+		heapSize = 0;
+		openNode(startNode, 0, -1, getHeuristicCost(sx, sy, tx, ty));
+
+		while (heapSize > 0) {
+			final int node = popMin();
+			if (nodeClosedStamps[node] == currentStamp) {
+				continue; // outdated heap entry
+			}
+			nodeClosedStamps[node] = currentStamp;
+
+			if (node == targetNode) {
+				return storeAbstractPath(targetNode);
+			}
+			expandedAbstractNodes++;
+
+			final int costs = nodeCosts[node];
+
+			if (node == startNode) {
+				int[] nodes = clusterNodes[startCluster];
+				for (int i = 0; i < nodes.length; i++) {
+					int distance = startDistances[getLocalIdx(startCluster, nodes[i])];
+					if (distance != UNREACHABLE) {
+						relaxNode(clusterNodeIdBase[startCluster] + i, costs + distance, node, tx, ty);
+					}
+				}
+				continue;
+			}
+
+			final int cluster = nodeCluster[node];
+			final int localNode = node - clusterNodeIdBase[cluster];
+			final int[] nodes = clusterNodes[cluster];
+			final int[] distances = clusterDistances[cluster];
+			final int rowOffset = localNode * nodes.length;
+
+			for (int i = 0; i < nodes.length; i++) {
+				int distance = distances[rowOffset + i];
+				if (i != localNode && distance != UNREACHABLE) {
+					relaxNode(clusterNodeIdBase[cluster] + i, costs + distance, node, tx, ty);
+				}
+			}
+
+			relaxNode(getPartnerNode(cluster, localNode), costs + 1, node, tx, ty);
+
+			if (cluster == targetCluster) {
+				int distance = targetDistances[getLocalIdx(targetCluster, nodes[localNode])];
+				if (distance != UNREACHABLE) {
+					relaxNode(targetNode, costs + distance, node, tx, ty);
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private void relaxNode(int node, int newCosts, int parent, int tx, int ty) {
+		if (nodeOpenedStamps[node] != currentStamp) {
+			nodeOpenedStamps[node] = currentStamp;
+		} else if (nodeClosedStamps[node] == currentStamp || nodeCosts[node] <= newCosts) {
+			return;
+		}
+
+		int heuristicCosts;
+		if (node == numberOfNodes + 1) {
+			heuristicCosts = 0;
+		} else {
+			int tile = clusterNodes[nodeCluster[node]][node - clusterNodeIdBase[nodeCluster[node]]];
+			heuristicCosts = getHeuristicCost(getX(tile), getY(tile), tx, ty);
+		}
+		openNode(node, newCosts, parent, newCosts + heuristicCosts);
+	}
+
+	private void openNode(int node, int costs, int parent, int rank) {
+		nodeOpenedStamps[node] = currentStamp;
+		nodeCosts[node] = costs;
+		nodeParents[node] = parent;
+		push(node, rank);
+	}
+
+	private boolean storeAbstractPath(int targetNode) {
+		int length = 0;
+		for (int node = targetNode; node >= 0; node = nodeParents[node]) {
+			length++;
+		}
+
+		if (abstractPath.length < length) {
+			abstractPath = new int[length * 2];
+		}
+
+		int node = targetNode;
+		for (int i = length - 1; i >= 0; i--) {
+			abstractPath[i] = node;
+			node = nodeParents[node];
+		}
+		abstractPathLength = length;
+		return true;
+	}
+
+	private boolean refineAbstractPath(int sx, int sy, int tx, int ty) {
+		pathLength = 0;
+
+		final int startCluster = getCluster(sx, sy);
+		final int targetCluster = getCluster(tx, ty);
+
+		int currentTile = getFlatIdx(sx, sy);
+		int currentCluster = startCluster;
+
+		for (int i = 1; i < abstractPathLength; i++) {
+			final int node = abstractPath[i];
+			final int nextTile;
+			final int nextCluster;
+			if (node == numberOfNodes + 1) {
+				nextTile = getFlatIdx(tx, ty);
+				nextCluster = targetCluster;
+			} else {
+				nextCluster = nodeCluster[node];
+				nextTile = clusterNodes[nextCluster][node - clusterNodeIdBase[nextCluster]];
+			}
+
+			if (nextCluster != currentCluster) {
+				appendToPath(nextTile);
+			} else if (nextTile != currentTile && !appendLocalPath(currentCluster, currentTile, nextTile)) {
+				return false;
+			}
+
+			currentTile = nextTile;
+			currentCluster = nextCluster;
+		}
+
+		return pathLength > 0;
+	}
+
+	private boolean appendLocalPath(int cluster, int fromTile, int toTile) {
+		searchCluster(cluster, fromTile, refinementDistances, true, toTile);
+
+		final int toLocalIdx = getLocalIdx(cluster, toTile);
+		final int distance = refinementDistances[toLocalIdx];
+		if (distance == UNREACHABLE) {
+			return false;
+		}
+
+		ensurePathCapacity(pathLength + distance);
+
+		final int x0 = getClusterX(cluster) * CLUSTER_SIZE;
+		final int y0 = getClusterY(cluster) * CLUSTER_SIZE;
+		int localIdx = toLocalIdx;
+		for (int i = pathLength + distance - 1; i >= pathLength; i--) {
+			pathBuffer[i] = getFlatIdx(x0 + localIdx % CLUSTER_SIZE, y0 + localIdx / CLUSTER_SIZE);
+			localIdx = localParents[localIdx];
+		}
+		pathLength += distance;
+
+		return true;
+	}
+
+	private void appendToPath(int tile) {
+		ensurePathCapacity(pathLength + 1);
+		pathBuffer[pathLength++] = tile;
+	}
+
+	private void ensurePathCapacity(int capacity) {
+		if (pathBuffer.length < capacity) {
+			pathBuffer = Arrays.copyOf(pathBuffer, Math.max(capacity, pathBuffer.length * 2));
+		}
+	}
+
+	private boolean isPathWalkable(IPathCalculatable requester) {
+		for (int i = 0; i < pathLength; i++) {
+			if (map.isBlocked(requester, getX(pathBuffer[i]), getY(pathBuffer[i]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Path createPath() {
+		Path path = new Path(pathLength);
+		for (int i = 0; i < pathLength; i++) {
+			path.insertAt(i, (short) getX(pathBuffer[i]), (short) getY(pathBuffer[i]));
+		}
+		return path;
+	}
+
+	/**
+	 * Breadth first search restricted to the given cluster.
+	 * 
+	 * @param cluster
+	 *            The cluster to search in.
+	 * @param sourceTile
+	 *            Flat index of the start position.
+	 * @param distances
+	 *            Array receiving the distances indexed by the local index of the positions.
+	 * @param storeParents
+	 *            If true, the parents are stored in {@link #localParents}.
+	 * @param stopTile
+	 *            The search stops when this flat index has been reached. -1 to search the whole cluster.
+	 */
+	private void searchCluster(int cluster, int sourceTile, int[] distances, boolean storeParents, int stopTile) {
+		Arrays.fill(distances, UNREACHABLE);
+
+		final int x0 = getClusterX(cluster) * CLUSTER_SIZE;
+		final int y0 = getClusterY(cluster) * CLUSTER_SIZE;
+		final int x1 = Math.min(width, x0 + CLUSTER_SIZE);
+		final int y1 = Math.min(height, y0 + CLUSTER_SIZE);
+
+		final int sourceLocalIdx = getLocalIdx(cluster, sourceTile);
+		final int stopLocalIdx = stopTile >= 0 ? getLocalIdx(cluster, stopTile) : -1;
+		distances[sourceLocalIdx] = 0;
+		localQueue[0] = sourceLocalIdx;
+		int head = 0;
+		int tail = 1;
+
+		while (head < tail) {
+			final int localIdx = localQueue[head++];
+			if (localIdx == stopLocalIdx) {
+				return;
+			}
+			expandedLocalNodes++;
+
+			final int x = x0 + localIdx % CLUSTER_SIZE;
+			final int y = y0 + localIdx / CLUSTER_SIZE;
+			final int nextDistance = distances[localIdx] + 1;
+
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				final int neighborX = x + xDeltaArray[i];
+				final int neighborY = y + yDeltaArray[i];
+
+				if (x0 <= neighborX && neighborX < x1 && y0 <= neighborY && neighborY < y1) {
+					final int neighborLocalIdx = (neighborX - x0) + (neighborY - y0) * CLUSTER_SIZE;
+
+					if (distances[neighborLocalIdx] == UNREACHABLE && isFree(neighborX, neighborY)) {
+						distances[neighborLocalIdx] = nextDistance;
+						if (storeParents) {
+							localParents[neighborLocalIdx] = localIdx;
+						}
+						localQueue[tail++] = neighborLocalIdx;
+					}
+				}
+			}
+		}
+	}
+
+	private void updateDirtyClusters() {
+		if (dirtyClusters.isEmpty()) {
+			return;
+		}
+
+		clustersToUpdate.clear();
+		for (int cluster = dirtyClusters.nextSetBit(0); cluster >= 0; cluster = dirtyClusters.nextSetBit(cluster + 1)) {
+			final int clusterX = getClusterX(cluster);
+			final int clusterY = getClusterY(cluster);
+
+			eastEntrances[cluster] = calculateEntrances(cluster, true);
+			southEntrances[cluster] = calculateEntrances(cluster, false);
+			clustersToUpdate.set(cluster);
+
+			if (clusterX > 0) {
+				eastEntrances[cluster - 1] = calculateEntrances(cluster - 1, true);
+				clustersToUpdate.set(cluster - 1);
+			}
+			if (clusterY > 0) {
+				southEntrances[cluster - clustersX] = calculateEntrances(cluster - clustersX, false);
+				clustersToUpdate.set(cluster - clustersX);
+			}
+			if (clusterX + 1 < clustersX) {
+				clustersToUpdate.set(cluster + 1);
+			}
+			if (clusterY + 1 < clustersY) {
+				clustersToUpdate.set(cluster + clustersX);
+			}
+		}
+		dirtyClusters.clear();
+
+		for (int cluster = clustersToUpdate.nextSetBit(0); cluster >= 0; cluster = clustersToUpdate.nextSetBit(cluster + 1)) {
+			updateClusterNodes(cluster);
+		}
+
+		updateNodeIds();
+	}
+
+	/**
+	 * Calculates the entrances from the given cluster to its east or south neighbor.
+	 */
+	private int[] calculateEntrances(int cluster, boolean east) {
+		final int clusterX = getClusterX(cluster);
+		final int clusterY = getClusterY(cluster);
+
+		if (east ? clusterX + 1 >= clustersX : clusterY + 1 >= clustersY) {
+			return NO_ENTRANCES;
+		}
+
+		final int borderStart = (east ? clusterY : clusterX) * CLUSTER_SIZE;
+		final int borderEnd = Math.min(east ? height : width, borderStart + CLUSTER_SIZE);
+		final int borderLine = (east ? clusterX : clusterY) * CLUSTER_SIZE + CLUSTER_SIZE - 1;
+
+		int entrances = 0;
+		int runStart = -1;
+		for (int i = borderStart; i <= borderEnd; i++) {
+			boolean free = i < borderEnd && (east ? isFree(borderLine, i) && isFree(borderLine + 1, i)
+					: isFree(i, borderLine) && isFree(i, borderLine + 1));
+
+			if (free && runStart < 0) {
+				runStart = i;
+			} else if (!free && runStart >= 0) {
+				int runEnd = i - 1;
+				if (runEnd - runStart + 1 > MAX_SINGLE_NODE_ENTRANCE_LENGTH) {
+					entrances = addEntrance(entrances, east, borderLine, runStart);
+					entrances = addEntrance(entrances, east, borderLine, runEnd);
+				} else {
+					entrances = addEntrance(entrances, east, borderLine, (runStart + runEnd) / 2);
+				}
+				runStart = -1;
+			}
+		}
+
+		return entrances == 0 ? NO_ENTRANCES : Arrays.copyOf(entranceBuffer, entrances);
+	}
+
+	private int addEntrance(int entrances, boolean east, int borderLine, int position) {
+		if (east) {
+			entranceBuffer[entrances] = getFlatIdx(borderLine, position);
+			entranceBuffer[entrances + 1] = getFlatIdx(borderLine + 1, position);
+		} else {
+			entranceBuffer[entrances] = getFlatIdx(position, borderLine);
+			entranceBuffer[entrances + 1] = getFlatIdx(position, borderLine + 1);
+		}
+		return entrances + 2;
+	}
+
+	private void updateClusterNodes(int cluster) {
+		final int clusterX = getClusterX(cluster);
+		final int clusterY = getClusterY(cluster);
+
+		final int[] north = clusterY > 0 ? southEntrances[cluster - clustersX] : NO_ENTRANCES;
+		final int[] east = eastEntrances[cluster];
+		final int[] south = southEntrances[cluster];
+		final int[] west = clusterX > 0 ? eastEntrances[cluster - 1] : NO_ENTRANCES;
+
+		final int[] offsets = new int[5];
+		offsets[NORTH + 1] = offsets[NORTH] + north.length / 2;
+		offsets[EAST + 1] = offsets[EAST] + east.length / 2;
+		offsets[SOUTH + 1] = offsets[SOUTH] + south.length / 2;
+		offsets[WEST + 1] = offsets[WEST] + west.length / 2;
+
+		final int numberOfClusterNodes = offsets[WEST + 1];
+		final int[] nodes = new int[numberOfClusterNodes];
+		copyEntranceSide(north, 1, nodes, offsets[NORTH]);
+		copyEntranceSide(east, 0, nodes, offsets[EAST]);
+		copyEntranceSide(south, 0, nodes, offsets[SOUTH]);
+		copyEntranceSide(west, 1, nodes, offsets[WEST]);
+
+		final int[] distances = new int[numberOfClusterNodes * numberOfClusterNodes];
+		for (int i = 0; i < numberOfClusterNodes; i++) {
+			searchCluster(cluster, nodes[i], refinementDistances, false, -1);
+			for (int j = 0; j < numberOfClusterNodes; j++) {
+				distances[i * numberOfClusterNodes + j] = refinementDistances[getLocalIdx(cluster, nodes[j])];
+			}
+		}
+
+		clusterNodes[cluster] = nodes;
+		clusterBorderOffsets[cluster] = offsets;
+		clusterDistances[cluster] = distances;
+	}
+
+	private static void copyEntranceSide(int[] entrances, int side, int[] nodes, int offset) {
+		for (int i = 0; i < entrances.length / 2; i++) {
+			nodes[offset + i] = entrances[2 * i + side];
+		}
+	}
+
+	private void updateNodeIds() {
+		int nodes = 0;
+		for (int cluster = 0; cluster < clusterNodes.length; cluster++) {
+			clusterNodeIdBase[cluster] = nodes;
+			nodes += clusterNodes[cluster].length;
+		}
+		numberOfNodes = nodes;
+
+		if (nodeCluster.length < nodes) {
+			nodeCluster = new int[nodes];
+		}
+		for (int cluster = 0; cluster < clusterNodes.length; cluster++) {
+			Arrays.fill(nodeCluster, clusterNodeIdBase[cluster], clusterNodeIdBase[cluster] + clusterNodes[cluster].length, cluster);
+		}
+
+		int searchNodes = nodes + 2; // start and target node
+		if (nodeCosts.length < searchNodes) {
+			nodeCosts = new int[searchNodes];
+			nodeParents = new int[searchNodes];
+			nodeOpenedStamps = new int[searchNodes];
+			nodeClosedStamps = new int[searchNodes];
+			currentStamp = 0;
+		}
+	}
+
+	/**
+	 * Gets the node on the other side of the entrance the given node belongs to.
+	 */
+	private int getPartnerNode(int cluster, int localNode) {
+		final int[] offsets = clusterBorderOffsets[cluster];
+
+		int border = NORTH;
+		while (localNode >= offsets[border + 1]) {
+			border++;
+		}
+		final int entrance = localNode - offsets[border];
+
+		final int partnerCluster;
+		final int partnerBorder;
+		switch (border) {
+		case NORTH:
+			partnerCluster = cluster - clustersX;
+			partnerBorder = SOUTH;
+			break;
+		case EAST:
+			partnerCluster = cluster + 1;
+			partnerBorder = WEST;
+			break;
+		case SOUTH:
+			partnerCluster = cluster + clustersX;
+			partnerBorder = NORTH;
+			break;
+		default:
+			partnerCluster = cluster - 1;
+			partnerBorder = EAST;
+			break;
+		}
+
+		return clusterNodeIdBase[partnerCluster] + clusterBorderOffsets[partnerCluster][partnerBorder] + entrance;
+	}
+
+	private void nextStamp() {
+		currentStamp++;
+		if (currentStamp == Integer.MAX_VALUE) {
+			Arrays.fill(nodeOpenedStamps, 0);
+			Arrays.fill(nodeClosedStamps, 0);
+			currentStamp = 1;
+		}
+	}
+
+	private void push(int node, int rank) {
+		if (heapSize == heapNodes.length) {
+			heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+			heapRanks = Arrays.copyOf(heapRanks, heapSize * 2);
+		}
+
+		int idx = heapSize++;
+		while (idx > 0) {
+			int parentIdx = (idx - 1) / 2;
+			if (heapRanks[parentIdx] <= rank) {
+				break;
+			}
+			heapNodes[idx] = heapNodes[parentIdx];
+			heapRanks[idx] = heapRanks[parentIdx];
+			idx = parentIdx;
+		}
+		heapNodes[idx] = node;
+		heapRanks[idx] = rank;
+	}
+
+	private int popMin() {
+		final int result = heapNodes[0];
+		heapSize--;
+
+		final int lastNode = heapNodes[heapSize];
+		final int lastRank = heapRanks[heapSize];
+		int idx = 0;
+		while (true) {
+			int childIdx = 2 * idx + 1;
+			if (childIdx >= heapSize) {
+				break;
+			}
+			if (childIdx + 1 < heapSize && heapRanks[childIdx + 1] < heapRanks[childIdx]) {
+				childIdx++;
+			}
+			if (lastRank <= heapRanks[childIdx]) {
+				break;
+			}
+			heapNodes[idx] = heapNodes[childIdx];
+			heapRanks[idx] = heapRanks[childIdx];
+			idx = childIdx;
+		}
+		heapNodes[idx] = lastNode;
+		heapRanks[idx] = lastRank;
+
+		return result;
+	}
+
+	private boolean isFree(int x, int y) {
+		return !map.isBlocked(ANY_PLAYER_REQUESTER, x, y);
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private int getCluster(int x, int y) {
+		return (x / CLUSTER_SIZE) + (y / CLUSTER_SIZE) * clustersX;
+	}
+
+	private int getClusterX(int cluster) {
+		return cluster % clustersX;
+	}
+
+	private int getClusterY(int cluster) {
+		return cluster / clustersX;
+	}
+
+	private int getLocalIdx(int cluster, int tile) {
+		return (getX(tile) - getClusterX(cluster) * CLUSTER_SIZE) + (getY(tile) - getClusterY(cluster) * CLUSTER_SIZE) * CLUSTER_SIZE;
+	}
+
+	private int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	private int getX(int flatIdx) {
+		return flatIdx % width;
+	}
+
+	private int getY(int flatIdx) {
+		return flatIdx / width;
+	}
+
+	private static int getHeuristicCost(int sx, int sy, int tx, int ty) {
+		return ShortPoint2D.getOnGridDist(tx - sx, ty - sy);
+	}
+}
@@ -15,6 +15,8 @@
 package jsettlers.algorithms.path.dijkstra;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.EnumSet;
 import java.util.Set;
 
@@ -22,12 +24,18 @@ import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.InvalidStartPositionException;
 import jsettlers.algorithms.path.Path;
 import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
 import jsettlers.common.map.shapes.MapCircle;
 import jsettlers.common.material.ESearchType;
+import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
 
 /**
  * this class implements a strict dijkstra algorithm
+ * <p />
+ * The rings around the center are probed and a path is searched with the AStar to every fitting position until one is found. If a path search
+ * fails, the area the requester can walk to is computed once, so that the following unreachable positions don't cost a failed path search
+ * each.
  * 
  * @author Andreas Eberle
  * 
@@ -35,17 +43,30 @@ import jsettlers.common.position.ShortPoint2D;
 public final class DijkstraAlgorithm {
 	private static final byte[] directionIncreaseX = { -1, 0, 1, 1, 0, -1 };
 	private static final byte[] directionIncreaseY = { 0, 1, 1, 0, -1, -1 };
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
 	private static final float MAX_RADIUS_MULTIPLIER = 1f / MapCircle.Y_SCALE;
+	private static final int INITIAL_QUEUE_SIZE = 1024;
 
 	private final IDijkstraPathMap map;
-	private final short height, width;
 	private final AbstractAStar aStar;
+	private final IAStarPathMap pathMap;
+	private final short height, width;
 
-	public DijkstraAlgorithm(IDijkstraPathMap map, AbstractAStar aStar, short width, short height) {
+	private final BitSet reachable;
+	private int[] queue = new int[INITIAL_QUEUE_SIZE];
+	/**
+	 * true if {@link #reachable} holds the area the requester of the current search can walk to.
+	 */
+	private boolean reachableComputed;
+
+	public DijkstraAlgorithm(IDijkstraPathMap map, AbstractAStar aStar, IAStarPathMap pathMap, short width, short height) {
 		this.map = map;
 		this.aStar = aStar;
+		this.pathMap = pathMap;
 		this.width = width;
 		this.height = height;
+		this.reachable = new BitSet(width * height);
 	}
 
 	public final Path find(final IPathCalculatable requester, final short cX, final short cY, final short minRadius, final short maxRadius,
@@ -54,6 +75,8 @@ public final class DijkstraAlgorithm {
 			throw new InvalidStartPositionException("dijkstra center position is not in bounds!", cX, cY);
 		}
 
+		reachableComputed = false;
+
 		// check center position (special case for minRadius <= 0
 		if (minRadius <= 0) {
 			map.setDijkstraSearched(cX, cY);
@@ -88,11 +111,76 @@ public final class DijkstraAlgorithm {
 	}
 
 	private final Path findPathTo(IPathCalculatable requester, short tx, short ty) {
+		if (reachableComputed && !reachable.get(getFlatIdx(tx, ty))) {
+			return null;
+		}
+
 		ShortPoint2D pos = requester.getPos();
-		return aStar.findPath(requester, pos.x, pos.y, tx, ty);
+		Path path = aStar.findPath(requester, pos.x, pos.y, tx, ty);
+
+		if (path == null && !reachableComputed) {
+			computeReachable(requester, pos.x, pos.y);
+		}
+		return path;
+	}
+
+	/**
+	 * Marks all positions the requester can walk to in {@link #reachable}. The same rules as in the AStar are used, so the AStar can never find a
+	 * path to a position that is not marked.
+	 */
+	private void computeReachable(IPathCalculatable requester, short sx, short sy) {
+		reachable.clear();
+		reachableComputed = true;
+
+		final short blockedAtStartPartition = isBlocked(requester, sx, sy) ? pathMap.getBlockedPartition(sx, sy) : -1;
+		final int startIdx = getFlatIdx(sx, sy);
+
+		reachable.set(startIdx);
+		queue[0] = startIdx;
+		int head = 0;
+		int tail = 1;
+
+		while (head < tail) {
+			final int currIdx = queue[head++];
+			final int x = currIdx % width;
+			final int y = currIdx / width;
+			final boolean blocked = isBlocked(requester, x, y);
+
+			for (int direction = 0; direction < EDirection.NUMBER_OF_DIRECTIONS; direction++) {
+				final int neighborX = x + xDeltaArray[direction];
+				final int neighborY = y + yDeltaArray[direction];
+
+				if (isInBounds(neighborX, neighborY)) {
+					final int neighborIdx = getFlatIdx(neighborX, neighborY);
+
+					if (!reachable.get(neighborIdx) && isValidStep(requester, blocked, neighborX, neighborY, blockedAtStartPartition)) {
+						reachable.set(neighborIdx);
+						if (tail == queue.length) {
+							queue = Arrays.copyOf(queue, Math.min(2 * queue.length, width * height));
+						}
+						queue[tail++] = neighborIdx;
+					}
+				}
+			}
+		}
 	}
 
-	private final boolean isInBounds(short x, short y) {
+	private boolean isValidStep(IPathCalculatable requester, boolean fromBlocked, int toX, int toY, short blockedAtStartPartition) {
+		// same rules as in the AStar: if the start position was blocked, we can use blocked positions on the same island until we leave the
+		// blocked area
+		return !isBlocked(requester, toX, toY)
+				|| (blockedAtStartPartition >= 0 && fromBlocked && pathMap.getBlockedPartition(toX, toY) == blockedAtStartPartition);
+	}
+
+	private final boolean isBlocked(IPathCalculatable requester, int x, int y) {
+		return pathMap.isBlocked(requester, x, y);
+	}
+
+	private final int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	private final boolean isInBounds(int x, int y) {
 		return 0 <= x && x < width && 0 <= y && y < height;
 	}
 
@@ -144,6 +232,8 @@ public final class DijkstraAlgorithm {
 			throw new InvalidStartPositionException("dijkstra center position is not in bounds!", request.cX, request.cY);
 		}
 
+		reachableComputed = false;
+
 		MapCircle circle = new MapCircle(request.cX, request.cY, request.maxRadius * MAX_RADIUS_MULTIPLIER);
 
 		short radiusSteps = request.getRadiusSteps();
@@ -71,6 +71,7 @@ import jsettlers.input.tasks.SetTradingWaypointGuiTask;
 import jsettlers.input.tasks.SimpleGuiTask;
 import jsettlers.input.tasks.UpgradeSoldiersGuiTask;
 import jsettlers.input.tasks.WorkAreaGuiTask;
+import jsettlers.logic.GameContext;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.buildings.military.OccupyingBuilding;
 import jsettlers.logic.constants.MatchConstants;
@@ -98,6 +99,8 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 	private final boolean multiplayer;
 	private final ConstructionMarksThread constructionMarksCalculator;
 	private final Timer refreshSelectionTimer;
+	private final GameContext gameContext;
+	private final GuiTaskExecutor taskExecutor;
 
 	/**
 	 * The current selection. This is updated by game logic.
@@ -108,6 +111,7 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 			IGameStoppable gameStoppable, byte playerId, boolean multiplayer) {
 		this.connector = connector;
 		this.clock = clock;
+		this.gameContext = GameContext.current();
 		this.taskScheduler = taskScheduler;
 		this.grid = grid;
 		this.gameStoppable = gameStoppable;
@@ -127,14 +131,15 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 		if(player != null ){
 			player.setMessenger(connector);
 		}
-		clock.setTaskExecutor(new GuiTaskExecutor(grid, this, this.playerId));
+		this.taskExecutor = new GuiTaskExecutor(grid, this, this.playerId);
+		clock.setTaskExecutor(taskExecutor);
 		connector.addListener(this);
 	}
 
 	@Override
 	public void action(IAction action) {
 		if (action.getActionType() != EActionType.SCREEN_CHANGE) {
-			System.out.println("action(Action): " + action.getActionType() + "   at game time: " + MatchConstants.clock().getTime());
+			System.out.println("action(Action): " + action.getActionType() + "   at game time: " + clock.getTime());
 		}
 
 		switch (action.getActionType()) {
@@ -390,7 +395,7 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 			Building next = null;
 			boolean buildingFound = false;
 
-			for (final Building currBuilding : Building.getAllBuildings()) {
+			for (final Building currBuilding : gameContext.getAllBuildings()) {
 				if (currBuilding == building) {
 					buildingFound = true;
 				} else {
@@ -684,6 +689,14 @@ public class GuiInterface implements IMapInterfaceListener, ITaskExecutorGuiInte
 		return connector.getUIState();
 	}
 
+	/**
+	 * @return The states of the players as they are stored in a savegame of the current game state.
+	 * @see GuiTaskExecutor#createPlayerStates()
+	 */
+	public PlayerState[] createPlayerStates() {
+		return taskExecutor.createPlayerStates();
+	}
+
 	/**
 	 * Shuts down used threads.
 	 */
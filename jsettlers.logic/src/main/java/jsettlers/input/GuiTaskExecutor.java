@@ -212,24 +212,34 @@ public class GuiTaskExecutor implements ITaskExecutor {
 		}
 	}
 
-	private void save() {
-		try {
-			byte numberOfPlayers = grid.getNumberOfPlayers();
-			PlayerState[] playerStates = new PlayerState[numberOfPlayers];
-			for (byte playerId = 0; playerId < numberOfPlayers; playerId++) {
-				// find a tower of the player
-				UIState uiState = null;
-				for (Building building : Building.getAllBuildings()) {
-					if (building.getPlayer().playerId == playerId && building instanceof OccupyingBuilding) {
-						uiState = new UIState(building.getPos());
-						break;
-					}
+	/**
+	 * Creates the states of the players that are stored in a savegame. The own player keeps its current ui state and fog of war, the other
+	 * players look at one of their towers.
+	 * 
+	 * @return The states of all players.
+	 */
+	public PlayerState[] createPlayerStates() {
+		byte numberOfPlayers = grid.getNumberOfPlayers();
+		PlayerState[] playerStates = new PlayerState[numberOfPlayers];
+		for (byte playerId = 0; playerId < numberOfPlayers; playerId++) {
+			// find a tower of the player
+			UIState uiState = null;
+			for (Building building : Building.getAllBuildings()) {
+				if (building.getPlayer().playerId == playerId && building instanceof OccupyingBuilding) {
+					uiState = new UIState(building.getPos());
+					break;
 				}
-
-				playerStates[playerId] = new PlayerState(playerId, uiState);
 			}
-			playerStates[playerId] = new PlayerState(this.playerId, guiInterface.getUIState(), grid.getFogOfWar());
-			grid.save(playerStates);
+
+			playerStates[playerId] = new PlayerState(playerId, uiState);
+		}
+		playerStates[playerId] = new PlayerState(this.playerId, guiInterface.getUIState(), grid.getFogOfWar());
+		return playerStates;
+	}
+
+	private void save() {
+		try {
+			grid.save(createPlayerStates());
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.common.logging.StatisticsStopWatch;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.buildings.trading.MarketBuilding;
+import jsettlers.logic.constants.ExtendedRandom;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.movable.MovableStore;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.network.client.interfaces.IExecutionScope;
+import jsettlers.network.client.interfaces.IGameClock;
+
+/**
+ * Holds the state of one running game that used to be process wide: the game clock, the random number generators, the
+ * {@link RescheduleTimer} and the registries of the {@link Movable}s and {@link Building}s.
+ * <p />
+ * The static accessors like {@link jsettlers.logic.constants.MatchConstants#clock()} or {@link RescheduleTimer#add} use the context bound to
+ * the current thread. Threads started by a thread with a bound context inherit it. The game clock binds the context for every time slice it
+ * executes, as this context is its {@link IExecutionScope}. Threads without a bound context (e.g. the UI threads or single game tests) use the
+ * {@link #getDefault() default context}. This way, several games can be simulated in parallel in one process, each one with its own context.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class GameContext implements IExecutionScope {
+	private static final GameContext DEFAULT_CONTEXT = new GameContext();
+	private static final InheritableThreadLocal<GameContext> BOUND_CONTEXT = new InheritableThreadLocal<GameContext>();
+	private static final Comparator<Building> BUILDING_SEQUENCE_COMPARATOR = new Comparator<Building>() {
+		@Override
+		public int compare(Building building1, Building building2) {
+			return Long.compare(building1.getSequence(), building2.getSequence());
+		}
+	};
+
+	private final MovableStore movableStore = new MovableStore();
+	private final ConcurrentLinkedQueue<Movable> allMovables = new ConcurrentLinkedQueue<Movable>();
+	private final ConcurrentLinkedQueue<Building> allBuildings = new ConcurrentLinkedQueue<Building>();
+	private final List<MarketBuilding> allMarkets = new ArrayList<MarketBuilding>();
+	private long nextBuildingSequence;
+	private long buildingsStateHash;
+
+	private IGameClock clock;
+	private ExtendedRandom gameRandom;
+	private ExtendedRandom aiRandom;
+	private volatile RescheduleTimer rescheduleTimer;
+
+	private final StatisticsStopWatch savePauseStopWatch = new StatisticsStopWatch();
+
+	/**
+	 * @return The context bound to the current thread or the default context if no context is bound.
+	 */
+	public static GameContext current() {
+		GameContext context = BOUND_CONTEXT.get();
+		return context != null ? context : DEFAULT_CONTEXT;
+	}
+
+	/**
+	 * @return The context used by threads that don't have a bound context.
+	 */
+	public static GameContext getDefault() {
+		return DEFAULT_CONTEXT;
+	}
+
+	/**
+	 * Binds this context to the current thread.
+	 * 
+	 * @return The context that has been bound to the thread before. It must be handed to {@link #restore(GameContext)} when this context isn't
+	 *         needed any more.
+	 */
+	public GameContext bind() {
+		GameContext previous = BOUND_CONTEXT.get();
+		BOUND_CONTEXT.set(this);
+		return previous;
+	}
+
+	/**
+	 * Restores the binding of the current thread as it was before {@link #bind()} has been called.
+	 * 
+	 * @param previous
+	 *            The value returned by {@link #bind()}.
+	 */
+	public static void restore(GameContext previous) {
+		if (previous == null) {
+			BOUND_CONTEXT.remove();
+		} else {
+			BOUND_CONTEXT.set(previous);
+		}
+	}
+
+	@Override
+	public Object enterExecution() {
+		return bind();
+	}
+
+	@Override
+	public void exitExecution(Object previousState) {
+		restore((GameContext) previousState);
+	}
+
+	/**
+	 * Starts a new match in this context.
+	 * 
+	 * @param clock
+	 *            The clock of the match.
+	 * @param randomSeed
+	 *            The seed of the random number generators.
+	 */
+	public void init(IGameClock clock, long randomSeed) {
+		clearMatch();
+		this.clock = clock;
+		this.gameRandom = new ExtendedRandom(randomSeed);
+		this.aiRandom = new ExtendedRandom(randomSeed);
+	}
+
+	/**
+	 * Stops the clock and removes clock and random number generators.
+	 */
+	public void clearMatch() {
+		if (clock != null) {
+			clock.stopExecution();
+		}
+		clock = null;
+		gameRandom = null;
+		aiRandom = null;
+	}
+
+	/**
+	 * Removes the complete state of the game from this context.
+	 */
+	public void clear() {
+		RescheduleTimer.stopAndClear(this);
+		allMovables.clear();
+		movableStore.clear();
+		clearBuildings();
+		allMarkets.clear();
+		nextBuildingSequence = 0;
+		clearMatch();
+	}
+
+	/**
+	 * Removes all buildings from the registry of all buildings.
+	 */
+	public void clearBuildings() {
+		allBuildings.clear();
+		buildingsStateHash = 0;
+	}
+
+	public IGameClock getClock() {
+		return clock;
+	}
+
+	public ExtendedRandom getRandom() {
+		return gameRandom;
+	}
+
+	public ExtendedRandom getAiRandom() {
+		return aiRandom;
+	}
+
+	/**
+	 * @return The stop watch measuring how long the game has been paused to save it.
+	 */
+	public StatisticsStopWatch getSavePauseStopWatch() {
+		return savePauseStopWatch;
+	}
+
+	public void setRandoms(ExtendedRandom gameRandom, ExtendedRandom aiRandom) {
+		this.gameRandom = gameRandom;
+		this.aiRandom = aiRandom;
+	}
+
+	public RescheduleTimer getRescheduleTimer() {
+		return rescheduleTimer;
+	}
+
+	public void setRescheduleTimer(RescheduleTimer rescheduleTimer) {
+		this.rescheduleTimer = rescheduleTimer;
+	}
+
+	public MovableStore getMovableStore() {
+		return movableStore;
+	}
+
+	public ConcurrentLinkedQueue<Movable> getAllMovables() {
+		return allMovables;
+	}
+
+	public ConcurrentLinkedQueue<Building> getAllBuildings() {
+		return allBuildings;
+	}
+
+	public List<MarketBuilding> getAllMarkets() {
+		return allMarkets;
+	}
+
+	/**
+	 * Numbers the buildings in the order of their creation, which is the order of the registries of all buildings and markets.
+	 * 
+	 * @return The sequence number of a new building.
+	 */
+	public long nextBuildingSequence() {
+		return nextBuildingSequence++;
+	}
+
+	/**
+	 * Makes sure a building that has been loaded keeps a lower sequence number than the buildings created afterwards.
+	 * 
+	 * @param sequence
+	 *            The sequence number of the loaded building.
+	 */
+	public void loadedBuildingSequence(long sequence) {
+		nextBuildingSequence = Math.max(nextBuildingSequence, sequence + 1);
+	}
+
+	/**
+	 * Updates the state hash of the buildings when the hashed state of a building changes. Buildings that are added or removed pass 0 as their old
+	 * or new hash.
+	 * 
+	 * @param oldHash
+	 *            The {@link StateHash} of the building before the change.
+	 * @param newHash
+	 *            The {@link StateHash} of the building after the change.
+	 */
+	public void buildingStateHashChanged(long oldHash, long newHash) {
+		buildingsStateHash += newHash - oldHash;
+	}
+
+	/**
+	 * @return The sum of the state hashes of all buildings.
+	 */
+	public long getBuildingsStateHash() {
+		return buildingsStateHash;
+	}
+
+	/**
+	 * Restores the order of the registries of all buildings and markets after a game has been loaded. The buildings register themselves in the
+	 * order of the deserialization, but the game logic iterates these registries. Therefore, their order of creation needs to be restored to
+	 * continue a loaded game exactly like the saved one.
+	 */
+	public void restoreBuildingOrder() {
+		List<Building> buildings = new ArrayList<Building>(allBuildings);
+		Collections.sort(buildings, BUILDING_SEQUENCE_COMPARATOR);
+		allBuildings.clear();
+		allBuildings.addAll(buildings);
+
+		Collections.sort(allMarkets, BUILDING_SEQUENCE_COMPARATOR);
+	}
+}
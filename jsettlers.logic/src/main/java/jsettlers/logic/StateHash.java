@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic;
+
+/**
+ * Hash functions for the incremental hashes of the game state. The state hash of a component of the game is the sum of the hashes of its
+ * elements. Therefore it doesn't depend on the order of the elements and can be updated in constant time when an element changes by subtracting
+ * the hash of its old value and adding the hash of the new one.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class StateHash {
+	private StateHash() {
+	}
+
+	/**
+	 * Hashes the value of an element of the game state.
+	 * 
+	 * @param key
+	 *            A key that identifies the element, e.g. its id or position.
+	 * @param value
+	 *            The state of the element.
+	 * @return The hash of the element that can be added to the state hash of the component.
+	 */
+	public static long hash(long key, long value) {
+		return mix(mix(key) + value);
+	}
+
+	/**
+	 * The finalizer of SplitMix64. It is a bijection that spreads every input bit over the whole result.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
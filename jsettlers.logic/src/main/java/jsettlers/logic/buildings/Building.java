@@ -37,6 +37,8 @@ import jsettlers.common.player.IPlayerable;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.selectable.ESelectionType;
+import jsettlers.logic.GameContext;
+import jsettlers.logic.StateHash;
 import jsettlers.logic.buildings.military.Barrack;
 import jsettlers.logic.buildings.military.OccupyingBuilding;
 import jsettlers.logic.buildings.others.DefaultBuilding;
@@ -62,6 +64,7 @@ import jsettlers.logic.movable.interfaces.IDebugable;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.timer.IScheduledTimerable;
 import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TimerSlotLink;
 
 public abstract class Building extends AbstractHexMapObject implements IConstructableBuilding, IPlayerable, IBuilding, IScheduledTimerable,
 		IDebugable, IDiggerRequester, IViewDistancable {
@@ -78,7 +81,6 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	private static final EPriority[] SUPPORTED_PRIORITIES_FOR_CONSTRUCTION = new EPriority[]{EPriority.LOW, EPriority.HIGH, EPriority.STOPPED};
 	private static final EPriority[] SUPPORTED_PRIORITIES_FOR_NON_WORKERS = new EPriority[0];
 
-	private static final ConcurrentLinkedQueue<Building> allBuildings = new ConcurrentLinkedQueue<Building>();
 
 
 	protected final EBuildingType type;
@@ -88,6 +90,8 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	private Player player;
 	private EBuildingState state = EBuildingState.CREATED;
 	private EPriority priority = EPriority.DEFAULT;
+	private final TimerSlotLink timerSlotLink = new TimerSlotLink(this);
+	private final long sequence;
 
 	private float constructionProgress = 0.0f;
 	private byte heightAvg;
@@ -103,12 +107,40 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 		this.pos = position;
 		this.grid = buildingsGrid;
 
-		allBuildings.add(this);
+		GameContext context = GameContext.current();
+		this.sequence = context.nextBuildingSequence();
+		context.getAllBuildings().add(this);
+		context.buildingStateHashChanged(0, getStateHash());
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
-		allBuildings.add(this);
+		GameContext context = GameContext.current();
+		context.loadedBuildingSequence(sequence);
+		context.getAllBuildings().add(this);
+		context.buildingStateHashChanged(0, getStateHash());
+	}
+
+	/**
+	 * @return The number of this building in the order of creation.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return The {@link StateHash} of the position, type, player and state of this building.
+	 */
+	private long getStateHash() {
+		long value = (pos.x & 0xFFFFL) | (pos.y & 0xFFFFL) << 16 | (long) type.ordinal() << 32 | (player.playerId & 0xFFL) << 40
+				| (long) state.ordinal() << 48;
+		return StateHash.hash(sequence, value);
+	}
+
+	private void setState(EBuildingState state) {
+		long oldStateHash = getStateHash();
+		this.state = state;
+		GameContext.current().buildingStateHashChanged(oldStateHash, getStateHash());
 	}
 
 	@Override
@@ -151,7 +183,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	}
 
 	private void appearFullyConstructed() {
-		this.state = EBuildingState.CONSTRUCTED;
+		setState(EBuildingState.CONSTRUCTED);
 
 		grid.setBlocked(getBuildingArea(), true);
 		finishConstruction();
@@ -167,7 +199,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 
 		placeAdditionalMapObjects(grid, pos, true);
 
-		this.state = EBuildingState.CREATED;
+		setState(EBuildingState.CREATED);
 		RescheduleTimer.add(this, IS_UNSTOPPED_RECHECK_PERIOD);
 	}
 
@@ -271,7 +303,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 				if (priority == EPriority.STOPPED) {
 					return IS_UNSTOPPED_RECHECK_PERIOD;
 				} else {
-					state = EBuildingState.IN_FLATTERNING;
+					setState(EBuildingState.IN_FLATTERNING);
 					requestDiggers();
 				}
 
@@ -281,13 +313,13 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 				} else {
 					placeAdditionalMapObjects(grid, pos, false);
 					grid.setBlocked(getBuildingArea(), true);
-					this.state = EBuildingState.WAITING_FOR_MATERIAL;
+					setState(EBuildingState.WAITING_FOR_MATERIAL);
 					// directly go into the next case!
 				}
 
 			case WAITING_FOR_MATERIAL:
 				if (priority != EPriority.STOPPED && (isMaterialAvailable() || remainingMaterialActions > 0)) {
-					state = EBuildingState.BRICKLAYERS_REQUESTED;
+					setState(EBuildingState.BRICKLAYERS_REQUESTED);
 					requestBricklayers();
 					return -1; // no new scheduling
 				} else {
@@ -337,7 +369,9 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	}
 
 	public void setPlayer(Player player) {
+		long oldStateHash = getStateHash();
 		this.player = player;
+		GameContext.current().buildingStateHashChanged(oldStateHash, getStateHash());
 	}
 
 	public final Player getPlayer() {
@@ -364,7 +398,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 				if (areAllStacksFullfilled()) {
 					finishConstruction();
 				} else {
-					state = EBuildingState.WAITING_FOR_MATERIAL;
+					setState(EBuildingState.WAITING_FOR_MATERIAL);
 					RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD);
 				}
 				return false;
@@ -394,7 +428,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 		constructionProgress = 1;
 		this.setPriority(EPriority.DEFAULT);
 
-		this.state = EBuildingState.CONSTRUCTED;
+		setState(EBuildingState.CONSTRUCTED);
 		if (getFlagType() == EMapObjectType.FLAG_DOOR) { // this building has no worker
 			stacks = createWorkStacks();
 		} else {
@@ -456,11 +490,19 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 		}
 
 		releaseRequestStacks();
-		allBuildings.remove(this);
+		GameContext context = GameContext.current();
+		context.getAllBuildings().remove(this);
+		context.buildingStateHashChanged(getStateHash(), 0);
+		RescheduleTimer.remove(this);
 		this.state = EBuildingState.DESTROYED;
 		this.selected = false;
 	}
 
+	@Override
+	public TimerSlotLink getTimerSlotLink() {
+		return timerSlotLink;
+	}
+
 	private void placeReusableMaterials() {
 		int posIdx = 0;
 		FreeMapArea buildingArea = new FreeMapArea(this.pos, type.getBlockedTiles());
@@ -564,11 +606,11 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	}
 
 	public static ConcurrentLinkedQueue<Building> getAllBuildings() {
-		return allBuildings;
+		return GameContext.current().getAllBuildings();
 	}
 
 	public static void clearState() {
-		allBuildings.clear();
+		GameContext.current().clearBuildings();
 	}
 
 	@Override
@@ -622,11 +664,11 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 		if (newPriority == EPriority.STOPPED) {
 			switch (state) {
 				case IN_FLATTERNING:
-					state = EBuildingState.CREATED; // we're still scheduled in this state => no rescheduling!
+					setState(EBuildingState.CREATED); // we're still scheduled in this state => no rescheduling!
 					break;
 
 				case BRICKLAYERS_REQUESTED:
-					state = EBuildingState.WAITING_FOR_MATERIAL;
+					setState(EBuildingState.WAITING_FOR_MATERIAL);
 					RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD); // we're not scheduled atm => reschedule!
 					break;
 			}
@@ -27,6 +27,7 @@ import jsettlers.common.material.EPriority;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.utils.collections.IPredicate;
 import jsettlers.common.utils.collections.IteratorFilter;
+import jsettlers.logic.GameContext;
 import jsettlers.logic.buildings.IBuildingsGrid;
 import jsettlers.logic.buildings.stack.IRequestStack;
 import jsettlers.logic.movable.strategies.trading.IDonkeyMarket;
@@ -40,10 +41,8 @@ import jsettlers.logic.player.Player;
 public class MarketBuilding extends TradingBuilding implements IDonkeyMarket {
 	private static final long serialVersionUID = 4979115926871683024L;
 
-	private static final List<MarketBuilding> ALL_MARKETS = new ArrayList<MarketBuilding>();
-
 	public static Iterable<MarketBuilding> getAllMarkets(final Player player) {
-		return new IteratorFilter<>(ALL_MARKETS, new IPredicate<MarketBuilding>() {
+		return new IteratorFilter<>(GameContext.current().getAllMarkets(), new IPredicate<MarketBuilding>() {
 			@Override
 			public boolean evaluate(MarketBuilding building) {
 				return building.getPlayer() == player;
@@ -52,23 +51,23 @@ public class MarketBuilding extends TradingBuilding implements IDonkeyMarket {
 	}
 
 	public static void clearState() {
-		ALL_MARKETS.clear();
+		GameContext.current().getAllMarkets().clear();
 	}
 
 	public MarketBuilding(EBuildingType type, Player player, ShortPoint2D position, IBuildingsGrid buildingsGrid) {
 		super(type, player, position, buildingsGrid, false);
-		ALL_MARKETS.add(this);
+		GameContext.current().getAllMarkets().add(this);
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
-		ALL_MARKETS.add(this);
+		GameContext.current().getAllMarkets().add(this);
 	}
 
 	@Override
 	protected void killedEvent() {
 		super.killedEvent();
-		ALL_MARKETS.remove(this);
+		GameContext.current().getAllMarkets().remove(this);
 	}
 
 	@Override
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
+import jsettlers.logic.GameContext;
 import jsettlers.network.client.interfaces.IGameClock;
 
 /**
@@ -45,51 +46,62 @@ public final class MatchConstants {
 	 */
 	public static boolean ENABLE_DEBUG_COLORS = true;
 
+	/**
+	 * NOTE: this value has only an effect if it's changed before the MainGrid is created! <br>
+	 * if true, long distance paths are calculated with the hierarchical path finder. Its paths differ from the ones of the full grid search, so
+	 * replays recorded with a different value of this flag will not be reproduced correctly.
+	 */
+	public static boolean ENABLE_HIERARCHICAL_PATHFINDING = false;
+
+	/**
+	 * NOTE: this value has only an effect if it's changed before the MainGrid is created! <br>
+	 * if true, paths are reused from an LRU cache. Cached paths don't get shorter when positions are unblocked, so replays recorded with a
+	 * different value of this flag will not be reproduced correctly.
+	 */
+	public static boolean ENABLE_PATH_CACHE = false;
+
 	private MatchConstants() {
 	}
 
-	private static IGameClock clock;
-	private static ExtendedRandom gameRandom;
-	private static ExtendedRandom aiRandom;
-
+	/**
+	 * Starts a new match in the {@link GameContext} of the current thread.
+	 * 
+	 * @param clock
+	 * @param randomSeed
+	 */
 	public static void init(IGameClock clock, long randomSeed) {
-		clearState();
-		MatchConstants.clock = clock;
-		MatchConstants.gameRandom = new ExtendedRandom(randomSeed);
-		MatchConstants.aiRandom = new ExtendedRandom(randomSeed);
+		GameContext.current().init(clock, randomSeed);
 	}
 
 	public static void clearState() {
-		if (clock != null) {
-			clock.stopExecution();
-		}
-		clock = null;
-		gameRandom = null;
-		aiRandom = null;
+		GameContext.current().clearMatch();
 	}
 
 	public static IGameClock clock() {
-		return clock;
+		return GameContext.current().getClock();
 	}
 
 	public static ExtendedRandom random() {
-		return gameRandom;
+		return GameContext.current().getRandom();
 	}
 
 	public static ExtendedRandom aiRandom() {
-		return aiRandom;
+		return GameContext.current().getAiRandom();
 	}
 
 	public static void serialize(ObjectOutputStream oos) throws IOException {
-		oos.writeInt(clock.getTime());
-		oos.writeObject(gameRandom);
-		oos.writeObject(aiRandom);
+		GameContext context = GameContext.current();
+		oos.writeInt(context.getClock().getTime());
+		oos.writeObject(context.getRandom());
+		oos.writeObject(context.getAiRandom());
 	}
 
 	public static void deserialize(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		clock.setTime(ois.readInt());
-		gameRandom = (ExtendedRandom) ois.readObject();
-		aiRandom = (ExtendedRandom) ois.readObject();
+		GameContext context = GameContext.current();
+		context.getClock().setTime(ois.readInt());
+		ExtendedRandom gameRandom = (ExtendedRandom) ois.readObject();
+		ExtendedRandom aiRandom = (ExtendedRandom) ois.readObject();
+		context.setRandoms(gameRandom, aiRandom);
 	}
 
 }
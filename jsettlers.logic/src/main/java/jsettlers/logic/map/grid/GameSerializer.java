@@ -15,13 +15,37 @@
 package jsettlers.logic.map.grid;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import jsettlers.common.map.MapLoadException;
+import jsettlers.input.PlayerState;
+import jsettlers.logic.GameContext;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.loading.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.map.loading.savegame.SavegameReader;
+import jsettlers.logic.map.loading.savegame.SavegameSnapshot;
+import jsettlers.logic.map.loading.savegame.SavegameWriter;
+import jsettlers.logic.map.loading.savegame.UnsupportedSavegameVersionException;
+import jsettlers.logic.timer.RescheduleTimer;
 
 /**
  * This class serializes and deserializes the {@link MainGrid} and therefore the complete game state.
+ * <p />
+ * The game state is written in the chunked format of {@link SavegameWriter}. The first object chunk contains the {@link MatchConstants}, the
+ * second one the player states, the {@link MainGrid} and the {@link RescheduleTimer}. The big primitive arrays of the grids are written as
+ * array chunks in front of the second object chunk.
+ * <p />
+ * Saving is split into taking a {@link SavegameSnapshot} of the game state, which has to be done while the game is paused, and writing that
+ * snapshot, which can be done on any thread while the game continues. The snapshot is taken on a single, persistent save thread with a large
+ * stack, as the serialization of the object graph recurses deeply.
  * 
  * @author Andreas Eberle
  * 
@@ -32,86 +56,209 @@ public class GameSerializer {
 	private static final long LOAD_STACK_SIZE = 1024 * 1024; // size of the load thread's stack
 
 	/**
-	 * Saves the grid to the given output file.
+	 * Takes the snapshots one after the other. The thread is a daemon, as the callers wait for their snapshots anyway.
+	 */
+	private static final ExecutorService SAVE_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(null, runnable, "SaveThread", SAVE_STACK_SIZE);
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final boolean compressChunks;
+
+	/**
+	 * 
+	 * @param compressChunks
+	 *            If <code>true</code>, the chunks of the savegame are deflated. This is only useful if the savegame file is not compressed as
+	 *            a whole.
+	 */
+	public GameSerializer(boolean compressChunks) {
+		this.compressChunks = compressChunks;
+	}
+
+	public GameSerializer() {
+		this(false);
+	}
+
+	/**
+	 * Saves the game state to the given output stream. The stream is not closed.
 	 * 
+	 * @param playerStates
+	 *            The ui states of the players.
 	 * @param grid
 	 *            The grid to use.
 	 * @param out
 	 *            The output file/stream for the game.
 	 * @throws IOException
 	 */
-	public void save(MainGrid grid, final ObjectOutputStream oos) throws IOException {
-		GameSaveTask runnable = new GameSaveTask(grid, oos);
-		Thread t = new Thread(null, runnable, "SaveThread", SAVE_STACK_SIZE);
-		t.start();
+	public void save(PlayerState[] playerStates, MainGrid grid, OutputStream out) throws IOException {
+		write(snapshot(playerStates, grid), out);
+	}
+
+	/**
+	 * Takes a snapshot of the game state. The game must be paused while the snapshot is taken. Afterwards, the snapshot is independent of the
+	 * game state. The snapshot is taken on the save thread, which is bound to the {@link GameContext} of the calling thread meanwhile.
+	 * 
+	 * @param playerStates
+	 *            The ui states of the players.
+	 * @param grid
+	 *            The grid to use.
+	 * @return The snapshot that can be written with {@link #write(SavegameSnapshot, OutputStream)}.
+	 * @throws IOException
+	 */
+	public SavegameSnapshot snapshot(PlayerState[] playerStates, MainGrid grid) throws IOException {
 		try {
-			t.join();
+			return SAVE_EXECUTOR.submit(new SnapshotTask(GameContext.current(), playerStates, grid)).get();
 		} catch (InterruptedException e) {
 			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error saving map.", e.getCause());
 		}
+	}
 
-		if (runnable.exception != null) {
-			throw new IOException("Error saving map.", runnable.exception);
-		}
-
-		oos.flush();
+	/**
+	 * Writes a snapshot taken with {@link #snapshot(PlayerState[], MainGrid)} to the given output stream. The stream is not closed.
+	 * 
+	 * @param snapshot
+	 *            The snapshot to write.
+	 * @param out
+	 *            The output file/stream for the game.
+	 * @throws IOException
+	 */
+	public void write(SavegameSnapshot snapshot, OutputStream out) throws IOException {
+		snapshot.writeTo(out, compressChunks);
+		out.flush();
 	}
 
-	public MainGrid load(final ObjectInputStream ois) throws MapLoadException {
+	/**
+	 * Loads the game state from the given input stream. The {@link MatchConstants} and the {@link RescheduleTimer} are restored as a side
+	 * effect.
+	 * 
+	 * @param in
+	 *            The input stream positioned behind the map header.
+	 * @return The loaded grid and the player states.
+	 * @throws MapLoadException
+	 *             If the game can't be loaded. If the savegame has been written by another version, the message says so.
+	 */
+	public MainGridWithUiSettings load(InputStream in) throws MapLoadException {
 		try {
-			LoadRunnable runnable = new LoadRunnable(ois);
+			LoadRunnable runnable = new LoadRunnable(new SavegameReader(in));
 			Thread t = new Thread(null, runnable, "LoadThread", LOAD_STACK_SIZE);
 			t.start();
 			t.join();
 
 			if (runnable.grid != null) {
-				return runnable.grid;
+				return new MainGridWithUiSettings(runnable.grid, runnable.playerStates);
+			} else if (runnable.exception instanceof UnsupportedSavegameVersionException) {
+				throw new MapLoadException(runnable.exception.getMessage(), runnable.exception);
 			} else {
 				throw new MapLoadException("Error loading map.", runnable.exception);
 			}
+		} catch (MapLoadException e) {
+			throw e;
 		} catch (Throwable t) {
 			throw new MapLoadException(t);
 		}
 	}
 
-	private final class GameSaveTask implements Runnable {
+	/**
+	 * Reads only the {@link MatchConstants} of a savegame. Afterwards, the stream is positioned behind the first object chunk.
+	 * 
+	 * @param in
+	 *            The input stream positioned behind the map header.
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public static void readMatchConstants(InputStream in) throws IOException, ClassNotFoundException {
+		SavegameReader reader = new SavegameReader(in);
+		reader.readHeader();
+		reader.readObjects(new MatchConstantsReader());
+	}
+
+	private static final class MatchConstantsReader implements SavegameReader.IObjectsReader {
+		@Override
+		public void readObjects(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+			MatchConstants.deserialize(ois);
+		}
+	}
+
+	private static final class SnapshotTask implements Callable<SavegameSnapshot> {
+		private final GameContext context;
+		private final PlayerState[] playerStates;
 		private final MainGrid grid;
-		private final ObjectOutputStream oos;
-		Throwable exception = null;
 
-		private GameSaveTask(MainGrid grid, ObjectOutputStream oos) {
+		private SnapshotTask(GameContext context, PlayerState[] playerStates, MainGrid grid) {
+			this.context = context;
+			this.playerStates = playerStates;
 			this.grid = grid;
-			this.oos = oos;
 		}
 
 		@Override
-		public void run() {
+		public SavegameSnapshot call() throws Exception {
+			GameContext previousContext = context.bind();
 			try {
-				oos.writeObject(grid);
+				SavegameSnapshot snapshot = new SavegameSnapshot();
+				snapshot.addObjects(new SavegameWriter.IObjectsWriter() {
+					@Override
+					public void writeObjects(ObjectOutputStream oos) throws IOException {
+						MatchConstants.serialize(oos);
+					}
+				});
+				snapshot.addObjects(new SavegameWriter.IObjectsWriter() {
+					@Override
+					public void writeObjects(ObjectOutputStream oos) throws IOException {
+						oos.writeObject(playerStates);
+						oos.writeObject(grid);
+						RescheduleTimer.saveTo(oos);
+					}
+				});
+				return snapshot;
 			} catch (Throwable t) {
 				t.printStackTrace();
-				this.exception = t;
+				throw t;
+			} finally {
+				GameContext.restore(previousContext);
 			}
 		}
 	}
 
-	private static final class LoadRunnable implements Runnable {
-		private final ObjectInputStream ois;
+	private static final class LoadRunnable implements Runnable, SavegameReader.IObjectsReader {
+		private final SavegameReader reader;
+		PlayerState[] playerStates = null;
 		MainGrid grid = null;
 		Throwable exception = null;
 
-		private LoadRunnable(ObjectInputStream ois) {
-			this.ois = ois;
+		private LoadRunnable(SavegameReader reader) {
+			this.reader = reader;
 		}
 
 		@Override
 		public void run() {
 			try {
-				grid = (MainGrid) ois.readObject();
+				reader.readHeader();
+				reader.readObjects(new MatchConstantsReader());
+				reader.readObjects(this);
+				reader.readEnd();
 			} catch (Throwable t) {
 				t.printStackTrace();
 				this.exception = t;
+				this.grid = null;
+			}
+		}
+
+		@Override
+		public void readObjects(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+			playerStates = (PlayerState[]) ois.readObject();
+			grid = (MainGrid) ois.readObject();
+			try {
+				RescheduleTimer.loadFrom(ois);
+			} catch (MapLoadException e) {
+				throw new IOException(e);
 			}
+			GameContext.current().restoreBuildingOrder();
 		}
 	}
 
@@ -33,11 +33,13 @@ import jsettlers.algorithms.landmarks.EnclosedBlockedAreaFinderAlgorithm;
 import jsettlers.algorithms.landmarks.IEnclosedBlockedAreaFinderGrid;
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.PathCache;
 import jsettlers.algorithms.path.area.IInAreaFinderMap;
 import jsettlers.algorithms.path.area.InAreaFinder;
 import jsettlers.algorithms.path.astar.AbstractAStar;
 import jsettlers.algorithms.path.astar.BucketQueueAStar;
 import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.algorithms.path.astar.hierarchical.HierarchicalAStar;
 import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
 import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
 import jsettlers.algorithms.previewimage.PreviewImageCreator;
@@ -47,6 +49,7 @@ import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.buildings.IBuilding;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.logging.StatisticsStopWatch;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.map.IGraphicsGrid;
@@ -78,6 +81,7 @@ import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.input.IGuiInputGrid;
 import jsettlers.input.PlayerState;
+import jsettlers.logic.GameContext;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.buildings.IBuildingsGrid;
 import jsettlers.logic.buildings.MaterialProductionSettings;
@@ -87,6 +91,7 @@ import jsettlers.logic.buildings.workers.WorkerBuilding;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.flags.FlagsGrid;
+import jsettlers.logic.map.grid.flags.IBlockingChangedListener;
 import jsettlers.logic.map.grid.landscape.LandscapeGrid;
 import jsettlers.logic.map.grid.movable.MovableGrid;
 import jsettlers.logic.map.grid.objects.AbstractHexMapObject;
@@ -113,15 +118,22 @@ import jsettlers.logic.objects.arrow.ArrowObject;
 import jsettlers.logic.objects.stack.StackMapObject;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.player.PlayerSetting;
+import jsettlers.network.client.interfaces.IGameClock;
+import jsettlers.network.client.interfaces.IStateHashSupplier;
 
 /**
  * This is the main grid offering an interface for interacting with the grid.
  *
  * @author Andreas Eberle
  */
-public final class MainGrid implements Serializable {
+public final class MainGrid implements Serializable, IStateHashSupplier {
 	private static final long serialVersionUID = 3824511313693431423L;
 
+	/**
+	 * The names of the components of the game state in the order of their hashes returned by {@link #getStateHashes()}.
+	 */
+	public static final String[] STATE_HASH_COMPONENTS = { "movables", "buildings", "partitions", "stacks" };
+
 	final String mapId;
 	final String mapName;
 
@@ -144,6 +156,7 @@ public final class MainGrid implements Serializable {
 	transient BordersThread bordersThread;
 	transient IGuiInputGrid guiInputGrid;
 	private transient IEnclosedBlockedAreaFinderGrid enclosedBlockedAreaFinderGrid;
+	private transient GameContext gameContext;
 
 	public MainGrid(String mapId, String mapName, short width, short height, PlayerSetting[] playerSettings) {
 		this.mapId = mapId;
@@ -175,15 +188,37 @@ public final class MainGrid implements Serializable {
 	}
 
 	private void initAdditional() {
+		this.gameContext = GameContext.current();
 		this.graphicsGrid = new GraphicsGrid();
 		this.constructionMarksGrid = new ConstructionMarksGrid();
 		this.bordersThread = new BordersThread(new BordersThreadGrid());
 		this.guiInputGrid = new GuiInputGrid();
 
 		this.partitionsGrid.setPlayerChangedListener(new PlayerChangedListener());
+		this.flagsGrid.setPathfinderBlockingChangedListener(movablePathfinderGrid.pathfinderBlockingChangedListener);
 		this.enclosedBlockedAreaFinderGrid = new EnclosedBlockedAreaFinderGrid();
 	}
 
+	/**
+	 * @return The {@link GameContext} this grid has been created or loaded in.
+	 */
+	public GameContext getGameContext() {
+		return gameContext;
+	}
+
+	/**
+	 * The hashes are maintained incrementally when the game state changes, so this is cheap.
+	 */
+	@Override
+	public long[] getStateHashes() {
+		return new long[] {
+				gameContext.getMovableStore().getStateHash(),
+				gameContext.getBuildingsStateHash(),
+				partitionsGrid.getStateHash(),
+				mapObjectsManager.getStacksStateHash()
+		};
+	}
+
 	public final short getHeight() {
 		return height;
 	}
@@ -202,6 +237,7 @@ public final class MainGrid implements Serializable {
 
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		movablePathfinderGrid.initPathfinders();
 		initAdditional();
 		this.bordersThread.checkArea(0, 0, width, height);
 	}
@@ -1042,21 +1078,33 @@ public final class MainGrid implements Serializable {
 		private transient AbstractAStar aStar;
 		transient DijkstraAlgorithm dijkstra; // not private, because it's used by BuildingsGrid
 		private transient InAreaFinder inAreaFinder;
+		transient IBlockingChangedListener pathfinderBlockingChangedListener; // not private, because it's registered by the MainGrid
+		transient PathCache pathCache; // not private, because it's used by the PlayerChangedListener
 
 		public MovablePathfinderGrid() {
 			initPathfinders();
 		}
 
-		private final void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
-			ois.defaultReadObject();
-			initPathfinders();
-		}
-
-		private final void initPathfinders() {
+		/**
+		 * Creates the pathfinders. On deserialization, this is called by the {@link MainGrid} when its fields are completely read, as newer Java
+		 * versions set the primitive fields (like {@link MainGrid#width}) only after all object fields have been read.
+		 */
+		final void initPathfinders() {
 			pathfinderGrid = new PathfinderGrid();
 
 			aStar = new BucketQueueAStar(pathfinderGrid, width, height);
-			dijkstra = new DijkstraAlgorithm(pathfinderGrid, aStar, width, height);
+			if (MatchConstants.ENABLE_HIERARCHICAL_PATHFINDING) {
+				HierarchicalAStar hierarchicalAStar = new HierarchicalAStar(pathfinderGrid, aStar, width, height);
+				aStar = hierarchicalAStar;
+				pathfinderBlockingChangedListener = hierarchicalAStar;
+			}
+			if (MatchConstants.ENABLE_PATH_CACHE) {
+				pathCache = new PathCache(aStar, width, height);
+				aStar = pathCache;
+				pathfinderBlockingChangedListener = pathCache;
+			}
+
+			dijkstra = new DijkstraAlgorithm(pathfinderGrid, aStar, pathfinderGrid, width, height);
 			inAreaFinder = new InAreaFinder(pathfinderGrid, width, height);
 		}
 
@@ -1797,8 +1845,11 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public final void save(PlayerState[] playerStates) throws FileNotFoundException, IOException, InterruptedException {
-			boolean savedPausingState = MatchConstants.clock().isPausing();
-			MatchConstants.clock().setPausing(true);
+			IGameClock clock = gameContext.getClock();
+			StatisticsStopWatch pauseStopWatch = gameContext.getSavePauseStopWatch();
+			pauseStopWatch.restart();
+			boolean savedPausingState = clock.isPausing();
+			clock.setPausing(true);
 			try {
 				Thread.sleep(300); // FIXME @Andreas serializer should wait until threads did their work!
 			} catch (InterruptedException e) {
@@ -1806,9 +1857,10 @@ public final class MainGrid implements Serializable {
 			}
 
 			MapList list = MapList.getDefaultList();
-			list.saveMap(playerStates, MainGrid.this);
+			list.saveMapInBackground(playerStates, MainGrid.this); // only the snapshot is taken while the game is paused
 
-			MatchConstants.clock().setPausing(savedPausingState);
+			clock.setPausing(savedPausingState);
+			pauseStopWatch.stop("Game paused for saving");
 		}
 
 		@Override
@@ -1896,6 +1948,10 @@ public final class MainGrid implements Serializable {
 			final ShortPoint2D position = new ShortPoint2D(x, y);
 			bordersThread.checkPosition(position);
 
+			if (movablePathfinderGrid.pathCache != null) {
+				movablePathfinderGrid.pathCache.invalidatePosition(x, y);
+			}
+
 			Building building = objectsGrid.getBuildingAt(x, y);
 			if (building != null && building.getPlayerId() != newPlayerId) {
 				building.kill();
@@ -1916,12 +1972,12 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public final ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
-			return Movable.getAllMovables();
+			return gameContext.getAllMovables();
 		}
 
 		@Override
 		public final ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
-			return Building.getAllBuildings();
+			return gameContext.getAllBuildings();
 		}
 	}
 
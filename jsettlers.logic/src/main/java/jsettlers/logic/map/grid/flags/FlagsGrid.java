@@ -16,12 +16,14 @@ package jsettlers.logic.map.grid.flags;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.BitSet;
 
 import jsettlers.algorithms.interfaces.IContainingProvider;
 import jsettlers.algorithms.partitions.IBlockingProvider;
 import jsettlers.logic.map.grid.partition.IPartitionsGridBlockingProvider;
+import jsettlers.logic.map.loading.savegame.SavegameArrays;
 
 /**
  * Grid that's storing the blocked information for fast access.
@@ -34,12 +36,13 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 
 	private final short width;
 
-	private final BitSet blockedGrid;
-	private final BitSet markedGrid;
-	private final BitSet protectedGrid;
+	private transient BitSet blockedGrid;
+	private transient BitSet markedGrid;
+	private transient BitSet protectedGrid;
 
 	private IBlockingChangedListener blockingChangedListener = null;
 	private IProtectedChangedListener protectedChangedListener = null;
+	private transient IBlockingChangedListener pathfinderBlockingChangedListener = null;
 
 	private transient IContainingProvider blockedContainingProvider;
 
@@ -53,8 +56,18 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		initAdditional();
 	}
 
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		SavegameArrays.writeBitSet(oos, blockedGrid);
+		SavegameArrays.writeBitSet(oos, markedGrid);
+		SavegameArrays.writeBitSet(oos, protectedGrid);
+	}
+
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		blockedGrid = SavegameArrays.readBitSet(ois);
+		markedGrid = SavegameArrays.readBitSet(ois);
+		protectedGrid = SavegameArrays.readBitSet(ois);
 		initAdditional();
 	}
 
@@ -107,6 +120,10 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		if (blockingChangedListener != null && oldBlocked != newBlocked) {
 			this.blockedGrid.set(idx, newBlocked);
 			this.blockingChangedListener.blockingChanged(x, y, newBlocked);
+
+			if (pathfinderBlockingChangedListener != null) {
+				pathfinderBlockingChangedListener.blockingChanged(x, y, newBlocked);
+			}
 		}
 		if (protectedChangedListener != null && oldProtected != newProtected) {
 			this.protectedGrid.set(idx, newProtected);
@@ -140,6 +157,17 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		this.blockingChangedListener = listener;
 	}
 
+	/**
+	 * Sets the listener that keeps the path finding algorithms up to date with the blocking grid. This listener is not serialized and needs to be
+	 * set again after loading.
+	 * 
+	 * @param listener
+	 *            The listener or null.
+	 */
+	public void setPathfinderBlockingChangedListener(IBlockingChangedListener listener) {
+		this.pathfinderBlockingChangedListener = listener;
+	}
+
 	@Override
 	public void setProtectedChangedListener(IProtectedChangedListener protectedChangedListener) {
 		this.protectedChangedListener = protectedChangedListener;
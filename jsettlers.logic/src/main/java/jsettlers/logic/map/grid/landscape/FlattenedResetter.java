@@ -25,6 +25,7 @@ import jsettlers.common.map.shapes.FreeMapArea;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.timer.IScheduledTimerable;
 import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TimerSlotLink;
 
 /**
  * Resets the positions flattened by movables to grass after a while.
@@ -38,6 +39,7 @@ final class FlattenedResetter implements IScheduledTimerable, Serializable {
 
 	private transient LinkedList<ShortPoint2D> positions = new LinkedList<ShortPoint2D>();
 	private final IFlattenedResettable grid;
+	private final TimerSlotLink timerSlotLink = new TimerSlotLink(this);
 
 	FlattenedResetter(IFlattenedResettable grid) {
 		this.grid = grid;
@@ -91,6 +93,11 @@ final class FlattenedResetter implements IScheduledTimerable, Serializable {
 		return SCHEDULE_INTERVAL;
 	}
 
+	@Override
+	public TimerSlotLink getTimerSlotLink() {
+		return timerSlotLink;
+	}
+
 	@Override
 	public void kill() {
 		// nothing to do here
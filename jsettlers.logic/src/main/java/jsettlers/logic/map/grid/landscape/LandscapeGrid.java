@@ -16,6 +16,7 @@ package jsettlers.logic.map.grid.landscape;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 import jsettlers.algorithms.previewimage.IPreviewImageDataSupplier;
@@ -29,6 +30,7 @@ import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.flags.IProtectedProvider;
 import jsettlers.logic.map.grid.flags.IProtectedProvider.IProtectedChangedListener;
+import jsettlers.logic.map.loading.savegame.SavegameArrays;
 
 /**
  * This grid stores the height and the {@link ELandscapeType} of every position.
@@ -51,12 +53,12 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		}
 	}
 
-	private final byte[] heightGrid;
-	private final byte[] landscapeGrid;
-	private final byte[] resourceAmount;
-	private final byte[] temporaryFlatened;
-	private final byte[] resourceType;
-	private final short[] blockedPartitions;
+	private transient byte[] heightGrid;
+	private transient byte[] landscapeGrid;
+	private transient byte[] resourceAmount;
+	private transient byte[] temporaryFlatened;
+	private transient byte[] resourceType;
+	private transient short[] blockedPartitions;
 
 	private final short width;
 	private final short height;
@@ -87,8 +89,24 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		protectedProvider.setProtectedChangedListener(this);
 	}
 
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		SavegameArrays.writeBytes(oos, heightGrid);
+		SavegameArrays.writeBytes(oos, landscapeGrid);
+		SavegameArrays.writeBytes(oos, resourceAmount);
+		SavegameArrays.writeBytes(oos, temporaryFlatened);
+		SavegameArrays.writeBytes(oos, resourceType);
+		SavegameArrays.writeShorts(oos, blockedPartitions);
+	}
+
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		heightGrid = SavegameArrays.readBytes(ois);
+		landscapeGrid = SavegameArrays.readBytes(ois);
+		resourceAmount = SavegameArrays.readBytes(ois);
+		temporaryFlatened = SavegameArrays.readBytes(ois);
+		resourceType = SavegameArrays.readBytes(ois);
+		blockedPartitions = SavegameArrays.readShorts(ois);
 		setBackgroundListener(null);
 
 		initDebugColors();
@@ -38,6 +38,16 @@ public abstract class AbstractHexMapObject implements IMapObject, Serializable {
 
 	public abstract boolean cutOff();
 
+	/**
+	 * Returns a bit mask (indexed by {@link EMapObjectType#ordinal}) of all the types this object may report via {@link #getObjectType()} while it is
+	 * on the grid. Objects whose type changes over time must override this method and include every type they can still reach.
+	 * 
+	 * @return mask of the possible object types of this object.
+	 */
+	protected long getPossibleObjectTypes() {
+		return 1L << getObjectType().ordinal;
+	}
+
 	/**
 	 * is this map object blocking the position it has?
 	 * 
@@ -17,7 +17,6 @@ package jsettlers.logic.map.grid.objects;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.PriorityQueue;
 
 import jsettlers.common.landscape.EResourceType;
 import jsettlers.common.map.shapes.HexGridArea;
@@ -28,6 +27,7 @@ import jsettlers.common.material.EMaterialType;
 import jsettlers.common.material.ESearchType;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.StateHash;
 import jsettlers.logic.buildings.stack.IStackSizeSupplier;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
@@ -52,6 +52,7 @@ import jsettlers.logic.objects.stone.Stone;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.timer.IScheduledTimerable;
 import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TimerSlotLink;
 
 /**
  * This class manages the MapObjects on the grid. It handles timed events like growth interrupts of a tree or deletion of arrows.
@@ -59,13 +60,20 @@ import jsettlers.logic.timer.RescheduleTimer;
  * @author Andreas Eberle
  * 
  */
-public final class MapObjectsManager implements IScheduledTimerable, Serializable {
+public final class MapObjectsManager implements IScheduledTimerable, TimeEventQueue.ITimeEventHandler, Serializable {
 	private static final long serialVersionUID = 1833055351956872224L;
 
 	private final IMapObjectsManagerGrid grid;
-	private final PriorityQueue<TimeEvent> timingQueue = new PriorityQueue<TimeEvent>();
+	private final TimeEventQueue timingQueue = new TimeEventQueue();
 
 	private boolean killed = false;
+	private final TimerSlotLink timerSlotLink = new TimerSlotLink(this);
+
+	/**
+	 * The sum of the {@link StateHash}es of all materials lying on stacks.
+	 */
+	private transient long stacksStateHash;
+	private transient boolean stacksStateHashOutdated;
 
 	public MapObjectsManager(IMapObjectsManagerGrid grid) {
 		this.grid = grid;
@@ -74,6 +82,7 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
+		stacksStateHashOutdated = true; // the grid might not be deserialized completely yet, so the hash is recomputed when it is needed
 	}
 
 	@Override
@@ -82,22 +91,18 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 			return -1;
 		}
 
-		int gameTime = MatchConstants.clock().getTime();
+		timingQueue.executeOutdated(MatchConstants.clock().getTime(), this);
 
-		TimeEvent curr = null;
-		curr = timingQueue.peek();
-		while (curr != null && curr.isOutDated(gameTime)) {
-			timingQueue.poll();
-			if (curr.shouldRemoveObject()) {
-				removeMapObject(curr.mapObject.getX(), curr.mapObject.getY(), curr.mapObject);
-			} else {
-				curr.getMapObject().changeState();
-			}
+		return 100;
+	}
 
-			curr = timingQueue.peek();
+	@Override
+	public void handleTimeEvent(AbstractObjectsManagerObject mapObject, boolean shouldRemove) {
+		if (shouldRemove) {
+			removeMapObject(mapObject.getX(), mapObject.getY(), mapObject);
+		} else {
+			mapObject.changeState();
 		}
-
-		return 100;
 	}
 
 	@Override
@@ -105,6 +110,11 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 		killed = true;
 	}
 
+	@Override
+	public TimerSlotLink getTimerSlotLink() {
+		return timerSlotLink;
+	}
+
 	public boolean executeSearchType(ShortPoint2D pos, ESearchType type) {
 		switch (type) {
 		case PLANTABLE_TREE:
@@ -142,7 +152,7 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 		RessourceSignMapObject object = new RessourceSignMapObject(pos, resourceType, resourceAmount
 				/ ((float) Constants.MAX_RESOURCE_AMOUNT_PER_POSITION));
 		addMapObject(pos, object);
-		timingQueue.add(new TimeEvent(object, RessourceSignMapObject.getLivetime(), true));
+		schedule(object, RessourceSignMapObject.getLivetime(), true);
 
 		return true;
 	}
@@ -241,6 +251,9 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 
 		grid.addMapObject(x, y, mapObject);
 		mapObject.handlePlacement(x, y, this, grid);
+		if (mapObject instanceof StackMapObject) {
+			updateStacksStateHash(x, y, (StackMapObject) mapObject, 1);
+		}
 		return true;
 	}
 
@@ -253,6 +266,9 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 
 		if (removed) {
 			mapObject.handleRemove(x, y, this, grid);
+			if (mapObject instanceof StackMapObject) {
+				updateStacksStateHash(x, y, (StackMapObject) mapObject, -1);
+			}
 		}
 	}
 
@@ -313,7 +329,7 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 			break;
 		}
 		addMapObject(pos, object);
-		timingQueue.add(new TimeEvent(object, duration, true));
+		schedule(object, duration, true);
 	}
 
 	public void setConstructionMarking(int x, int y, byte value) {
@@ -389,17 +405,59 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 		if (stackObject == null) {
 			grid.addMapObject(x, y, new StackMapObject(materialType, (byte) 1));
 			grid.setProtected(x, y, true);
+			stacksStateHash += getMaterialStateHash(x, y, materialType);
 			return true;
 		} else {
 			if (stackObject.isFull()) {
 				return false;
 			} else {
 				stackObject.increment();
+				stacksStateHash += getMaterialStateHash(x, y, materialType);
 				return true;
 			}
 		}
 	}
 
+	private static long getMaterialStateHash(int x, int y, EMaterialType materialType) {
+		return StateHash.hash(x | y << 16, materialType.ordinal);
+	}
+
+	private void updateStacksStateHash(int x, int y, StackMapObject stack, int sign) {
+		stacksStateHash += sign * stack.getSize() * getMaterialStateHash(x, y, stack.getMaterialType());
+	}
+
+	/**
+	 * @return A hash of the materials lying on stacks.
+	 */
+	public long getStacksStateHash() {
+		if (stacksStateHashOutdated) {
+			stacksStateHash = computeStacksStateHash();
+			stacksStateHashOutdated = false;
+		}
+		return stacksStateHash;
+	}
+
+	/**
+	 * Computes the hash returned by {@link #getStacksStateHash()} from all stacks on the grid.
+	 * 
+	 * @return The sum of the {@link StateHash}es of all materials lying on stacks.
+	 */
+	long computeStacksStateHash() {
+		long hash = 0;
+		short width = grid.getWidth();
+		short height = grid.getHeight();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				StackMapObject stack = (StackMapObject) grid.getMapObject(x, y, EMapObjectType.STACK_OBJECT);
+				while (stack != null) {
+					hash += stack.getSize() * getMaterialStateHash(x, y, stack.getMaterialType());
+					stack = getNextStackObject(stack);
+				}
+			}
+		}
+		return hash;
+	}
+
 	public ShortPoint2D pushMaterialForced(short x, short y, EMaterialType materialType) {
 		IMapArea mapArea = new HexGridArea(x, y, 0, 200);
 
@@ -461,6 +519,7 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 				return null;
 			} else {
 				stackObject.decrement();
+				stacksStateHash -= getMaterialStateHash(x, y, stackObject.getMaterialType());
 				if (stackObject.isEmpty()) { // remove empty stack object
 					removeStackObject(x, y, stackObject);
 				}
@@ -565,7 +624,7 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 			grid.spawnDonkey(position, playerId);
 			removeMapObjectType(position.x, position.y, EMapObjectType.DONKEY);
 		} else {
-			timingQueue.add(new TimeEvent(donkey, DonkeyMapObject.FEED_TIME, false));
+			schedule(donkey, DonkeyMapObject.FEED_TIME, false);
 		}
 		return result;
 	}
@@ -578,47 +637,18 @@ public final class MapObjectsManager implements IScheduledTimerable, Serializabl
 		grid.addMapObject(x, y, new DecorationMapObject(EMapObjectType.FISH_DECORATION));
 	}
 
-	private static class TimeEvent implements Comparable<TimeEvent>, Serializable {
-		private static final long serialVersionUID = -4439126418530597713L;
-
-		private final AbstractObjectsManagerObject mapObject;
-		private final int eventTime;
-		private final boolean shouldRemove;
-
-		/**
-		 * 
-		 * @param mapObject
-		 * @param duration
-		 *            in seconds
-		 * @param shouldRemove
-		 *            if true, the map object will be removed after this event
-		 */
-		protected TimeEvent(AbstractObjectsManagerObject mapObject, float duration, boolean shouldRemove) {
-			this.mapObject = mapObject;
-			this.shouldRemove = shouldRemove;
-			this.eventTime = (int) (MatchConstants.clock().getTime() + duration * 1000);
-		}
-
-		public boolean isOutDated(int gameTime) {
-			return gameTime > eventTime;
-		}
-
-		private AbstractObjectsManagerObject getMapObject() {
-			return mapObject;
-		}
-
-		public boolean shouldRemoveObject() {
-			return shouldRemove;
-		}
-
-		@Override
-		public int compareTo(TimeEvent o) {
-			return this.eventTime - o.eventTime;
-		}
-	}
-
-	private boolean schedule(AbstractObjectsManagerObject object, float duration, boolean remove) {
-		return timingQueue.offer(new TimeEvent(object, duration, remove));
+	/**
+	 * Schedules an event for the given object.
+	 * 
+	 * @param object
+	 *            The object the event belongs to.
+	 * @param duration
+	 *            in seconds
+	 * @param remove
+	 *            if true, the map object will be removed after this event
+	 */
+	private void schedule(AbstractObjectsManagerObject object, float duration, boolean remove) {
+		timingQueue.add(object, (int) (MatchConstants.clock().getTime() + duration * 1000), remove);
 	}
 
 	/**
@@ -36,6 +36,10 @@ import jsettlers.logic.movable.interfaces.IInformable;
 
 /**
  * This grid stores the objects located at each position.
+ * <p />
+ * Next to the lists of objects, a bit mask of the {@link EMapObjectType}s present at each position is kept. The mask is a superset of the types
+ * actually present (see {@link AbstractHexMapObject#getPossibleObjectTypes()}), so a cleared bit allows to answer type queries without walking the
+ * object list.
  * 
  * @author Andreas Eberle
  * 
@@ -48,12 +52,14 @@ public final class ObjectsGrid implements Serializable {
 
 	private transient AbstractHexMapObject[] objectsGrid;
 	private transient Building[] buildingsGrid;
+	private transient long[] typeMasks;
 
 	public ObjectsGrid(short width, short height) {
 		this.width = width;
 		this.height = height;
 		this.objectsGrid = new AbstractHexMapObject[width * height];
 		this.buildingsGrid = new Building[width * height];
+		this.typeMasks = new long[width * height];
 	}
 
 	private final void writeObject(ObjectOutputStream oos) throws IOException {
@@ -88,6 +94,7 @@ public final class ObjectsGrid implements Serializable {
 
 		int length = ois.readInt();
 		objectsGrid = new AbstractHexMapObject[length];
+		typeMasks = new long[length];
 
 		int index = ois.readInt();
 		while (index >= 0) {
@@ -100,17 +107,38 @@ public final class ObjectsGrid implements Serializable {
 				currObject = newObject;
 			}
 
+			updateTypeMask(index);
 			index = ois.readInt();
 		}
 	}
 
+	private void updateTypeMask(int idx) {
+		long mask = 0;
+		for (AbstractHexMapObject curr = objectsGrid[idx]; curr != null; curr = curr.getNextObject()) {
+			mask |= curr.getPossibleObjectTypes();
+		}
+		typeMasks[idx] = mask;
+	}
+
+	private static long getTypesMask(EMapObjectType... mapObjectTypes) {
+		long mask = 0;
+		for (EMapObjectType type : mapObjectTypes) {
+			mask |= 1L << type.ordinal;
+		}
+		return mask;
+	}
+
 	public final AbstractHexMapObject getObjectsAt(int x, int y) {
 		return objectsGrid[x + y * width];
 	}
 
 	public final AbstractHexMapObject getMapObjectAt(int x, int y, EMapObjectType mapObjectType) {
-		AbstractHexMapObject mapObjectHead = objectsGrid[x + y * width];
+		final int idx = x + y * width;
+		if ((typeMasks[idx] & (1L << mapObjectType.ordinal)) == 0) {
+			return null;
+		}
 
+		AbstractHexMapObject mapObjectHead = objectsGrid[idx];
 		return mapObjectHead != null ? mapObjectHead.getMapObject(mapObjectType) : null;
 	}
 
@@ -126,6 +154,7 @@ public final class ObjectsGrid implements Serializable {
 		if (mapObjectHead != null) {
 			mapObjectHead.removeMapObjectTypes(mapObjectTypes);
 		}
+		updateTypeMask(idx);
 	}
 
 	public final boolean removeMapObject(int x, int y, AbstractHexMapObject mapObject) {
@@ -140,6 +169,9 @@ public final class ObjectsGrid implements Serializable {
 				removed = mapObjectHead.removeMapObject(mapObject);
 			}
 
+			if (removed) {
+				updateTypeMask(idx);
+			}
 			return removed;
 		} else
 			return false;
@@ -155,26 +187,37 @@ public final class ObjectsGrid implements Serializable {
 		} else {
 			mapObjectHead.addMapObject(mapObject);
 		}
+		typeMasks[idx] |= mapObject.getPossibleObjectTypes();
 	}
 
 	public final boolean hasCuttableObject(int x, int y, EMapObjectType mapObjectType) {
-		AbstractHexMapObject mapObjectHead = objectsGrid[x + y * width];
+		final int idx = x + y * width;
+		if ((typeMasks[idx] & (1L << mapObjectType.ordinal)) == 0) {
+			return false;
+		}
 
+		AbstractHexMapObject mapObjectHead = objectsGrid[idx];
 		return mapObjectHead != null && mapObjectHead.hasCuttableObject(mapObjectType);
 	}
 
 	public final boolean hasMapObjectType(int x, int y, EMapObjectType... mapObjectTypes) {
-		AbstractHexMapObject mapObjectHead = objectsGrid[x + y * width];
+		return hasMapObjectType(x + y * width, getTypesMask(mapObjectTypes), mapObjectTypes);
+	}
 
+	private boolean hasMapObjectType(int idx, long typesMask, EMapObjectType[] mapObjectTypes) {
+		if ((typeMasks[idx] & typesMask) == 0) {
+			return false;
+		}
+
+		AbstractHexMapObject mapObjectHead = objectsGrid[idx];
 		return mapObjectHead != null && mapObjectHead.hasMapObjectTypes(mapObjectTypes);
 	}
 
 	public final boolean hasNeighborObjectType(int x, int y, EMapObjectType... mapObjectTypes) {
-		EDirection[] directions = EDirection.VALUES;
+		long typesMask = getTypesMask(mapObjectTypes);
 
-		for (EDirection currDir : directions) {
-			ShortPoint2D currPos = currDir.getNextHexPoint(x, y);
-			if (hasMapObjectType(currPos.x, currPos.y, mapObjectTypes)) {
+		for (EDirection currDir : EDirection.VALUES) {
+			if (hasMapObjectType(currDir.getNextTileX(x) + currDir.getNextTileY(y) * width, typesMask, mapObjectTypes)) {
 				return true;
 			}
 		}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.objects;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A hashed timing wheel holding the timed events of the {@link MapObjectsManager}.
+ * <p />
+ * The events are stored in pooled parallel arrays instead of event objects. They are linked into the time slots by index, so adding and removing
+ * an event is done in O(1) and no memory is allocated as long as the pool doesn't need to grow. Events scheduled further in the future than the
+ * wheel spans are kept in their slot until their time has come.
+ * <p />
+ * The outdated events are executed in the order of their event times and for equal times in the order they have been added, which keeps the
+ * execution deterministic.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+final class TimeEventQueue implements Serializable {
+	private static final long serialVersionUID = -7409317223938012465L;
+
+	private static final int TIME_SLICE = 100; // ms
+	private static final int TIME_SLOTS = 8192; // must be a power of two; the wheel spans 819.2 seconds
+	private static final int SLOT_MASK = TIME_SLOTS - 1;
+	private static final int OUTDATED_LIST = TIME_SLOTS;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int NONE = 0; // index 0 is never used for an event
+
+	/**
+	 * Executes the events polled from the {@link TimeEventQueue}.
+	 */
+	interface ITimeEventHandler {
+		void handleTimeEvent(AbstractObjectsManagerObject mapObject, boolean shouldRemove);
+	}
+
+	private int nextSlice = 0;
+
+	private transient int[] listHeads;
+	private transient int[] listTails;
+
+	private transient AbstractObjectsManagerObject[] eventObjects;
+	private transient int[] eventTimes;
+	private transient boolean[] eventRemoves;
+	private transient int[] eventLists;
+	private transient int[] eventNexts;
+	private transient int[] eventPrevious;
+	private transient int freeEvents;
+	private transient int usedEvents;
+	private transient int size;
+
+	TimeEventQueue() {
+		init(INITIAL_CAPACITY);
+	}
+
+	private void init(int capacity) {
+		listHeads = new int[TIME_SLOTS + 1];
+		listTails = new int[TIME_SLOTS + 1];
+
+		eventObjects = new AbstractObjectsManagerObject[capacity];
+		eventTimes = new int[capacity];
+		eventRemoves = new boolean[capacity];
+		eventLists = new int[capacity];
+		eventNexts = new int[capacity];
+		eventPrevious = new int[capacity];
+		freeEvents = NONE;
+		usedEvents = 1;
+		size = 0;
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		oos.writeInt(size);
+		for (int i = 0; i < TIME_SLOTS; i++) {
+			for (int event = listHeads[(nextSlice + i) & SLOT_MASK]; event != NONE; event = eventNexts[event]) {
+				oos.writeObject(eventObjects[event]);
+				oos.writeInt(eventTimes[event]);
+				oos.writeBoolean(eventRemoves[event]);
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		int events = ois.readInt();
+		init(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(events) * 2));
+		for (int i = 0; i < events; i++) {
+			AbstractObjectsManagerObject mapObject = (AbstractObjectsManagerObject) ois.readObject();
+			int eventTime = ois.readInt();
+			add(mapObject, eventTime, ois.readBoolean());
+		}
+	}
+
+	/**
+	 * Adds an event for the given object.
+	 * 
+	 * @param mapObject
+	 *            The object the event belongs to.
+	 * @param eventTime
+	 *            The game time in milliseconds after which the event is outdated.
+	 * @param shouldRemove
+	 *            if true, the map object will be removed after this event
+	 */
+	void add(AbstractObjectsManagerObject mapObject, int eventTime, boolean shouldRemove) {
+		int event = allocateEvent();
+		eventObjects[event] = mapObject;
+		eventTimes[event] = eventTime;
+		eventRemoves[event] = shouldRemove;
+
+		append(event, (eventTime / TIME_SLICE) & SLOT_MASK);
+		size++;
+	}
+
+	/**
+	 * Executes all events whose event time is before the given game time.
+	 * 
+	 * @param gameTime
+	 *            The current game time in milliseconds.
+	 * @param handler
+	 *            The handler executing the events.
+	 */
+	void executeOutdated(int gameTime, ITimeEventHandler handler) {
+		collectOutdated(gameTime);
+
+		int event;
+		while ((event = listHeads[OUTDATED_LIST]) != NONE) {
+			AbstractObjectsManagerObject mapObject = eventObjects[event];
+			boolean shouldRemove = eventRemoves[event];
+
+			unlink(event);
+			freeEvent(event);
+			size--;
+
+			handler.handleTimeEvent(mapObject, shouldRemove);
+		}
+	}
+
+	/**
+	 * Moves the outdated events of all slices up to the given time into the outdated list and sorts them by their event times.
+	 */
+	private void collectOutdated(int gameTime) {
+		int lastSlice = gameTime / TIME_SLICE;
+
+		for (int slice = nextSlice; slice <= lastSlice && slice < nextSlice + TIME_SLOTS; slice++) {
+			int event = listHeads[slice & SLOT_MASK];
+			while (event != NONE) {
+				int nextEvent = eventNexts[event];
+				if (eventTimes[event] < gameTime) {
+					unlink(event);
+					insertOutdated(event);
+				}
+				event = nextEvent;
+			}
+		}
+
+		nextSlice = lastSlice;
+	}
+
+	private void insertOutdated(int event) {
+		int eventTime = eventTimes[event];
+		int previous = listTails[OUTDATED_LIST];
+		while (previous != NONE && eventTimes[previous] > eventTime) {
+			previous = eventPrevious[previous];
+		}
+
+		int next = previous == NONE ? listHeads[OUTDATED_LIST] : eventNexts[previous];
+		eventLists[event] = OUTDATED_LIST;
+		eventPrevious[event] = previous;
+		eventNexts[event] = next;
+
+		if (previous == NONE) {
+			listHeads[OUTDATED_LIST] = event;
+		} else {
+			eventNexts[previous] = event;
+		}
+		if (next == NONE) {
+			listTails[OUTDATED_LIST] = event;
+		} else {
+			eventPrevious[next] = event;
+		}
+	}
+
+	private void append(int event, int list) {
+		int tail = listTails[list];
+		eventLists[event] = list;
+		eventPrevious[event] = tail;
+		eventNexts[event] = NONE;
+
+		if (tail == NONE) {
+			listHeads[list] = event;
+		} else {
+			eventNexts[tail] = event;
+		}
+		listTails[list] = event;
+	}
+
+	private void unlink(int event) {
+		int list = eventLists[event];
+		int previous = eventPrevious[event];
+		int next = eventNexts[event];
+
+		if (previous == NONE) {
+			listHeads[list] = next;
+		} else {
+			eventNexts[previous] = next;
+		}
+		if (next == NONE) {
+			listTails[list] = previous;
+		} else {
+			eventPrevious[next] = previous;
+		}
+	}
+
+	private int allocateEvent() {
+		if (freeEvents != NONE) {
+			int event = freeEvents;
+			freeEvents = eventNexts[event];
+			return event;
+		}
+
+		if (usedEvents == eventTimes.length) {
+			int capacity = eventTimes.length * 2;
+			eventObjects = Arrays.copyOf(eventObjects, capacity);
+			eventTimes = Arrays.copyOf(eventTimes, capacity);
+			eventRemoves = Arrays.copyOf(eventRemoves, capacity);
+			eventLists = Arrays.copyOf(eventLists, capacity);
+			eventNexts = Arrays.copyOf(eventNexts, capacity);
+			eventPrevious = Arrays.copyOf(eventPrevious, capacity);
+		}
+		return usedEvents++;
+	}
+
+	private void freeEvent(int event) {
+		eventObjects[event] = null;
+		eventNexts[event] = freeEvents;
+		freeEvents = event;
+	}
+
+	/**
+	 * @return The number of scheduled events.
+	 */
+	int size() {
+		return size;
+	}
+}
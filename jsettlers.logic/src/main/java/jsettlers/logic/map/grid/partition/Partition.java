@@ -17,6 +17,7 @@ package jsettlers.logic.map.grid.partition;
 import java.io.Serializable;
 
 import jsettlers.logic.map.grid.partition.manager.PartitionManager;
+import jsettlers.logic.map.grid.partition.manager.PositionsTransfer;
 import jsettlers.logic.map.grid.partition.manager.materials.offers.IOffersCountListener;
 
 /**
@@ -70,13 +71,31 @@ public final class Partition extends PartitionManager implements Serializable {
 	}
 
 	public void removePositionTo(final int x, final int y, final Partition newPartitionObject) {
+		removePositionTo(x, y, newPartitionObject, null);
+	}
+
+	/**
+	 * Removes the given position from this partition and adds it to the given new partition.
+	 * 
+	 * @param x
+	 * @param y
+	 * @param newPartitionObject
+	 * @param transfer
+	 *            If not null, the offers, jobless and requests at the position are moved when the transfer is executed. Otherwise they are moved
+	 *            immediately.
+	 */
+	public void removePositionTo(final int x, final int y, final Partition newPartitionObject, PositionsTransfer transfer) {
 		if (this == newPartitionObject) {
 			System.err.println("ERROR: newManager can not be the same as this manager. At (" + x + "|" + y + ")");
 		}
 
 		this.decrement(x, y);
 		newPartitionObject.increment(x, y);
-		super.removePositionTo(x, y, newPartitionObject, newPartitionObject.playerId == this.playerId);
+		if (transfer != null) {
+			transfer.add(x, y, this, newPartitionObject, newPartitionObject.playerId == this.playerId);
+		} else {
+			super.removePositionTo(x, y, newPartitionObject, newPartitionObject.playerId == this.playerId);
+		}
 
 		if (isEmpty())
 			super.stopManager();
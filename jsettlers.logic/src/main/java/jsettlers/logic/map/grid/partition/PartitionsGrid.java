@@ -41,11 +41,14 @@ import jsettlers.common.utils.Tuple;
 import jsettlers.common.utils.collections.IPredicate;
 import jsettlers.common.utils.collections.ISerializablePredicate;
 import jsettlers.common.utils.collections.IteratorFilter;
+import jsettlers.logic.StateHash;
 import jsettlers.logic.buildings.MaterialProductionSettings;
 import jsettlers.logic.map.grid.flags.IBlockingChangedListener;
 import jsettlers.logic.map.grid.partition.PartitionsListingBorderVisitor.BorderPartitionInfo;
 import jsettlers.logic.map.grid.partition.data.PartitionDataSupplier;
 import jsettlers.logic.map.grid.partition.manager.PartitionManager;
+import jsettlers.logic.map.grid.partition.manager.PositionsTransfer;
+import jsettlers.logic.map.loading.savegame.SavegameArrays;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.player.PlayerSetting;
 import jsettlers.logic.player.Team;
@@ -73,15 +76,21 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 
 	private final Team[] teams;
 
-	final short[] partitions;
-	private final byte[] towers;
+	transient short[] partitions;
+	private transient byte[] towers;
 
 	Partition[] partitionObjects = new Partition[NUMBER_OF_START_PARTITION_OBJECTS];
 
 	private final short[] blockedPartitionsForPlayers;
 
+	/**
+	 * The sum of the {@link StateHash}es of the players owning the positions minus the same sum of the initial grid.
+	 */
+	private long stateHash;
+
 	private transient Object partitionsWriteLock;
 	private transient IPlayerChangedListener playerChangedListener = IPlayerChangedListener.DEFAULT_IMPLEMENTATION;
+	private transient PositionsTransfer positionsTransfer;
 
 	public PartitionsGrid(short width, short height, PlayerSetting[] playerSettings, IPartitionsGridBlockingProvider blockingProvider) {
 		this.width = width;
@@ -138,15 +147,20 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 		int normalizedPartitions = checkNormalizePartitions(0);
 		System.out.println("Normalized " + normalizedPartitions + " partitions");
 		oos.defaultWriteObject();
+		SavegameArrays.writeShorts(oos, partitions);
+		SavegameArrays.writeBytes(oos, towers);
 	}
 
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		partitions = SavegameArrays.readShorts(ois);
+		towers = SavegameArrays.readBytes(ois);
 		initAdditionalFields();
 	}
 
 	private void initAdditionalFields() {
 		partitionsWriteLock = new Object();
+		positionsTransfer = new PositionsTransfer(width, height);
 	}
 
 	public boolean isDefaultPartition(short partitionId) {
@@ -560,10 +574,11 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 					short y = (short) (dY + minY);
 
 					// Set the new partitions and take over goods and so on
-					changePartitionUncheckedAt(x, y, newPartitionsMap[partition]);
+					changePartitionUncheckedAt(x, y, newPartitionsMap[partition], positionsTransfer);
 				}
 			}
 		}
+		positionsTransfer.execute();
 
 		return newPartitionsMap;
 	}
@@ -689,11 +704,12 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 		IAreaVisitor relabelAreaVisitor = new IAreaVisitor() {
 			@Override
 			public boolean visit(int x, int y) {
-				changePartitionUncheckedAt(x, y, newPartition);
+				changePartitionUncheckedAt(x, y, newPartition, positionsTransfer);
 				return true;
 			}
 		};
 		AreaTraversingAlgorithm.traverseArea(containingProvider, relabelAreaVisitor, relabelStartPos, width, height);
+		positionsTransfer.execute();
 	}
 
 	/**
@@ -709,15 +725,27 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 	 * @return the player id of the new partition.
 	 */
 	byte changePartitionUncheckedAt(int x, int y, short newPartition) {
+		return changePartitionUncheckedAt(x, y, newPartition, null);
+	}
+
+	/**
+	 * Changes the partition at the given position to the given new partition like {@link #changePartitionUncheckedAt(int, int, short)}. If a
+	 * {@link PositionsTransfer} is given, the offers, jobless and requests at the position are only moved when the transfer is executed.
+	 */
+	private byte changePartitionUncheckedAt(int x, int y, short newPartition, PositionsTransfer transfer) {
 		int idx = x + y * width;
 		Partition oldPartitionObject = partitionObjects[partitions[idx]];
 		Partition newPartitionObject = partitionObjects[newPartition];
 
-		oldPartitionObject.removePositionTo(x, y, newPartitionObject);
+		oldPartitionObject.removePositionTo(x, y, newPartitionObject, transfer);
 		synchronized (partitionsWriteLock) {
 			partitions[idx] = newPartition;
 		}
 
+		if (oldPartitionObject.playerId != newPartitionObject.playerId) {
+			stateHash += StateHash.hash(idx, newPartitionObject.playerId) - StateHash.hash(idx, oldPartitionObject.playerId);
+		}
+
 		return newPartitionObject.playerId;
 	}
 
@@ -803,6 +831,13 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 	 * @param listener
 	 *            The listener to be set or null if no listener should be set.
 	 */
+	/**
+	 * @return A hash of the players owning the positions. It only changes when a position is taken over by another player.
+	 */
+	public long getStateHash() {
+		return stateHash;
+	}
+
 	public void setPlayerChangedListener(IPlayerChangedListener listener) {
 		if (listener == null) {
 			this.playerChangedListener = IPlayerChangedListener.DEFAULT_IMPLEMENTATION;
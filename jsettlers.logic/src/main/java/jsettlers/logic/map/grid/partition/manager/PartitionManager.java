@@ -19,6 +19,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Vector;
 
+import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.movable.EDirection;
@@ -29,7 +30,10 @@ import jsettlers.logic.buildings.Building;
 import jsettlers.logic.buildings.MaterialProductionSettings;
 import jsettlers.logic.buildings.workers.WorkerBuilding;
 import jsettlers.logic.map.grid.partition.data.IMaterialCounts;
+import jsettlers.logic.map.grid.partition.manager.PositionsTransfer.ITransferredObjectsVisitor;
+import jsettlers.logic.map.grid.partition.manager.PositionsTransfer.TransferredObjects;
 import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList.IMovedVisitor;
 import jsettlers.logic.map.grid.partition.manager.manageables.IManageableBearer;
 import jsettlers.logic.map.grid.partition.manager.manageables.IManageableBearer.IWorkerRequester;
 import jsettlers.logic.map.grid.partition.manager.manageables.IManageableBricklayer;
@@ -38,11 +42,13 @@ import jsettlers.logic.map.grid.partition.manager.manageables.IManageableWorker;
 import jsettlers.logic.map.grid.partition.manager.manageables.interfaces.IBarrack;
 import jsettlers.logic.map.grid.partition.manager.manageables.interfaces.IDiggerRequester;
 import jsettlers.logic.map.grid.partition.manager.materials.MaterialsManager;
+import jsettlers.logic.map.grid.partition.manager.materials.MaterialsManager.IRequestsVisitor;
 import jsettlers.logic.map.grid.partition.manager.materials.interfaces.IJoblessSupplier;
 import jsettlers.logic.map.grid.partition.manager.materials.interfaces.IManagerBearer;
 import jsettlers.logic.map.grid.partition.manager.materials.offers.IOffersCountListener;
 import jsettlers.logic.map.grid.partition.manager.materials.offers.MaterialOffer;
 import jsettlers.logic.map.grid.partition.manager.materials.offers.OffersList;
+import jsettlers.logic.map.grid.partition.manager.materials.offers.OffersList.IOffersVisitor;
 import jsettlers.logic.map.grid.partition.manager.materials.requests.MaterialRequestObject;
 import jsettlers.logic.map.grid.partition.manager.objects.BricklayerRequest;
 import jsettlers.logic.map.grid.partition.manager.objects.DiggerRequest;
@@ -52,6 +58,7 @@ import jsettlers.logic.map.grid.partition.manager.objects.WorkerRequest;
 import jsettlers.logic.map.grid.partition.manager.settings.PartitionManagerSettings;
 import jsettlers.logic.timer.IScheduledTimerable;
 import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TimerSlotLink;
 
 /**
  * This is a manager for a partition. It stores offers, requests and jobless to build up jobs and give them to the jobless.
@@ -95,6 +102,7 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 	private final LinkedList<SoldierCreationRequest> soldierCreationRequests = new LinkedList<SoldierCreationRequest>();
 
 	private boolean stopped = true;
+	private final TimerSlotLink timerSlotLink = new TimerSlotLink(this);
 
 	public PartitionManager(IOffersCountListener offersCountListener) {
 		materialOffers = new OffersList(offersCountListener);
@@ -238,6 +246,141 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		}
 	}
 
+	/**
+	 * Moves the offers, jobless and requests of all positions of the given transfer from their old to their new managers. Every list of the old
+	 * managers is only traversed once.
+	 * 
+	 * @param transfer
+	 *            The positions changing their manager.
+	 */
+	static void transferPositions(PositionsTransfer transfer) {
+		final TransferredObjects<MaterialOffer> offers = new TransferredObjects<MaterialOffer>(transfer);
+		final TransferredObjects<MaterialRequestObject> materialRequests = new TransferredObjects<MaterialRequestObject>(transfer);
+		final TransferredObjects<IManageableBearer> bearers = new TransferredObjects<IManageableBearer>(transfer);
+		final TransferredObjects<IManageableBricklayer> bricklayers = new TransferredObjects<IManageableBricklayer>(transfer);
+		final TransferredObjects<IManageableDigger> diggers = new TransferredObjects<IManageableDigger>(transfer);
+		final TransferredObjects<IManageableWorker> workers = new TransferredObjects<IManageableWorker>(transfer);
+		final TransferredObjects<ILocatable> requests = new TransferredObjects<ILocatable>(transfer);
+
+		for (PartitionManager oldManager : transfer.getOldManagers()) {
+			ITypeAcceptor<ILocatable> transferred = transfer.createAcceptor(oldManager, false, false);
+
+			oldManager.materialOffers.removeOffers(transferred, new IOffersVisitor() {
+				@Override
+				public void visit(EMaterialType materialType, MaterialOffer offer) {
+					offers.add(materialType.ordinal, offer);
+				}
+			});
+			oldManager.materialsManager.removeRequests(transfer.createAcceptor(oldManager, true, false), new IRequestsVisitor() {
+				@Override
+				public void visit(EMaterialType materialType, int queueIndex, MaterialRequestObject request) {
+					materialRequests.add(queueIndex * EMaterialType.NUMBER_OF_MATERIALS + materialType.ordinal, request);
+				}
+			});
+
+			oldManager.joblessBearer.removeObjects(transfer.createAcceptor(oldManager, true, true), new TransferredVisitor<IManageableBearer>(bearers));
+			oldManager.joblessBricklayers.removeObjects(transfer.createAcceptor(oldManager, true, true), new TransferredVisitor<IManageableBricklayer>(
+					bricklayers));
+			oldManager.joblessDiggers.removeObjects(transfer.createAcceptor(oldManager, true, true), new TransferredVisitor<IManageableDigger>(diggers));
+			oldManager.joblessWorkers.removeObjects(transfer.createAcceptor(oldManager, true, true), new TransferredVisitor<IManageableWorker>(workers));
+
+			removeTransferred(transferred, oldManager.workerCreationRequests, requests, 0);
+			removeTransferred(transferred, oldManager.bricklayerRequests, requests, 1);
+			removeTransferred(transferred, oldManager.diggerRequests, requests, 2);
+			removeTransferred(transferred, oldManager.workerRequests, requests, 3);
+			removeTransferred(transferred, oldManager.soldierCreationRequests, requests, 4);
+		}
+
+		offers.visitSorted(new ITransferredObjectsVisitor<MaterialOffer>() {
+			@Override
+			public void visit(PartitionManager newManager, boolean newHasSamePlayer, int slot, MaterialOffer offer) {
+				newManager.materialOffers.insertMovedOffer(EMaterialType.VALUES[slot], offer);
+			}
+		});
+		materialRequests.visitSorted(new ITransferredObjectsVisitor<MaterialRequestObject>() {
+			@Override
+			public void visit(PartitionManager newManager, boolean newHasSamePlayer, int slot, MaterialRequestObject request) {
+				EMaterialType materialType = EMaterialType.VALUES[slot % EMaterialType.NUMBER_OF_MATERIALS];
+				newManager.materialsManager.insertMovedRequest(materialType, slot / EMaterialType.NUMBER_OF_MATERIALS, request);
+			}
+		});
+		bearers.visitSorted(new ITransferredObjectsVisitor<IManageableBearer>() {
+			@Override
+			public void visit(PartitionManager newManager, boolean newHasSamePlayer, int slot, IManageableBearer bearer) {
+				newManager.addJobless(bearer);
+			}
+		});
+		bricklayers.visitSorted(new ITransferredObjectsVisitor<IManageableBricklayer>() {
+			@Override
+			public void visit(PartitionManager newManager, boolean newHasSamePlayer, int slot, IManageableBricklayer bricklayer) {
+				newManager.addJobless(bricklayer);
+			}
+		});
+		diggers.visitSorted(new ITransferredObjectsVisitor<IManageableDigger>() {
+			@Override
+			public void visit(PartitionManager newManager, boolean newHasSamePlayer, int slot, IManageableDigger digger) {
+				newManager.addJobless(digger);
+			}
+		});
+		workers.visitSorted(new ITransferredObjectsVisitor<IManageableWorker>() {
+			@Override
+			public void visit(PartitionManager newManager, boolean newHasSamePlayer, int slot, IManageableWorker worker) {
+				newManager.addJobless(worker);
+			}
+		});
+		requests.visitSorted(new ITransferredObjectsVisitor<ILocatable>() {
+			@Override
+			public void visit(PartitionManager newManager, boolean newHasSamePlayer, int slot, ILocatable request) {
+				if (!newHasSamePlayer) {
+					return; // requests are dropped when the position is taken by another player
+				}
+
+				switch (slot) {
+				case 0:
+					newManager.workerCreationRequests.offer((WorkerCreationRequest) request);
+					break;
+				case 1:
+					newManager.bricklayerRequests.offer((BricklayerRequest) request);
+					break;
+				case 2:
+					newManager.diggerRequests.offer((DiggerRequest) request);
+					break;
+				case 3:
+					newManager.workerRequests.offer((WorkerRequest) request);
+					break;
+				case 4:
+					newManager.soldierCreationRequests.offer((SoldierCreationRequest) request);
+					break;
+				}
+			}
+		});
+	}
+
+	private static <T extends ILocatable> void removeTransferred(ITypeAcceptor<ILocatable> acceptor, LinkedList<T> fromList,
+			TransferredObjects<ILocatable> transferred, int slot) {
+		Iterator<T> iter = fromList.iterator();
+		while (iter.hasNext()) {
+			T curr = iter.next();
+			if (acceptor.accepts(curr)) {
+				iter.remove();
+				transferred.add(slot, curr);
+			}
+		}
+	}
+
+	private static final class TransferredVisitor<T extends ILocatable> implements IMovedVisitor<T> {
+		private final TransferredObjects<T> transferred;
+
+		TransferredVisitor(TransferredObjects<T> transferred) {
+			this.transferred = transferred;
+		}
+
+		@Override
+		public void visit(T moved) {
+			transferred.add(0, moved);
+		}
+	}
+
 	public final void mergeInto(PartitionManager newManager) {
 		newManager.bricklayerRequests.addAll(this.bricklayerRequests);
 		newManager.diggerRequests.addAll(this.diggerRequests);
@@ -435,6 +578,11 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		throw new UnsupportedOperationException("CAN'T KILL PARTITION MANAGER!! THIS REALLY SHOULD NOT HAPPEN!");
 	}
 
+	@Override
+	public TimerSlotLink getTimerSlotLink() {
+		return timerSlotLink;
+	}
+
 	/**
 	 * FOR TESTS ONLY!
 	 *
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import jsettlers.algorithms.queue.ITypeAcceptor;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Collects positions changing from one {@link PartitionManager} to another one. When the transfer is executed, the offers, jobless and requests of
+ * all these positions are moved to their new managers with a single pass over every list of the old managers.
+ * <p />
+ * The result is the same as calling {@link PartitionManager#removePositionTo(int, int, PartitionManager, boolean)} for every position in the order
+ * the positions have been added.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class PositionsTransfer {
+	private final int width;
+	private final int height;
+	/**
+	 * Rank + 1 of every position of the transfer, 0 for all other positions.
+	 */
+	private final int[] ranks;
+
+	private int size = 0;
+	private int[] positions = new int[64];
+	private PartitionManager[] oldManagers = new PartitionManager[64];
+	private PartitionManager[] newManagers = new PartitionManager[64];
+	private boolean[] newHasSamePlayer = new boolean[64];
+	private int[] stamps = new int[64];
+	private int currentStamp = 0;
+
+	private final LinkedHashSet<PartitionManager> distinctOldManagers = new LinkedHashSet<PartitionManager>();
+
+	public PositionsTransfer(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.ranks = new int[width * height];
+	}
+
+	/**
+	 * Adds the given position to this transfer. Every position can only be added once per transfer.
+	 * 
+	 * @param x
+	 *            x coordinate of the position to be removed from the old manager and added to the new manager.
+	 * @param y
+	 *            y coordinate of the position to be removed from the old manager and added to the new manager.
+	 * @param oldManager
+	 *            The current manager of the position.
+	 * @param newManager
+	 *            new manager of the given position <br>
+	 *            NOTE: the new manager MUST NOT be null!
+	 * @param newHasSamePlayer
+	 */
+	public void add(int x, int y, PartitionManager oldManager, PartitionManager newManager, boolean newHasSamePlayer) {
+		int index = x + y * width;
+		assert ranks[index] == 0 : "position (" + x + "|" + y + ") has already been added to the transfer";
+
+		if (size == positions.length) {
+			int newLength = size * 2;
+			positions = Arrays.copyOf(positions, newLength);
+			oldManagers = Arrays.copyOf(oldManagers, newLength);
+			newManagers = Arrays.copyOf(newManagers, newLength);
+			this.newHasSamePlayer = Arrays.copyOf(this.newHasSamePlayer, newLength);
+			stamps = Arrays.copyOf(stamps, newLength);
+		}
+
+		positions[size] = index;
+		oldManagers[size] = oldManager;
+		newManagers[size] = newManager;
+		this.newHasSamePlayer[size] = newHasSamePlayer;
+		size++;
+		ranks[index] = size;
+
+		distinctOldManagers.add(oldManager);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Moves the offers, jobless and requests of all positions of this transfer to their new managers and clears the transfer.
+	 */
+	public void execute() {
+		if (size > 0) {
+			PartitionManager.transferPositions(this);
+			clear();
+		}
+	}
+
+	private void clear() {
+		for (int i = 0; i < size; i++) {
+			ranks[positions[i]] = 0;
+			oldManagers[i] = null;
+			newManagers[i] = null;
+		}
+		size = 0;
+		distinctOldManagers.clear();
+	}
+
+	Iterable<PartitionManager> getOldManagers() {
+		return distinctOldManagers;
+	}
+
+	/**
+	 * @param position
+	 *            The position to look for.
+	 * @return The rank of the given position in this transfer (the number of positions added before it) or -1 if the position is not part of the
+	 *         transfer.
+	 */
+	int getRank(ShortPoint2D position) {
+		if (position.x < 0 || position.y < 0 || position.x >= width || position.y >= height) {
+			return -1;
+		}
+		return ranks[position.x + position.y * width] - 1;
+	}
+
+	PartitionManager getNewManager(int rank) {
+		return newManagers[rank];
+	}
+
+	boolean hasNewSamePlayer(int rank) {
+		return newHasSamePlayer[rank];
+	}
+
+	/**
+	 * Creates an acceptor accepting the objects at the positions the given manager loses with this transfer.
+	 * 
+	 * @param oldManager
+	 *            The manager losing the positions.
+	 * @param samePlayerOnly
+	 *            If true, only objects at positions whose new manager has the same player are accepted.
+	 * @param firstPerPosition
+	 *            If true, only the first object accepted at a position is accepted. Further objects at the same position are declined.
+	 * @return
+	 */
+	ITypeAcceptor<ILocatable> createAcceptor(final PartitionManager oldManager, final boolean samePlayerOnly, final boolean firstPerPosition) {
+		final int stamp = ++currentStamp;
+
+		return new ITypeAcceptor<ILocatable>() {
+			@Override
+			public boolean accepts(ILocatable object) {
+				int rank = getRank(object.getPos());
+				if (rank < 0 || oldManagers[rank] != oldManager || samePlayerOnly && !newHasSamePlayer[rank]) {
+					return false;
+				}
+				if (firstPerPosition) {
+					if (stamps[rank] == stamp) {
+						return false;
+					}
+					stamps[rank] = stamp;
+				}
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Buffer for the objects removed from the old managers. The objects are sorted by the rank of their positions before they are added to the new
+	 * managers, so the new managers receive them in the same order as if the positions were transferred one by one.
+	 * 
+	 * @param <T>
+	 */
+	static final class TransferredObjects<T extends ILocatable> {
+		private final PositionsTransfer transfer;
+		private final ArrayList<T> objects = new ArrayList<T>();
+		private long[] keys = new long[16];
+		private int[] slots = new int[16];
+
+		TransferredObjects(PositionsTransfer transfer) {
+			this.transfer = transfer;
+		}
+
+		/**
+		 * Adds an object removed from one of the old managers.
+		 * 
+		 * @param slot
+		 *            Identifies the list of the new manager receiving the object.
+		 * @param object
+		 *            The removed object.
+		 */
+		void add(int slot, T object) {
+			int index = objects.size();
+			if (index == keys.length) {
+				keys = Arrays.copyOf(keys, index * 2);
+				slots = Arrays.copyOf(slots, index * 2);
+			}
+
+			int rank = transfer.getRank(object.getPos());
+			keys[index] = ((long) rank << 32) | index; // the index keeps the order of objects at the same position
+			slots[index] = slot;
+			objects.add(object);
+		}
+
+		/**
+		 * Sorts the objects by the rank of their positions and calls the visitor for every object.
+		 */
+		void visitSorted(ITransferredObjectsVisitor<T> visitor) {
+			int count = objects.size();
+			Arrays.sort(keys, 0, count);
+
+			for (int i = 0; i < count; i++) {
+				int rank = (int) (keys[i] >>> 32);
+				int index = (int) keys[i];
+				visitor.visit(transfer.getNewManager(rank), transfer.hasNewSamePlayer(rank), slots[index], objects.get(index));
+			}
+		}
+	}
+
+	interface ITransferredObjectsVisitor<T> {
+		void visit(PartitionManager newManager, boolean newHasSamePlayer, int slot, T object);
+	}
+}
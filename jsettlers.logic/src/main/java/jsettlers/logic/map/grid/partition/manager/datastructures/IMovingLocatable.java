@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager.datastructures;
+
+/**
+ * {@link jsettlers.common.position.ILocatable}s stored in a {@link PositionableList} whose position changes while they are in the list must
+ * implement this interface.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public interface IMovingLocatable {
+
+	/**
+	 * Sets the listener that must be informed after every change of the position of this object. There is only one listener, so the object can
+	 * only be in one {@link PositionableList} at a time.
+	 * 
+	 * @param listener
+	 *            The listener or null to remove the current one.
+	 */
+	void setPositionChangedListener(IPositionChangedListener listener);
+}
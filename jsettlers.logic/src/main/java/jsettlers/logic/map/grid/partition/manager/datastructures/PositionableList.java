@@ -14,9 +14,16 @@
  *******************************************************************************/
 package jsettlers.logic.map.grid.partition.manager.datastructures;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.position.ILocatable;
@@ -26,22 +33,86 @@ import jsettlers.common.utils.MathUtils;
 /**
  * This is a data structure for storing and retrieving objects at given positions.<br>
  * It is also possible to find the nearest object around a given position.
+ * <p />
+ * The objects are kept in insertion order and in a grid of buckets. Searches by position only look at the bucket of the position. Nearest
+ * searches visit the buckets in rings around the position and stop as soon as no closer object can be found. Of several objects with the same
+ * distance, the one inserted first is returned. Objects implementing {@link IMovingLocatable} report their moves to the list, so they are always
+ * found in the bucket of their current position. An object can be inserted several times, like into a list. Its entries are chained, so all of
+ * them are moved.
  * 
  * @author Andreas Eberle
  * 
  * @param <T>
  */
-public class PositionableList<T extends ILocatable> implements Iterable<T>, Serializable {
+public class PositionableList<T extends ILocatable> implements Iterable<T>, Serializable, IPositionChangedListener {
 	private static final long serialVersionUID = 414099060331344505L;
 
-	private ArrayList<T> data;
+	private static final int BUCKET_SHIFT = 4;
+	private static final int BUCKET_SIZE = 1 << BUCKET_SHIFT;
+	/**
+	 * Lists with up to this number of objects are searched linearly, as visiting the empty buckets around a position would be more expensive.
+	 */
+	private static final int LINEAR_SEARCH_LIMIT = 32;
+
+	private transient Entry<T> head;
+	private transient Entry<T> tail;
+	private transient int size;
+	private transient long nextSequence;
+	/**
+	 * The first entry of every object. Further entries of the same object are chained by {@link Entry#nextOfObject}.
+	 */
+	private transient IdentityHashMap<T, Entry<T>> entries;
+
+	private transient ArrayList<Entry<T>> buckets;
+	private transient int bucketsWidth;
+	private transient int bucketsHeight;
+
+	/**
+	 * Objects read by deserialization. They are indexed on first use, as their positions may not be readable while the list is deserialized.
+	 */
+	private transient ArrayList<T> deserializedObjects;
 
 	public PositionableList() {
-		data = new ArrayList<T>();
+		init();
+	}
+
+	private void init() {
+		entries = new IdentityHashMap<T, Entry<T>>();
+		buckets = new ArrayList<Entry<T>>();
+		bucketsWidth = 0;
+		bucketsHeight = 0;
 	}
 
 	public void insert(T object) {
-		data.add(object);
+		ensureIndexed();
+
+		ShortPoint2D position = object.getPos();
+		Entry<T> entry = new Entry<T>(object, position.x, position.y, nextSequence++);
+
+		entry.previous = tail;
+		if (tail == null) {
+			head = entry;
+		} else {
+			tail.next = entry;
+		}
+		tail = entry;
+		size++;
+
+		Entry<T> firstOfObject = entries.get(object);
+		if (firstOfObject == null) {
+			entries.put(object, entry);
+		} else {
+			Entry<T> lastOfObject = firstOfObject;
+			while (lastOfObject.nextOfObject != null) {
+				lastOfObject = lastOfObject.nextOfObject;
+			}
+			lastOfObject.nextOfObject = entry;
+		}
+		linkToBucket(entry);
+
+		if (object instanceof IMovingLocatable) {
+			((IMovingLocatable) object).setPositionChangedListener(this);
+		}
 	}
 
 	/**
@@ -57,17 +128,42 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 
 	@Override
 	public Iterator<T> iterator() {
-		return data.iterator();
+		ensureIndexed();
+		return new Iterator<T>() {
+			private Entry<T> next = head;
+			private Entry<T> current;
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public T next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				current = next;
+				next = next.next;
+				return current.object;
+			}
+
+			@Override
+			public void remove() {
+				if (current == null) {
+					throw new IllegalStateException();
+				}
+				removeEntry(current);
+				current = null;
+			}
+		};
 	}
 
 	public T removeObjectAt(ShortPoint2D position) {
-		Iterator<T> iter = data.iterator();
-		while (iter.hasNext()) {
-			T curr = iter.next();
-			if (curr.getPos().equals(position)) {
-				iter.remove();
-				return curr;
-			}
+		Entry<T> entry = getEntryAt(position);
+		if (entry != null) {
+			removeEntry(entry);
+			return entry.object;
 		}
 		return null;
 	}
@@ -80,12 +176,8 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 	 * @return Returns the found object at the given position or null if no object has been found.
 	 */
 	public T getObjectAt(ShortPoint2D position) {
-		for (T curr : data) {
-			if (curr.getPos().equals(position)) {
-				return curr;
-			}
-		}
-		return null;
+		Entry<T> entry = getEntryAt(position);
+		return entry != null ? entry.object : null;
 	}
 
 	/**
@@ -99,67 +191,362 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 	 * @return accepted object that's nearest to position
 	 */
 	public T removeObjectNextTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
-		T currBest = getObjectCloseTo(position, acceptor);
+		Entry<T> currBest = getEntryCloseTo(position, acceptor);
 
-		if (currBest != null)
-			data.remove(currBest);
+		if (currBest != null) {
+			removeEntry(currBest);
+			return currBest.object;
+		}
+		return null;
+	}
 
-		return currBest;
+	public T getObjectCloseTo(ShortPoint2D position) {
+		Entry<T> entry = getEntryCloseTo(position, null);
+		return entry != null ? entry.object : null;
 	}
 
-	private T getObjectCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+	private Entry<T> getEntryAt(ShortPoint2D position) {
+		ensureIndexed();
+
+		Entry<T> result = null;
+		for (Entry<T> curr = getBucketHead(position.x >> BUCKET_SHIFT, position.y >> BUCKET_SHIFT); curr != null; curr = curr.nextInBucket) {
+			if (curr.x == position.x && curr.y == position.y && (result == null || curr.sequence < result.sequence)) {
+				result = curr;
+			}
+		}
+		return result;
+	}
+
+	private Entry<T> getEntryCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+		ensureIndexed();
+
+		if (size <= LINEAR_SEARCH_LIMIT) {
+			return getEntryCloseToLinear(position, acceptor);
+		}
+
+		final int bucketX = position.x >> BUCKET_SHIFT;
+		final int bucketY = position.y >> BUCKET_SHIFT;
+		final int maxRadius = Math.max(Math.max(bucketX, bucketsWidth - 1 - bucketX), Math.max(bucketY, bucketsHeight - 1 - bucketY));
+
+		Entry<T> currBest = null;
 		int bestDistance = Integer.MAX_VALUE;
-		T currBest = null;
 
-		for (T currEntry : data) {
-			if (acceptor != null && !acceptor.accepts(currEntry))
-				continue;
+		for (int radius = 0; radius <= maxRadius; radius++) {
+			if (currBest != null && radius > 0) {
+				int minDistanceInRing = (radius - 1) * BUCKET_SIZE + 1;
+				if (minDistanceInRing * minDistanceInRing > bestDistance) {
+					break; // no object in this or the following rings can be closer
+				}
+			}
+
+			final int minX = bucketX - radius;
+			final int maxX = bucketX + radius;
+			final int minY = bucketY - radius;
+			final int maxY = bucketY + radius;
 
-			ShortPoint2D currPosition = currEntry.getPos();
-			int currDist = MathUtils.squareHypot(position, currPosition);
+			for (int y = Math.max(0, minY); y <= Math.min(bucketsHeight - 1, maxY); y++) {
+				int step = (y == minY || y == maxY) ? 1 : 2 * radius; // only visit the border of the ring
+				for (int x = minX; x <= maxX; x += Math.max(1, step)) {
+					if (x < 0 || x >= bucketsWidth) {
+						continue;
+					}
 
-			if (bestDistance > currDist) {
-				bestDistance = currDist;
-				currBest = currEntry;
+					for (Entry<T> curr = buckets.get(x + y * bucketsWidth); curr != null; curr = curr.nextInBucket) {
+						if (acceptor != null && !acceptor.accepts(curr.object)) {
+							continue;
+						}
+
+						int currDistance = MathUtils.squareHypot(position.x - curr.x, position.y - curr.y);
+						if (currDistance < bestDistance || currDistance == bestDistance && curr.sequence < currBest.sequence) {
+							bestDistance = currDistance;
+							currBest = curr;
+						}
+					}
+				}
 			}
 		}
+
 		return currBest;
 	}
 
-	public T getObjectCloseTo(ShortPoint2D position) {
-		return getObjectCloseTo(position, null);
+	private Entry<T> getEntryCloseToLinear(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+		int bestDistance = Integer.MAX_VALUE;
+		Entry<T> currBest = null;
+
+		for (Entry<T> curr = head; curr != null; curr = curr.next) {
+			if (acceptor != null && !acceptor.accepts(curr.object)) {
+				continue;
+			}
+
+			int currDistance = MathUtils.squareHypot(position.x - curr.x, position.y - curr.y);
+			if (bestDistance > currDistance) {
+				bestDistance = currDistance;
+				currBest = curr;
+			}
+		}
+		return currBest;
 	}
 
 	@Override
 	public String toString() {
-		return data.toString();
+		StringBuilder builder = new StringBuilder("[");
+		for (T curr : this) {
+			if (builder.length() > 1) {
+				builder.append(", ");
+			}
+			builder.append(curr);
+		}
+		return builder.append(']').toString();
 	}
 
+	/**
+	 * Moves all objects of the given list to the end of this list. The other list is empty afterwards, as an {@link IMovingLocatable} can only be
+	 * tracked by one list.
+	 * 
+	 * @param otherList
+	 */
 	public void addAll(PositionableList<T> otherList) {
-		this.data.addAll(otherList.data);
+		otherList.ensureIndexed();
+		ArrayList<T> objects = new ArrayList<T>(otherList.size);
+		while (otherList.head != null) { // remove all entries first, as an object may have several
+			objects.add(otherList.head.object);
+			otherList.removeEntry(otherList.head);
+		}
+		for (T object : objects) {
+			insert(object);
+		}
 	}
 
 	public void remove(T object) {
-		this.data.remove(object);
+		ensureIndexed();
+		Entry<T> entry = entries.get(object);
+		if (entry != null) {
+			removeEntry(entry);
+		}
 	}
 
 	public boolean isEmpty() {
-		return data.isEmpty();
+		ensureIndexed();
+		return size == 0;
+	}
+
+	public int size() {
+		ensureIndexed();
+		return size;
 	}
 
 	public void moveObjectsAtPositionTo(ShortPoint2D position, PositionableList<T> newList, IMovedVisitor<? super T> movedVisitor) {
-		Iterator<T> iter = data.iterator();
-		while (iter.hasNext()) {
-			T curr = iter.next();
-			if (curr.getPos().equals(position)) {
-				iter.remove();
-				movedVisitor.visit(curr);
-				newList.data.add(curr);
+		ensureIndexed();
+
+		ArrayList<Entry<T>> moved = new ArrayList<Entry<T>>();
+		for (Entry<T> curr = getBucketHead(position.x >> BUCKET_SHIFT, position.y >> BUCKET_SHIFT); curr != null; curr = curr.nextInBucket) {
+			if (curr.x == position.x && curr.y == position.y) {
+				moved.add(curr);
+			}
+		}
+		if (moved.isEmpty()) {
+			return;
+		}
+
+		Collections.sort(moved, SEQUENCE_COMPARATOR);
+		for (Entry<T> curr : moved) { // remove all entries first, as an object may have several
+			removeEntry(curr);
+		}
+		for (Entry<T> curr : moved) {
+			movedVisitor.visit(curr.object);
+			newList.insert(curr.object);
+		}
+	}
+
+	/**
+	 * Removes all objects accepted by the given acceptor with a single pass over the list. The removed objects are given to the visitor in the
+	 * order of this list.
+	 *
+	 * @param acceptor
+	 *            Decides which objects are removed.
+	 * @param removedVisitor
+	 *            Visitor called for every removed object.
+	 */
+	public void removeObjects(ITypeAcceptor<? super T> acceptor, IMovedVisitor<? super T> removedVisitor) {
+		ensureIndexed();
+
+		for (Entry<T> curr = head; curr != null;) {
+			Entry<T> next = curr.next;
+			if (acceptor.accepts(curr.object)) {
+				removeEntry(curr);
+				removedVisitor.visit(curr.object);
+			}
+			curr = next;
+		}
+	}
+
+	@Override
+	public void positionChanged(IMovingLocatable object) {
+		ensureIndexed();
+
+		for (Entry<T> entry = entries.get(object); entry != null; entry = entry.nextOfObject) {
+			ShortPoint2D position = entry.object.getPos();
+			if (entry.x != position.x || entry.y != position.y) {
+				unlinkFromBucket(entry);
+				entry.x = position.x;
+				entry.y = position.y;
+				linkToBucket(entry);
+			}
+		}
+	}
+
+	private void removeEntry(Entry<T> entry) {
+		if (entry.previous == null) {
+			head = entry.next;
+		} else {
+			entry.previous.next = entry.next;
+		}
+		if (entry.next == null) {
+			tail = entry.previous;
+		} else {
+			entry.next.previous = entry.previous;
+		}
+		size--;
+
+		unlinkFromObject(entry);
+		unlinkFromBucket(entry);
+	}
+
+	private void unlinkFromObject(Entry<T> entry) {
+		Entry<T> firstOfObject = entries.get(entry.object);
+		if (firstOfObject == entry) {
+			if (entry.nextOfObject != null) {
+				entries.put(entry.object, entry.nextOfObject);
+			} else {
+				entries.remove(entry.object);
+				if (entry.object instanceof IMovingLocatable) {
+					((IMovingLocatable) entry.object).setPositionChangedListener(null);
+				}
+			}
+		} else {
+			Entry<T> previousOfObject = firstOfObject;
+			while (previousOfObject.nextOfObject != entry) {
+				previousOfObject = previousOfObject.nextOfObject;
+			}
+			previousOfObject.nextOfObject = entry.nextOfObject;
+		}
+		entry.nextOfObject = null;
+	}
+
+	private Entry<T> getBucketHead(int bucketX, int bucketY) {
+		if (bucketX < 0 || bucketY < 0 || bucketX >= bucketsWidth || bucketY >= bucketsHeight) {
+			return null;
+		}
+		return buckets.get(bucketX + bucketY * bucketsWidth);
+	}
+
+	private void linkToBucket(Entry<T> entry) {
+		final int bucketX = entry.x >> BUCKET_SHIFT;
+		final int bucketY = entry.y >> BUCKET_SHIFT;
+		ensureBucketExists(bucketX, bucketY);
+
+		final int bucketIndex = bucketX + bucketY * bucketsWidth;
+		Entry<T> bucketHead = buckets.get(bucketIndex);
+		entry.previousInBucket = null;
+		entry.nextInBucket = bucketHead;
+		if (bucketHead != null) {
+			bucketHead.previousInBucket = entry;
+		}
+		buckets.set(bucketIndex, entry);
+	}
+
+	private void unlinkFromBucket(Entry<T> entry) {
+		if (entry.previousInBucket == null) {
+			buckets.set((entry.x >> BUCKET_SHIFT) + (entry.y >> BUCKET_SHIFT) * bucketsWidth, entry.nextInBucket);
+		} else {
+			entry.previousInBucket.nextInBucket = entry.nextInBucket;
+		}
+		if (entry.nextInBucket != null) {
+			entry.nextInBucket.previousInBucket = entry.previousInBucket;
+		}
+		entry.previousInBucket = null;
+		entry.nextInBucket = null;
+	}
+
+	private void ensureBucketExists(int bucketX, int bucketY) {
+		if (bucketX < bucketsWidth && bucketY < bucketsHeight) {
+			return;
+		}
+
+		int newWidth = Math.max(bucketsWidth, bucketX + 1);
+		int newHeight = Math.max(bucketsHeight, bucketY + 1);
+		ArrayList<Entry<T>> newBuckets = new ArrayList<Entry<T>>(Collections.<Entry<T>> nCopies(newWidth * newHeight, null));
+		for (int y = 0; y < bucketsHeight; y++) {
+			for (int x = 0; x < bucketsWidth; x++) {
+				newBuckets.set(x + y * newWidth, buckets.get(x + y * bucketsWidth));
 			}
 		}
+
+		buckets = newBuckets;
+		bucketsWidth = newWidth;
+		bucketsHeight = newHeight;
+	}
+
+	private void ensureIndexed() {
+		if (deserializedObjects != null) {
+			ArrayList<T> objects = deserializedObjects;
+			deserializedObjects = null;
+			for (T object : objects) {
+				insert(object);
+			}
+		}
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+
+		ArrayList<T> objects;
+		if (deserializedObjects != null) {
+			objects = deserializedObjects;
+		} else {
+			objects = new ArrayList<T>(size);
+			for (Entry<T> curr = head; curr != null; curr = curr.next) {
+				objects.add(curr.object);
+			}
+		}
+		oos.writeObject(objects);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		init();
+		deserializedObjects = (ArrayList<T>) ois.readObject();
 	}
 
 	public interface IMovedVisitor<T> {
 		void visit(T moved);
 	}
+
+	private static final class Entry<T> {
+		final T object;
+		final long sequence;
+		short x;
+		short y;
+
+		Entry<T> previous;
+		Entry<T> next;
+		Entry<T> previousInBucket;
+		Entry<T> nextInBucket;
+		Entry<T> nextOfObject;
+
+		Entry(T object, short x, short y, long sequence) {
+			this.object = object;
+			this.x = x;
+			this.y = y;
+			this.sequence = sequence;
+		}
+	}
+
+	private static final Comparator<Entry<?>> SEQUENCE_COMPARATOR = new Comparator<Entry<?>>() {
+		@Override
+		public int compare(Entry<?> entry1, Entry<?> entry2) {
+			return Long.compare(entry1.sequence, entry2.sequence);
+		}
+	};
 }
@@ -16,6 +16,7 @@ package jsettlers.logic.map.grid.partition.manager.materials;
 
 import java.io.Serializable;
 
+import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
@@ -24,6 +25,7 @@ import jsettlers.logic.map.grid.partition.manager.materials.interfaces.IManagerB
 import jsettlers.logic.map.grid.partition.manager.materials.offers.MaterialOffer;
 import jsettlers.logic.map.grid.partition.manager.materials.offers.OffersList;
 import jsettlers.logic.map.grid.partition.manager.materials.requests.AbstractMaterialRequestPriorityQueue;
+import jsettlers.logic.map.grid.partition.manager.materials.requests.AbstractMaterialRequestPriorityQueue.IRequestQueueVisitor;
 import jsettlers.logic.map.grid.partition.manager.materials.requests.MaterialRequestObject;
 import jsettlers.logic.map.grid.partition.manager.materials.requests.MaterialsForBuildingsRequestPrioQueue;
 import jsettlers.logic.map.grid.partition.manager.materials.requests.SimpleMaterialRequestPriorityQueue;
@@ -116,9 +118,47 @@ public final class MaterialsManager implements Serializable {
 		}
 	}
 
+	/**
+	 * Removes all requests accepted by the given acceptor with a single pass over the request queues of every material.
+	 * 
+	 * @param acceptor
+	 *            Decides which requests are removed.
+	 * @param removedVisitor
+	 *            Visitor called for every removed request.
+	 */
+	public void removeRequests(ITypeAcceptor<? super MaterialRequestObject> acceptor, final IRequestsVisitor removedVisitor) {
+		for (int i = 0; i < EMaterialType.NUMBER_OF_MATERIALS; i++) {
+			final EMaterialType materialType = EMaterialType.VALUES[i];
+			requestQueues[i].removeObjects(acceptor, new IRequestQueueVisitor() {
+				@Override
+				public void visit(int queueIndex, MaterialRequestObject request) {
+					removedVisitor.visit(materialType, queueIndex, request);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Adds a request that has been removed from another {@link MaterialsManager} with {@link #removeRequests(ITypeAcceptor, IRequestsVisitor)}.
+	 * 
+	 * @param materialType
+	 *            The requested material.
+	 * @param queueIndex
+	 *            The index of the queue the request has been removed from.
+	 * @param request
+	 *            The moved request.
+	 */
+	public void insertMovedRequest(EMaterialType materialType, int queueIndex, MaterialRequestObject request) {
+		requestQueues[materialType.ordinal].insertMovedRequest(queueIndex, request);
+	}
+
 	public void mergeInto(MaterialsManager newManager) {
 		for (int i = 0; i < EMaterialType.NUMBER_OF_MATERIALS; i++) {
 			requestQueues[i].mergeInto(newManager.requestQueues[i]);
 		}
 	}
+
+	public interface IRequestsVisitor {
+		void visit(EMaterialType materialType, int queueIndex, MaterialRequestObject request);
+	}
 }
@@ -16,6 +16,7 @@ package jsettlers.logic.map.grid.partition.manager.materials.offers;
 
 import java.io.Serializable;
 
+import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.map.grid.partition.data.IMaterialCounts;
@@ -158,6 +159,43 @@ public final class OffersList implements IMaterialCounts, Serializable {
 		}
 	}
 
+	/**
+	 * Removes all offers accepted by the given acceptor with a single pass over the offers of every material.
+	 * 
+	 * @param acceptor
+	 *            Decides which offers are removed.
+	 * @param removedVisitor
+	 *            Visitor called for every removed offer.
+	 */
+	public void removeOffers(ITypeAcceptor<? super MaterialOffer> acceptor, final IOffersVisitor removedVisitor) {
+		for (int i = 0; i < EMaterialType.NUMBER_OF_MATERIALS; i++) {
+			final int materialTypeIdx = i;
+			final EMaterialType materialType = EMaterialType.VALUES[materialTypeIdx];
+			offersLists[materialTypeIdx].removeObjects(acceptor, new IMovedVisitor<MaterialOffer>() {
+				@Override
+				public void visit(MaterialOffer removed) { // correct the counts
+					numberOfOffers[materialTypeIdx] -= removed.getAmount();
+					countListener.offersCountChanged(materialType, -removed.getAmount());
+					removedVisitor.visit(materialType, removed);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Adds an offer that has been removed from another {@link OffersList} with {@link #removeOffers(ITypeAcceptor, IOffersVisitor)}.
+	 * 
+	 * @param materialType
+	 *            The {@link EMaterialType} of the offer.
+	 * @param offer
+	 *            The moved offer.
+	 */
+	public void insertMovedOffer(EMaterialType materialType, MaterialOffer offer) {
+		offersLists[materialType.ordinal].insert(offer);
+		numberOfOffers[materialType.ordinal] += offer.getAmount();
+		countListener.offersCountChanged(materialType, +offer.getAmount());
+	}
+
 	public void addAll(OffersList otherList) {
 		for (int i = 0; i < EMaterialType.NUMBER_OF_MATERIALS; i++) {
 			short amount = otherList.numberOfOffers[i];
@@ -175,4 +213,8 @@ public final class OffersList implements IMaterialCounts, Serializable {
 	public int getAmountOf(EMaterialType materialType) {
 		return numberOfOffers[materialType.ordinal];
 	}
+
+	public interface IOffersVisitor {
+		void visit(EMaterialType materialType, MaterialOffer offer);
+	}
 }
@@ -16,6 +16,7 @@ package jsettlers.logic.map.grid.partition.manager.materials.requests;
 
 import java.io.Serializable;
 
+import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.material.EPriority;
 import jsettlers.common.position.ShortPoint2D;
@@ -136,6 +137,26 @@ public abstract class AbstractMaterialRequestPriorityQueue implements Serializab
 	 */
 	public abstract void moveObjectsOfPositionTo(ShortPoint2D position, AbstractMaterialRequestPriorityQueue newQueue);
 
+	/**
+	 * Removes all requests accepted by the given acceptor from this queue with a single pass over the queue.
+	 * 
+	 * @param acceptor
+	 *            Decides which requests are removed.
+	 * @param removedVisitor
+	 *            Visitor called for every removed request with the index of the internal queue it has been removed from.
+	 */
+	public abstract void removeObjects(ITypeAcceptor<? super MaterialRequestObject> acceptor, IRequestQueueVisitor removedVisitor);
+
+	/**
+	 * Appends a request removed from another queue of the same type with {@link #removeObjects(ITypeAcceptor, IRequestQueueVisitor)}.
+	 * 
+	 * @param queueIndex
+	 *            The index of the internal queue the request has been removed from.
+	 * @param request
+	 *            The moved request.
+	 */
+	public abstract void insertMovedRequest(int queueIndex, MaterialRequestObject request);
+
 	/**
 	 * Merges this queue into the given {@link AbstractMaterialRequestPriorityQueue}.
 	 * <p />
@@ -147,4 +168,8 @@ public abstract class AbstractMaterialRequestPriorityQueue implements Serializab
 	 */
 	public abstract void mergeInto(AbstractMaterialRequestPriorityQueue newQueue);
 
+
+	public interface IRequestQueueVisitor {
+		void visit(int queueIndex, MaterialRequestObject request);
+	}
 }
@@ -19,6 +19,7 @@ import java.io.ObjectInputStream;
 import java.util.Arrays;
 import java.util.Iterator;
 
+import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.map.partition.IMaterialsDistributionSettings;
 import jsettlers.common.material.EPriority;
@@ -180,6 +181,32 @@ public final class MaterialsForBuildingsRequestPrioQueue extends AbstractMateria
 		}
 	}
 
+	@Override
+	public void removeObjects(ITypeAcceptor<? super MaterialRequestObject> acceptor, IRequestQueueVisitor removedVisitor) {
+		final int numberOfBuildings = settings.getNumberOfBuildings();
+
+		for (int prioIdx = 0; prioIdx < queues.length; prioIdx++) {
+			DoubleLinkedList<MaterialRequestObject>[] prioQueue = queues[prioIdx];
+			for (int queueIdx = 0; queueIdx < numberOfBuildings; queueIdx++) {
+				Iterator<MaterialRequestObject> iter = prioQueue[queueIdx].iterator();
+				while (iter.hasNext()) {
+					MaterialRequestObject curr = iter.next();
+					if (acceptor.accepts(curr)) {
+						iter.remove();
+						removedVisitor.visit(prioIdx * numberOfBuildings + queueIdx, curr);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void insertMovedRequest(int queueIndex, MaterialRequestObject request) {
+		final int numberOfBuildings = settings.getNumberOfBuildings();
+		queues[queueIndex / numberOfBuildings][queueIndex % numberOfBuildings].pushEnd(request);
+		request.requestQueue = this;
+	}
+
 	@Override
 	public void mergeInto(AbstractMaterialRequestPriorityQueue newAbstractQueue) {
 		assert newAbstractQueue instanceof MaterialsForBuildingsRequestPrioQueue : "can't move positions between diffrent types of queues.";
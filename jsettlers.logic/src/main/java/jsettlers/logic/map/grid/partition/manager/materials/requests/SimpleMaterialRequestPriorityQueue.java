@@ -17,6 +17,7 @@ package jsettlers.logic.map.grid.partition.manager.materials.requests;
 import java.util.Arrays;
 import java.util.Iterator;
 
+import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.material.EPriority;
 import jsettlers.common.position.ShortPoint2D;
@@ -62,6 +63,26 @@ public final class SimpleMaterialRequestPriorityQueue extends AbstractMaterialRe
 		}
 	}
 
+	@Override
+	public void removeObjects(ITypeAcceptor<? super MaterialRequestObject> acceptor, IRequestQueueVisitor removedVisitor) {
+		for (int queueIdx = 0; queueIdx < queues.length; queueIdx++) {
+			Iterator<MaterialRequestObject> iter = queues[queueIdx].iterator();
+			while (iter.hasNext()) {
+				MaterialRequestObject curr = iter.next();
+				if (acceptor.accepts(curr)) {
+					iter.remove();
+					removedVisitor.visit(queueIdx, curr);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void insertMovedRequest(int queueIndex, MaterialRequestObject request) {
+		queues[queueIndex].pushEnd(request);
+		request.requestQueue = this;
+	}
+
 	@Override
 	public void mergeInto(AbstractMaterialRequestPriorityQueue newAbstractQueue) {
 		assert newAbstractQueue instanceof SimpleMaterialRequestPriorityQueue : "can't move positions between diffrent types of queues.";
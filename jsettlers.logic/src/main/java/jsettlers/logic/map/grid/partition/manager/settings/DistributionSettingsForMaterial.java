@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.logic.map.grid.partition.manager.settings;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import jsettlers.common.buildings.EBuildingType;
@@ -31,7 +33,7 @@ public final class DistributionSettingsForMaterial implements IMaterialsDistribu
 	private static final long serialVersionUID = -8519244429973606793L;
 
 	private final EMaterialType materialType;
-	private final EBuildingType[] requestingBuildings;
+	private transient EBuildingType[] requestingBuildings; // shared by all players; not serialized to keep it shared after loading
 	private final float[] probabilities;
 
 	/**
@@ -53,6 +55,11 @@ public final class DistributionSettingsForMaterial implements IMaterialsDistribu
 		}
 	}
 
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		requestingBuildings = MaterialsOfBuildings.getBuildingTypesRequestingMaterial(materialType);
+	}
+
 	@Override
 	public int getNumberOfBuildings() {
 		return requestingBuildings.length;
@@ -14,6 +14,8 @@
  *******************************************************************************/
 package jsettlers.logic.map.grid.partition.manager.settings;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import jsettlers.common.map.partition.IPartitionSettings;
@@ -60,6 +62,17 @@ public final class PartitionManagerSettings implements IPartitionSettings, Seria
 		materialProductionSettings = new MaterialProductionSettings();
 	}
 
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+
+		// the settings of the not configurable materials are shared by all partitions
+		for (int i = 0; i < EMaterialType.NUMBER_OF_MATERIALS; i++) {
+			if (!EMaterialType.VALUES[i].isDistributionConfigurable()) {
+				settingsOfMaterials[i] = defaultSettings[i];
+			}
+		}
+	}
+
 	@Override
 	public EMaterialType getMaterialTypeForPrio(int priorityIdx) {
 		return materialTypeForPriorities[priorityIdx];
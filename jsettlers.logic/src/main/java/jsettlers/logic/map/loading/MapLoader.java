@@ -43,25 +43,41 @@ public abstract class MapLoader implements IGameCreator, Comparable<MapLoader>,
 	public abstract MapFileHeader getFileHeader();
 
 	public static MapLoader getLoaderForListedMap(IListedMap listedMap) throws MapLoadException {
-		if ((checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL))
-				|| (checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL_MAP_EDITOR))) {
+		if (isOriginalMap(listedMap)) {
 			// - original Siedler 3 Map
 			return new OriginalMapLoader(listedMap);
 		} else {
 			// - Siedler 3 Remake Savegame or Map
-			MapFileHeader header = RemakeMapLoader.loadHeader(listedMap);
+			return getLoaderForHeader(listedMap, RemakeMapLoader.loadHeader(listedMap));
+		}
+	}
 
-			switch (header.getType()) {
-			case NORMAL:
-				return new FreshMapLoader(listedMap, header);
-			case SAVED_SINGLE:
-				return new SavegameLoader(listedMap, header);
-			default:
-				throw new MapLoadException("Unkown EMapType: " + header.getType());
-			}
+	/**
+	 * Creates the loader for a Siedler 3 Remake savegame or map whose header is already known.
+	 * 
+	 * @param listedMap
+	 *            The map.
+	 * @param header
+	 *            The header of the map.
+	 * @return
+	 * @throws MapLoadException
+	 */
+	public static MapLoader getLoaderForHeader(IListedMap listedMap, MapFileHeader header) throws MapLoadException {
+		switch (header.getType()) {
+		case NORMAL:
+			return new FreshMapLoader(listedMap, header);
+		case SAVED_SINGLE:
+			return new SavegameLoader(listedMap, header);
+		default:
+			throw new MapLoadException("Unkown EMapType: " + header.getType());
 		}
 	}
 
+	public static boolean isOriginalMap(IListedMap listedMap) {
+		return checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL)
+				|| checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL_MAP_EDITOR);
+	}
+
 	public static boolean checkExtention(String filename, String Extention) {
 		if (filename == null)
 			return false;
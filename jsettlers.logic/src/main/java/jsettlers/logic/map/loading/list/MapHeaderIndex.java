@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.list;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+
+/**
+ * A persistent index of the {@link MapFileHeader}s of map files. The entries are keyed by the path of the file and are only valid as long as the
+ * size and modification time of the file don't change.
+ * <p />
+ * The index file contains a sequence of entries. New entries are appended to it, so saving the index after a single new savegame doesn't
+ * rewrite all the other entries. The file is only rewritten completely if entries are replaced or entries of files that don't exist any more
+ * are removed. The entries are not compressed, as inflating the preview images takes longer than reading the headers from the map files.
+ * <p />
+ * All methods except {@link #save()} may be called concurrently.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class MapHeaderIndex {
+	private static final int MAGIC = 0x4A534849; // "JSHI"
+	private static final short VERSION = 1;
+
+	private final File indexFile;
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private final Set<String> usedPaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final ConcurrentLinkedQueue<Entry> newEntries = new ConcurrentLinkedQueue<Entry>();
+	private volatile boolean rewriteRequired = false;
+
+	/**
+	 * Creates an index stored in the given file and reads its entries. If the file can't be read, the index starts empty or with the entries
+	 * read up to the error.
+	 * 
+	 * @param indexFile
+	 *            The file the index is stored in.
+	 */
+	public MapHeaderIndex(File indexFile) {
+		this.indexFile = indexFile;
+		read();
+	}
+
+	/**
+	 * Gets the header of the given file from the index.
+	 * 
+	 * @param file
+	 *            The map file.
+	 * @return The header or <code>null</code> if the index contains no header for the file in its current state.
+	 */
+	public MapFileHeader get(File file) {
+		String path = file.getAbsolutePath();
+		Entry entry = entries.get(path);
+		if (entry != null && entry.length == file.length() && entry.lastModified == file.lastModified()) {
+			usedPaths.add(path);
+			return entry.header;
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Adds the header of the given file to the index.
+	 * 
+	 * @param file
+	 *            The map file.
+	 * @param header
+	 *            The header read from the file.
+	 */
+	public void put(File file, MapFileHeader header) {
+		if (header.getCreationDate() == null) {
+			return; // headers of old map versions without a date can't be written
+		}
+
+		Entry entry = new Entry(file.getAbsolutePath(), file.length(), file.lastModified(), header);
+		if (entries.put(entry.path, entry) != null) {
+			rewriteRequired = true; // don't keep the outdated entry in the file
+		}
+		usedPaths.add(entry.path);
+		newEntries.add(entry);
+	}
+
+	/**
+	 * Starts a new scan of the map directories. Entries that are not requested with {@link #get(File)} or added with
+	 * {@link #put(File, MapFileHeader)} until the next {@link #save()} are removed from the index.
+	 */
+	public void startScan() {
+		usedPaths.clear();
+	}
+
+	/**
+	 * Writes the changes of the index to the index file.
+	 */
+	public synchronized void save() {
+		if (entries.keySet().retainAll(usedPaths)) {
+			rewriteRequired = true;
+		}
+
+		try {
+			if (rewriteRequired || !indexFile.exists()) {
+				write(entries.values(), false);
+			} else if (!newEntries.isEmpty()) {
+				write(new ArrayList<Entry>(newEntries), true);
+			}
+			rewriteRequired = false;
+			newEntries.clear();
+		} catch (IOException e) {
+			System.err.println("Could not write map header index " + indexFile);
+			e.printStackTrace();
+			indexFile.delete();
+		}
+	}
+
+	/**
+	 * @return The number of entries in the index.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	private void read() {
+		if (!indexFile.isFile()) {
+			return;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+				rewriteRequired = true;
+				return;
+			}
+
+			while (true) {
+				String path;
+				try {
+					path = in.readUTF();
+				} catch (EOFException e) {
+					break;
+				}
+				long length = in.readLong();
+				long lastModified = in.readLong();
+				MapFileHeader header = MapFileHeader.readFromStream(in);
+				entries.put(path, new Entry(path, length, lastModified, header));
+			}
+		} catch (IOException e) {
+			System.err.println("Map header index " + indexFile + " is damaged; it will be rebuilt.");
+			rewriteRequired = true;
+		}
+	}
+
+	private void write(Collection<Entry> entriesToWrite, boolean append) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, append)))) {
+			if (!append) {
+				out.writeInt(MAGIC);
+				out.writeShort(VERSION);
+			}
+			for (Entry entry : entriesToWrite) {
+				out.writeUTF(entry.path);
+				out.writeLong(entry.length);
+				out.writeLong(entry.lastModified);
+				entry.header.writeTo(out);
+			}
+		}
+	}
+
+	private static final class Entry {
+		final String path;
+		final long length;
+		final long lastModified;
+		final MapFileHeader header;
+
+		Entry(String path, long length, long lastModified, MapFileHeader header) {
+			this.path = path;
+			this.length = length;
+			this.lastModified = lastModified;
+			this.header = header;
+		}
+	}
+}
@@ -17,17 +17,25 @@ package jsettlers.logic.map.loading.list;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import jsettlers.common.CommonConstants;
 import jsettlers.common.logging.MilliStopWatch;
 import jsettlers.common.map.IMapData;
 import jsettlers.common.utils.collections.ChangingList;
 import jsettlers.input.PlayerState;
-import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.loading.MapLoader;
 import jsettlers.logic.map.grid.GameSerializer;
 import jsettlers.logic.map.grid.MainGrid;
@@ -36,7 +44,7 @@ import jsettlers.logic.map.loading.newmap.FreshMapSerializer;
 import jsettlers.logic.map.loading.newmap.MapFileHeader;
 import jsettlers.logic.map.loading.newmap.MapFileHeader.MapType;
 import jsettlers.logic.map.loading.newmap.RemakeMapLoader;
-import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.map.loading.savegame.SavegameSnapshot;
 
 /**
  * This is the main map list.
@@ -59,6 +67,11 @@ public class MapList implements IMapListerCallable {
 		return CommonConstants.USE_SAVEGAME_COMPRESSION ? MapLoader.MAP_EXTENSION_COMPRESSED : MapLoader.MAP_EXTENSION;
 	}
 
+	/**
+	 * Below this number of maps per thread, the maps are listed by the calling thread only.
+	 */
+	private static final int MIN_MAPS_PER_SCAN_THREAD = 8;
+
 	private static IMapListFactory mapListFactory = new DefaultMapListFactory();
 
 	private static MapList defaultList;
@@ -69,46 +82,165 @@ public class MapList implements IMapListerCallable {
 	private final ChangingList<MapLoader> freshMaps = new ChangingList<>();
 	private final ChangingList<RemakeMapLoader> savedMaps = new ChangingList<>();
 
+	private final MapHeaderIndex headerIndex;
+	private final ArrayList<IListedMap> foundMaps = new ArrayList<>();
+
 	private boolean fileListLoaded = false;
 
+	private final Object pendingSavesLock = new Object();
+	private int pendingSaves = 0;
+	/**
+	 * Writes the savegames one after the other. The thread is not a daemon and terminates when it is idle, so a savegame being written is
+	 * completed before the VM exits.
+	 */
+	private final ExecutorService saveExecutor = new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					return new Thread(runnable, "SavegameWriterThread");
+				}
+			});
+
 	public MapList(Collection<IMapLister> mapDirectories, IMapLister saveDirectory) {
+		this(mapDirectories, saveDirectory, null);
+	}
+
+	/**
+	 * 
+	 * @param mapDirectories
+	 * @param saveDirectory
+	 * @param headerIndex
+	 *            The index used to cache the headers of the map files or <code>null</code> if the headers are always read from the files.
+	 */
+	public MapList(Collection<IMapLister> mapDirectories, IMapLister saveDirectory, MapHeaderIndex headerIndex) {
 		this.mapDirectories = new ArrayList<>(mapDirectories);
 		this.saveDirectory = saveDirectory;
+		this.headerIndex = headerIndex;
 	}
 
 	private void loadFileList() {
-		freshMaps.clear();
-		savedMaps.clear();
+		MilliStopWatch watch = new MilliStopWatch();
 
 		for (IMapLister dir : mapDirectories) {
 			dir.listMaps(this);
 		}
+
+		if (headerIndex != null) {
+			headerIndex.startScan();
+		}
+		List<MapLoader> loaders = createLoaders(foundMaps);
+		if (headerIndex != null) {
+			headerIndex.save();
+		}
+
+		ArrayList<MapLoader> newFreshMaps = new ArrayList<>();
+		ArrayList<RemakeMapLoader> newSavedMaps = new ArrayList<>();
+		for (MapLoader loader : loaders) {
+			// - if the map can't be load (e.g. caused by wrong format) the mapHead gets NULL! -> hide/ignore this map from user
+			if (loader != null && loader.getFileHeader() != null) {
+				MapType type = loader.getFileHeader().getType();
+
+				if ((type == MapType.SAVED_SINGLE)) {
+					newSavedMaps.add((RemakeMapLoader) loader);
+				} else {
+					newFreshMaps.add(loader);
+				}
+			}
+		}
+		freshMaps.setList(newFreshMaps);
+		savedMaps.setList(newSavedMaps);
+
+		watch.stop("Listing " + foundMaps.size() + " maps required");
+		foundMaps.clear();
 	}
 
-	@Override
-	public synchronized void foundMap(IListedMap map) {
-		MapLoader loader;
+	/**
+	 * Creates the loaders of the given maps in parallel.
+	 * 
+	 * @return The loaders in the order of the maps. The loader of a map that couldn't be read is <code>null</code>.
+	 */
+	private List<MapLoader> createLoaders(List<IListedMap> maps) {
+		ArrayList<MapLoader> loaders = new ArrayList<>(maps.size());
 
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), maps.size() / MIN_MAPS_PER_SCAN_THREAD);
+		if (threads <= 1) {
+			for (IListedMap map : maps) {
+				loaders.add(createLoader(map));
+			}
+			return loaders;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "MapScanThread");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
 		try {
-			loader = MapLoader.getLoaderForListedMap(map);
+			ArrayList<Future<MapLoader>> futures = new ArrayList<>(maps.size());
+			for (final IListedMap map : maps) {
+				futures.add(executor.submit(new Callable<MapLoader>() {
+					@Override
+					public MapLoader call() {
+						return createLoader(map);
+					}
+				}));
+			}
+
+			for (Future<MapLoader> future : futures) {
+				try {
+					loaders.add(future.get());
+				} catch (InterruptedException | ExecutionException e) {
+					e.printStackTrace();
+					loaders.add(null);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		return loaders;
+	}
+
+	private MapLoader createLoader(IListedMap map) {
+		try {
+			File file = getIndexedFile(map);
+			if (file == null) {
+				return MapLoader.getLoaderForListedMap(map);
+			}
+
+			MapFileHeader header = headerIndex.get(file);
+			if (header == null) {
+				header = RemakeMapLoader.loadHeader(map);
+				headerIndex.put(file, header);
+			}
+			return MapLoader.getLoaderForHeader(map, header);
+
 		} catch (Exception e) {
 			System.err.println("Cought exception while loading header for " + map.getFileName());
 			e.printStackTrace();
-			return;
+			return null;
 		}
+	}
 
-		MapFileHeader mapHead = loader.getFileHeader();
-
-		// - if the map can't be load (e.g. caused by wrong format) the mapHead gets NULL! -> hide/ignore this map from user
-		if (mapHead != null) {
-			MapType type = loader.getFileHeader().getType();
-
-			if ((type == MapType.SAVED_SINGLE)) {
-				savedMaps.add((RemakeMapLoader) loader);
-			} else {
-				freshMaps.add(loader);
-			}
+	/**
+	 * @return The file of the map if its header can be stored in the {@link #headerIndex}, <code>null</code> otherwise.
+	 */
+	private File getIndexedFile(IListedMap map) {
+		if (headerIndex == null || MapLoader.isOriginalMap(map)) {
+			return null;
 		}
+		try {
+			return map.getFile();
+		} catch (UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public synchronized void foundMap(IListedMap map) {
+		foundMaps.add(map);
 	}
 
 	public synchronized ChangingList<RemakeMapLoader> getSavedMaps() {
@@ -198,25 +330,83 @@ public class MapList implements IMapListerCallable {
 	 * @throws IOException
 	 */
 	public synchronized void saveMap(PlayerState[] playerStates, MainGrid grid) throws IOException {
-		MilliStopWatch watch = new MilliStopWatch();
 		MapFileHeader header = grid.generateSaveHeader();
-		OutputStream outStream = saveDirectory.getOutputStream(header);
+		writeSavegame(header, takeSnapshot(playerStates, grid));
+	}
 
-		header.writeTo(outStream);
+	/**
+	 * Takes a snapshot of the map and writes it to disk on a background thread. The map logic should be paused while calling this method, but
+	 * only has to stay paused until the method returns.
+	 * 
+	 * @param playerStates
+	 * @param grid
+	 * @throws IOException
+	 *             If the snapshot could not be taken. Errors while writing the snapshot are only logged.
+	 * @see #awaitPendingSaves()
+	 */
+	public void saveMapInBackground(PlayerState[] playerStates, MainGrid grid) throws IOException {
+		final MapFileHeader header = grid.generateSaveHeader();
+		final SavegameSnapshot snapshot = takeSnapshot(playerStates, grid);
 
-		ObjectOutputStream oos = new ObjectOutputStream(outStream);
-		MatchConstants.serialize(oos);
-		oos.writeObject(playerStates);
-		GameSerializer gameSerializer = new GameSerializer();
-		gameSerializer.save(grid, oos);
-		RescheduleTimer.saveTo(oos);
+		synchronized (pendingSavesLock) {
+			pendingSaves++;
+		}
+		saveExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					writeSavegame(header, snapshot);
+				} catch (IOException e) {
+					System.err.println("Error writing savegame " + header.getName());
+					e.printStackTrace();
+				} finally {
+					synchronized (pendingSavesLock) {
+						pendingSaves--;
+						pendingSavesLock.notifyAll();
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Waits until all saves started with {@link #saveMapInBackground(PlayerState[], MainGrid)} have been written.
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void awaitPendingSaves() throws InterruptedException {
+		synchronized (pendingSavesLock) {
+			while (pendingSaves > 0) {
+				pendingSavesLock.wait();
+			}
+		}
+	}
+
+	private SavegameSnapshot takeSnapshot(PlayerState[] playerStates, MainGrid grid) throws IOException {
+		MilliStopWatch watch = new MilliStopWatch();
+		SavegameSnapshot snapshot = createGameSerializer().snapshot(playerStates, grid);
+		watch.stop("Taking savegame snapshot required");
+		return snapshot;
+	}
 
-		oos.close();
+	private synchronized void writeSavegame(MapFileHeader header, SavegameSnapshot snapshot) throws IOException {
+		MilliStopWatch watch = new MilliStopWatch();
+		OutputStream outStream = saveDirectory.getOutputStream(header);
+		try {
+			header.writeTo(outStream);
+			createGameSerializer().write(snapshot, outStream);
+		} finally {
+			outStream.close();
+		}
 		watch.stop("Writing savegame required");
 
 		loadFileList();
 	}
 
+	private static GameSerializer createGameSerializer() {
+		return new GameSerializer(!CommonConstants.USE_SAVEGAME_COMPRESSION);
+	}
+
 	public ArrayList<MapLoader> getSavedMultiplayerMaps() {
 		// TODO: save multiplayer maps, so that we can load them.
 		return null;
@@ -240,8 +430,11 @@ public class MapList implements IMapListerCallable {
 	}
 
 	public static class DefaultMapListFactory implements IMapListFactory {
+		public static final String HEADER_INDEX_FILE_NAME = "mapheaders.index";
+
 		protected ArrayList<IMapLister> directories = new ArrayList<>();
 		protected IMapLister saveDirectory = null;
+		protected File headerIndexFile = null;
 
 		public void addMapDirectory(String directory, boolean create) {
 			directories.add(new DirectoryMapLister(new File(directory), create));
@@ -258,13 +451,14 @@ public class MapList implements IMapListerCallable {
 			if (saveDirectory == null) {
 				throw new RuntimeException("Savegame directory not set.");
 			}
-			return new MapList(getMapListers(), saveDirectory);
+			return new MapList(getMapListers(), saveDirectory, headerIndexFile != null ? new MapHeaderIndex(headerIndexFile) : null);
 		}
 
 		public void addResourcesDirectory(File resources) {
 			addMapDirectory(new DirectoryMapLister(new File(resources, "maps"), true));
 			saveDirectory = new DirectoryMapLister(new File(resources, "save"), true);
 			addMapDirectory(saveDirectory);
+			headerIndexFile = new File(resources, HEADER_INDEX_FILE_NAME);
 		}
 
 		protected IMapLister getSave() {
@@ -21,6 +21,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.UUID;
 
@@ -172,9 +173,9 @@ public class MapFileHeader {
 			playerSettings[i].writeTo(out);
 		}
 
-		for (int i = 0; i < PREVIEW_IMAGE_SIZE * PREVIEW_IMAGE_SIZE; i++) {
-			out.writeShort(previewImage[i]);
-		}
+		ByteBuffer previewBytes = ByteBuffer.allocate(PREVIEW_IMAGE_SIZE * PREVIEW_IMAGE_SIZE * 2);
+		previewBytes.asShortBuffer().put(previewImage, 0, PREVIEW_IMAGE_SIZE * PREVIEW_IMAGE_SIZE);
+		out.write(previewBytes.array());
 
 		out.writeLong(creationDate.getTime());
 		out.flush();
@@ -227,10 +228,10 @@ public class MapFileHeader {
 				}
 			}
 
+			byte[] bgImageBytes = new byte[PREVIEW_IMAGE_SIZE * PREVIEW_IMAGE_SIZE * 2];
+			in.readFully(bgImageBytes);
 			short[] bgImage = new short[PREVIEW_IMAGE_SIZE * PREVIEW_IMAGE_SIZE];
-			for (int i = 0; i < PREVIEW_IMAGE_SIZE * PREVIEW_IMAGE_SIZE; i++) {
-				bgImage[i] = in.readShort();
-			}
+			ByteBuffer.wrap(bgImageBytes).asShortBuffer().get(bgImage);
 
 			Date date = null;
 			if (version < VERSION_DATE_ALWAYS_SAVED) {
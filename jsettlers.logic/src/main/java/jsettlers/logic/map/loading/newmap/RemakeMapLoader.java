@@ -87,7 +87,7 @@ public abstract class RemakeMapLoader extends MapLoader {
 					zipInputStream.close();
 					throw new IOException("Invalid compressed map format!");
 				}
-				inputStream = zipInputStream;
+				inputStream = new BufferedInputStream(zipInputStream); // the header is read with many small reads
 			}
 			return inputStream;
 		} catch (Exception ex) {
@@ -15,8 +15,13 @@
 package jsettlers.logic.map.loading.original;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -30,6 +35,12 @@ import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.map.loading.EMapStartResources;
 
 /**
+ * Reads the original Settlers 3 map files.
+ * <p />
+ * Map files are memory mapped if possible, so only the pages of the file that are really accessed are read. The encrypted parts of the file
+ * are decrypted lazily into their own buffers when they are needed. Therefore reading the header information for the map list doesn't
+ * decrypt the landscape.
+ * 
  * @author Thomas Zeugner
  */
 public class OriginalMapFileContentReader {
@@ -39,7 +50,8 @@ public class OriginalMapFileContentReader {
 		public int offset = 0;
 		public int size = 0;
 		public int cryptKey = 0;
-		public boolean hasBeenDecrypted = false;
+		// - decrypted data of this part; may only contain the beginning of the part
+		byte[] decryptedData = null;
 	}
 	// --------------------------------------------------//
 
@@ -50,7 +62,8 @@ public class OriginalMapFileContentReader {
 	public boolean isSinglePlayerMap = false;
 	private boolean hasBuildings = false;
 
-	private byte[] mapContent;
+	// - read only view of the (encrypted) file; little endian
+	private ByteBuffer mapContent;
 	@SuppressWarnings("unused")
 	private EMapStartResources startResources = EMapStartResources.HIGH_GOODS;
 
@@ -69,14 +82,27 @@ public class OriginalMapFileContentReader {
 	private static final Charset TEXT_CHARSET = Charset.forName("ISO-8859-1");
 
 	public OriginalMapFileContentReader(InputStream originalMapFile) throws IOException {
+		this(wrap(getBytesFromInputStream(originalMapFile)));
+	}
+
+	/**
+	 * Creates a reader for the given file. The file is memory mapped instead of being copied to the heap.
+	 * 
+	 * @param originalMapFile
+	 * @throws IOException
+	 */
+	public OriginalMapFileContentReader(File originalMapFile) throws IOException {
+		this(mapFile(originalMapFile));
+	}
+
+	private OriginalMapFileContentReader(ByteBuffer mapContent) {
 		// - init Resource Info
 		resources = new LinkedList<MapResourceInfo>();
 
 		// - init players
 		mapData.setPlayerCount(1);
 
-		// - read File into buffer
-		mapContent = getBytesFromInputStream(originalMapFile);
+		this.mapContent = mapContent;
 	}
 
 	// - reads the whole stream and returns it as BYTE-Array
@@ -97,57 +123,57 @@ public class OriginalMapFileContentReader {
 		}
 	}
 
+	private static ByteBuffer wrap(byte[] content) {
+		return ByteBuffer.wrap(content).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	// - maps the file read only to memory; the mapping stays valid after the channel is closed
+	private static ByteBuffer mapFile(File file) throws IOException {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			FileChannel channel = randomAccessFile.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
 	// - Read UNSIGNED Byte from Buffer
-	public int readByteFrom(int offset) {
-		if (mapContent == null)
-			return 0;
-		return mapContent[offset] & 0xFF;
+	private static int readByteFrom(byte[] data, int offset) {
+		return data[offset] & 0xFF;
 	}
 
 	// - Read Big-Ending INT from Buffer
-	public int readBEIntFrom(int offset) {
-		if (mapContent == null)
-			return 0;
-		return ((mapContent[offset] & 0xFF)) |
-				((mapContent[offset + 1] & 0xFF) << 8) |
-				((mapContent[offset + 2] & 0xFF) << 16) |
-				((mapContent[offset + 3] & 0xFF) << 24);
+	private static int readBEIntFrom(byte[] data, int offset) {
+		return ((data[offset] & 0xFF)) |
+				((data[offset + 1] & 0xFF) << 8) |
+				((data[offset + 2] & 0xFF) << 16) |
+				((data[offset + 3] & 0xFF) << 24);
 	}
 
 	// - Read Big-Ending 2 Byte Number from Buffer
-	public int readBEWordFrom(int offset) {
-		if (mapContent == null)
-			return 0;
-		return ((mapContent[offset] & 0xFF)) |
-				((mapContent[offset + 1] & 0xFF) << 8);
+	private static int readBEWordFrom(byte[] data, int offset) {
+		return ((data[offset] & 0xFF)) |
+				((data[offset + 1] & 0xFF) << 8);
 	}
 
 	// - read the Higher 4-Bit of the buffer
-	public int readHighNibbleFrom(int offset) {
-		if (mapContent == null)
-			return 0;
-		return (mapContent[offset] >> 4) & 0x0F;
+	private static int readHighNibbleFrom(byte[] data, int offset) {
+		return (data[offset] >> 4) & 0x0F;
 	}
 
 	// - read the Lower 4-Bit of the buffer
-	public int readLowNibbleFrom(int offset) {
-		if (mapContent == null)
-			return 0;
-		return (mapContent[offset]) & 0x0F;
+	private static int readLowNibbleFrom(byte[] data, int offset) {
+		return (data[offset]) & 0x0F;
 
 	}
 
 	// - read a C-Style String from Buffer (ends with the first \0)
-	public String readCStrFrom(int offset, int length) {
-		if (mapContent == null)
-			return "";
-		if (mapContent.length <= offset + length)
+	private static String readCStrFrom(byte[] data, int offset, int length) {
+		if (data.length < offset + length)
 			return "";
 
 		// - find \0 char in buffer
 		int i = 0;
 		for (; i < length; i++) {
-			if (mapContent[offset + i] == 0) {
+			if (data[offset + i] == 0) {
 				break;
 			}
 		}
@@ -157,7 +183,7 @@ public class OriginalMapFileContentReader {
 		}
 
 		// - substring + encoding
-		return new String(mapContent, offset, i - 1, TEXT_CHARSET);
+		return new String(data, offset, i - 1, TEXT_CHARSET);
 	}
 
 	// - returns a File Resources
@@ -172,23 +198,23 @@ public class OriginalMapFileContentReader {
 
 	// - calculates the checksum of the file and compares it
 	boolean isChecksumValid() {
+		if (mapContent.limit() < 8)
+			return false;
+
 		// - read Checksum from File
-		int fileChecksum = readBEIntFrom(0);
+		int fileChecksum = mapContent.getInt(0);
 
 		mapData.fileChecksum = fileChecksum;
 
 		// - make "count" a Multiple of four
-		int count = mapContent.length & 0xFFFFFFFC;
+		int count = mapContent.limit() & 0xFFFFFFFC;
 		int currentChecksum = 0;
 
 		// - Map Content starts at Byte 8
 		for (int i = 8; i < count; i += 4) {
 
 			// - read DWord
-			int currentInt = ((mapContent[i] & 0xFF)) |
-					((mapContent[i + 1] & 0xFF) << 8) |
-					((mapContent[i + 2] & 0xFF) << 16) |
-					((mapContent[i + 3] & 0xFF) << 24);
+			int currentInt = mapContent.getInt(i);
 
 			// - using: Logic Right-Shift-Operator: >>>
 			currentChecksum = ((currentChecksum >>> 31) | ((currentChecksum << 1) ^ currentInt));
@@ -200,23 +226,28 @@ public class OriginalMapFileContentReader {
 
 	// - Reads in the Map-File-Structure
 	boolean loadMapResources() {
+		resources.clear();
+
+		if ((mapContent == null) || (mapContent.limit() < 8))
+			return false;
+
 		// - Version of File: 0x0A : Original Settlers Map ; 0x0B : Amazon Map
-		int fileVersion = readBEIntFrom(4);
+		int fileVersion = mapContent.getInt(4);
 
 		// - check if the Version is compatible?
 		if ((fileVersion != OriginalMapFileDataStructs.EMapFileVersion.DEFAULT.value) && (fileVersion != OriginalMapFileDataStructs.EMapFileVersion.AMAZONS.value))
 			return false;
 
 		// - Data length
-		int dataLength = mapContent.length;
+		int dataLength = mapContent.limit();
 
 		// - start of map-content
 		int filePos = 8;
 		int partTypeTemp;
 
 		do {
-			partTypeTemp = readBEIntFrom(filePos);
-			int partLen = readBEIntFrom(filePos + 4);
+			partTypeTemp = mapContent.getInt(filePos);
+			int partLen = mapContent.getInt(filePos + 4);
 
 			// - don't know what the [FileTypeSub] is for -> it should by zero
 			int partType = (partTypeTemp & 0x0000FFFF);
@@ -237,7 +268,6 @@ public class OriginalMapFileContentReader {
 
 				newRes.partType = OriginalMapFileDataStructs.EMapFilePartType.getTypeByInt(partType);
 				newRes.cryptKey = partType;
-				newRes.hasBeenDecrypted = false;
 				newRes.offset = mapPartPos;
 				newRes.size = partLen - 8;
 
@@ -249,26 +279,36 @@ public class OriginalMapFileContentReader {
 		return true;
 	}
 
-	// - freeing the internal File-Buffer
+	// - freeing the internal File-Buffer and the decrypted parts
 	public void freeBuffer() {
 		mapContent = null;
+		for (MapResourceInfo element : resources) {
+			element.decryptedData = null;
+		}
 		mapData.freeBuffer();
 	}
 
-	// - to process a map File this class loads the whole file to memory. To save memory this File-Buffer is
-	// - closed after using/when done processing. If more data are requested from the File, the File-Biffer
-	// - is loaded again with this reOpen() function.
+	// - to save memory, the File-Buffer is closed after using/when done processing. If more data are requested
+	// - from the File, the File-Buffer is opened again with one of the reOpen() functions.
 	public void reOpen(InputStream originalMapFile) {
 		// - read File into buffer
 		try {
-			mapContent = getBytesFromInputStream(originalMapFile);
+			reOpen(wrap(getBytesFromInputStream(originalMapFile)));
 		} catch (Exception e) {
 			System.err.println("Error: " + e.getMessage());
 		}
+	}
+
+	public void reOpen(File originalMapFile) throws IOException {
+		reOpen(mapFile(originalMapFile));
+	}
+
+	private void reOpen(ByteBuffer mapContent) {
+		this.mapContent = mapContent;
 
 		// - reset Crypt Info
 		for (MapResourceInfo element : resources) {
-			element.hasBeenDecrypted = false;
+			element.decryptedData = null;
 		}
 	}
 
@@ -285,11 +325,11 @@ public class OriginalMapFileContentReader {
 		// - safety checks
 		if (mapContent == null)
 			return;
-		if (mapContent.length < 100)
+		if (mapContent.limit() < 100)
 			return;
 
 		// - checksum is the first DWord in File
-		fileChecksum = readBEIntFrom(0);
+		fileChecksum = mapContent.getInt(0);
 
 		// - read Map Information
 		readMapInfo();
@@ -313,17 +353,13 @@ public class OriginalMapFileContentReader {
 		if (filePart.size < 4)
 			return;
 
-		// TODO: original map: the whole AREA-Block is decrypted but we only need the first 4 byte. Problem... maybe later we need the rest but only
-		// if this map is selected for playing AND there was no freeBuffer() and reOpen() call in between.
-		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		// - only the first 4 bytes of the AREA-Block are needed (and decrypted) here
+		byte[] data = doDecrypt(filePart, 4);
+		if (data == null)
 			return;
 
-		// - file position of this part
-		int pos = filePart.offset;
-
 		// - read height and width (they are the same)
-		widthHeight = readBEIntFrom(pos);
+		widthHeight = readBEIntFrom(data, 0);
 	}
 
 	public short[] getPreviewImage() {
@@ -350,17 +386,18 @@ public class OriginalMapFileContentReader {
 			return outImg;
 
 		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		byte[] data = doDecrypt(filePart);
+		if (data == null)
 			return outImg;
 
-		// - file position
-		int pos = filePart.offset;
+		// - position in the decrypted data
+		int pos = 0;
 
 		// - height and width are the same
-		int wh = readBEWordFrom(pos);
+		int wh = readBEWordFrom(data, pos);
 		pos += 2;
 		@SuppressWarnings("unused")
-		int unknown = readBEWordFrom(pos);
+		int unknown = readBEWordFrom(data, pos);
 		pos += 2;
 
 		float scaleX = wh / width;
@@ -376,7 +413,7 @@ public class OriginalMapFileContentReader {
 
 				int inIndex = srcRow + ((int) Math.floor(x * scaleX)) * 2;
 
-				int colorValue = ((mapContent[inIndex] & 0xFF)) | ((mapContent[inIndex + 1] & 0xFF) << 8);
+				int colorValue = ((data[inIndex] & 0xFF)) | ((data[inIndex + 1] & 0xFF) << 8);
 
 				// - the Settlers Remake uses Short-Colors like argb_1555 (alpha, r, g, b)
 				outImg[outIndex] = (short) (1 | colorValue << 1);
@@ -397,11 +434,12 @@ public class OriginalMapFileContentReader {
 			return "";
 
 		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		byte[] data = doDecrypt(filePart);
+		if (data == null)
 			return "";
 
 		// - read Text
-		mapQuestText = readCStrFrom(filePart.offset, filePart.size);
+		mapQuestText = readCStrFrom(data, 0, filePart.size);
 
 		// System.out.println("Quest: "+ mapQuestText);
 
@@ -419,11 +457,12 @@ public class OriginalMapFileContentReader {
 			return "";
 
 		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		byte[] data = doDecrypt(filePart);
+		if (data == null)
 			return "";
 
 		// - read Text
-		mapQuestTip = readCStrFrom(filePart.offset, filePart.size);
+		mapQuestTip = readCStrFrom(data, 0, filePart.size);
 
 		// System.out.println("Tip: "+ mapQuestTip);
 
@@ -440,15 +479,16 @@ public class OriginalMapFileContentReader {
 		}
 
 		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		byte[] data = doDecrypt(filePart);
+		if (data == null)
 			return;
 
-		// - file position
-		int pos = filePart.offset;
+		// - position in the decrypted data
+		int pos = 0;
 
 		// ----------------------------------
 		// - read mapType (single / multiplayer map?)
-		int mapType = readBEIntFrom(pos);
+		int mapType = readBEIntFrom(data, pos);
 		pos += 4;
 
 		if (mapType == 1) {
@@ -461,14 +501,14 @@ public class OriginalMapFileContentReader {
 
 		// ----------------------------------
 		// - read Player count
-		int playerCount = readBEIntFrom(pos);
+		int playerCount = readBEIntFrom(data, pos);
 		pos += 4;
 
 		mapData.setPlayerCount(playerCount);
 
 		// ----------------------------------
 		// - read start resources
-		int startResourcesValue = readBEIntFrom(pos);
+		int startResourcesValue = readBEIntFrom(data, pos);
 		this.startResources = EMapStartResources.fromMapValue(startResourcesValue);
 	}
 
@@ -484,14 +524,15 @@ public class OriginalMapFileContentReader {
 		}
 
 		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		byte[] data = doDecrypt(filePart);
+		if (data == null)
 			return false;
 
-		// - file position
-		int pos = filePart.offset;
+		// - position in the decrypted data
+		int pos = 0;
 
 		// - Number of buildings
-		int buildingsCount = readBEIntFrom(pos);
+		int buildingsCount = readBEIntFrom(data, pos);
 		pos += 4;
 
 		// - safety check
@@ -505,35 +546,35 @@ public class OriginalMapFileContentReader {
 		// - read all Buildings
 		for (int i = 0; i < buildingsCount; i++) {
 
-			int party = readByteFrom(pos++); // - Party starts with 0
-			int buildingType = readByteFrom(pos++);
-			int posX = readBEWordFrom(pos);
+			int party = readByteFrom(data, pos++); // - Party starts with 0
+			int buildingType = readByteFrom(data, pos++);
+			int posX = readBEWordFrom(data, pos);
 			pos += 2;
-			int posY = readBEWordFrom(pos);
+			int posY = readBEWordFrom(data, pos);
 			pos += 2;
 
 			pos++; // not used - maybe a filling byte to make the record 12 Byte (= 3 INTs) long or unknown?!
 
 			// -----------
 			// - number of soldier in building is saved as 4-Bit (=Nibble):
-			int countSword1 = readHighNibbleFrom(pos);
-			int countSword2 = readLowNibbleFrom(pos);
+			int countSword1 = readHighNibbleFrom(data, pos);
+			int countSword2 = readLowNibbleFrom(data, pos);
 			pos++;
 
-			int countArcher2 = readHighNibbleFrom(pos);
-			int countArcher3 = readLowNibbleFrom(pos);
+			int countArcher2 = readHighNibbleFrom(data, pos);
+			int countArcher3 = readLowNibbleFrom(data, pos);
 			pos++;
 
-			int countSword3 = readHighNibbleFrom(pos);
-			int countArcher1 = readLowNibbleFrom(pos);
+			int countSword3 = readHighNibbleFrom(data, pos);
+			int countArcher1 = readLowNibbleFrom(data, pos);
 			pos++;
 
-			int countSpear3 = readHighNibbleFrom(pos);
+			int countSpear3 = readHighNibbleFrom(data, pos);
 			// low nibble is a not used count
 			pos++;
 
-			int countSpear1 = readHighNibbleFrom(pos);
-			int countSpear2 = readLowNibbleFrom(pos);
+			int countSpear1 = readHighNibbleFrom(data, pos);
+			int countSpear2 = readLowNibbleFrom(data, pos);
 			pos++;
 
 			// -------------
@@ -555,14 +596,15 @@ public class OriginalMapFileContentReader {
 		}
 
 		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		byte[] data = doDecrypt(filePart);
+		if (data == null)
 			return false;
 
-		// - file position
-		int pos = filePart.offset;
+		// - position in the decrypted data
+		int pos = 0;
 
 		// - Number of buildings
-		int stackCount = readBEIntFrom(pos);
+		int stackCount = readBEIntFrom(data, pos);
 		pos += 4;
 
 		// - safety check
@@ -574,13 +616,13 @@ public class OriginalMapFileContentReader {
 		// - read all Stacks
 		for (int i = 0; i < stackCount; i++) {
 
-			int posX = readBEWordFrom(pos);
+			int posX = readBEWordFrom(data, pos);
 			pos += 2;
-			int posY = readBEWordFrom(pos);
+			int posY = readBEWordFrom(data, pos);
 			pos += 2;
 
-			int stackType = readByteFrom(pos++);
-			int count = readByteFrom(pos++);
+			int stackType = readByteFrom(data, pos++);
+			int count = readByteFrom(data, pos++);
 
 			pos += 2; // not used - maybe: padding to size of 8 (2 INTs)
 
@@ -602,14 +644,15 @@ public class OriginalMapFileContentReader {
 		}
 
 		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		byte[] data = doDecrypt(filePart);
+		if (data == null)
 			return false;
 
-		// - file position
-		int pos = filePart.offset;
+		// - position in the decrypted data
+		int pos = 0;
 
 		// - Number of buildings
-		int settlerCount = readBEIntFrom(pos);
+		int settlerCount = readBEIntFrom(data, pos);
 		pos += 4;
 
 		// - safety check
@@ -621,12 +664,12 @@ public class OriginalMapFileContentReader {
 		// - read all Stacks
 		for (int i = 0; i < settlerCount; i++) {
 
-			int party = readByteFrom(pos++);
-			int settlerType = readByteFrom(pos++);
+			int party = readByteFrom(data, pos++);
+			int settlerType = readByteFrom(data, pos++);
 
-			int posX = readBEWordFrom(pos);
+			int posX = readBEWordFrom(data, pos);
 			pos += 2;
-			int posY = readBEWordFrom(pos);
+			int posY = readBEWordFrom(data, pos);
 			pos += 2;
 
 			// -------------
@@ -647,24 +690,25 @@ public class OriginalMapFileContentReader {
 		}
 
 		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		byte[] data = doDecrypt(filePart);
+		if (data == null)
 			return;
 
-		// - file position
-		int pos = filePart.offset;
+		// - position in the decrypted data
+		int pos = 0;
 
 		for (int i = 0; i < mapData.getPlayerCount(); i++) {
 
-			int nation = readBEIntFrom(pos);
+			int nation = readBEIntFrom(data, pos);
 			pos += 4;
 
-			int startX = readBEIntFrom(pos);
+			int startX = readBEIntFrom(data, pos);
 			pos += 4;
 
-			int startY = readBEIntFrom(pos);
+			int startY = readBEIntFrom(data, pos);
 			pos += 4;
 
-			String playerName = readCStrFrom(pos, 33);
+			String playerName = readCStrFrom(data, pos, 33);
 			pos += 33;
 
 			mapData.setPlayer(i, startX, startY, nation, playerName);
@@ -683,14 +727,15 @@ public class OriginalMapFileContentReader {
 		}
 
 		// - Decrypt this resource if necessary
-		if (!doDecrypt(filePart))
+		byte[] data = doDecrypt(filePart);
+		if (data == null)
 			return false;
 
-		// - file position
-		int pos = filePart.offset;
+		// - position in the decrypted data
+		int pos = 0;
 
 		// - height and width are the same
-		int widthHeight = readBEIntFrom(pos);
+		int widthHeight = readBEIntFrom(data, pos);
 		pos += 4;
 
 		// - init size of MapData
@@ -700,13 +745,13 @@ public class OriginalMapFileContentReader {
 		int dataCount = widthHeight * widthHeight;
 
 		for (int i = 0; i < dataCount; i++) {
-			mapData.setLandscapeHeight(i, readByteFrom(pos++));
-			mapData.setLandscape(i, readByteFrom(pos++));
-			mapData.setMapObject(i, readByteFrom(pos++));
-			readByteFrom(pos++); // - which Player is the owner of this position
-			mapData.setAccessible(i, mapContent[pos++]);
+			mapData.setLandscapeHeight(i, readByteFrom(data, pos++));
+			mapData.setLandscape(i, readByteFrom(data, pos++));
+			mapData.setMapObject(i, readByteFrom(data, pos++));
+			readByteFrom(data, pos++); // - which Player is the owner of this position
+			mapData.setAccessible(i, data[pos++]);
 
-			mapData.setResources(i, readHighNibbleFrom(pos), readLowNibbleFrom(pos));
+			mapData.setResources(i, readHighNibbleFrom(data, pos), readLowNibbleFrom(data, pos));
 			pos++;
 		}
 
@@ -779,52 +824,60 @@ public class OriginalMapFileContentReader {
 	}
 
 	// - Decrypt a file resource
-	private boolean doDecrypt(MapResourceInfo filePart) {
+	private byte[] doDecrypt(MapResourceInfo filePart) {
+		return doDecrypt(filePart, filePart.size);
+	}
+
+	// - Decrypt the first bytes of a file resource; the returned data may contain more than the requested bytes
+	private byte[] doDecrypt(MapResourceInfo filePart, int requestedLength) {
 
 		if (filePart == null)
-			return false;
+			return null;
+
+		// - already decrypted
+		if ((filePart.decryptedData != null) && (filePart.decryptedData.length >= requestedLength))
+			return filePart.decryptedData;
 
 		if (mapContent == null) {
 			System.err.println("OriginalMapFile-Warning: Unable to decrypt map file: no data loaded!");
-			return false;
+			return null;
 		}
 
-		// - already encrypted
-		if (filePart.hasBeenDecrypted)
-			return true;
-
 		// - length of data
 		int length = filePart.size;
 		if (length <= 0)
-			return true;
+			return new byte[0];
 
 		// - start of data
 		int pos = filePart.offset;
 
 		// - check if the file has enough data
-		if ((pos + length) >= mapContent.length) {
+		if ((pos + length) >= mapContent.limit()) {
 			System.err.println("Error: Unable to decrypt map file: out of data!");
-			return false;
+			return null;
 		}
 
+		// - the decryption is sequential, so only the beginning of the part can be decrypted
+		length = Math.min(length, requestedLength);
+		byte[] data = new byte[length];
+
 		// - init the key
 		int key = (filePart.cryptKey & 0xFF);
 
-		for (int i = length; i > 0; i--) {
+		for (int i = 0; i < length; i++) {
 
 			// - read one byte and uncrypt it
-			int byt = (mapContent[pos] ^ key);
+			int byt = (mapContent.get(pos) ^ key);
 
 			// - calculate next Key
 			key = (key << 1) ^ byt;
 
 			// - write Byte
-			mapContent[pos] = (byte) byt;
+			data[i] = (byte) byt;
 			pos++;
 		}
 
-		filePart.hasBeenDecrypted = true;
-		return true;
+		filePart.decryptedData = data;
+		return data;
 	}
-
 }
\ No newline at end of file
@@ -14,6 +14,7 @@
  *******************************************************************************/
 package jsettlers.logic.map.loading.original;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -49,7 +50,12 @@ public class OriginalMapLoader extends MapLoader {
 		fileName = listedMap.getFileName();
 		creationDate = getCreationDateFrom(listedMap);
 		try {
-			mapContent = new OriginalMapFileContentReader(listedMap.getInputStream());
+			File mapFile = getMappableFile(listedMap);
+			if (mapFile != null) {
+				mapContent = new OriginalMapFileContentReader(mapFile);
+			} else {
+				mapContent = new OriginalMapFileContentReader(listedMap.getInputStream());
+			}
 		} catch (IOException e) {
 			throw new MapLoadException(e);
 		}
@@ -74,6 +80,30 @@ public class OriginalMapLoader extends MapLoader {
 		isMapOK = true;
 	}
 
+	/**
+	 * @return The file of the given map if it can be memory mapped or <code>null</code> if the map has to be read from its stream.
+	 */
+	private static File getMappableFile(IListedMap listedMap) {
+		if (listedMap.isCompressed()) {
+			return null;
+		}
+		try {
+			File file = listedMap.getFile();
+			return file != null && file.isFile() ? file : null;
+		} catch (UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	private void reOpenMapContent() throws IOException {
+		File mapFile = getMappableFile(listedMap);
+		if (mapFile != null) {
+			mapContent.reOpen(mapFile);
+		} else {
+			mapContent.reOpen(listedMap.getInputStream());
+		}
+	}
+
 	private Date getCreationDateFrom(IListedMap listedMap) {
 		try {
 			return new Date(listedMap.getFile().lastModified());
@@ -175,7 +205,7 @@ public class OriginalMapLoader extends MapLoader {
 
 		try {
 			// - the map buffer of the class may is closed and need to reopen!
-			mapContent.reOpen(this.listedMap.getInputStream());
+			reOpenMapContent();
 		} catch (Exception e) {
 			System.err.println("Error: " + e.getMessage());
 		}
@@ -229,7 +259,7 @@ public class OriginalMapLoader extends MapLoader {
 
 		try {
 			// - the map buffer of the class may is closed and need to reopen!
-			mapContent.reOpen(this.listedMap.getInputStream());
+			reOpenMapContent();
 		} catch (Exception e) {
 			throw new MapLoadException(e);
 		}
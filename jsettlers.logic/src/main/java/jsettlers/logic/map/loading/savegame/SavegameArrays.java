@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.BitSet;
+
+/**
+ * Serialization helpers for the big primitive arrays of the grids.
+ * <p />
+ * If the object graph is written by a {@link SavegameWriter} or captured in a {@link SavegameSnapshot}, the arrays are written as separate array chunks and only their chunk id is
+ * written to the object stream. Otherwise (e.g. when a grid is serialized with a plain {@link ObjectOutputStream}), the arrays are
+ * serialized inline.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class SavegameArrays {
+	private SavegameArrays() {
+	}
+
+	public static void writeBytes(ObjectOutputStream oos, byte[] array) throws IOException {
+		writeArray(oos, array, false);
+	}
+
+	public static void writeShorts(ObjectOutputStream oos, short[] array) throws IOException {
+		writeArray(oos, array, false);
+	}
+
+	public static void writeBitSet(ObjectOutputStream oos, BitSet bitSet) throws IOException {
+		writeArray(oos, bitSet.toLongArray(), true);
+	}
+
+	public static byte[] readBytes(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		return (byte[]) readArray(ois);
+	}
+
+	public static short[] readShorts(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		return (short[]) readArray(ois);
+	}
+
+	public static BitSet readBitSet(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		return BitSet.valueOf((long[]) readArray(ois));
+	}
+
+	private static void writeArray(ObjectOutputStream oos, Object array, boolean exclusive) throws IOException {
+		SavegameSnapshot snapshot = SavegameSnapshot.getCurrent();
+		if (snapshot != null) {
+			oos.writeBoolean(true);
+			oos.writeInt(snapshot.addArray(array, exclusive));
+		} else {
+			oos.writeBoolean(false);
+			oos.writeObject(array);
+		}
+	}
+
+	private static Object readArray(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		if (ois.readBoolean()) {
+			SavegameReader reader = SavegameReader.getCurrent();
+			if (reader == null) {
+				throw new IOException("Array chunks can only be read with a " + SavegameReader.class.getSimpleName() + ".");
+			}
+			return reader.getArray(ois.readInt());
+		} else {
+			return ois.readObject();
+		}
+	}
+}
@@ -15,20 +15,16 @@
 package jsettlers.logic.map.loading.savegame;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 
 import jsettlers.common.map.IMapData;
 import jsettlers.common.map.MapLoadException;
-import jsettlers.input.PlayerState;
-import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.loading.EMapStartResources;
 import jsettlers.logic.map.grid.GameSerializer;
-import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.loading.newmap.RemakeMapLoader;
 import jsettlers.logic.map.loading.list.IListedMap;
 import jsettlers.logic.map.loading.newmap.MapFileHeader;
 import jsettlers.logic.player.PlayerSetting;
-import jsettlers.logic.timer.RescheduleTimer;
 
 /**
  * 
@@ -48,18 +44,12 @@ public class SavegameLoader extends RemakeMapLoader {
 
 		@Override
 	public MainGridWithUiSettings loadMainGrid(PlayerSetting[] playerSettings, EMapStartResources startResources) throws MapLoadException {
-		try (ObjectInputStream ois = new ObjectInputStream(super.getMapDataStream())) {
-			MatchConstants.deserialize(ois);
-			PlayerState[] playerStates = (PlayerState[]) ois.readObject();
+		try (InputStream in = super.getMapDataStream()) {
 			GameSerializer gameSerializer = new GameSerializer();
-			MainGrid mainGrid = gameSerializer.load(ois);
-			mainGrid.initWithPlayerSettings(playerSettings);
-			RescheduleTimer.loadFrom(ois);
-
-			ois.close();
-
-			return new MainGridWithUiSettings(mainGrid, playerStates);
-		} catch (IOException | ClassNotFoundException ex) {
+			MainGridWithUiSettings mainGrid = gameSerializer.load(in);
+			mainGrid.getMainGrid().initWithPlayerSettings(playerSettings);
+			return mainGrid;
+		} catch (IOException ex) {
 			throw new MapLoadException(ex);
 		}
 	}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a savegame written by {@link SavegameWriter}.
+ * <p />
+ * The reader never reads ahead of the chunk it is currently reading. Therefore the underlying stream can still be used after the last
+ * chunk has been read.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class SavegameReader {
+	private static final int JAVA_SERIALIZATION_MAGIC = 0xACED; // savegames of older versions are plain java serialization streams
+	private static final ThreadLocal<SavegameReader> CURRENT = new ThreadLocal<SavegameReader>();
+
+	private final ReadableByteChannel channel;
+	private final ByteBuffer chunkHeader = ByteBuffer.allocate(SavegameWriter.CHUNK_HEADER_SIZE);
+	private final ArrayList<Object> arrays = new ArrayList<Object>();
+	private Inflater inflater;
+
+	public SavegameReader(InputStream in) {
+		this.channel = Channels.newChannel(in);
+	}
+
+	static SavegameReader getCurrent() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Reads and checks magic number and version of the savegame.
+	 * 
+	 * @throws UnsupportedSavegameVersionException
+	 *             If the savegame has been written by an older version of the game or with another version of the savegame format.
+	 * @throws IOException
+	 *             If the stream does not contain a savegame.
+	 */
+	public void readHeader() throws IOException {
+		ByteBuffer header = readFully(ByteBuffer.allocate(4 + 2));
+		int magic = header.getInt();
+		short version = header.getShort();
+
+		if (magic >>> 16 == JAVA_SERIALIZATION_MAGIC) {
+			throw new UnsupportedSavegameVersionException("Unsupported savegame version: The savegame has been written by an older version of "
+					+ "JSettlers and can not be loaded any more.");
+		}
+		if (magic != SavegameWriter.MAGIC) {
+			throw new IOException("The stream does not contain a savegame.");
+		}
+		if (version != SavegameWriter.VERSION) {
+			throw new UnsupportedSavegameVersionException("Unsupported savegame version " + version + ". Supported version is "
+					+ SavegameWriter.VERSION + ".");
+		}
+	}
+
+	/**
+	 * Reads the array chunks up to the next object chunk and lets the given {@link IObjectsReader} deserialize the object chunk. The arrays
+	 * can be requested via {@link SavegameArrays} while reading the objects.
+	 * 
+	 * @param objectsReader
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public void readObjects(IObjectsReader objectsReader) throws IOException, ClassNotFoundException {
+		while (true) {
+			readFully(chunkHeader);
+			byte type = chunkHeader.get();
+			byte flags = chunkHeader.get();
+			int elements = chunkHeader.getInt();
+			int rawLength = chunkHeader.getInt();
+			int storedLength = chunkHeader.getInt();
+
+			ByteBuffer data = readChunkData(flags, rawLength, storedLength);
+
+			switch (type) {
+			case SavegameWriter.CHUNK_BYTES:
+				arrays.add(data.array());
+				break;
+
+			case SavegameWriter.CHUNK_SHORTS:
+				short[] shorts = new short[elements];
+				data.asShortBuffer().get(shorts);
+				arrays.add(shorts);
+				break;
+
+			case SavegameWriter.CHUNK_LONGS:
+				long[] longs = new long[elements];
+				data.asLongBuffer().get(longs);
+				arrays.add(longs);
+				break;
+
+			case SavegameWriter.CHUNK_OBJECTS:
+				CURRENT.set(this);
+				try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data.array()))) {
+					objectsReader.readObjects(ois);
+				} finally {
+					CURRENT.remove();
+				}
+				return;
+
+			default:
+				throw new IOException("Unexpected chunk type " + type + " in savegame.");
+			}
+		}
+	}
+
+	/**
+	 * Reads the end marker of the savegame.
+	 * 
+	 * @throws IOException
+	 */
+	public void readEnd() throws IOException {
+		ByteBuffer end = readFully(ByteBuffer.allocate(1));
+		if (end.get() != SavegameWriter.CHUNK_END) {
+			throw new IOException("Savegame contains unexpected chunks.");
+		}
+
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+	}
+
+	Object getArray(int id) throws IOException {
+		if (id < 0 || id >= arrays.size()) {
+			throw new IOException("Savegame does not contain array chunk " + id + ".");
+		}
+		Object array = arrays.get(id);
+		arrays.set(id, null); // every array is only referenced once; release it as soon as it has been handed out
+		return array;
+	}
+
+	private ByteBuffer readChunkData(byte flags, int rawLength, int storedLength) throws IOException {
+		ByteBuffer stored = readFully(ByteBuffer.allocate(storedLength));
+
+		if ((flags & SavegameWriter.FLAG_DEFLATED) == 0) {
+			return stored;
+		}
+
+		if (inflater == null) {
+			inflater = new Inflater();
+		}
+		inflater.reset();
+		inflater.setInput(stored.array(), 0, storedLength);
+
+		byte[] raw = new byte[rawLength];
+		try {
+			int length = 0;
+			while (length < rawLength && !inflater.finished()) {
+				int inflated = inflater.inflate(raw, length, rawLength - length);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				length += inflated;
+			}
+			if (length != rawLength) {
+				throw new IOException("Corrupt chunk in savegame.");
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt chunk in savegame.", e);
+		}
+		return ByteBuffer.wrap(raw);
+	}
+
+	private ByteBuffer readFully(ByteBuffer buffer) throws IOException {
+		buffer.clear();
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("Unexpected end of savegame.");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Callback reading the objects of an object chunk.
+	 * 
+	 * @author Andreas Eberle
+	 * 
+	 */
+	public interface IObjectsReader {
+		void readObjects(ObjectInputStream ois) throws IOException, ClassNotFoundException;
+	}
+}
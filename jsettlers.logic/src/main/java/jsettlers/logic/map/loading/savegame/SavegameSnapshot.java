@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+
+/**
+ * A consistent in-memory snapshot of the chunks of a savegame.
+ * <p />
+ * Taking the snapshot with {@link #addObjects(SavegameWriter.IObjectsWriter)} serializes the object graph into a compact byte array and copies
+ * the primitive arrays handed to {@link SavegameArrays}. Afterwards, the game state may change again while the snapshot is written with
+ * {@link #writeTo(OutputStream, boolean)}, e.g. by a background thread. Deflating the chunks is done only when the snapshot is written.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class SavegameSnapshot {
+	private static final ThreadLocal<SavegameSnapshot> CURRENT = new ThreadLocal<SavegameSnapshot>();
+
+	private final boolean copyArrays;
+	private final ArrayList<Object> chunks = new ArrayList<Object>();
+	private int numberOfArrays = 0;
+
+	public SavegameSnapshot() {
+		this(true);
+	}
+
+	/**
+	 * 
+	 * @param copyArrays
+	 *            If <code>false</code>, the arrays are referenced instead of copied. This is only allowed if the chunks are written before the
+	 *            arrays can be modified.
+	 */
+	SavegameSnapshot(boolean copyArrays) {
+		this.copyArrays = copyArrays;
+	}
+
+	static SavegameSnapshot getCurrent() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Serializes the objects written by the given {@link SavegameWriter.IObjectsWriter} into an object chunk. The primitive arrays added via
+	 * {@link SavegameArrays} while writing the objects are stored as array chunks in front of the object chunk.
+	 * 
+	 * @param objectsWriter
+	 * @throws IOException
+	 */
+	public void addObjects(SavegameWriter.IObjectsWriter objectsWriter) throws IOException {
+		ByteArrayOutputStream objectsData = new ByteArrayOutputStream();
+
+		CURRENT.set(this);
+		try {
+			ObjectOutputStream oos = new ObjectOutputStream(objectsData);
+			objectsWriter.writeObjects(oos);
+			oos.close();
+		} finally {
+			CURRENT.remove();
+		}
+
+		chunks.add(new ObjectsChunk(objectsData.toByteArray()));
+	}
+
+	/**
+	 * Registers an array to be stored as an array chunk.
+	 * 
+	 * @param array
+	 *            A <code>byte[]</code>, <code>short[]</code> or <code>long[]</code>.
+	 * @param exclusive
+	 *            <code>true</code> if the array is not referenced by anyone else and therefore doesn't need to be copied.
+	 * @return The id of the chunk the array will be written to.
+	 */
+	int addArray(Object array, boolean exclusive) {
+		chunks.add(copyArrays && !exclusive ? copy(array) : array);
+		return numberOfArrays++;
+	}
+
+	/**
+	 * Writes the savegame consisting of the header, the chunks of this snapshot and the end marker to the given stream. The stream is not
+	 * closed.
+	 * 
+	 * @param out
+	 *            The stream the savegame is written to.
+	 * @param compress
+	 *            If <code>true</code>, the chunks are deflated.
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out, boolean compress) throws IOException {
+		SavegameWriter writer = new SavegameWriter(out, compress);
+		writer.writeHeader();
+		writeChunks(writer);
+		writer.finish();
+	}
+
+	/**
+	 * Writes the chunks stored so far with the given writer and removes them from this snapshot.
+	 */
+	void writeChunks(SavegameWriter writer) throws IOException {
+		for (Object chunk : chunks) {
+			if (chunk instanceof ObjectsChunk) {
+				writer.writeObjectsChunk(((ObjectsChunk) chunk).data);
+			} else {
+				writer.writeArrayChunk(chunk);
+			}
+		}
+		chunks.clear();
+	}
+
+	private static Object copy(Object array) {
+		if (array instanceof byte[]) {
+			return ((byte[]) array).clone();
+		} else if (array instanceof short[]) {
+			return ((short[]) array).clone();
+		} else if (array instanceof long[]) {
+			return ((long[]) array).clone();
+		} else {
+			throw new IllegalArgumentException("Unsupported array type: " + array.getClass());
+		}
+	}
+
+	private static final class ObjectsChunk {
+		final byte[] data;
+
+		ObjectsChunk(byte[] data) {
+			this.data = data;
+		}
+	}
+}
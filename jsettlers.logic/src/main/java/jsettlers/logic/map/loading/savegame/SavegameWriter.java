@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a savegame in the chunked binary format.
+ * <p />
+ * The format starts with {@link #MAGIC} and {@link #VERSION}, followed by a sequence of chunks and an end marker. Every chunk consists of a
+ * header (type, flags, number of elements, raw length, stored length) and its data. The data of a chunk is deflated when compression is
+ * enabled and the chunk is big enough to benefit from it.
+ * <p />
+ * Object graphs are written with {@link #writeObjects(IObjectsWriter)}. Primitive arrays handed to {@link SavegameArrays} during that call
+ * are not serialized into the object graph but written as separate array chunks in front of the object chunk, directly from a
+ * {@link ByteBuffer} to the output channel. To write the savegame later or on another thread, take a {@link SavegameSnapshot} instead.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class SavegameWriter {
+	static final int MAGIC = 0x4A53534C; // "JSSL"; differs from the java serialization stream magic 0xACED
+	static final short VERSION = 1;
+
+	static final byte CHUNK_END = 0;
+	static final byte CHUNK_OBJECTS = 1;
+	static final byte CHUNK_BYTES = 2;
+	static final byte CHUNK_SHORTS = 3;
+	static final byte CHUNK_LONGS = 4;
+
+	static final byte FLAG_DEFLATED = 1;
+
+	static final int CHUNK_HEADER_SIZE = 1 + 1 + 4 + 4 + 4;
+
+	private static final int MIN_COMPRESSION_SIZE = 1024;
+
+	private final WritableByteChannel channel;
+	private final boolean compress;
+	private final ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+	private final SavegameSnapshot pendingChunks = new SavegameSnapshot(false); // the arrays are written before they can change
+	private Deflater deflater;
+	private byte[] deflateBuffer;
+
+	/**
+	 * 
+	 * @param out
+	 *            The stream the savegame is written to.
+	 * @param compress
+	 *            If <code>true</code>, the chunks are deflated.
+	 */
+	public SavegameWriter(OutputStream out, boolean compress) {
+		this.channel = Channels.newChannel(out);
+		this.compress = compress;
+	}
+
+	public void writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(4 + 2);
+		header.putInt(MAGIC).putShort(VERSION);
+		header.flip();
+		writeFully(header);
+	}
+
+	/**
+	 * Serializes the objects written by the given {@link IObjectsWriter} into an object chunk. The primitive arrays added via
+	 * {@link SavegameArrays} while writing the objects are written as array chunks in front of the object chunk.
+	 * 
+	 * @param objectsWriter
+	 * @throws IOException
+	 */
+	public void writeObjects(IObjectsWriter objectsWriter) throws IOException {
+		pendingChunks.addObjects(objectsWriter);
+		pendingChunks.writeChunks(this);
+	}
+
+	/**
+	 * Writes the end marker and flushes the channel. The underlying stream is not closed.
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		ByteBuffer end = ByteBuffer.allocate(1);
+		end.put(CHUNK_END);
+		end.flip();
+		writeFully(end);
+
+		if (deflater != null) {
+			deflater.end();
+			deflater = null;
+		}
+	}
+
+	void writeObjectsChunk(byte[] objectsData) throws IOException {
+		writeChunk(CHUNK_OBJECTS, 1, ByteBuffer.wrap(objectsData));
+	}
+
+	void writeArrayChunk(Object array) throws IOException {
+		if (array instanceof byte[]) {
+			byte[] bytes = (byte[]) array;
+			writeChunk(CHUNK_BYTES, bytes.length, ByteBuffer.wrap(bytes));
+
+		} else if (array instanceof short[]) {
+			short[] shorts = (short[]) array;
+			ByteBuffer data = ByteBuffer.allocate(shorts.length * 2);
+			data.asShortBuffer().put(shorts);
+			writeChunk(CHUNK_SHORTS, shorts.length, data);
+
+		} else if (array instanceof long[]) {
+			long[] longs = (long[]) array;
+			ByteBuffer data = ByteBuffer.allocate(longs.length * 8);
+			data.asLongBuffer().put(longs);
+			writeChunk(CHUNK_LONGS, longs.length, data);
+
+		} else {
+			throw new IllegalArgumentException("Unsupported array type: " + array.getClass());
+		}
+	}
+
+	private void writeChunk(byte type, int elements, ByteBuffer data) throws IOException {
+		int rawLength = data.remaining();
+		byte flags = 0;
+
+		if (compress && rawLength >= MIN_COMPRESSION_SIZE) {
+			data = deflate(data);
+			flags |= FLAG_DEFLATED;
+		}
+
+		chunkHeader.clear();
+		chunkHeader.put(type).put(flags).putInt(elements).putInt(rawLength).putInt(data.remaining());
+		chunkHeader.flip();
+		writeFully(chunkHeader);
+		writeFully(data);
+	}
+
+	private ByteBuffer deflate(ByteBuffer data) {
+		if (deflater == null) {
+			deflater = new Deflater(Deflater.BEST_SPEED);
+			deflateBuffer = new byte[64 * 1024];
+		}
+
+		deflater.reset();
+		deflater.setInput(data.array(), data.arrayOffset() + data.position(), data.remaining());
+		deflater.finish();
+
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == deflateBuffer.length) {
+				deflateBuffer = Arrays.copyOf(deflateBuffer, deflateBuffer.length * 2);
+			}
+			length += deflater.deflate(deflateBuffer, length, deflateBuffer.length - length);
+		}
+		return ByteBuffer.wrap(deflateBuffer, 0, length);
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Callback writing the objects of an object chunk.
+	 * 
+	 * @author Andreas Eberle
+	 * 
+	 */
+	public interface IObjectsWriter {
+		void writeObjects(ObjectOutputStream oos) throws IOException;
+	}
+}
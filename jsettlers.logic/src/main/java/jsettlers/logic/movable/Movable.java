@@ -17,7 +17,7 @@ package jsettlers.logic.movable;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import jsettlers.algorithms.fogofwar.IViewDistancable;
@@ -33,6 +33,7 @@ import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.selectable.ESelectionType;
 import jsettlers.graphics.messages.SimpleMessage;
 import jsettlers.input.IGuiMovable;
+import jsettlers.logic.GameContext;
 import jsettlers.logic.buildings.military.IBuildingOccupyableMovable;
 import jsettlers.logic.buildings.military.IOccupyableBuilding;
 import jsettlers.logic.constants.Constants;
@@ -46,6 +47,7 @@ import jsettlers.logic.movable.strategies.soldiers.SoldierStrategy;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.timer.IScheduledTimerable;
 import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TimerSlotLink;
 
 /**
  * Central Movable class of JSettlers.
@@ -56,12 +58,10 @@ import jsettlers.logic.timer.RescheduleTimer;
 public final class Movable implements IScheduledTimerable, IPathCalculatable, IDebugable, Serializable, IViewDistancable, IGuiMovable,
 		IAttackableMovable {
 	private static final long serialVersionUID = 2472076796407425256L;
-	private static final HashMap<Integer, Movable> movablesByID = new HashMap<Integer, Movable>();
-	private static final ConcurrentLinkedQueue<Movable> allMovables = new ConcurrentLinkedQueue<Movable>();
-	private static int nextID = Integer.MIN_VALUE;
 
 	protected final AbstractMovableGrid grid;
 	private final int id;
+	private final TimerSlotLink timerSlotLink = new TimerSlotLink(this);
 
 	private EMovableState state = EMovableState.DOING_NOTHING;
 
@@ -80,6 +80,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 
 	private ShortPoint2D requestedTargetPosition = null;
 	private Path path;
+	private ArrayList<MovableStrategy> trackedStrategies;
 
 	private float health;
 	private boolean visible = true;
@@ -93,8 +94,10 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 
 	private transient boolean selected = false;
 	private transient boolean soundPlayed = false;
+	private transient GameContext context;
 
 	public Movable(AbstractMovableGrid grid, EMovableType movableType, ShortPoint2D position, Player player) {
+		this.context = GameContext.current();
 		this.grid = grid;
 		this.position = position;
 		this.player = player;
@@ -106,15 +109,14 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 
 		RescheduleTimer.add(this, Constants.MOVABLE_INTERRUPT_PERIOD);
 
-		this.id = nextID++;
-		movablesByID.put(this.id, this);
-		allMovables.offer(this);
+		this.id = context.getMovableStore().add(this, position, player.playerId, movableType, state);
+		context.getAllMovables().offer(this);
 
 		grid.enterPosition(position, this, true);
 	}
 
 	/**
-	 * This method overrides the standard deserialize method to restore the movablesByID map and the nextID.
+	 * This method overrides the standard deserialize method to restore the movable store.
 	 *
 	 * @param ois
 	 * @throws IOException
@@ -122,9 +124,9 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 	 */
 	private final void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
-		movablesByID.put(this.id, this);
-		allMovables.add(this);
-		nextID = Math.max(nextID, this.id + 1);
+		context = GameContext.current();
+		context.getMovableStore().put(this.id, this, position, player.playerId, movableType, state, visible);
+		context.getAllMovables().add(this);
 	}
 
 	/**
@@ -175,7 +177,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 		case DROP:
 		case PATHING:
 		case WAITING:
-			int remainingAnimationTime = animationStartTime + animationDuration - MatchConstants.clock().getTime();
+			int remainingAnimationTime = animationStartTime + animationDuration - context.getClock().getTime();
 			if (remainingAnimationTime > 0) {
 				return remainingAnimationTime;
 			}
@@ -194,7 +196,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 		case WAITING:
 		case GOING_SINGLE_STEP:
 		case PLAYING_ACTION:
-			state = EMovableState.DOING_NOTHING; // the action is finished, as the time passed
+			setState(EMovableState.DOING_NOTHING); // the action is finished, as the time passed
 			movableAction = EMovableAction.NO_ACTION;
 
 		case PATHING:
@@ -336,7 +338,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 		playAnimation(EMovableAction.WALKING, movableType.getStepDurationMs());
 		grid.leavePosition(this.position, this);
 		grid.enterPosition(position, this, false);
-		this.position = position;
+		updatePosition(position);
 		isRightstep = !isRightstep;
 	}
 
@@ -428,7 +430,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 				return false; // the other movable just pushed to get space, so we can't do anything for it in this state.
 			}
 
-			if (animationStartTime + animationDuration <= MatchConstants.clock().getTime() && this.path.hasNextStep()) {
+			if (animationStartTime + animationDuration <= context.getClock().getTime() && this.path.hasNextStep()) {
 				ShortPoint2D nextPos = path.getNextPos();
 				if (pushingMovable.position == nextPos) { // two movables going in opposite direction and wanting to exchange positions
 					pushingMovable.goSinglePathStep();
@@ -526,7 +528,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 	}
 
 	private void playAnimation(EMovableAction movableAction, short duration) {
-		this.animationStartTime = MatchConstants.clock().getTime();
+		this.animationStartTime = context.getClock().getTime();
 		this.animationDuration = duration;
 		this.movableAction = movableAction;
 	}
@@ -642,7 +644,39 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 			grid.enterPosition(position, this, true);
 		}
 
+		updatePosition(position);
+	}
+
+	/**
+	 * Sets the position and informs the {@link MovableStore} and the lists tracking strategies of this movable about it. Every change of the
+	 * position must go through this method.
+	 */
+	private void updatePosition(ShortPoint2D position) {
 		this.position = position;
+		context.getMovableStore().setPosition(id, position);
+		if (trackedStrategies != null) {
+			for (int i = 0; i < trackedStrategies.size(); i++) {
+				trackedStrategies.get(i).positionChanged();
+			}
+		}
+	}
+
+	/**
+	 * Registers or unregisters a strategy of this movable that is tracked by a list (e.g. the list of jobless of a partition). This can be the
+	 * current strategy as well as a replaced one that is still listed.
+	 */
+	final void setTracked(MovableStrategy strategy, boolean tracked) {
+		if (tracked) {
+			if (trackedStrategies == null) {
+				trackedStrategies = new ArrayList<MovableStrategy>(1);
+			}
+			trackedStrategies.add(strategy);
+		} else if (trackedStrategies != null) {
+			trackedStrategies.remove(strategy);
+			if (trackedStrategies.isEmpty()) {
+				trackedStrategies = null;
+			}
+		}
 	}
 
 	final void setVisible(boolean visible) {
@@ -654,6 +688,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 		}
 
 		this.visible = visible;
+		context.getMovableStore().setVisible(id, visible);
 	}
 
 	/**
@@ -715,6 +750,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 	 */
 	private void setState(EMovableState newState) {
 		this.state = newState;
+		context.getMovableStore().setState(id, newState);
 	}
 
 	/**
@@ -726,17 +762,26 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 	 *         or null if the id can not be found
 	 */
 	public final static Movable getMovableByID(int id) {
-		return movablesByID.get(id);
+		return GameContext.current().getMovableStore().getMovable(id);
 	}
 
 	public final static ConcurrentLinkedQueue<Movable> getAllMovables() {
-		return allMovables;
+		return GameContext.current().getAllMovables();
+	}
+
+	/**
+	 * Gets the store holding the ids, positions, states, players and types of all movables in primitive arrays.
+	 *
+	 * @return The movable store.
+	 */
+	public final static MovableStore getMovableStore() {
+		return GameContext.current().getMovableStore();
 	}
 
 	public static void resetState() {
-		allMovables.clear();
-		movablesByID.clear();
-		nextID = Integer.MIN_VALUE;
+		GameContext context = GameContext.current();
+		context.getAllMovables().clear();
+		context.getMovableStore().clear();
 	}
 
 	/**
@@ -751,15 +796,21 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 		grid.leavePosition(this.position, this);
 		this.health = -200;
 		this.strategy.strategyKilledEvent(path != null ? path.getTargetPos() : null);
-		this.state = EMovableState.DEAD;
+		setState(EMovableState.DEAD);
 		this.selected = false;
+		RescheduleTimer.remove(this);
 
-		movablesByID.remove(this.getID());
-		allMovables.remove(this);
+		context.getMovableStore().remove(this.getID());
+		context.getAllMovables().remove(this);
 
 		grid.addSelfDeletingMapObject(position, EMapObjectType.GHOST, Constants.GHOST_PLAY_DURATION, player);
 	}
 
+	@Override
+	public TimerSlotLink getTimerSlotLink() {
+		return timerSlotLink;
+	}
+
 	@Override
 	public final byte getPlayerId() {
 		return player.playerId;
@@ -821,7 +872,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 
 	@Override
 	public final float getMoveProgress() {
-		return ((float) (MatchConstants.clock().getTime() - animationStartTime)) / animationDuration;
+		return ((float) (context.getClock().getTime() - animationStartTime)) / animationDuration;
 	}
 
 	@Override
@@ -876,6 +927,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 
 		this.health = (this.health * newMovableType.getHealth()) / this.movableType.getHealth();
 		this.movableType = newMovableType;
+		context.getMovableStore().setMovableType(id, newMovableType);
 		setStrategy(MovableStrategy.getStrategy(this, newMovableType));
 	}
 
@@ -948,7 +1000,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 				+ " direction: " + direction + " material: " + materialType;
 	}
 
-	private enum EMovableState {
+	enum EMovableState {
 		PLAYING_ACTION,
 		PATHING,
 		DOING_NOTHING,
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.movable;
+
+import java.util.Arrays;
+
+import jsettlers.common.movable.EMovableType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.StateHash;
+import jsettlers.logic.movable.Movable.EMovableState;
+
+/**
+ * Stores the ids, positions, states, players, types and visibility of all {@link Movable}s in primitive arrays indexed by their ids. This way a
+ * lookup by id is a simple array access and scans over the whole population, like the one of the AI statistics, don't need to touch the
+ * {@link Movable} objects.
+ * <p />
+ * Ids are given out consecutively, starting with {@link #FIRST_ID}, and are never reused, so a stale id never refers to another movable. The ids of
+ * the living movables are additionally kept in a compact list, so scans don't need to step over the ids of dead movables.
+ * <p />
+ * The store also maintains a {@link StateHash} over the stored values of the living movables.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class MovableStore {
+	public static final int FIRST_ID = Integer.MIN_VALUE;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private Movable[] movables = new Movable[INITIAL_CAPACITY];
+	private short[] xs = new short[INITIAL_CAPACITY];
+	private short[] ys = new short[INITIAL_CAPACITY];
+	private byte[] states = new byte[INITIAL_CAPACITY];
+	private byte[] players = new byte[INITIAL_CAPACITY];
+	private byte[] movableTypes = new byte[INITIAL_CAPACITY];
+	private boolean[] visible = new boolean[INITIAL_CAPACITY];
+	private int[] livingListIndexes = new int[INITIAL_CAPACITY];
+
+	private int[] livingIDs = new int[INITIAL_CAPACITY];
+	private int numberOfMovables;
+
+	private int nextID = FIRST_ID;
+	private long stateHash;
+
+	/**
+	 * Adds a new movable and gives it the next free id.
+	 * 
+	 * @return The id of the movable.
+	 */
+	int add(Movable movable, ShortPoint2D position, byte player, EMovableType movableType, EMovableState state) {
+		int id = nextID;
+		put(id, movable, position, player, movableType, state, true);
+		return id;
+	}
+
+	/**
+	 * Adds a movable that already has an id. This is used when the movables are deserialized.
+	 */
+	void put(int id, Movable movable, ShortPoint2D position, byte player, EMovableType movableType, EMovableState state, boolean visible) {
+		int index = id - FIRST_ID;
+		ensureCapacity(index + 1);
+
+		if (movables[index] != null) {
+			stateHash -= hashOf(index);
+		} else {
+			addLivingID(id, index);
+		}
+		movables[index] = movable;
+		xs[index] = position.x;
+		ys[index] = position.y;
+		players[index] = player;
+		movableTypes[index] = (byte) movableType.ordinal();
+		states[index] = (byte) state.ordinal();
+		this.visible[index] = visible;
+		stateHash += hashOf(index);
+
+		nextID = Math.max(nextID, id + 1);
+	}
+
+	/**
+	 * Removes the movable with the given id. Its last position, state, player and type stay available.
+	 */
+	void remove(int id) {
+		int index = id - FIRST_ID;
+		if (movables[index] != null) {
+			stateHash -= hashOf(index);
+			movables[index] = null;
+			removeLivingID(index);
+		}
+	}
+
+	private void addLivingID(int id, int index) {
+		if (numberOfMovables == livingIDs.length) {
+			livingIDs = Arrays.copyOf(livingIDs, numberOfMovables * 2);
+		}
+		livingListIndexes[index] = numberOfMovables;
+		livingIDs[numberOfMovables++] = id;
+	}
+
+	private void removeLivingID(int index) {
+		int listIndex = livingListIndexes[index];
+		int lastID = livingIDs[--numberOfMovables];
+		livingIDs[listIndex] = lastID;
+		livingListIndexes[lastID - FIRST_ID] = listIndex;
+	}
+
+	void setPosition(int id, ShortPoint2D position) {
+		int index = id - FIRST_ID;
+		boolean alive = movables[index] != null;
+		if (alive) {
+			stateHash -= hashOf(index);
+		}
+		xs[index] = position.x;
+		ys[index] = position.y;
+		if (alive) {
+			stateHash += hashOf(index);
+		}
+	}
+
+	void setState(int id, EMovableState state) {
+		int index = id - FIRST_ID;
+		boolean alive = movables[index] != null;
+		if (alive) {
+			stateHash -= hashOf(index);
+		}
+		states[index] = (byte) state.ordinal();
+		if (alive) {
+			stateHash += hashOf(index);
+		}
+	}
+
+	void setMovableType(int id, EMovableType movableType) {
+		int index = id - FIRST_ID;
+		boolean alive = movables[index] != null;
+		if (alive) {
+			stateHash -= hashOf(index);
+		}
+		movableTypes[index] = (byte) movableType.ordinal();
+		if (alive) {
+			stateHash += hashOf(index);
+		}
+	}
+
+	void setVisible(int id, boolean visible) {
+		this.visible[id - FIRST_ID] = visible;
+	}
+
+	private long hashOf(int index) {
+		long value = (xs[index] & 0xFFFFL) | (ys[index] & 0xFFFFL) << 16 | (movableTypes[index] & 0xFFL) << 32 | (players[index] & 0xFFL) << 40
+				| (states[index] & 0xFFL) << 48;
+		return StateHash.hash(index, value);
+	}
+
+	public void clear() {
+		Arrays.fill(movables, 0, nextID - FIRST_ID, null);
+		nextID = FIRST_ID;
+		numberOfMovables = 0;
+		stateHash = 0;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > movables.length) {
+			int newCapacity = Math.max(capacity, movables.length * 2);
+			movables = Arrays.copyOf(movables, newCapacity);
+			xs = Arrays.copyOf(xs, newCapacity);
+			ys = Arrays.copyOf(ys, newCapacity);
+			states = Arrays.copyOf(states, newCapacity);
+			players = Arrays.copyOf(players, newCapacity);
+			movableTypes = Arrays.copyOf(movableTypes, newCapacity);
+			visible = Arrays.copyOf(visible, newCapacity);
+			livingListIndexes = Arrays.copyOf(livingListIndexes, newCapacity);
+		}
+	}
+
+	/**
+	 * Gets the movable with the given id.
+	 * 
+	 * @param id
+	 * @return The movable or null if there is no (living) movable with the given id.
+	 */
+	public Movable getMovable(int id) {
+		int index = id - FIRST_ID;
+		if (index < 0 || index >= nextID - FIRST_ID) {
+			return null;
+		}
+		return movables[index];
+	}
+
+	/**
+	 * @return The id that will be given to the next movable. All ids in [{@link #FIRST_ID}, getEndID()) have been given out.
+	 */
+	public int getEndID() {
+		return nextID;
+	}
+
+	/**
+	 * @return The number of living movables.
+	 */
+	public int getNumberOfMovables() {
+		return numberOfMovables;
+	}
+
+	/**
+	 * Gets the id of a living movable. The order of the living movables changes when movables are removed.
+	 * 
+	 * @param listIndex
+	 *            An index in [0, {@link #getNumberOfMovables()}).
+	 * @return The id of the living movable with the given index.
+	 */
+	public int getLivingID(int listIndex) {
+		return livingIDs[listIndex];
+	}
+
+	/**
+	 * @return The sum of the hashes of the ids, positions, types, players and states of the living movables.
+	 */
+	public long getStateHash() {
+		return stateHash;
+	}
+
+	public boolean isAlive(int id) {
+		return movables[id - FIRST_ID] != null;
+	}
+
+	public short getX(int id) {
+		return xs[id - FIRST_ID];
+	}
+
+	public short getY(int id) {
+		return ys[id - FIRST_ID];
+	}
+
+	public byte getPlayerId(int id) {
+		return players[id - FIRST_ID];
+	}
+
+	public EMovableType getMovableType(int id) {
+		return EMovableType.VALUES[movableTypes[id - FIRST_ID]];
+	}
+
+	/**
+	 * @param id
+	 * @return true if the movable is visible, so it stands on the movable grid.
+	 */
+	public boolean isVisible(int id) {
+		return visible[id - FIRST_ID];
+	}
+}
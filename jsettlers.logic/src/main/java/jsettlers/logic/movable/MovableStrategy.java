@@ -24,6 +24,8 @@ import jsettlers.common.movable.EDirection;
 import jsettlers.common.movable.EMovableAction;
 import jsettlers.common.movable.EMovableType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.grid.partition.manager.datastructures.IMovingLocatable;
+import jsettlers.logic.map.grid.partition.manager.datastructures.IPositionChangedListener;
 import jsettlers.logic.movable.interfaces.AbstractMovableGrid;
 import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.movable.strategies.BearerMovableStrategy;
@@ -43,11 +45,13 @@ import jsettlers.logic.movable.strategies.trading.DonkeyStrategy;
  * @author Andreas Eberle
  *
  */
-public abstract class MovableStrategy implements Serializable {
+public abstract class MovableStrategy implements Serializable, IMovingLocatable {
 	private static final long serialVersionUID = 3135655342562634378L;
 
 	protected final Movable movable;
 
+	private IPositionChangedListener positionChangedListener;
+
 	protected MovableStrategy(Movable movable) {
 		this.movable = movable;
 	}
@@ -191,6 +195,25 @@ public abstract class MovableStrategy implements Serializable {
 		return movable.getPos();
 	}
 
+	@Override
+	public final void setPositionChangedListener(IPositionChangedListener positionChangedListener) {
+		assert positionChangedListener == null || this.positionChangedListener == null || this.positionChangedListener == positionChangedListener
+				: "A movable can only be tracked by one PositionableList at a time.";
+		if (this.positionChangedListener == null && positionChangedListener != null) {
+			movable.setTracked(this, true);
+		} else if (this.positionChangedListener != null && positionChangedListener == null) {
+			movable.setTracked(this, false);
+		}
+		this.positionChangedListener = positionChangedListener;
+	}
+
+	/**
+	 * Informs the {@link IPositionChangedListener} of this strategy (e.g. the list of jobless of a partition) that the movable changed its position.
+	 */
+	final void positionChanged() {
+		positionChangedListener.positionChanged(this);
+	}
+
 	protected final void abortPath() {
 		movable.abortPath();
 	}
@@ -69,6 +69,12 @@ public abstract class GrowingObject extends ProgressingObject {
 		return this.state;
 	}
 
+	@Override
+	protected long getPossibleObjectTypes() {
+		// the state only moves on from growing to adult to dead
+		return (1L << state.ordinal) | (1L << getAdultState().ordinal) | (1L << getDeadState().ordinal);
+	}
+
 	@Override
 	protected void changeState() {
 		if (state == getAdultState()) {
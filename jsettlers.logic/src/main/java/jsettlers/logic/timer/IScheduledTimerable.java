@@ -28,4 +28,12 @@ public interface IScheduledTimerable extends Serializable {
 	 * this method is called if a ITimerable object crashes during execution of timerEvent() to prevent further damage.
 	 */
 	public void kill();
+
+	/**
+	 * Gives the link used by the {@link RescheduleTimer} to put this timerable into a time slot. Implementations must always return the same
+	 * link that has been created for this object.
+	 * 
+	 * @return The link of this timerable.
+	 */
+	public TimerSlotLink getTimerSlotLink();
 }
@@ -18,47 +18,98 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 
 import jsettlers.common.map.MapLoadException;
-import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.GameContext;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 
+/**
+ * A hashed timing wheel calling {@link IScheduledTimerable}s after their requested delay. The timerables are linked into the time slots by their
+ * {@link TimerSlotLink}s, so scheduling and unscheduling is done in O(1) and the timer doesn't allocate anything while it runs.
+ * <p />
+ * The timerables of a slot are called in the order they have been scheduled, which keeps the execution deterministic for lockstep games. A
+ * timerable that is scheduled again while it is still scheduled is called at both times. Only this second entry needs a new link.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
 public final class RescheduleTimer implements INetworkTimerable, Serializable {
-	private static final long serialVersionUID = -1962430988827211391L;
+	private static final long serialVersionUID = 6286591709434950584L;
 
 	private static final int FUTURE_TIME = 32000;
 	private static final short TIME_SLICE = 25; // ms
 	private static final int TIME_SLOTS = FUTURE_TIME / TIME_SLICE;
 
-	private static RescheduleTimer uniIns;
-
-	@SuppressWarnings("unchecked")
-	private final ArrayList<IScheduledTimerable> timerables[] = new ArrayList[TIME_SLOTS];
+	private transient TimerSlotLink[] slotHeads;
+	private transient TimerSlotLink[] slotTails;
+	private transient int[] slotOccupancies;
+	private transient int scheduledCount;
+	private transient volatile boolean stopped;
 	private int currTimeSlot = 0;
 
 	protected RescheduleTimer() {
-		for (int i = 0; i < TIME_SLOTS; i++) {
-			timerables[i] = new ArrayList<IScheduledTimerable>();
+		initSlots();
+	}
+
+	private void initSlots() {
+		slotHeads = new TimerSlotLink[TIME_SLOTS];
+		slotTails = new TimerSlotLink[TIME_SLOTS];
+		slotOccupancies = new int[TIME_SLOTS];
+		scheduledCount = 0;
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		for (int slot = 0; slot < TIME_SLOTS; slot++) {
+			oos.writeInt(slotOccupancies[slot]);
+			for (TimerSlotLink curr = slotHeads[slot]; curr != null; curr = curr.next) {
+				oos.writeObject(curr.timerable);
+			}
 		}
 	}
 
-	public static synchronized void stopAndClear() {
-		if (uniIns != null) {
-			if (MatchConstants.clock() != null) {
-				MatchConstants.clock().remove(uniIns);
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		initSlots();
+		for (int slot = 0; slot < TIME_SLOTS; slot++) {
+			int occupancy = ois.readInt();
+			for (int i = 0; i < occupancy; i++) {
+				IScheduledTimerable timerable = (IScheduledTimerable) ois.readObject();
+				link(getFreeLink(timerable), slot);
 			}
-			uniIns = null;
-			try {
-				Thread.sleep(100); // stopping takes some time
-			} catch (InterruptedException e) {
+		}
+	}
+
+	public static void stopAndClear() {
+		stopAndClear(GameContext.current());
+	}
+
+	/**
+	 * Stops the timer of the given {@link GameContext} and removes it from the context.
+	 * 
+	 * @param context
+	 */
+	public static void stopAndClear(GameContext context) {
+		synchronized (context) {
+			RescheduleTimer timer = context.getRescheduleTimer();
+			if (timer != null) {
+				timer.stopped = true;
+				if (context.getClock() != null) {
+					context.getClock().remove(timer);
+				}
+				context.setRescheduleTimer(null);
+				try {
+					Thread.sleep(100); // stopping takes some time
+				} catch (InterruptedException e) {
+				}
 			}
 		}
 	}
 
 	/**
-	 * Schedules the given {@link IScheduledTimerable} in max delay milliseconds.
+	 * Schedules the given {@link IScheduledTimerable} in max delay milliseconds. If the timerable is already scheduled, it is scheduled a second
+	 * time.
 	 * 
 	 * @param t
 	 * @param delay
@@ -67,6 +118,52 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 		get().addTimerable(t, delay);
 	}
 
+	/**
+	 * Removes the given {@link IScheduledTimerable} from the timer, if it is scheduled. If it has been scheduled a second time, the second entry
+	 * stays, so a removed timerable has to return a negative delay when it is called.
+	 * 
+	 * @param t
+	 */
+	public static void remove(IScheduledTimerable t) {
+		RescheduleTimer timer = GameContext.current().getRescheduleTimer();
+		if (timer != null) {
+			timer.removeTimerable(t);
+		}
+	}
+
+	/**
+	 * @return The number of currently scheduled timerables.
+	 */
+	public static int getScheduledCount() {
+		return get().scheduledCount;
+	}
+
+	/**
+	 * @return The number of time slots with at least one scheduled timerable.
+	 */
+	public static int getOccupiedSlotsCount() {
+		int[] slotOccupancies = get().slotOccupancies;
+		int occupiedSlots = 0;
+		for (int occupancy : slotOccupancies) {
+			if (occupancy > 0) {
+				occupiedSlots++;
+			}
+		}
+		return occupiedSlots;
+	}
+
+	/**
+	 * @return The maximum number of timerables scheduled for the same time slot.
+	 */
+	public static int getMaxSlotOccupancy() {
+		int[] slotOccupancies = get().slotOccupancies;
+		int maxOccupancy = 0;
+		for (int occupancy : slotOccupancies) {
+			maxOccupancy = Math.max(maxOccupancy, occupancy);
+		}
+		return maxOccupancy;
+	}
+
 	private void addTimerable(IScheduledTimerable t, int delay) {
 		if (delay <= 0) {
 			return; // don't schedule if requested delay is negative or zero
@@ -77,25 +174,91 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 
 		assert delaySlots < TIME_SLOTS : "SCHEDULED TO FAR IN THE FUTURE! " + delay + "ms";
 
-		timerables[(currTimeSlot + delaySlots) % TIME_SLOTS].add(t);
+		link(getFreeLink(t), (currTimeSlot + delaySlots) % TIME_SLOTS);
+	}
+
+	/**
+	 * @return The link of the given timerable or a new link, if the timerable is already scheduled.
+	 */
+	private static TimerSlotLink getFreeLink(IScheduledTimerable t) {
+		TimerSlotLink link = t.getTimerSlotLink();
+		return link.isScheduled() ? new TimerSlotLink(t) : link;
 	}
 
-	private static synchronized RescheduleTimer get() {
-		if (uniIns == null) {
-			uniIns = new RescheduleTimer();
+	private void removeTimerable(IScheduledTimerable t) {
+		TimerSlotLink link = t.getTimerSlotLink();
+		if (link.timer == this) {
+			unlink(link);
 		}
-		return uniIns;
+	}
+
+	private void link(TimerSlotLink link, int slot) {
+		TimerSlotLink tail = slotTails[slot];
+		link.timer = this;
+		link.slot = slot;
+		link.previous = tail;
+		link.next = null;
+
+		if (tail == null) {
+			slotHeads[slot] = link;
+		} else {
+			tail.next = link;
+		}
+		slotTails[slot] = link;
+
+		slotOccupancies[slot]++;
+		scheduledCount++;
+	}
+
+	private void unlink(TimerSlotLink link) {
+		int slot = link.slot;
+		if (link.previous == null) {
+			slotHeads[slot] = link.next;
+		} else {
+			link.previous.next = link.next;
+		}
+		if (link.next == null) {
+			slotTails[slot] = link.previous;
+		} else {
+			link.next.previous = link.previous;
+		}
+
+		link.timer = null;
+		link.previous = null;
+		link.next = null;
+
+		slotOccupancies[slot]--;
+		scheduledCount--;
+	}
+
+	static RescheduleTimer get() {
+		GameContext context = GameContext.current();
+		RescheduleTimer timer = context.getRescheduleTimer();
+		if (timer == null) {
+			synchronized (context) {
+				timer = context.getRescheduleTimer();
+				if (timer == null) {
+					timer = new RescheduleTimer();
+					context.setRescheduleTimer(timer);
+				}
+			}
+		}
+		return timer;
 	}
 
 	@Override
 	public void timerEvent() {
-		ArrayList<IScheduledTimerable> queue = timerables[currTimeSlot];
+		final int slot = currTimeSlot;
 
-		for (IScheduledTimerable curr : queue) {
-			if (uniIns != this) { // fast stop when stopAndClear() is called.
+		TimerSlotLink link;
+		while ((link = slotHeads[slot]) != null) { // timerables are always rescheduled into other slots, so this terminates
+			if (stopped) { // fast stop when stopAndClear() is called.
 				return;
 			}
 
+			unlink(link);
+			IScheduledTimerable curr = link.timerable;
+
 			try {
 				int delay = curr.timerEvent();
 				addTimerable(curr, delay);
@@ -111,21 +274,19 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 			}
 		}
 
-		queue.clear();
 		currTimeSlot = (currTimeSlot + 1) % TIME_SLOTS;
 	}
-
 	public static void loadFrom(ObjectInputStream ois) throws MapLoadException {
 		try {
 			stopAndClear();
-			uniIns = (RescheduleTimer) ois.readObject();
+			GameContext.current().setRescheduleTimer((RescheduleTimer) ois.readObject());
 		} catch (Throwable t) {
 			throw new MapLoadException(t);
 		}
 	}
 
 	public static void saveTo(ObjectOutputStream oos) throws IOException {
-		oos.writeObject(uniIns);
+		oos.writeObject(GameContext.current().getRescheduleTimer());
 		oos.flush();
 	}
 
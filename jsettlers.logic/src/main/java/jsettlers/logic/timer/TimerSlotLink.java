@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import java.io.Serializable;
+
+/**
+ * The link of an {@link IScheduledTimerable} into a time slot of the {@link RescheduleTimer}. Every timerable holds one link, so scheduling,
+ * rescheduling and unscheduling it doesn't allocate anything. Only scheduling a timerable that is already scheduled needs another link.
+ * <p />
+ * The slot state is transient. The {@link RescheduleTimer} serializes its slots itself and relinks the timerables when it is loaded.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class TimerSlotLink implements Serializable {
+	private static final long serialVersionUID = -3304373870123468514L;
+
+	final IScheduledTimerable timerable;
+
+	transient RescheduleTimer timer;
+	transient int slot;
+	transient TimerSlotLink previous;
+	transient TimerSlotLink next;
+
+	public TimerSlotLink(IScheduledTimerable timerable) {
+		this.timerable = timerable;
+	}
+
+	/**
+	 * @return true if the timerable of this link is currently scheduled.
+	 */
+	public boolean isScheduled() {
+		return timer != null;
+	}
+}
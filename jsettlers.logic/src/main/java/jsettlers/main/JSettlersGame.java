@@ -42,20 +42,20 @@ import jsettlers.graphics.map.draw.ImageProvider;
 import jsettlers.input.GuiInterface;
 import jsettlers.input.IGameStoppable;
 import jsettlers.input.PlayerState;
-import jsettlers.logic.buildings.Building;
-import jsettlers.logic.buildings.trading.MarketBuilding;
+import jsettlers.logic.GameContext;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.grid.partition.PartitionsGrid;
 import jsettlers.logic.map.loading.IGameCreator;
 import jsettlers.logic.map.loading.IGameCreator.MainGridWithUiSettings;
 import jsettlers.logic.map.loading.MapLoader;
-import jsettlers.logic.movable.Movable;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.player.PlayerSetting;
 import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.main.replay.ReplaySnapshotWriter;
 import jsettlers.main.replay.ReplayUtils;
 import jsettlers.network.client.OfflineNetworkConnector;
+import jsettlers.network.client.interfaces.IDesyncListener;
 import jsettlers.network.client.interfaces.INetworkConnector;
 
 /**
@@ -64,6 +64,8 @@ import jsettlers.network.client.interfaces.INetworkConnector;
  * @author Andreas Eberle
  */
 public class JSettlersGame {
+	private static final long GAME_THREAD_STACK_SIZE = 512 * 1024; // size of the game thread's stack
+
 	private final Object stopMutex = new Object();
 
 	private final IGameCreator mapCreator;
@@ -73,6 +75,7 @@ public class JSettlersGame {
 	private final INetworkConnector networkConnector;
 	private final boolean multiplayer;
 	private final DataInputStream replayFileInputStream;
+	private final GameContext gameContext;
 
 	private final GameRunner gameRunner;
 
@@ -84,7 +87,7 @@ public class JSettlersGame {
 	private PrintStream systemOutStream;
 
 	private JSettlersGame(IGameCreator mapCreator, long randomSeed, INetworkConnector networkConnector, byte playerId,
-			PlayerSetting[] playerSettings, boolean controlAll, boolean multiplayer, DataInputStream replayFileInputStream) {
+			PlayerSetting[] playerSettings, boolean controlAll, boolean multiplayer, DataInputStream replayFileInputStream, GameContext gameContext) {
 		configureLogging(mapCreator);
 
 		System.out.println("OS version: " + System.getProperty("os.name") + " " + System.getProperty("os.arch") + " "
@@ -104,6 +107,7 @@ public class JSettlersGame {
 		this.playerSettings = playerSettings;
 		this.multiplayer = multiplayer;
 		this.replayFileInputStream = replayFileInputStream;
+		this.gameContext = gameContext;
 
 		MatchConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR = controlAll;
 		MatchConstants.ENABLE_ALL_PLAYER_SELECTION = controlAll;
@@ -120,7 +124,8 @@ public class JSettlersGame {
 	 * @param playerId
 	 */
 	public JSettlersGame(IGameCreator mapCreator, long randomSeed, INetworkConnector networkConnector, byte playerId, PlayerSetting[] playerSettings) {
-		this(mapCreator, randomSeed, networkConnector, playerId, playerSettings, CommonConstants.CONTROL_ALL, true, null);
+		this(mapCreator, randomSeed, networkConnector, playerId, playerSettings, CommonConstants.CONTROL_ALL, true, null,
+				GameContext.getDefault());
 	}
 
 	/**
@@ -131,7 +136,21 @@ public class JSettlersGame {
 	 * @param playerId
 	 */
 	public JSettlersGame(IGameCreator mapCreator, long randomSeed, byte playerId, PlayerSetting[] playerSettings) {
-		this(mapCreator, randomSeed, new OfflineNetworkConnector(), playerId, playerSettings, CommonConstants.CONTROL_ALL, false, null);
+		this(mapCreator, randomSeed, playerId, playerSettings, GameContext.getDefault());
+	}
+
+	/**
+	 * Creates a new {@link JSettlersGame} object with an {@link OfflineNetworkConnector} that runs in the given {@link GameContext}. Games with
+	 * different contexts can run in parallel.
+	 *
+	 * @param mapCreator
+	 * @param randomSeed
+	 * @param playerId
+	 * @param gameContext
+	 *            The context holding the state of this game.
+	 */
+	public JSettlersGame(IGameCreator mapCreator, long randomSeed, byte playerId, PlayerSetting[] playerSettings, GameContext gameContext) {
+		this(mapCreator, randomSeed, new OfflineNetworkConnector(), playerId, playerSettings, CommonConstants.CONTROL_ALL, false, null, gameContext);
 	}
 
 	public static JSettlersGame loadFromReplayFile(ReplayUtils.IReplayStreamProvider loadableReplayFile, INetworkConnector networkConnector,
@@ -142,7 +161,8 @@ public class JSettlersGame {
 
 			MapLoader mapCreator = loadableReplayFile.getMap(replayStartInformation);
 			return new JSettlersGame(mapCreator, replayStartInformation.getRandomSeed(), networkConnector,
-					(byte) replayStartInformation.getPlayerId(), replayStartInformation.getReplayablePlayerSettings(), true, false, replayFileInputStream);
+					(byte) replayStartInformation.getPlayerId(), replayStartInformation.getReplayablePlayerSettings(), true, false, replayFileInputStream,
+					GameContext.getDefault());
 		} catch (IOException e) {
 			throw new MapLoadException("Could not deserialize " + loadableReplayFile, e);
 		}
@@ -156,7 +176,7 @@ public class JSettlersGame {
 	public synchronized IStartingGame start() {
 		if (!started) {
 			started = true;
-			new Thread(null, gameRunner, "GameThread", 128 * 1024).start();
+			new Thread(null, gameRunner, "GameThread", GAME_THREAD_STACK_SIZE).start();
 		}
 		return gameRunner;
 	}
@@ -186,6 +206,11 @@ public class JSettlersGame {
 		return ResourceManager.writeUserFile(replayFilename);
 	}
 
+	protected OutputStream createReplaySeekIndexWriteStream() throws IOException {
+		final String seekIndexFilename = getLogFile(mapCreator, "_replay.seek");
+		return ResourceManager.writeUserFile(seekIndexFilename);
+	}
+
 	public class GameRunner implements Runnable, IStartingGame, IStartedGame, IGameStoppable {
 		private IStartingGameListener startingGameListener;
 		private MainGrid mainGrid;
@@ -195,13 +220,16 @@ public class JSettlersGame {
 		private IGameExitListener exitListener;
 		private boolean gameRunning;
 		private AiExecutor aiExecutor;
+		private ReplaySnapshotWriter replaySnapshotWriter;
 
 		@Override
 		public void run() {
+			GameContext previousContext = gameContext.bind();
 			try {
 				updateProgressListener(EProgressState.LOADING, 0.1f);
 
-				clearState();
+				clearState(gameContext);
+				networkConnector.getGameClock().setExecutionScope(gameContext);
 				MatchConstants.init(networkConnector.getGameClock(), randomSeed);
 				try {
 					MatchConstants.clock().setReplayLogStream(createReplayFileStream());
@@ -246,6 +274,14 @@ public class JSettlersGame {
 
 				aiExecutor = new AiExecutor(playerSettings, mainGrid, networkConnector.getTaskScheduler());
 				networkConnector.getGameClock().schedule(aiExecutor, (short) 10000);
+				scheduleReplaySnapshotWriter(guiInterface);
+				networkConnector.startStateHashComparison(mainGrid, new IDesyncListener() {
+					@Override
+					public void desyncDetected(int lockstep, String playerId, long[] localHashes, long[] remoteHashes) {
+						System.err.println("DESYNC: the game of player " + playerId + " diverged from the local one in lockstep " + lockstep
+								+ ". Differing state: " + getDifferingStateComponents(localHashes, remoteHashes));
+					}
+				});
 
 				MatchConstants.clock().startExecution(); // WARNING: GAME CLOCK IS STARTED!
 				// NO CONFIGURATION AFTER THIS POINT! =================================
@@ -263,10 +299,13 @@ public class JSettlersGame {
 				}
 
 				networkConnector.shutdown();
+				if (replaySnapshotWriter != null) {
+					replaySnapshotWriter.close();
+				}
 				mainGrid.stopThreads();
 				connector.shutdown();
 				guiInterface.stop();
-				clearState();
+				clearState(gameContext);
 
 				System.setErr(systemErrorStream);
 				System.setOut(systemOutStream);
@@ -278,6 +317,7 @@ public class JSettlersGame {
 				e.printStackTrace();
 				reportFail(EGameError.UNKNOWN_ERROR, e);
 			} finally {
+				GameContext.restore(previousContext);
 				shutdownFinished = true;
 				if (exitListener != null) {
 					exitListener.gameExited(this);
@@ -289,6 +329,33 @@ public class JSettlersGame {
 			return aiExecutor;
 		}
 
+		private String getDifferingStateComponents(long[] localHashes, long[] remoteHashes) {
+			StringBuilder differing = new StringBuilder();
+			for (int i = 0; i < MainGrid.STATE_HASH_COMPONENTS.length; i++) {
+				if (i >= localHashes.length || i >= remoteHashes.length || localHashes[i] != remoteHashes[i]) {
+					if (differing.length() > 0) {
+						differing.append(", ");
+					}
+					differing.append(MainGrid.STATE_HASH_COMPONENTS[i]);
+				}
+			}
+			return differing.toString();
+		}
+
+		private void scheduleReplaySnapshotWriter(GuiInterface guiInterface) {
+			if (CommonConstants.REPLAY_SNAPSHOT_INTERVAL_MINUTES <= 0) {
+				return;
+			}
+
+			try {
+				replaySnapshotWriter = new ReplaySnapshotWriter(networkConnector.getGameClock(), mainGrid, guiInterface,
+						CommonConstants.REPLAY_SNAPSHOT_INTERVAL_MINUTES, createReplaySeekIndexWriteStream());
+				networkConnector.getGameClock().schedule(replaySnapshotWriter, ReplaySnapshotWriter.CHECK_PERIOD);
+			} catch (IOException e) { // the seek index is optional, the replay can still be played without it
+				System.out.println("Cannot write replay seek index file: " + e.getMessage());
+			}
+		}
+
 		private DataOutputStream createReplayFileStream() throws IOException {
 			DataOutputStream replayFileStream = new DataOutputStream(createReplayWriteStream());
 
@@ -412,11 +479,18 @@ public class JSettlersGame {
 		return new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
 	}
 
+	public GameContext getGameContext() {
+		return gameContext;
+	}
+
+	/**
+	 * Clears the state of the game running in the {@link GameContext} of the current thread.
+	 */
 	public static void clearState() {
-		RescheduleTimer.stopAndClear();
-		Movable.resetState();
-		Building.clearState();
-		MarketBuilding.clearState();
-		MatchConstants.clearState();
+		clearState(GameContext.current());
+	}
+
+	private static void clearState(GameContext gameContext) {
+		gameContext.clear();
 	}
 }
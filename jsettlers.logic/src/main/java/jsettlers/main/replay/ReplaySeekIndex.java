@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import jsettlers.common.map.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.IListedMap;
+
+/**
+ * The seek index of a replay. It contains {@link Snapshot}s of the game that have been taken periodically while the replay has been recorded.
+ * A replay can be continued from every snapshot, so seeking to a game time only requires to simulate the game from the snapshot before it.
+ * <p />
+ * The index is stored in its own file next to the replay log: a header followed by the snapshots in the order they have been taken.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class ReplaySeekIndex {
+	private static final int MAGIC = 0x4A535249; // "JSRI"
+	private static final short VERSION = 1;
+
+	private final List<Snapshot> snapshots;
+
+	private ReplaySeekIndex(List<Snapshot> snapshots) {
+		this.snapshots = Collections.unmodifiableList(snapshots);
+	}
+
+	/**
+	 * Reads a seek index. If the last snapshot is incomplete, e.g. because the game has been aborted while writing it, it is ignored.
+	 * 
+	 * @param in
+	 *            The stream to read from. It is not closed.
+	 * @return The seek index.
+	 * @throws IOException
+	 *             If the stream doesn't contain a seek index.
+	 */
+	public static ReplaySeekIndex read(InputStream in) throws IOException {
+		DataInputStream dis = new DataInputStream(in);
+		if (dis.readInt() != MAGIC) {
+			throw new IOException("Not a replay seek index.");
+		}
+		short version = dis.readShort();
+		if (version != VERSION) {
+			throw new IOException("Unsupported replay seek index version: " + version);
+		}
+
+		List<Snapshot> snapshots = new ArrayList<Snapshot>();
+		try {
+			while (true) {
+				int gameTime;
+				try {
+					gameTime = dis.readInt();
+				} catch (EOFException e) {
+					break; // regular end of the index
+				}
+				int replayPosition = dis.readInt();
+				byte[] remainingTasks = readBytes(dis);
+				byte[] savegame = readBytes(dis);
+				snapshots.add(new Snapshot(gameTime, replayPosition, remainingTasks, savegame));
+			}
+		} catch (EOFException e) { // an incomplete snapshot at the end of the index is ignored
+		}
+		return new ReplaySeekIndex(snapshots);
+	}
+
+	public static void writeHeader(DataOutputStream dos) throws IOException {
+		dos.writeInt(MAGIC);
+		dos.writeShort(VERSION);
+	}
+
+	/**
+	 * Appends a snapshot to a seek index.
+	 * 
+	 * @param dos
+	 *            The stream of the seek index. The header must already have been written with {@link #writeHeader(DataOutputStream)}.
+	 * @param gameTime
+	 *            The game time of the snapshot.
+	 * @param replayPosition
+	 *            The position in the replay log behind the last task that is contained in the remaining tasks.
+	 * @param remainingTasks
+	 *            The serialized tasks that had been scheduled but not executed at the time of the snapshot.
+	 * @param savegame
+	 *            The savegame, including its map header.
+	 * @throws IOException
+	 */
+	public static void writeSnapshot(DataOutputStream dos, int gameTime, int replayPosition, byte[] remainingTasks, byte[] savegame)
+			throws IOException {
+		dos.writeInt(gameTime);
+		dos.writeInt(replayPosition);
+		dos.writeInt(remainingTasks.length);
+		dos.write(remainingTasks);
+		dos.writeInt(savegame.length);
+		dos.write(savegame);
+		dos.flush();
+	}
+
+	private static byte[] readBytes(DataInputStream dis) throws IOException {
+		byte[] bytes = new byte[dis.readInt()];
+		dis.readFully(bytes);
+		return bytes;
+	}
+
+	public List<Snapshot> getSnapshots() {
+		return snapshots;
+	}
+
+	/**
+	 * @param gameTime
+	 *            The game time in milliseconds.
+	 * @return The latest snapshot taken before the given game time or <code>null</code> if there is none.
+	 */
+	public Snapshot getSnapshotBefore(int gameTime) {
+		Snapshot result = null;
+		for (Snapshot snapshot : snapshots) {
+			if (snapshot.gameTime < gameTime) {
+				result = snapshot;
+			} else {
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A snapshot of a game. It can be loaded like a savegame.
+	 * 
+	 * @author Andreas Eberle
+	 * 
+	 */
+	public static class Snapshot implements IListedMap {
+		private final int gameTime;
+		private final int replayPosition;
+		private final byte[] remainingTasks;
+		private final byte[] savegame;
+
+		Snapshot(int gameTime, int replayPosition, byte[] remainingTasks, byte[] savegame) {
+			this.gameTime = gameTime;
+			this.replayPosition = replayPosition;
+			this.remainingTasks = remainingTasks;
+			this.savegame = savegame;
+		}
+
+		public int getGameTime() {
+			return gameTime;
+		}
+
+		/**
+		 * @return The position in the replay log from which on the tasks have been logged after this snapshot.
+		 */
+		public int getReplayPosition() {
+			return replayPosition;
+		}
+
+		/**
+		 * @return A stream of the serialized tasks that had been scheduled but not executed when this snapshot was taken.
+		 */
+		public InputStream openRemainingTasks() {
+			return new ByteArrayInputStream(remainingTasks);
+		}
+
+		public MapLoader getSavegame() throws MapLoadException {
+			return MapLoader.getLoaderForListedMap(this);
+		}
+
+		@Override
+		public String getFileName() {
+			return "replay_snapshot_" + gameTime + MapLoader.MAP_EXTENSION;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(savegame);
+		}
+
+		@Override
+		public void delete() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean isCompressed() {
+			return false;
+		}
+
+		@Override
+		public File getFile() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot(game time: " + gameTime + "ms, replay position: " + replayPosition + ", size: " + savegame.length + " bytes)";
+		}
+	}
+}
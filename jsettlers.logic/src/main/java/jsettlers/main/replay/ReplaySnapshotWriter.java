@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import jsettlers.input.GuiInterface;
+import jsettlers.input.PlayerState;
+import jsettlers.logic.map.grid.GameSerializer;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.network.client.interfaces.IGameClock;
+import jsettlers.network.synchronic.timer.INetworkTimerable;
+
+/**
+ * Takes a snapshot of the game every few minutes of game time and appends it to the {@link ReplaySeekIndex} of the replay that is currently
+ * recorded. The snapshots are taken on the clock's thread between two time slices, so they don't need to pause the game.
+ * <p />
+ * The seek index is only an optimization for seeking in the replay. If writing a snapshot fails, no further snapshots are taken. A snapshot
+ * that has only been written partially is ignored when the index is read.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class ReplaySnapshotWriter implements INetworkTimerable {
+	public static final short CHECK_PERIOD = 1000; // ms
+
+	private final IGameClock clock;
+	private final MainGrid grid;
+	private final GuiInterface guiInterface;
+	private final int interval;
+	private final DataOutputStream seekIndexStream;
+
+	private int nextSnapshotTime;
+
+	/**
+	 * 
+	 * @param clock
+	 *            The clock of the game. The writer needs to be scheduled on it with the period {@link #CHECK_PERIOD}.
+	 * @param grid
+	 *            The grid of the game.
+	 * @param guiInterface
+	 *            The gui interface of the game. It provides the player states stored in the snapshots.
+	 * @param intervalMinutes
+	 *            The game time between two snapshots.
+	 * @param seekIndexStream
+	 *            The stream to write the seek index to.
+	 * @throws IOException
+	 */
+	public ReplaySnapshotWriter(IGameClock clock, MainGrid grid, GuiInterface guiInterface, int intervalMinutes, OutputStream seekIndexStream)
+			throws IOException {
+		this.clock = clock;
+		this.grid = grid;
+		this.guiInterface = guiInterface;
+		this.interval = intervalMinutes * 60 * 1000;
+		this.seekIndexStream = new DataOutputStream(seekIndexStream);
+		this.nextSnapshotTime = (clock.getTime() / interval + 1) * interval;
+
+		ReplaySeekIndex.writeHeader(this.seekIndexStream);
+		this.seekIndexStream.flush();
+	}
+
+	@Override
+	public void timerEvent() {
+		if (clock.getTime() < nextSnapshotTime) {
+			return;
+		}
+
+		try {
+			writeSnapshot();
+			nextSnapshotTime += interval;
+		} catch (IOException e) {
+			clock.remove(this);
+			close();
+		}
+	}
+
+	private void writeSnapshot() throws IOException {
+		ByteArrayOutputStream remainingTasks = new ByteArrayOutputStream();
+		int replayPosition = clock.saveRemainingTasks(new DataOutputStream(remainingTasks));
+		if (replayPosition < 0) {
+			throw new IOException("No replay log is written.");
+		}
+
+		ByteArrayOutputStream savegame = new ByteArrayOutputStream();
+		grid.generateSaveHeader().writeTo(savegame);
+		new GameSerializer(true).save(createPlayerStates(), grid, savegame);
+
+		ReplaySeekIndex.writeSnapshot(seekIndexStream, clock.getTime(), replayPosition, remainingTasks.toByteArray(), savegame.toByteArray());
+	}
+
+	/**
+	 * The fog of war is not stored in the snapshots, as it is calculated by its own thread independently of the game time. A game continued
+	 * from a snapshot creates a new fog of war like the original game did.
+	 */
+	private PlayerState[] createPlayerStates() {
+		PlayerState[] playerStates = guiInterface.createPlayerStates();
+		for (int i = 0; i < playerStates.length; i++) {
+			playerStates[i] = new PlayerState(playerStates[i].getPlayerId(), playerStates[i].getUiState());
+		}
+		return playerStates;
+	}
+
+	public void close() {
+		try {
+			seekIndexStream.close();
+		} catch (IOException e) { // the snapshots written so far stay usable
+		}
+	}
+}
@@ -14,13 +14,20 @@
  *******************************************************************************/
 package jsettlers.main.replay;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import jsettlers.common.map.MapLoadException;
@@ -34,7 +41,6 @@ import jsettlers.common.utils.MutableInt;
 import jsettlers.common.utils.Tuple;
 import jsettlers.input.tasks.EGuiAction;
 import jsettlers.input.tasks.SimpleGuiTask;
-import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.loading.MapLoader;
 import jsettlers.logic.map.loading.list.MapList;
 import jsettlers.logic.player.PlayerSetting;
@@ -52,6 +58,8 @@ import jsettlers.network.client.interfaces.INetworkConnector;
  *
  */
 public class ReplayUtils {
+	private static final String INTEGRATION_REPLAY_FILE = "jsettlers.integration.replay";
+	private static final String INTEGRATION_REPLAY_SEEK_INDEX_FILE = "jsettlers.integration.replay.seek";
 
 	public static MapLoader replayAndCreateSavegame(IReplayStreamProvider replayFile, int targetGameTimeMinutes, String newReplayFile)
 			throws MapLoadException, IOException {
@@ -59,8 +67,8 @@ public class ReplayUtils {
 		ReplayStartInformation replayStartInformation = new ReplayStartInformation();
 		JSettlersGame game = loadGameFromReplay(replayFile, networkConnector, replayStartInformation);
 
-		IStartedGame startedGame = startGame(game); // before we can save the clock reference, the game must be started
-		IGameClock gameClock = MatchConstants.clock(); // after the game, the clock cannot be accessed any more => save reference before the game
+		IStartedGame startedGame = startGame(game);
+		IGameClock gameClock = networkConnector.getGameClock();
 		MapLoader newSavegame = playGameToTargetTimeAndGetSavegames(startedGame, networkConnector, targetGameTimeMinutes)[0];
 
 		// create a jsettlers.integration.replay basing on the savegame and containing the remaining tasks.
@@ -71,6 +79,31 @@ public class ReplayUtils {
 		return newSavegame;
 	}
 
+	/**
+	 * Continues the replay from the latest snapshot of the seek index before the target game time and creates a savegame at the target game
+	 * time. Only the game time since the snapshot needs to be simulated. If there is no snapshot before the target game time, the replay is
+	 * started from the beginning.
+	 * 
+	 * @param replayFile
+	 *            The replay.
+	 * @param seekIndex
+	 *            The seek index written while the replay has been recorded.
+	 * @param targetGameTimeMinutes
+	 *            The game time of the savegame.
+	 * @return The savegame.
+	 * @throws MapLoadException
+	 * @throws IOException
+	 */
+	public static MapLoader seekAndCreateSavegame(IReplayStreamProvider replayFile, ReplaySeekIndex seekIndex, int targetGameTimeMinutes)
+			throws MapLoadException, IOException {
+		ReplaySeekIndex.Snapshot snapshot = seekIndex.getSnapshotBefore(targetGameTimeMinutes * 60 * 1000);
+		IReplayStreamProvider replay = snapshot != null ? new SnapshotReplay(replayFile, snapshot) : replayFile;
+
+		OfflineNetworkConnector networkConnector = createPausingOfflineNetworkConnector();
+		JSettlersGame game = loadGameFromReplay(replay, networkConnector, new ReplayStartInformation());
+		return playGameToTargetTimeAndGetSavegames(game, networkConnector, targetGameTimeMinutes)[0];
+	}
+
 	public static MapLoader[] replayAndCreateSavegames(IReplayStreamProvider replayFile, int[] targetGameTimeMinutes)			throws MapLoadException, IOException {
 		OfflineNetworkConnector networkConnector = createPausingOfflineNetworkConnector();
 		ReplayStartInformation replayStartInformation = new ReplayStartInformation();
@@ -86,6 +119,7 @@ public class ReplayUtils {
 	public static OfflineNetworkConnector createPausingOfflineNetworkConnector() {
 		OfflineNetworkConnector networkConnector = new OfflineNetworkConnector();
 		networkConnector.getGameClock().setPausing(true);
+		networkConnector.getGameClock().setMaximumSpeed(true);
 		return networkConnector;
 	}
 
@@ -106,7 +140,7 @@ public class ReplayUtils {
 
 			networkConnector.scheduleTaskAt(targetGameTimeMs / NetworkConstants.Client.LOCKSTEP_PERIOD,
 					new SimpleGuiTask(EGuiAction.QUICK_SAVE, (byte) 0));
-			MatchConstants.clock().fastForwardTo(targetGameTimeMs);
+			networkConnector.getGameClock().fastForwardTo(targetGameTimeMs);
 			savegames[i] = getNewestSavegame();
 		}
 
@@ -125,6 +159,12 @@ public class ReplayUtils {
 	}
 
 	public static MapLoader getNewestSavegame() {
+		try {
+			MapList.getDefaultList().awaitPendingSaves();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+
 		List<? extends MapLoader> savedMaps = MapList.getDefaultList().getSavedMaps().getItems();
 		if (savedMaps.isEmpty()) {
 			throw new RuntimeException("No saved games found.");
@@ -205,7 +245,12 @@ public class ReplayUtils {
 				PlayerSetting.createDefaultSettings(playerId, (byte) map.getMaxPlayers())) {
 			@Override
 			protected OutputStream createReplayWriteStream() throws IOException {
-				return ResourceManager.writeConfigurationFile("jsettlers.integration.replay");
+				return ResourceManager.writeConfigurationFile(INTEGRATION_REPLAY_FILE);
+			}
+
+			@Override
+			protected OutputStream createReplaySeekIndexWriteStream() throws IOException {
+				return ResourceManager.writeConfigurationFile(INTEGRATION_REPLAY_SEEK_INDEX_FILE);
 			}
 		};
 
@@ -307,7 +352,18 @@ public class ReplayUtils {
 
 		@Override
 		public InputStream openStream() throws IOException {
-			return ResourceManager.getResourcesFileStream("jsettlers.integration.replay");
+			return ResourceManager.getResourcesFileStream(INTEGRATION_REPLAY_FILE);
+		}
+
+		/**
+		 * @return The seek index written while playing the map. It only contains snapshots if
+		 *         {@link jsettlers.common.CommonConstants#REPLAY_SNAPSHOT_INTERVAL_MINUTES} has been set.
+		 * @throws IOException
+		 */
+		public ReplaySeekIndex readSeekIndex() throws IOException {
+			try (InputStream in = new BufferedInputStream(ResourceManager.getResourcesFileStream(INTEGRATION_REPLAY_SEEK_INDEX_FILE))) {
+				return ReplaySeekIndex.read(in);
+			}
 		}
 
 		@Override
@@ -322,4 +378,52 @@ public class ReplayUtils {
 			return savegames;
 		}
 	}
+
+	/**
+	 * A replay that continues a recorded replay from a {@link ReplaySeekIndex.Snapshot}. It consists of the start information of the recorded
+	 * replay, the tasks that were pending when the snapshot was taken and the tasks logged after the snapshot.
+	 */
+	private static class SnapshotReplay implements IReplayStreamProvider {
+		private final IReplayStreamProvider replay;
+		private final ReplaySeekIndex.Snapshot snapshot;
+
+		SnapshotReplay(IReplayStreamProvider replay, ReplaySeekIndex.Snapshot snapshot) {
+			this.replay = replay;
+			this.snapshot = snapshot;
+		}
+
+		@Override
+		public InputStream openStream() throws IOException {
+			ReplayStartInformation replayStartInformation = new ReplayStartInformation();
+			try (DataInputStream replayStream = new DataInputStream(replay.openStream())) {
+				replayStartInformation.deserialize(replayStream);
+			}
+			ByteArrayOutputStream startInformation = new ByteArrayOutputStream();
+			replayStartInformation.serialize(new DataOutputStream(startInformation));
+
+			InputStream remainingReplay = new BufferedInputStream(replay.openStream());
+			skipFully(remainingReplay, snapshot.getReplayPosition());
+
+			return new SequenceInputStream(Collections.enumeration(Arrays.asList(new ByteArrayInputStream(startInformation.toByteArray()),
+					snapshot.openRemainingTasks(), remainingReplay)));
+		}
+
+		@Override
+		public MapLoader getMap(ReplayStartInformation replayStartInformation) throws MapLoadException {
+			return snapshot.getSavegame();
+		}
+
+		private static void skipFully(InputStream in, long bytes) throws IOException {
+			while (bytes > 0) {
+				long skipped = in.skip(bytes);
+				if (skipped <= 0) {
+					if (in.read() < 0) {
+						throw new EOFException("Replay ends before the position of the snapshot.");
+					}
+					skipped = 1;
+				}
+				bytes -= skipped;
+			}
+		}
+	}
 }
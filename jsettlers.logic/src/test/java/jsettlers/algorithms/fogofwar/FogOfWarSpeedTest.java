@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.fogofwar.FogOfWarTest.TestFogOfWarGrid;
+import jsettlers.algorithms.fogofwar.FogOfWarTest.TestViewDistancable;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Updates the {@link FogOfWar} of a large map with many moving objects when the stripes are processed by 1, 2, 4 and 8 threads and checks that
+ * the results are identical to the serial update.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class FogOfWarSpeedTest {
+	private static final short SIZE = 1024;
+	private static final int NUMBER_OF_BUILDINGS = 500;
+	private static final int NUMBER_OF_MOVABLES = 8000;
+	private static final int NUMBER_OF_PASSES = 10;
+
+	@Test
+	public void testSpeed() {
+		byte[][] serialSight = runPasses(null);
+
+		for (int threads = 1; threads <= 8; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			byte[][] sight = runPasses(pool);
+			pool.shutdown();
+
+			for (int x = 0; x < SIZE; x++) {
+				assertArrayEquals(serialSight[x], sight[x]);
+			}
+		}
+	}
+
+	private static byte[][] runPasses(ForkJoinPool pool) {
+		Random random = new Random(1);
+		TestFogOfWarGrid grid = new TestFogOfWarGrid();
+		for (int i = 0; i < NUMBER_OF_BUILDINGS; i++) {
+			grid.buildings.add(new TestViewDistancable(random.nextInt(SIZE), random.nextInt(SIZE), 20, 0));
+		}
+		for (int i = 0; i < NUMBER_OF_MOVABLES; i++) {
+			grid.movables.add(new TestViewDistancable(random.nextInt(SIZE), random.nextInt(SIZE), 8, 0));
+		}
+
+		FogOfWar fogOfWar = new FogOfWar(SIZE, SIZE);
+		fogOfWar.grid = grid;
+		fogOfWar.pool = pool;
+		FogOfWar.NewFoWThread thread = fogOfWar.new NewFoWThread();
+
+		thread.rebuildSight();
+
+		for (int pass = 0; pass < NUMBER_OF_PASSES; pass++) {
+			for (TestViewDistancable movable : grid.movables) { // every movable walks a few steps in each pass
+				int x = Math.max(0, Math.min(SIZE - 1, movable.pos.x + random.nextInt(5) - 2));
+				int y = Math.max(0, Math.min(SIZE - 1, movable.pos.y + random.nextInt(5) - 2));
+				movable.pos = new ShortPoint2D(x, y);
+			}
+			thread.rebuildSight();
+		}
+
+		return fogOfWar.sight;
+	}
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Test for the incremental sight calculation of the {@link FogOfWar}. The results are compared to a full rebuild of the sight.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class FogOfWarTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 150;
+	private static final byte DIM_DOWN_SPEED = 10;
+
+	private final TestFogOfWarGrid grid = new TestFogOfWarGrid();
+	private final FogOfWar fogOfWar = new FogOfWar(WIDTH, HEIGHT, (byte) 0);
+	private final FogOfWar.NewFoWThread thread;
+
+	private final byte[][] expectedSight = new byte[WIDTH][HEIGHT];
+	private final CachedViewCircle[] cachedCircles = new CachedViewCircle[FogOfWar.MAX_VIEWDISTANCE];
+
+	public FogOfWarTest() {
+		fogOfWar.grid = grid;
+		thread = fogOfWar.new NewFoWThread();
+	}
+
+	@Test
+	public void testSingleMovableMovingAndVanishing() {
+		TestViewDistancable movable = new TestViewDistancable(50, 50, 8, 0);
+		grid.movables.add(movable);
+
+		assertPass();
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(50, 50));
+
+		movable.pos = new ShortPoint2D(100, 80);
+		for (int i = 0; i < 6; i++) {
+			assertPass();
+		}
+		assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, fogOfWar.getVisibleStatus(50, 50));
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(100, 80));
+
+		grid.movables.clear();
+		for (int i = 0; i < 6; i++) {
+			assertPass();
+		}
+		assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, fogOfWar.getVisibleStatus(100, 80));
+	}
+
+	@Test
+	public void testOtherPlayersAreIgnored() {
+		grid.buildings.add(new TestViewDistancable(50, 50, 15, 1));
+		grid.movables.add(new TestViewDistancable(60, 60, 8, 1));
+
+		assertPass();
+		assertEquals(0, fogOfWar.getVisibleStatus(50, 50));
+	}
+
+	@Test
+	public void testRandomMovingObjects() {
+		fogOfWar.pool = null;
+		simulateRandomMovingObjects();
+	}
+
+	@Test
+	public void testRandomMovingObjectsInParallel() {
+		fogOfWar.pool = new ForkJoinPool(4);
+		simulateRandomMovingObjects();
+		fogOfWar.pool.shutdown();
+	}
+
+	private void simulateRandomMovingObjects() {
+		Random random = new Random(4711);
+
+		for (int i = 0; i < 20; i++) {
+			grid.buildings.add(new TestViewDistancable(random.nextInt(WIDTH), random.nextInt(HEIGHT), 15 + random.nextInt(10), random.nextInt(2)));
+		}
+		for (int i = 0; i < 100; i++) {
+			grid.movables.add(new TestViewDistancable(random.nextInt(WIDTH), random.nextInt(HEIGHT), 8, random.nextInt(2)));
+		}
+
+		for (int pass = 0; pass < 50; pass++) {
+			for (TestViewDistancable movable : grid.movables) {
+				if (random.nextInt(3) == 0) {
+					int x = Math.max(0, Math.min(WIDTH - 1, movable.pos.x + random.nextInt(7) - 3));
+					int y = Math.max(0, Math.min(HEIGHT - 1, movable.pos.y + random.nextInt(7) - 3));
+					movable.pos = new ShortPoint2D(x, y);
+				}
+				if (random.nextInt(20) == 0) {
+					movable.viewDistance = (short) random.nextInt(12);
+				}
+			}
+
+			if (random.nextInt(5) == 0) {
+				grid.buildings.poll();
+				grid.buildings.add(new TestViewDistancable(random.nextInt(WIDTH), random.nextInt(HEIGHT), 15 + random.nextInt(10), 0));
+			}
+			if (random.nextInt(10) == 0) {
+				grid.movables.poll();
+			}
+
+			assertPass();
+		}
+	}
+
+	private void assertPass() {
+		thread.rebuildSight();
+		rebuildExpectedSight();
+
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				assertEquals("sight at " + x + "|" + y, expectedSight[x][y], fogOfWar.sight[x][y]);
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the expected sight from scratch the way it has been done before the sight was updated incrementally.
+	 */
+	private void rebuildExpectedSight() {
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				if (expectedSight[x][y] >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+					expectedSight[x][y] = (byte) Math.max(expectedSight[x][y] - DIM_DOWN_SPEED, CommonConstants.FOG_OF_WAR_EXPLORED);
+				}
+			}
+		}
+
+		drawExpectedCircles(grid.buildings);
+		drawExpectedCircles(grid.movables);
+	}
+
+	private void drawExpectedCircles(ConcurrentLinkedQueue<TestViewDistancable> objects) {
+		for (TestViewDistancable curr : objects) {
+			if (curr.player == 0 && curr.viewDistance > 0) {
+				CachedViewCircle circle = getCachedCircle(curr.viewDistance);
+
+				for (int i = 0; i < circle.size; i++) {
+					int x = circle.x[i] + curr.pos.x;
+					int y = circle.y[i] + curr.pos.y;
+					if (x >= 0 && x < WIDTH && y > 0 && y < HEIGHT && expectedSight[x][y] < circle.sight[i]) {
+						expectedSight[x][y] = circle.sight[i];
+					}
+				}
+			}
+		}
+	}
+
+	private CachedViewCircle getCachedCircle(int viewDistance) {
+		int radius = Math.min(viewDistance + FogOfWar.PADDING, FogOfWar.MAX_VIEWDISTANCE - 1);
+		if (cachedCircles[radius] == null) {
+			cachedCircles[radius] = new CachedViewCircle(radius);
+		}
+		return cachedCircles[radius];
+	}
+
+	static class TestViewDistancable implements IViewDistancable {
+		private final byte player;
+		ShortPoint2D pos;
+		private short viewDistance;
+
+		TestViewDistancable(int x, int y, int viewDistance, int player) {
+			this.pos = new ShortPoint2D(x, y);
+			this.viewDistance = (short) viewDistance;
+			this.player = (byte) player;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return pos;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return player;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+
+	static class TestFogOfWarGrid implements IFogOfWarGrid {
+		final ConcurrentLinkedQueue<TestViewDistancable> movables = new ConcurrentLinkedQueue<TestViewDistancable>();
+		final ConcurrentLinkedQueue<TestViewDistancable> buildings = new ConcurrentLinkedQueue<TestViewDistancable>();
+
+		@Override
+		public IMovable getMovableAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public IMapObject getMapObjectsAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
+			return movables;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
+			return buildings;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Test for the class {@link PathCache}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class PathCacheTest {
+	private static final short WIDTH = 100;
+	private static final short HEIGHT = 100;
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final PathCache cache = new PathCache(new BucketQueueAStar(map, WIDTH, HEIGHT), WIDTH, HEIGHT, 3);
+
+	@Test
+	public void testExactHit() {
+		Path first = findPath(10, 10, 50, 10, false);
+		Path second = findPath(10, 10, 50, 10, false);
+
+		assertNotSame(first, second);
+		assertPathsEqual(first, 0, second);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testSuffixAndPrefix() {
+		Path route = findPath(10, 10, 50, 10, false);
+
+		Path suffix = findPath(20, 10, 50, 10, false);
+		assertEquals(30, suffix.getLength());
+		assertPathsEqual(suffix, 10, route);
+
+		Path prefix = findPath(10, 10, 30, 10, false);
+		assertEquals(20, prefix.getLength());
+		assertPathsEqual(prefix, 0, route);
+
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getSize());
+	}
+
+	@Test
+	public void testPlayersGroundRequestersDontShareRoutes() {
+		findPath(10, 10, 50, 10, false);
+		findPath(10, 10, 50, 10, true);
+
+		assertEquals(0, cache.getHits());
+		assertEquals(2, cache.getSize());
+	}
+
+	@Test
+	public void testInvalidation() {
+		findPath(10, 10, 50, 10, false);
+		findPath(10, 20, 50, 20, false);
+
+		cache.blockingChanged(0, 0, true);
+		assertEquals(0, cache.getInvalidations());
+
+		map.setBlocked(30, 10, true);
+		cache.blockingChanged(30, 10, true);
+		assertEquals(1, cache.getInvalidations());
+		assertEquals(1, cache.getSize());
+
+		Path path = findPath(10, 10, 50, 10, false);
+		assertEquals(0, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		while (path.hasNextStep()) {
+			assertFalse(path.nextX() == 30 && path.nextY() == 10);
+			path.goToNextStep();
+		}
+	}
+
+	@Test
+	public void testEviction() {
+		findPath(10, 10, 50, 10, false);
+		findPath(10, 20, 50, 20, false);
+		findPath(10, 30, 50, 30, false);
+		findPath(10, 10, 50, 10, false); // marks the first route as used
+		findPath(10, 40, 50, 40, false);
+
+		assertEquals(3, cache.getSize());
+		assertEquals(1, cache.getEvictions());
+
+		findPath(10, 10, 50, 10, false);
+		findPath(10, 20, 50, 20, false);
+		assertEquals(2, cache.getHits());
+		assertEquals(5, cache.getMisses());
+	}
+
+	@Test
+	public void testUnreachableIsNotCached() {
+		map.setBlocked(50, 10, true);
+		assertNull(findPath(10, 10, 50, 10, false));
+		assertEquals(0, cache.getSize());
+	}
+
+	private void assertPathsEqual(Path path, int offset, Path expected) {
+		for (int i = 0; i < path.getLength(); i++) {
+			assertEquals(expected.getXAt(offset + i), path.getXAt(i));
+			assertEquals(expected.getYAt(offset + i), path.getYAt(i));
+		}
+	}
+
+	private Path findPath(int sx, int sy, int tx, int ty, final boolean needsPlayersGround) {
+		final ShortPoint2D start = new ShortPoint2D(sx, sy);
+		return cache.findPath(new IPathCalculatable() {
+			private static final long serialVersionUID = 2946312587474539208L;
+
+			@Override
+			public ShortPoint2D getPos() {
+				return start;
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return needsPlayersGround;
+			}
+		}, new ShortPoint2D(tx, ty));
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Compares the number of expanded nodes of long distance queries of the {@link HierarchicalAStar} with the ones of the {@link BucketQueueAStar}.
+ * The {@link HierarchicalAStar} must find a path for every query, answer them on the abstract graph and expand fewer nodes. Its paths may be
+ * longer, but not by more than {@link #MAX_PATH_LENGTH_FACTOR}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class HierarchicalAStarSpeedTest {
+	private static final short SIZE = 768;
+	private static final int NUMBER_OF_QUERIES = 100;
+	private static final float MAX_PATH_LENGTH_FACTOR = 1.5f;
+
+	@Test
+	public void testSpeed() {
+		CountingAStarMap map = new CountingAStarMap(SIZE, SIZE);
+		Random random = new Random(1);
+		for (int i = 0; i < 150; i++) { // lakes
+			addLake(map, random.nextInt(SIZE), random.nextInt(SIZE), 3 + random.nextInt(20));
+		}
+		for (int i = 0; i < 60; i++) { // mountain ranges with a few passes
+			int x = random.nextInt(SIZE);
+			int y = random.nextInt(SIZE);
+			boolean horizontal = random.nextBoolean();
+			for (int j = 0; j < 300; j++) {
+				if (random.nextInt(40) != 0) {
+					addLake(map, horizontal ? x + j : x, horizontal ? y : y + j, 1);
+				}
+			}
+		}
+
+		BucketQueueAStar bucketQueueAStar = new BucketQueueAStar(map, SIZE, SIZE);
+
+		short[][] queries = new short[NUMBER_OF_QUERIES][]; // only reachable targets, the dummy map has no blocked partitions
+		for (int i = 0; i < NUMBER_OF_QUERIES;) {
+			short sx = (short) random.nextInt(SIZE);
+			short sy = (short) random.nextInt(SIZE);
+			short tx = (short) random.nextInt(SIZE);
+			short ty = (short) random.nextInt(SIZE);
+			if (!map.isBlocked(null, sx, sy) && ShortPoint2D.getOnGridDist(tx - sx, ty - sy) >= SIZE / 4
+					&& bucketQueueAStar.findPath(REQUESTER, sx, sy, tx, ty) != null) {
+				queries[i++] = new short[] { sx, sy, tx, ty };
+			}
+		}
+
+		HierarchicalAStar hierarchicalAStar = new HierarchicalAStar(map, SIZE, SIZE);
+		hierarchicalAStar.getNumberOfAbstractNodes(); // build the abstract graph before measuring
+
+		map.closedNodes = 0;
+		long bucketQueueLength = runQueries(bucketQueueAStar, queries);
+		long bucketQueueExpanded = map.closedNodes;
+
+		map.closedNodes = 0;
+		long hierarchicalLocalBefore = hierarchicalAStar.getExpandedLocalNodes();
+		long hierarchicalLength = runQueries(hierarchicalAStar, queries);
+		long hierarchicalExpanded = map.closedNodes + hierarchicalAStar.getExpandedAbstractNodes() + hierarchicalAStar.getExpandedLocalNodes()
+				- hierarchicalLocalBefore;
+
+		assertTrue(hierarchicalAStar.getHierarchicalQueries() > hierarchicalAStar.getDelegatedQueries());
+		assertTrue(hierarchicalExpanded < bucketQueueExpanded);
+		assertTrue(hierarchicalLength >= bucketQueueLength);
+		assertTrue(hierarchicalLength <= bucketQueueLength * MAX_PATH_LENGTH_FACTOR);
+	}
+
+	private static void addLake(DummyEmptyAStarMap map, int centerX, int centerY, int radius) {
+		for (int y = Math.max(0, centerY - radius); y <= Math.min(SIZE - 1, centerY + radius); y++) {
+			for (int x = Math.max(0, centerX - radius); x <= Math.min(SIZE - 1, centerX + radius); x++) {
+				if ((x - centerX) * (x - centerX) + (y - centerY) * (y - centerY) <= radius * radius) {
+					map.setBlocked(x, y, true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The summed up length of the paths found.
+	 */
+	private static long runQueries(AbstractAStar aStar, short[][] queries) {
+		long length = 0;
+		for (short[] query : queries) {
+			Path path = aStar.findPath(REQUESTER, query[0], query[1], query[2], query[3]);
+			assertNotNull(path);
+			length += path.getLength();
+		}
+		return length;
+	}
+
+	private static class CountingAStarMap extends DummyEmptyAStarMap {
+		long closedNodes;
+
+		CountingAStarMap(short width, short height) {
+			super(width, height);
+		}
+
+		@Override
+		public void markAsClosed(int x, int y) {
+			closedNodes++;
+		}
+	}
+
+	private static final IPathCalculatable REQUESTER = new IPathCalculatable() {
+		private static final long serialVersionUID = -3397512574473930219L;
+
+		@Override
+		public ShortPoint2D getPos() {
+			return null;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return 0;
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return false;
+		}
+	};
+}
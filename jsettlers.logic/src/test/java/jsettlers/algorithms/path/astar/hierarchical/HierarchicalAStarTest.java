@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar.hierarchical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Test for the class {@link HierarchicalAStar}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class HierarchicalAStarTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final BucketQueueAStar fullAStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+	private final HierarchicalAStar aStar = new HierarchicalAStar(map, fullAStar, WIDTH, HEIGHT);
+
+	@Test
+	public void testShortQueriesAreDelegated() {
+		Path path = findPath(50, 50, 60, 55);
+
+		assertValidPath(path, 50, 50, 60, 55);
+		assertEquals(ShortPoint2D.getOnGridDist(10, 5), path.getLength());
+		assertEquals(0, aStar.getHierarchicalQueries());
+	}
+
+	@Test
+	public void testLongPathOnEmptyMap() {
+		Path path = findPath(5, 7, 190, 180);
+
+		assertValidPath(path, 5, 7, 190, 180);
+		assertEquals(1, aStar.getHierarchicalQueries());
+		assertTrue(path.getLength() <= ShortPoint2D.getOnGridDist(185, 173) * 1.2f);
+	}
+
+	@Test
+	public void testRandomObstacles() {
+		Random random = new Random(42);
+		for (int i = 0; i < 2500; i++) {
+			map.setBlocked(random.nextInt(WIDTH), random.nextInt(HEIGHT), true);
+		}
+		for (int wall = 0; wall < 20; wall++) {
+			setWall(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextBoolean(), 10 + random.nextInt(60));
+		}
+
+		for (int i = 0; i < 200; i++) {
+			short sx = (short) random.nextInt(WIDTH);
+			short sy = (short) random.nextInt(HEIGHT);
+			short tx = (short) random.nextInt(WIDTH);
+			short ty = (short) random.nextInt(HEIGHT);
+			if (map.isBlocked(null, sx, sy) || (sx == tx && sy == ty)) {
+				continue;
+			}
+
+			Path expected = fullAStar.findPath(getPathable(sx, sy), new ShortPoint2D(tx, ty));
+			Path path = findPath(sx, sy, tx, ty);
+
+			if (expected == null) {
+				assertNull(path);
+			} else {
+				assertValidPath(path, sx, sy, tx, ty);
+			}
+		}
+		assertTrue(aStar.getHierarchicalQueries() > 0);
+	}
+
+	@Test
+	public void testBlockingChanged() {
+		assertValidPath(findPath(10, 100, 190, 100), 10, 100, 190, 100);
+
+		setWall(100, 0, false, HEIGHT - 1);
+		assertValidPath(findPath(10, 100, 190, 100), 10, 100, 190, 100);
+		assertTrue(pathContains(findPath(10, 100, 190, 100), 100, HEIGHT - 1));
+
+		map.setBlocked(100, HEIGHT - 1, true);
+		aStar.blockingChanged(100, HEIGHT - 1, true);
+		assertNull(findPath(10, 100, 190, 100));
+
+		map.setBlocked(100, 50, false);
+		aStar.blockingChanged(100, 50, false);
+		assertValidPath(findPath(10, 100, 190, 100), 10, 100, 190, 100);
+		assertTrue(pathContains(findPath(10, 100, 190, 100), 100, 50));
+	}
+
+	private void setWall(int x, int y, boolean horizontal, int length) {
+		for (int i = 0; i < length; i++) {
+			int currX = horizontal ? x + i : x;
+			int currY = horizontal ? y : y + i;
+			if (currX < WIDTH && currY < HEIGHT) {
+				map.setBlocked(currX, currY, true);
+				aStar.blockingChanged(currX, currY, true);
+			}
+		}
+	}
+
+	private boolean pathContains(Path path, int x, int y) {
+		while (path.hasNextStep()) {
+			if (path.nextX() == x && path.nextY() == y) {
+				return true;
+			}
+			path.goToNextStep();
+		}
+		return false;
+	}
+
+	private void assertValidPath(Path path, int sx, int sy, int tx, int ty) {
+		assertNotNull(path);
+		assertEquals(tx, path.getTargetX());
+		assertEquals(ty, path.getTargetY());
+
+		int x = sx;
+		int y = sy;
+		while (path.hasNextStep()) {
+			int nextX = path.nextX();
+			int nextY = path.nextY();
+			path.goToNextStep();
+			assertNotNull(EDirection.getDirection(nextX - x, nextY - y));
+			assertFalse(map.isBlocked(null, nextX, nextY));
+			x = nextX;
+			y = nextY;
+		}
+	}
+
+	private Path findPath(int sx, int sy, int tx, int ty) {
+		return aStar.findPath(getPathable((short) sx, (short) sy), new ShortPoint2D(tx, ty));
+	}
+
+	private static IPathCalculatable getPathable(final short x, final short y) {
+		return new IPathCalculatable() {
+			private static final long serialVersionUID = 5209418640442564409L;
+
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.dijkstra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithmTest.FittingPositionsMap;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Lets lumberjacks search trees with the {@link DijkstraAlgorithm} and with probing the rings around the center and searching a path to every
+ * fitting position with the AStar.
+ * <p />
+ * The map is covered with forest, but a river that can't be crossed runs next to the lumberjacks. The trees on the other side of the river are
+ * closer to them than the ones on their side. Both searches must find the same paths. The times are not checked, as they depend on the
+ * machine.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class DijkstraAlgorithmSpeedTest {
+	private static final short SIZE = 512;
+	private static final int RIVER_X = 256;
+	private static final int RIVER_WIDTH = 4;
+	private static final float TREE_DENSITY_WEST = 0.02f;
+	private static final float TREE_DENSITY_EAST = 0.4f;
+	private static final short SEARCH_RADIUS = 30;
+	private static final int NUMBER_OF_SEARCHES = 300;
+
+	@Test
+	public void testSpeed() {
+		Random random = new Random(1);
+		DummyEmptyAStarMap blockingMap = new DummyEmptyAStarMap(SIZE, SIZE);
+		FittingPositionsMap map = new FittingPositionsMap(SIZE);
+
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				if (RIVER_X <= x && x < RIVER_X + RIVER_WIDTH) {
+					blockingMap.setBlocked(x, y, true);
+				} else if (random.nextFloat() < (x < RIVER_X ? TREE_DENSITY_WEST : TREE_DENSITY_EAST)) {
+					map.setFitting(x, y);
+				}
+			}
+		}
+
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(map, new BucketQueueAStar(blockingMap, SIZE, SIZE), blockingMap, SIZE, SIZE);
+		RingProbingSearch reference = new RingProbingSearch(map, new BucketQueueAStar(blockingMap, SIZE, SIZE), SIZE);
+
+		for (int i = 0; i < NUMBER_OF_SEARCHES; i++) {
+			short x = (short) (RIVER_X - 2 - random.nextInt(10));
+			short y = (short) (SEARCH_RADIUS + random.nextInt(SIZE - 2 * SEARCH_RADIUS));
+			IPathCalculatable lumberjack = DijkstraAlgorithmTest.getRequester(x, y);
+
+			Path path = dijkstra.find(lumberjack, x, y, (short) 0, SEARCH_RADIUS, ESearchType.CUTTABLE_TREE);
+			Path expected = reference.find(lumberjack, x, y, (short) 0, SEARCH_RADIUS, ESearchType.CUTTABLE_TREE);
+
+			assertNotNull(expected);
+			assertNotNull(path);
+			assertTrue(path.getTargetX() < RIVER_X);
+			assertEquals(expected.getTargetX(), path.getTargetX());
+			assertEquals(expected.getTargetY(), path.getTargetY());
+			assertEquals(expected.getLength(), path.getLength());
+		}
+	}
+
+	/**
+	 * The search as it has been implemented before: probe the rings around the center and search a path to every fitting position.
+	 */
+	private static class RingProbingSearch {
+		private static final byte[] directionIncreaseX = { -1, 0, 1, 1, 0, -1 };
+		private static final byte[] directionIncreaseY = { 0, 1, 1, 0, -1, -1 };
+
+		private final IDijkstraPathMap map;
+		private final AbstractAStar aStar;
+		private final short size;
+
+		RingProbingSearch(IDijkstraPathMap map, AbstractAStar aStar, short size) {
+			this.map = map;
+			this.aStar = aStar;
+			this.size = size;
+		}
+
+		Path find(IPathCalculatable requester, short cX, short cY, short minRadius, short maxRadius, ESearchType type) {
+			for (short radius = minRadius; radius < maxRadius; radius++) {
+				short x = cX, y = (short) (cY - radius);
+				for (byte direction = 0; direction < 6; direction++) {
+					byte dx = directionIncreaseX[direction];
+					byte dy = directionIncreaseY[direction];
+					for (short length = 0; length < radius; length++) {
+						x += dx;
+						y += dy;
+						if (0 <= x && x < size && 0 <= y && y < size && map.fitsSearchType(x, y, type, requester)) {
+							ShortPoint2D pos = requester.getPos();
+							Path path = aStar.findPath(requester, pos.x, pos.y, x, y);
+							if (path != null) {
+								return path;
+							}
+						}
+					}
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.dijkstra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm.DijkstraContinuableRequest;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Tests the search of the {@link DijkstraAlgorithm}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class DijkstraAlgorithmTest {
+	private static final short WIDTH = 100;
+	private static final short HEIGHT = 100;
+
+	private final DummyEmptyAStarMap blockingMap = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final FittingPositionsMap map = new FittingPositionsMap(WIDTH);
+	private final DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(map, new BucketQueueAStar(blockingMap, WIDTH, HEIGHT), blockingMap, WIDTH,
+			HEIGHT);
+
+	@Test
+	public void testFindsNearestPosition() {
+		map.setFitting(60, 50);
+		map.setFitting(45, 50);
+		map.setFitting(53, 53);
+
+		Path path = dijkstra.find(getRequester(50, 50), (short) 50, (short) 50, (short) 0, (short) 20, ESearchType.CUTTABLE_TREE);
+
+		assertPath(50, 50, 53, 53, 3, path);
+	}
+
+	@Test
+	public void testFindsPositionNearestToCenter() {
+		map.setFitting(58, 50);
+		map.setFitting(52, 50);
+
+		Path path = dijkstra.find(getRequester(60, 50), (short) 50, (short) 50, (short) 0, (short) 20, ESearchType.CUTTABLE_TREE);
+
+		assertPath(60, 50, 52, 50, 8, path);
+	}
+
+	@Test
+	public void testIgnoresRequesterPosition() {
+		map.setFitting(50, 50);
+		map.setFitting(55, 50);
+
+		Path path = dijkstra.find(getRequester(50, 50), (short) 50, (short) 50, (short) 0, (short) 20, ESearchType.CUTTABLE_TREE);
+
+		assertPath(50, 50, 55, 50, 5, path);
+	}
+
+	@Test
+	public void testSkipsUnreachablePositions() {
+		for (int y = 0; y < HEIGHT; y++) {
+			blockingMap.setBlocked(52, y, true);
+		}
+		map.setFitting(54, 50);
+		map.setFitting(40, 50);
+
+		Path path = dijkstra.find(getRequester(50, 50), (short) 50, (short) 50, (short) 0, (short) 20, ESearchType.CUTTABLE_TREE);
+
+		assertPath(50, 50, 40, 50, 10, path);
+	}
+
+	@Test
+	public void testSkipsUnreachablePositionsOfEachRequester() {
+		for (int y = 0; y < HEIGHT; y++) {
+			blockingMap.setBlocked(52, y, true);
+		}
+		map.setFitting(54, 50);
+		map.setFitting(48, 50);
+
+		assertPath(50, 50, 48, 50, 2, dijkstra.find(getRequester(50, 50), (short) 53, (short) 50, (short) 0, (short) 20,
+				ESearchType.CUTTABLE_TREE));
+		assertPath(56, 50, 54, 50, 2, dijkstra.find(getRequester(56, 50), (short) 49, (short) 50, (short) 0, (short) 20,
+				ESearchType.CUTTABLE_TREE));
+	}
+
+	@Test
+	public void testWalksAroundObstacles() {
+		for (int y = 40; y < 60; y++) {
+			blockingMap.setBlocked(52, y, true);
+		}
+		map.setFitting(54, 50);
+
+		Path path = dijkstra.find(getRequester(50, 50), (short) 50, (short) 50, (short) 0, (short) 20, ESearchType.CUTTABLE_TREE);
+
+		assertNotNull(path);
+		assertEquals(54, path.getTargetX());
+		assertEquals(50, path.getTargetY());
+		for (int i = 0; i < path.getLength(); i++) {
+			assertTrue(!blockingMap.isBlocked(null, path.getXAt(i), path.getYAt(i)));
+		}
+	}
+
+	@Test
+	public void testRespectsSearchArea() {
+		map.setFitting(52, 50);
+		map.setFitting(70, 50);
+
+		assertNull(dijkstra.find(getRequester(50, 50), (short) 70, (short) 70, (short) 0, (short) 10, ESearchType.CUTTABLE_TREE));
+		assertPath(50, 50, 70, 50, 20, dijkstra.find(getRequester(50, 50), (short) 70, (short) 50, (short) 0, (short) 10,
+				ESearchType.CUTTABLE_TREE));
+		assertPath(50, 50, 70, 50, 20, dijkstra.find(getRequester(50, 50), (short) 50, (short) 50, (short) 5, (short) 30,
+				ESearchType.CUTTABLE_TREE));
+	}
+
+	@Test
+	public void testLeavesBlockedStartPosition() {
+		for (int x = 48; x <= 52; x++) {
+			for (int y = 48; y <= 52; y++) {
+				blockingMap.setBlocked(x, y, true);
+			}
+		}
+		map.setFitting(51, 51);
+		map.setFitting(55, 50);
+
+		Path path = dijkstra.find(getRequester(50, 50), (short) 50, (short) 50, (short) 0, (short) 20, ESearchType.CUTTABLE_TREE);
+
+		assertPath(50, 50, 55, 50, 5, path);
+	}
+
+	@Test
+	public void testContinuableRequest() {
+		map.setFitting(60, 60);
+		map.setFitting(35, 50);
+
+		DijkstraContinuableRequest request = new DijkstraContinuableRequest(getRequester(50, 50), (short) 50, (short) 50, (short) 1, (short) 20);
+		request.setSearchTypes(EnumSet.of(ESearchType.SOLDIER_BOWMAN));
+
+		Path path = null;
+		for (int i = 0; i < 4 && path == null; i++) {
+			path = dijkstra.find(request);
+		}
+		assertPath(50, 50, 60, 60, 10, path);
+	}
+
+	private static void assertPath(int sx, int sy, int tx, int ty, int length, Path path) {
+		assertNotNull(path);
+		assertEquals(length, path.getLength());
+		assertEquals(tx, path.getTargetX());
+		assertEquals(ty, path.getTargetY());
+
+		int x = sx;
+		int y = sy;
+		for (int i = 0; i < path.getLength(); i++) {
+			assertEquals(1, ShortPoint2D.getOnGridDist(path.getXAt(i) - x, path.getYAt(i) - y));
+			x = path.getXAt(i);
+			y = path.getYAt(i);
+		}
+	}
+
+	static IPathCalculatable getRequester(final int x, final int y) {
+		return new IPathCalculatable() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+
+	static class FittingPositionsMap implements IDijkstraPathMap {
+		private final short width;
+		private final BitSet fitting = new BitSet();
+
+		FittingPositionsMap(short width) {
+			this.width = width;
+		}
+
+		void setFitting(int x, int y) {
+			fitting.set(x + y * width);
+		}
+
+		@Override
+		public boolean fitsSearchType(int x, int y, ESearchType type, IPathCalculatable requester) {
+			return fitting.get(x + y * width);
+		}
+
+		@Override
+		public boolean fitsSearchType(int x, int y, Set<ESearchType> types, IPathCalculatable requester) {
+			return fitting.get(x + y * width);
+		}
+
+		@Override
+		public void setDijkstraSearched(int x, int y) {
+		}
+	}
+}
@@ -34,7 +34,6 @@ import jsettlers.logic.map.loading.MapLoader;
 import jsettlers.logic.player.PlayerSetting;
 import jsettlers.main.JSettlersGame;
 import jsettlers.main.replay.ReplayUtils;
-import jsettlers.network.client.OfflineNetworkConnector;
 import jsettlers.testutils.TestUtils;
 import jsettlers.testutils.map.MapUtils;
 
@@ -145,7 +144,7 @@ public class AiDifficultiesIT {
 		}
 
 		MapLoader mapCreator = MapUtils.getSpezialSumpf();
-		JSettlersGame game = new JSettlersGame(mapCreator, 2L, new OfflineNetworkConnector(), playerId, playerSettings);
+		JSettlersGame game = new JSettlersGame(mapCreator, 2L, ReplayUtils.createPausingOfflineNetworkConnector(), playerId, playerSettings);
 		return (JSettlersGame.GameRunner) game.start();
 	}
 
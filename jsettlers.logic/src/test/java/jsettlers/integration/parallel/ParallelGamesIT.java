@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.parallel;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import jsettlers.common.ai.EPlayerType;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.menu.IStartedGame;
+import jsettlers.common.player.ECivilisation;
+import jsettlers.logic.GameContext;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Runs several AI vs AI games one after another and then in parallel, each one in its own {@link GameContext}. Prints the throughput in games
+ * per hour for both variants and checks that the parallel games end in the same state as the sequential ones.
+ * 
+ * @author Andreas Eberle
+ */
+public class ParallelGamesIT {
+	private static final int MINUTES = 1000 * 60;
+	private static final int GAME_TIME = 30 * MINUTES;
+	private static final int NUMBER_OF_GAMES = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	static {
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void compareSequentialAndParallelThroughput() throws Exception {
+		runGame(0); // warm up
+
+		long start = System.currentTimeMillis();
+		int[][] sequentialResults = new int[NUMBER_OF_GAMES][];
+		for (int i = 0; i < NUMBER_OF_GAMES; i++) {
+			sequentialResults[i] = runGame(i);
+		}
+		long sequentialTime = System.currentTimeMillis() - start;
+
+		start = System.currentTimeMillis();
+		int[][] parallelResults = runGamesInParallel();
+		long parallelTime = System.currentTimeMillis() - start;
+
+		System.out.println(NUMBER_OF_GAMES + " games of " + (GAME_TIME / MINUTES) + " minutes game time on "
+				+ Runtime.getRuntime().availableProcessors() + " processors:");
+		System.out.println("sequential: " + sequentialTime + " ms, " + getGamesPerHour(sequentialTime) + " games per hour");
+		System.out.println("parallel:   " + parallelTime + " ms, " + getGamesPerHour(parallelTime) + " games per hour");
+
+		for (int i = 0; i < NUMBER_OF_GAMES; i++) {
+			System.out.println("game " + i + ": " + Arrays.toString(sequentialResults[i]) + " / " + Arrays.toString(parallelResults[i]));
+			assertArrayEquals(sequentialResults[i], parallelResults[i]);
+		}
+	}
+
+	private int[][] runGamesInParallel() throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_GAMES);
+		try {
+			List<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+			for (int i = 0; i < NUMBER_OF_GAMES; i++) {
+				final int gameIndex = i;
+				futures.add(executor.submit(new Callable<int[]>() {
+					@Override
+					public int[] call() throws MapLoadException {
+						return runGame(gameIndex);
+					}
+				}));
+			}
+
+			int[][] results = new int[NUMBER_OF_GAMES][];
+			for (int i = 0; i < NUMBER_OF_GAMES; i++) {
+				results[i] = futures.get(i).get();
+			}
+			return results;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Runs an AI vs AI game in a new {@link GameContext}.
+	 * 
+	 * @param gameIndex
+	 *            Index of the game, used as random seed.
+	 * @return The game time, the number of movables and the number of buildings at the end of the game.
+	 * @throws MapLoadException
+	 */
+	private static int[] runGame(int gameIndex) throws MapLoadException {
+		PlayerSetting[] playerSettings = new PlayerSetting[12];
+		Arrays.fill(playerSettings, new PlayerSetting());
+		playerSettings[2] = new PlayerSetting(EPlayerType.AI_VERY_HARD, ECivilisation.ROMAN, (byte) 0);
+		playerSettings[8] = new PlayerSetting(EPlayerType.AI_VERY_HARD, ECivilisation.ROMAN, (byte) 1);
+
+		GameContext gameContext = new GameContext();
+		JSettlersGame game = new JSettlersGame(MapUtils.getSpezialSumpf(), gameIndex, (byte) 2, playerSettings, gameContext);
+		IStartedGame startedGame = ReplayUtils.waitForGameStartup(game.start());
+
+		gameContext.getClock().setMaximumSpeed(true);
+		gameContext.getClock().fastForwardTo(GAME_TIME);
+
+		int[] result = { gameContext.getClock().getTime(), gameContext.getAllMovables().size(), gameContext.getAllBuildings().size() };
+		ReplayUtils.awaitShutdown(startedGame);
+		return result;
+	}
+
+	private static long getGamesPerHour(long timeMs) {
+		return Math.round(NUMBER_OF_GAMES * 3600000.0 / timeMs);
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.main.replay.ReplaySeekIndex;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Checks that continuing a replay from a snapshot of its seek index leads to the same game state as the original play.
+ * 
+ * @author Andreas Eberle
+ *
+ */
+public class ReplaySeekIT {
+	private static final int SNAPSHOT_INTERVAL_MINUTES = 10;
+
+	@BeforeClass
+	public static void loadSettings() {
+		CommonConstants.ENABLE_CONSOLE_LOGGING = true;
+		CommonConstants.CONTROL_ALL = true;
+		CommonConstants.USE_SAVEGAME_COMPRESSION = false;
+		CommonConstants.ALL_AI = true;
+		CommonConstants.REPLAY_SNAPSHOT_INTERVAL_MINUTES = SNAPSHOT_INTERVAL_MINUTES;
+		Constants.FOG_OF_WAR_DEFAULT_ENABLED = false;
+
+		TestUtils.setupTempResourceManager();
+	}
+
+	@AfterClass
+	public static void resetSettings() {
+		CommonConstants.REPLAY_SNAPSHOT_INTERVAL_MINUTES = 0;
+	}
+
+	@Test
+	public void testIfSeekingIsEqualToOriginalPlay() throws IOException, MapLoadException, ClassNotFoundException {
+		final int targetTimeMinutes = 45;
+		MapLoader map = MapUtils.getMountainlake();
+
+		long start = System.currentTimeMillis();
+		ReplayUtils.PlayMapResult directSavegameReplay = ReplayUtils.playMapToTargetTimes(map, targetTimeMinutes);
+		long directPlayTime = System.currentTimeMillis() - start;
+		assertEquals(1, directSavegameReplay.getSavegames().length);
+
+		ReplaySeekIndex seekIndex = directSavegameReplay.readSeekIndex();
+		assertTrue(seekIndex.getSnapshots().size() >= targetTimeMinutes / SNAPSHOT_INTERVAL_MINUTES);
+
+		start = System.currentTimeMillis();
+		MapLoader seekedSavegame = ReplayUtils.seekAndCreateSavegame(directSavegameReplay, seekIndex, targetTimeMinutes);
+		long seekTime = System.currentTimeMillis() - start;
+
+		System.out.println("Playing to minute " + targetTimeMinutes + " took " + directPlayTime + "ms, seeking took " + seekTime + "ms");
+
+		MapUtils.compareMapFiles(directSavegameReplay.getSavegames()[0], seekedSavegame);
+	}
+}
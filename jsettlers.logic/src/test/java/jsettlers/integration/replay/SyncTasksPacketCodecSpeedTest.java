@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import jsettlers.main.ReplayStartInformation;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.infrastructure.channel.packet.PacketFrame;
+
+/**
+ * Compares the replay format of the {@link SyncTasksPacket}s, which was also used on the network before, with the compact network format. The
+ * lockstep streams are taken from the committed replay and the replays recorded by the {@link ReplayValidationIT} in the logs folder.
+ * <p />
+ * Replays only contain the locksteps with tasks. The empty locksteps in between are sent over the network, too, and are therefore added again.
+ * <p />
+ * Both formats must restore the locksteps. The network format must be smaller than the replay format, and coalescing the empty locksteps
+ * must reduce the number of packets and the bytes sent including their frame headers.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class SyncTasksPacketCodecSpeedTest {
+	private static final String COMMITTED_REPLAY = "/jsettlers/integration/replay/fullproduction/replay.log";
+	private static final File RECORDED_REPLAYS_FOLDER = new File("logs");
+	private static final String RECORDED_REPLAY_SUFFIX = "_replay.log";
+
+	@Test
+	public void testCommittedReplay() throws IOException {
+		InputStream in = SyncTasksPacketCodecSpeedTest.class.getResourceAsStream(COMMITTED_REPLAY);
+		assertNotNull(in);
+
+		testCodec(readLockstepStream(in));
+	}
+
+	@Test
+	public void testRecordedReplays() throws IOException {
+		List<File> replays = new ArrayList<File>();
+		File[] folders = RECORDED_REPLAYS_FOLDER.listFiles();
+		if (folders != null) {
+			for (File folder : folders) {
+				File[] files = folder.listFiles();
+				for (int i = 0; files != null && i < files.length; i++) {
+					if (files[i].getName().endsWith(RECORDED_REPLAY_SUFFIX)) {
+						replays.add(files[i]);
+					}
+				}
+			}
+		}
+
+		assumeFalse("No recorded replays found. Run the ReplayValidationIT first.", replays.isEmpty());
+
+		Collections.sort(replays);
+		List<SyncTasksPacket> allLocksteps = new ArrayList<SyncTasksPacket>();
+		int readReplays = 0;
+		for (File replay : replays) {
+			List<SyncTasksPacket> locksteps;
+			try {
+				locksteps = readLockstepStream(new FileInputStream(replay));
+			} catch (IOException e) { // e.g. a replay of an older version
+				continue;
+			}
+			for (SyncTasksPacket lockstep : locksteps) { // append the replays to a single lockstep stream
+				allLocksteps.add(new SyncTasksPacket(allLocksteps.size(), lockstep.getTasks()));
+			}
+			readReplays++;
+		}
+
+		assumeFalse("No readable recorded replays found.", readReplays == 0);
+		testCodec(allLocksteps);
+	}
+
+	private static void testCodec(List<SyncTasksPacket> locksteps) throws IOException {
+		verifyReplayFormat(locksteps);
+		verifyNetworkFormat(locksteps);
+		List<SyncTasksPacket> coalesced = coalesceEmptyLocksteps(locksteps);
+		verifyCoalescedNetworkFormat(locksteps, coalesced);
+
+		long replayBytes = serializeForReplay(locksteps).length;
+		long networkBytes = serialize(locksteps).length;
+		long coalescedBytes = serialize(coalesced).length;
+		long networkFramedBytes = networkBytes + (long) locksteps.size() * PacketFrame.HEADER_LENGTH;
+		long coalescedFramedBytes = coalescedBytes + (long) coalesced.size() * PacketFrame.HEADER_LENGTH;
+
+		assertTrue(networkBytes < replayBytes);
+		assertTrue(coalescedBytes <= networkBytes);
+		assertTrue(coalesced.size() < locksteps.size());
+		assertTrue(coalescedFramedBytes < networkFramedBytes);
+	}
+
+	private static List<SyncTasksPacket> readLockstepStream(InputStream in) throws IOException {
+		List<SyncTasksPacket> locksteps = new ArrayList<SyncTasksPacket>();
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(in))) {
+			new ReplayStartInformation().deserialize(dis);
+
+			while (true) {
+				SyncTasksPacket packet = new SyncTasksPacket();
+				try {
+					packet.deserializeFromReplay(dis);
+				} catch (EOFException e) {
+					break; // the end of the replay, the last packet might be incomplete if the game has been killed.
+				}
+
+				while (locksteps.size() < packet.getLockstepNumber()) {
+					locksteps.add(new SyncTasksPacket(locksteps.size(), Collections.<TaskPacket> emptyList()));
+				}
+				locksteps.add(new SyncTasksPacket(locksteps.size(), packet.getTasks()));
+			}
+		}
+		return locksteps;
+	}
+
+	/**
+	 * Coalesces every run of empty locksteps into the packet before it. This is the best case that is reached if the clients are waiting for every
+	 * run.
+	 */
+	private static List<SyncTasksPacket> coalesceEmptyLocksteps(List<SyncTasksPacket> locksteps) {
+		List<SyncTasksPacket> coalesced = new ArrayList<SyncTasksPacket>();
+		for (int i = 0; i < locksteps.size();) {
+			SyncTasksPacket lockstep = locksteps.get(i);
+			int followingEmptyLocksteps = 0;
+			while (i + followingEmptyLocksteps + 1 < locksteps.size() && locksteps.get(i + followingEmptyLocksteps + 1).getTasks().isEmpty()) {
+				followingEmptyLocksteps++;
+			}
+			coalesced.add(new SyncTasksPacket(lockstep.getLockstepNumber(), followingEmptyLocksteps, lockstep.getTasks()));
+			i += 1 + followingEmptyLocksteps;
+		}
+		return coalesced;
+	}
+
+	private static void verifyReplayFormat(List<SyncTasksPacket> locksteps) throws IOException {
+		assertEquals(locksteps, deserializeFromReplay(serializeForReplay(locksteps), locksteps.size()));
+	}
+
+	private static void verifyNetworkFormat(List<SyncTasksPacket> locksteps) throws IOException {
+		assertEquals(locksteps, deserialize(serialize(locksteps), locksteps.size()));
+	}
+
+	private static void verifyCoalescedNetworkFormat(List<SyncTasksPacket> locksteps, List<SyncTasksPacket> coalesced) throws IOException {
+		List<SyncTasksPacket> expanded = new ArrayList<SyncTasksPacket>();
+		for (SyncTasksPacket packet : deserialize(serialize(coalesced), coalesced.size())) {
+			expanded.add(new SyncTasksPacket(packet.getLockstepNumber(), packet.getTasks()));
+			for (int i = 1; i <= packet.getFollowingEmptyLocksteps(); i++) {
+				expanded.add(new SyncTasksPacket(packet.getLockstepNumber() + i, Collections.<TaskPacket> emptyList()));
+			}
+		}
+		assertEquals(locksteps, expanded);
+	}
+
+	private static byte[] serialize(List<SyncTasksPacket> packets) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(out);
+		for (SyncTasksPacket packet : packets) {
+			packet.serialize(dos);
+		}
+		dos.flush();
+		return out.toByteArray();
+	}
+
+	private static byte[] serializeForReplay(List<SyncTasksPacket> packets) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(out);
+		for (SyncTasksPacket packet : packets) {
+			packet.serializeForReplay(dos);
+		}
+		dos.flush();
+		return out.toByteArray();
+	}
+
+	private static List<SyncTasksPacket> deserialize(byte[] data, int numberOfPackets) throws IOException {
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data));
+		List<SyncTasksPacket> packets = new ArrayList<SyncTasksPacket>(numberOfPackets);
+		for (int i = 0; i < numberOfPackets; i++) {
+			SyncTasksPacket packet = new SyncTasksPacket();
+			packet.deserialize(dis);
+			packets.add(packet);
+		}
+		assertEquals(-1, dis.read());
+		return packets;
+	}
+
+	private static List<SyncTasksPacket> deserializeFromReplay(byte[] data, int numberOfPackets) throws IOException {
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data));
+		List<SyncTasksPacket> packets = new ArrayList<SyncTasksPacket>(numberOfPackets);
+		for (int i = 0; i < numberOfPackets; i++) {
+			SyncTasksPacket packet = new SyncTasksPacket();
+			packet.deserializeFromReplay(dis);
+			packets.add(packet);
+		}
+		assertEquals(-1, dis.read());
+		return packets;
+	}
+}
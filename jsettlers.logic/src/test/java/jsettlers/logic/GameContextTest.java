@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Test;
+
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.timer.IScheduledTimerable;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.timer.TimerSlotLink;
+
+/**
+ * Test for the class {@link GameContext}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class GameContextTest {
+
+	@After
+	public void clearContexts() {
+		GameContext.getDefault().clear();
+	}
+
+	@Test
+	public void testUnboundThreadUsesDefaultContext() {
+		assertSame(GameContext.getDefault(), GameContext.current());
+	}
+
+	@Test
+	public void testBindAndRestore() {
+		GameContext outer = new GameContext();
+		GameContext inner = new GameContext();
+
+		GameContext previousOuter = outer.bind();
+		assertSame(outer, GameContext.current());
+
+		GameContext previousInner = inner.bind();
+		assertSame(inner, GameContext.current());
+
+		GameContext.restore(previousInner);
+		assertSame(outer, GameContext.current());
+
+		GameContext.restore(previousOuter);
+		assertSame(GameContext.getDefault(), GameContext.current());
+	}
+
+	@Test
+	public void testChildThreadsInheritTheContext() throws InterruptedException {
+		final GameContext context = new GameContext();
+		final GameContext[] seenByChild = new GameContext[1];
+
+		GameContext previous = context.bind();
+		try {
+			Thread child = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					seenByChild[0] = GameContext.current();
+				}
+			});
+			child.start();
+			child.join();
+		} finally {
+			GameContext.restore(previous);
+		}
+
+		assertSame(context, seenByChild[0]);
+	}
+
+	@Test
+	public void testRandomsAreSeparatedPerContext() {
+		GameContext first = new GameContext();
+		GameContext second = new GameContext();
+		first.init(null, 42L);
+		second.init(null, 42L);
+
+		int firstValue = nextRandomInt(first);
+		assertEquals(firstValue, nextRandomInt(second)); // same seed, same sequence independent of the other context
+		assertEquals(nextRandomInt(first), nextRandomInt(second));
+		assertNotSame(first.getRandom(), second.getRandom());
+	}
+
+	@Test
+	public void testRescheduleTimersAreSeparatedPerContext() {
+		GameContext context = new GameContext();
+
+		RescheduleTimer.add(new NoOpTimerable(), 100);
+
+		GameContext previous = context.bind();
+		try {
+			assertEquals(0, RescheduleTimer.getScheduledCount());
+			RescheduleTimer.add(new NoOpTimerable(), 100);
+			RescheduleTimer.add(new NoOpTimerable(), 200);
+			assertEquals(2, RescheduleTimer.getScheduledCount());
+		} finally {
+			GameContext.restore(previous);
+		}
+
+		assertEquals(1, RescheduleTimer.getScheduledCount());
+		context.clear();
+		assertEquals(1, RescheduleTimer.getScheduledCount());
+	}
+
+	private static int nextRandomInt(GameContext context) {
+		GameContext previous = context.bind();
+		try {
+			return MatchConstants.random().nextInt(1000000);
+		} finally {
+			GameContext.restore(previous);
+		}
+	}
+
+	private static class NoOpTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final TimerSlotLink timerSlotLink = new TimerSlotLink(this);
+
+		@Override
+		public int timerEvent() {
+			return -1;
+		}
+
+		@Override
+		public void kill() {
+		}
+
+		@Override
+		public TimerSlotLink getTimerSlotLink() {
+			return timerSlotLink;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import jsettlers.common.map.MapLoadException;
+import jsettlers.input.PlayerState;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.loading.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Saves and loads the bundled maps with plain java serialization of the game state and with the chunked savegame format written by the
+ * {@link GameSerializer}. The compressed chunked savegame must be smaller than the other ones and a game loaded from a chunked savegame must
+ * be saved to the same savegame again.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class GameSerializerSpeedTest {
+	private static final long STACK_SIZE = 1024 * 1024;
+
+	@After
+	public void clearState() {
+		JSettlersGame.clearState();
+	}
+
+	@Test
+	public void testMountainlake() throws Throwable {
+		testSpeed(MapUtils.getMountainlake());
+	}
+
+	@Test
+	public void testSpezialSumpf() throws Throwable {
+		testSpeed(MapUtils.getSpezialSumpf());
+	}
+
+	private void testSpeed(MapLoader map) throws Throwable {
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		MainGridWithUiSettings loaded = map.loadMainGrid(PlayerSetting.createDefaultSettings((byte) 0, (byte) map.getMaxPlayers()));
+		loaded.getMainGrid().stopThreads();
+
+		// loading replaces the state of the RescheduleTimer, therefore always the last loaded game is saved.
+		final MainGridWithUiSettings[] current = { loaded };
+
+		runWithStack(new ThrowingRunnable() {
+			@Override
+			public void run() throws Exception {
+				byte[] serialized = saveSerialized(current[0]);
+				current[0] = loadSerialized(serialized);
+				current[0].getMainGrid().stopThreads();
+
+				byte[] compressed = saveChunked(current[0], true);
+				current[0] = loadChunked(compressed);
+				current[0].getMainGrid().stopThreads();
+
+				byte[] uncompressed = saveChunked(current[0], false);
+				current[0] = loadChunked(uncompressed);
+				current[0].getMainGrid().stopThreads();
+				assertArrayEquals(uncompressed, saveChunked(current[0], false));
+
+				assertTrue(compressed.length < serialized.length);
+				assertTrue(compressed.length < uncompressed.length);
+			}
+		});
+	}
+
+	private static byte[] saveSerialized(MainGridWithUiSettings game) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		MatchConstants.serialize(oos);
+		oos.writeObject(game.getPlayerStates());
+		oos.writeObject(game.getMainGrid());
+		RescheduleTimer.saveTo(oos);
+		oos.close();
+		return out.toByteArray();
+	}
+
+	private static MainGridWithUiSettings loadSerialized(byte[] serialized) throws Exception {
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized));
+		MatchConstants.deserialize(ois);
+		PlayerState[] playerStates = (PlayerState[]) ois.readObject();
+		MainGrid grid = (MainGrid) ois.readObject();
+		RescheduleTimer.loadFrom(ois);
+		return new MainGridWithUiSettings(grid, playerStates);
+	}
+
+	private static byte[] saveChunked(MainGridWithUiSettings game, boolean compress) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new GameSerializer(compress).save(game.getPlayerStates(), game.getMainGrid(), out);
+		return out.toByteArray();
+	}
+
+	private static MainGridWithUiSettings loadChunked(byte[] chunked) throws MapLoadException {
+		MainGridWithUiSettings game = new GameSerializer().load(new ByteArrayInputStream(chunked));
+		assertNotNull(game.getMainGrid());
+		return game;
+	}
+	private static void runWithStack(final ThrowingRunnable runnable) throws Throwable {
+		final Throwable[] exception = new Throwable[1];
+		Thread thread = new Thread(null, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					runnable.run();
+				} catch (Throwable t) {
+					exception[0] = t;
+				}
+			}
+		}, "SpeedTestThread", STACK_SIZE);
+		thread.start();
+		thread.join();
+
+		if (exception[0] != null) {
+			throw exception[0];
+		}
+	}
+
+	private interface ThrowingRunnable {
+		void run() throws Exception;
+	}
+}
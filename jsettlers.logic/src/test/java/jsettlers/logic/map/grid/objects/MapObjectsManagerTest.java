@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.mapobject.EMapObjectType;
+import jsettlers.common.material.EMaterialType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.objects.arrow.ArrowObject;
+import jsettlers.logic.timer.RescheduleTimer;
+
+/**
+ * Tests the stacks state hash that is kept up to date by the {@link MapObjectsManager}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class MapObjectsManagerTest {
+	private static final short WIDTH = 20;
+	private static final short HEIGHT = 20;
+	private static final EMaterialType[] MATERIALS = { EMaterialType.PLANK, EMaterialType.STONE, EMaterialType.TRUNK };
+
+	private TestGrid grid;
+	private MapObjectsManager manager;
+
+	@Before
+	public void setUp() {
+		RescheduleTimer.stopAndClear();
+		grid = new TestGrid();
+		manager = new MapObjectsManager(grid);
+	}
+
+	@After
+	public void tearDown() {
+		RescheduleTimer.stopAndClear();
+	}
+
+	@Test
+	public void testEmptyGrid() {
+		assertEquals(0, manager.getStacksStateHash());
+		assertEquals(0, manager.computeStacksStateHash());
+	}
+
+	@Test
+	public void testPushAndPop() {
+		manager.pushMaterial((short) 3, (short) 4, EMaterialType.PLANK);
+		manager.pushMaterial((short) 3, (short) 4, EMaterialType.PLANK);
+		manager.pushMaterial((short) 3, (short) 4, EMaterialType.STONE);
+		assertNotEquals(0, manager.getStacksStateHash());
+		assertEquals(manager.computeStacksStateHash(), manager.getStacksStateHash());
+
+		manager.popMaterial((short) 3, (short) 4, EMaterialType.PLANK);
+		manager.popMaterial((short) 3, (short) 4, EMaterialType.PLANK);
+		manager.popMaterial((short) 3, (short) 4, EMaterialType.STONE);
+		assertEquals(0, manager.getStacksStateHash());
+		assertEquals(0, manager.computeStacksStateHash());
+	}
+
+	@Test
+	public void testRemovingStackObjectDirectly() {
+		manager.pushMaterial((short) 5, (short) 5, EMaterialType.PLANK);
+		manager.pushMaterial((short) 5, (short) 5, EMaterialType.PLANK);
+		manager.pushMaterial((short) 6, (short) 5, EMaterialType.STONE);
+
+		manager.removeMapObjectType(5, 5, EMapObjectType.STACK_OBJECT);
+		assertEquals(manager.computeStacksStateHash(), manager.getStacksStateHash());
+
+		manager.removeMapObject(6, 5, grid.getMapObject(6, 5, EMapObjectType.STACK_OBJECT));
+		assertEquals(0, manager.getStacksStateHash());
+	}
+
+	@Test
+	public void testMixedOperations() {
+		Random random = new Random(42);
+		for (int i = 0; i < 5000; i++) {
+			short x = (short) random.nextInt(WIDTH);
+			short y = (short) random.nextInt(HEIGHT);
+			EMaterialType material = MATERIALS[random.nextInt(MATERIALS.length)];
+
+			switch (random.nextInt(6)) {
+			case 0:
+			case 1:
+				manager.pushMaterial(x, y, material);
+				break;
+			case 2:
+				manager.pushMaterialForced(x, y, material);
+				break;
+			case 3:
+				manager.popMaterial(x, y, material);
+				break;
+			case 4:
+				manager.stealMaterialAt(x, y);
+				break;
+			case 5:
+				if (random.nextInt(10) == 0) {
+					manager.removeMapObjectType(x, y, EMapObjectType.STACK_OBJECT);
+				}
+				break;
+			}
+
+			assertEquals(manager.computeStacksStateHash(), manager.getStacksStateHash());
+		}
+		assertNotEquals(0, manager.getStacksStateHash());
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		manager.pushMaterial((short) 1, (short) 2, EMaterialType.PLANK);
+		manager.pushMaterial((short) 1, (short) 2, EMaterialType.STONE);
+		manager.pushMaterial((short) 7, (short) 9, EMaterialType.TRUNK);
+		long expected = manager.getStacksStateHash();
+
+		ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(byteOut);
+		out.writeObject(manager);
+		out.close();
+		MapObjectsManager loaded = (MapObjectsManager) new ObjectInputStream(new ByteArrayInputStream(byteOut.toByteArray())).readObject();
+
+		assertEquals(expected, loaded.getStacksStateHash());
+		loaded.popMaterial((short) 7, (short) 9, EMaterialType.TRUNK);
+		assertEquals(loaded.computeStacksStateHash(), loaded.getStacksStateHash());
+	}
+
+	private static class TestGrid implements IMapObjectsManagerGrid {
+		private static final long serialVersionUID = 1L;
+
+		private final ObjectsGrid objectsGrid = new ObjectsGrid(WIDTH, HEIGHT);
+		private final boolean[] blocked = new boolean[WIDTH * HEIGHT];
+		private final boolean[] protectedFlags = new boolean[WIDTH * HEIGHT];
+
+		@Override
+		public AbstractHexMapObject getMapObject(int x, int y, EMapObjectType mapObjectType) {
+			return objectsGrid.getMapObjectAt(x, y, mapObjectType);
+		}
+
+		@Override
+		public void setLandscape(int x, int y, ELandscapeType landscapeType) {
+		}
+
+		@Override
+		public void addMapObject(int x, int y, AbstractHexMapObject mapObject) {
+			objectsGrid.addMapObjectAt(x, y, mapObject);
+		}
+
+		@Override
+		public boolean isBlocked(int x, int y) {
+			return blocked[x + y * WIDTH];
+		}
+
+		@Override
+		public void setBlocked(int x, int y, boolean blocked) {
+			this.blocked[x + y * WIDTH] = blocked;
+		}
+
+		@Override
+		public boolean isProtected(int x, int y) {
+			return protectedFlags[x + y * WIDTH];
+		}
+
+		@Override
+		public void setProtected(int x, int y, boolean protect) {
+			protectedFlags[x + y * WIDTH] = protect;
+		}
+
+		@Override
+		public boolean removeMapObject(int x, int y, AbstractHexMapObject mapObject) {
+			return objectsGrid.removeMapObject(x, y, mapObject);
+		}
+
+		@Override
+		public short getWidth() {
+			return WIDTH;
+		}
+
+		@Override
+		public short getHeight() {
+			return HEIGHT;
+		}
+
+		@Override
+		public boolean isInBounds(int x, int y) {
+			return x >= 0 && y >= 0 && x < WIDTH && y < HEIGHT;
+		}
+
+		@Override
+		public EResourceType getRessourceTypeAt(int x, int y) {
+			return EResourceType.NOTHING;
+		}
+
+		@Override
+		public byte getRessourceAmountAt(int x, int y) {
+			return 0;
+		}
+
+		@Override
+		public boolean isBuildingAreaAt(short x, short y) {
+			return false;
+		}
+
+		@Override
+		public boolean hasMapObjectType(int x, int y, EMapObjectType... mapObjectTypes) {
+			return objectsGrid.hasMapObjectType(x, y, mapObjectTypes);
+		}
+
+		@Override
+		public void spawnDonkey(ShortPoint2D position, byte playerId) {
+		}
+
+		@Override
+		public void hitWithArrowAt(ArrowObject arrowObject) {
+		}
+	}
+}
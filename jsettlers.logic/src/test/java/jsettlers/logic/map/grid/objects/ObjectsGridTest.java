@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import jsettlers.common.mapobject.EMapObjectType;
+import jsettlers.logic.objects.StandardMapObject;
+
+/**
+ * Tests the type masks kept by the {@link ObjectsGrid} next to the object lists.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class ObjectsGridTest {
+	private static final short WIDTH = 10;
+	private static final short HEIGHT = 10;
+
+	private final ObjectsGrid grid = new ObjectsGrid(WIDTH, HEIGHT);
+
+	@Test
+	public void testAllTypesFitIntoMask() {
+		assertTrue(EMapObjectType.VALUES.length <= Long.SIZE);
+	}
+
+	@Test
+	public void testAddAndRemove() {
+		StandardMapObject stone = new StandardMapObject(EMapObjectType.STONE, false, (byte) 0);
+		StandardMapObject smoke = new StandardMapObject(EMapObjectType.SMOKE, false, (byte) 0);
+
+		assertFalse(grid.hasMapObjectType(3, 4, EMapObjectType.STONE));
+		grid.addMapObjectAt(3, 4, stone);
+		grid.addMapObjectAt(3, 4, smoke);
+
+		assertTrue(grid.hasMapObjectType(3, 4, EMapObjectType.STONE));
+		assertTrue(grid.hasMapObjectType(3, 4, EMapObjectType.ARROW, EMapObjectType.SMOKE));
+		assertFalse(grid.hasMapObjectType(3, 4, EMapObjectType.ARROW));
+		assertFalse(grid.hasMapObjectType(4, 3, EMapObjectType.STONE));
+		assertSame(smoke, grid.getMapObjectAt(3, 4, EMapObjectType.SMOKE));
+
+		assertTrue(grid.removeMapObject(3, 4, stone));
+		assertFalse(grid.hasMapObjectType(3, 4, EMapObjectType.STONE));
+		assertNull(grid.getMapObjectAt(3, 4, EMapObjectType.STONE));
+		assertSame(smoke, grid.getMapObjectAt(3, 4, EMapObjectType.SMOKE));
+
+		assertTrue(grid.removeMapObject(3, 4, smoke));
+		assertFalse(grid.hasMapObjectType(3, 4, EMapObjectType.SMOKE));
+		assertFalse(grid.removeMapObject(3, 4, smoke));
+	}
+
+	@Test
+	public void testRemoveMapObjectTypes() {
+		grid.addMapObjectAt(2, 2, new StandardMapObject(EMapObjectType.ARROW, false, (byte) 0));
+		grid.addMapObjectAt(2, 2, new StandardMapObject(EMapObjectType.STONE, false, (byte) 0));
+		grid.addMapObjectAt(2, 2, new StandardMapObject(EMapObjectType.TREE_DEAD, false, (byte) 0));
+
+		grid.removeMapObjectTypes(2, 2, EnumSet.of(EMapObjectType.ARROW, EMapObjectType.TREE_DEAD));
+
+		assertFalse(grid.hasMapObjectType(2, 2, EMapObjectType.ARROW, EMapObjectType.TREE_DEAD));
+		assertTrue(grid.hasMapObjectType(2, 2, EMapObjectType.STONE));
+	}
+
+	@Test
+	public void testNeighborObjectType() {
+		grid.addMapObjectAt(5, 5, new StandardMapObject(EMapObjectType.CORN_ADULT, false, (byte) 0));
+
+		assertTrue(grid.hasNeighborObjectType(5, 4, EMapObjectType.CORN_GROWING, EMapObjectType.CORN_ADULT));
+		assertTrue(grid.hasNeighborObjectType(6, 5, EMapObjectType.CORN_ADULT));
+		assertFalse(grid.hasNeighborObjectType(5, 5, EMapObjectType.CORN_ADULT));
+		assertFalse(grid.hasNeighborObjectType(5, 4, EMapObjectType.CORN_GROWING));
+	}
+
+	@Test
+	public void testObjectChangingItsType() {
+		ChangingObject object = new ChangingObject();
+		grid.addMapObjectAt(1, 1, object);
+		assertTrue(grid.hasMapObjectType(1, 1, EMapObjectType.TREE_GROWING));
+
+		object.type = EMapObjectType.TREE_ADULT;
+		assertFalse(grid.hasMapObjectType(1, 1, EMapObjectType.TREE_GROWING));
+		assertTrue(grid.hasMapObjectType(1, 1, EMapObjectType.TREE_ADULT));
+		assertTrue(grid.hasCuttableObject(1, 1, EMapObjectType.TREE_ADULT));
+		assertSame(object, grid.getMapObjectAt(1, 1, EMapObjectType.TREE_ADULT));
+	}
+
+	@Test
+	public void testMasksRestoredAfterSerialization() throws IOException, ClassNotFoundException {
+		grid.addMapObjectAt(7, 8, new StandardMapObject(EMapObjectType.STONE, false, (byte) 0));
+		grid.addMapObjectAt(7, 8, new StandardMapObject(EMapObjectType.FLAG_DOOR, false, (byte) 0));
+		grid.addMapObjectAt(0, 9, new StandardMapObject(EMapObjectType.WAVES, false, (byte) 0));
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(buffer);
+		oos.writeObject(grid);
+		oos.close();
+		ObjectsGrid loaded = (ObjectsGrid) new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray())).readObject();
+
+		assertTrue(loaded.hasMapObjectType(7, 8, EMapObjectType.STONE));
+		assertTrue(loaded.hasMapObjectType(7, 8, EMapObjectType.FLAG_DOOR));
+		assertTrue(loaded.hasMapObjectType(0, 9, EMapObjectType.WAVES));
+		assertFalse(loaded.hasMapObjectType(0, 9, EMapObjectType.STONE));
+		assertEquals(EMapObjectType.STONE, loaded.getObjectsAt(7, 8).getObjectType());
+	}
+
+	private static class ChangingObject extends AbstractHexMapObject {
+		private static final long serialVersionUID = 1L;
+
+		private EMapObjectType type = EMapObjectType.TREE_GROWING;
+
+		@Override
+		protected long getPossibleObjectTypes() {
+			return (1L << EMapObjectType.TREE_GROWING.ordinal) | (1L << EMapObjectType.TREE_ADULT.ordinal);
+		}
+
+		@Override
+		public EMapObjectType getObjectType() {
+			return type;
+		}
+
+		@Override
+		public float getStateProgress() {
+			return 0;
+		}
+
+		@Override
+		public boolean cutOff() {
+			return false;
+		}
+
+		@Override
+		public boolean canBeCut() {
+			return type == EMapObjectType.TREE_ADULT;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.objects;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.logic.map.grid.objects.TimeEventQueueTest.TestObject;
+
+/**
+ * Runs the growth of a fully planted 512x512 map with the {@link TimeEventQueue} and with a {@link PriorityQueue} of event objects. Both must
+ * execute the events in the same order. The times are not checked, as they depend on the machine.
+ * <p />
+ * A tree is planted on every position during the first ten minutes. When a tree has grown, it is cut with a chance of 50% and removed after it
+ * decomposed.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class TimeEventQueueSpeedTest {
+	private static final int SIZE = 512;
+	private static final int TREES = SIZE * SIZE;
+	private static final int PLANTING_TIME = 10 * 60 * 1000;
+	private static final int GROWTH_DURATION = 7 * 60 * 1000;
+	private static final int DECOMPOSE_DURATION = 2 * 60 * 1000;
+	private static final int END_TIME = PLANTING_TIME + GROWTH_DURATION + DECOMPOSE_DURATION + 1000;
+	private static final int TICK = 100;
+
+	@Test
+	public void testSpeed() {
+		TestObject[] trees = new TestObject[TREES];
+		int[] plantingTimes = new int[TREES];
+		Random random = new Random(1);
+		for (int i = 0; i < TREES; i++) {
+			trees[i] = new TestObject(i);
+			plantingTimes[i] = (int) ((long) PLANTING_TIME * i / TREES) + random.nextInt(TICK);
+		}
+
+		assertArrayEquals(runPriorityQueue(trees, plantingTimes), runWheel(trees, plantingTimes));
+	}
+
+	private int[] runWheel(TestObject[] trees, int[] plantingTimes) {
+		final TimeEventQueue queue = new TimeEventQueue();
+		final int[] order = new int[TREES * 2];
+		final int[] executed = new int[1];
+		final int[] gameTime = new int[1];
+
+		TimeEventQueue.ITimeEventHandler handler = new TimeEventQueue.ITimeEventHandler() {
+			@Override
+			public void handleTimeEvent(AbstractObjectsManagerObject mapObject, boolean shouldRemove) {
+				int id = ((TestObject) mapObject).id;
+				order[executed[0]++] = shouldRemove ? -id - 1 : id;
+				if (!shouldRemove && id % 2 == 0) {
+					queue.add(mapObject, gameTime[0] + DECOMPOSE_DURATION, true);
+				}
+			}
+		};
+
+		int planted = 0;
+		for (int time = 0; time < END_TIME; time += TICK) {
+			gameTime[0] = time;
+			while (planted < TREES && plantingTimes[planted] < time) {
+				queue.add(trees[planted], plantingTimes[planted] + GROWTH_DURATION, false);
+				planted++;
+			}
+			queue.executeOutdated(time, handler);
+		}
+		return order;
+	}
+
+	private int[] runPriorityQueue(TestObject[] trees, int[] plantingTimes) {
+		PriorityQueue<TimeEvent> queue = new PriorityQueue<TimeEvent>();
+		int[] order = new int[TREES * 2];
+		int executed = 0;
+		long sequence = 0;
+
+		int planted = 0;
+		for (int time = 0; time < END_TIME; time += TICK) {
+			while (planted < TREES && plantingTimes[planted] < time) {
+				queue.add(new TimeEvent(trees[planted], plantingTimes[planted] + GROWTH_DURATION, false, sequence++));
+				planted++;
+			}
+
+			TimeEvent curr = queue.peek();
+			while (curr != null && time > curr.eventTime) {
+				queue.poll();
+				int id = curr.mapObject.id;
+				order[executed++] = curr.shouldRemove ? -id - 1 : id;
+				if (!curr.shouldRemove && id % 2 == 0) {
+					queue.add(new TimeEvent(curr.mapObject, time + DECOMPOSE_DURATION, true, sequence++));
+				}
+				curr = queue.peek();
+			}
+		}
+		return order;
+	}
+
+	private static class TimeEvent implements Comparable<TimeEvent> {
+		private final TestObject mapObject;
+		private final int eventTime;
+		private final boolean shouldRemove;
+		private final long sequence;
+
+		TimeEvent(TestObject mapObject, int eventTime, boolean shouldRemove, long sequence) {
+			this.mapObject = mapObject;
+			this.eventTime = eventTime;
+			this.shouldRemove = shouldRemove;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(TimeEvent o) {
+			return eventTime != o.eventTime ? eventTime - o.eventTime : Long.compare(sequence, o.sequence);
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.objects;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import jsettlers.common.mapobject.EMapObjectType;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Tests the {@link TimeEventQueue} of the {@link MapObjectsManager}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class TimeEventQueueTest {
+
+	private final TimeEventQueue queue = new TimeEventQueue();
+	private final RecordingHandler handler = new RecordingHandler();
+
+	@Test
+	public void testEventsAreExecutedInTimeOrder() {
+		TestObject a = new TestObject(0);
+		TestObject b = new TestObject(1);
+		TestObject c = new TestObject(2);
+		queue.add(a, 250, false);
+		queue.add(b, 120, true);
+		queue.add(c, 180, false);
+		queue.add(a, 120, false);
+
+		queue.executeOutdated(100, handler);
+		assertEquals(0, handler.executed.size());
+
+		queue.executeOutdated(300, handler);
+		assertEquals(Arrays.asList("1-remove", "0", "2", "0"), handler.executed);
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testEventsWithEqualTimesAreExecutedInInsertionOrder() {
+		queue.add(new TestObject(3), 150, false);
+		queue.add(new TestObject(1), 150, true);
+		queue.add(new TestObject(4), 150, false);
+		queue.add(new TestObject(0), 120, false);
+		queue.add(new TestObject(0), 150, false);
+		queue.add(new TestObject(2), 150, true);
+
+		queue.executeOutdated(200, handler);
+		assertEquals(Arrays.asList("0", "3", "1-remove", "4", "0", "2-remove"), handler.executed);
+	}
+
+	@Test
+	public void testEventsWithEqualTimesBeyondTheWheelAreExecutedInInsertionOrder() {
+		int eventTime = 20 * 60 * 1000;
+		queue.add(new TestObject(0), eventTime, false);
+
+		for (int time = 0; time <= 30 * 60 * 1000; time += 100) {
+			if (time == 15 * 60 * 1000) {
+				queue.add(new TestObject(1), eventTime, false);
+			}
+			queue.executeOutdated(time, handler);
+			if (time == 15 * 60 * 1000) {
+				queue.add(new TestObject(2), eventTime, false);
+			}
+		}
+		assertEquals(Arrays.asList("0", "1", "2"), handler.executed);
+	}
+
+	@Test
+	public void testEventsAreOutdatedAfterTheirTime() {
+		queue.add(new TestObject(0), 200, false);
+
+		queue.executeOutdated(200, handler);
+		assertEquals(0, handler.executed.size());
+
+		queue.executeOutdated(201, handler);
+		assertEquals(Arrays.asList("0"), handler.executed);
+	}
+
+	@Test
+	public void testEventsBeyondTheWheel() {
+		queue.add(new TestObject(0), 20 * 60 * 1000, false);
+		queue.add(new TestObject(1), 30 * 1000, false);
+
+		for (int time = 0; time <= 30 * 60 * 1000; time += 100) {
+			queue.executeOutdated(time, handler);
+			if (time == 10 * 60 * 1000) {
+				assertEquals(Arrays.asList("1"), handler.executed);
+			}
+		}
+		assertEquals(Arrays.asList("1", "0"), handler.executed);
+	}
+
+	@Test
+	public void testEventsAddedWhileExecuting() {
+		final TestObject a = new TestObject(0);
+		queue.add(new TestObject(1), 110, true);
+		queue.add(a, 120, false);
+
+		queue.executeOutdated(200, new RecordingHandler() {
+			@Override
+			public void handleTimeEvent(AbstractObjectsManagerObject mapObject, boolean shouldRemove) {
+				super.handleTimeEvent(mapObject, shouldRemove);
+				queue.add(a, 250, true);
+			}
+		});
+		assertEquals(2, queue.size());
+
+		queue.executeOutdated(300, handler);
+		assertEquals(Arrays.asList("0-remove", "0-remove"), handler.executed);
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		for (int i = 0; i < 5000; i++) {
+			queue.add(new TestObject(i), (i * 7919) % 1000000, i % 3 == 0);
+		}
+		queue.executeOutdated(100000, handler);
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(buffer);
+		oos.writeObject(queue);
+		oos.close();
+		TimeEventQueue loaded = (TimeEventQueue) new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray())).readObject();
+		assertEquals(queue.size(), loaded.size());
+
+		RecordingHandler loadedHandler = new RecordingHandler();
+		handler.executed.clear();
+		for (int time = 100000; time < 1000100; time += 100) {
+			queue.executeOutdated(time, handler);
+			loaded.executeOutdated(time, loadedHandler);
+		}
+		assertEquals(handler.executed, loadedHandler.executed);
+		assertEquals(0, loaded.size());
+	}
+
+	static class TestObject extends AbstractObjectsManagerObject {
+		private static final long serialVersionUID = 1L;
+
+		final int id;
+
+		TestObject(int id) {
+			super(new ShortPoint2D(0, 0));
+			this.id = id;
+		}
+
+		@Override
+		protected void changeState() {
+		}
+
+		@Override
+		public EMapObjectType getObjectType() {
+			return EMapObjectType.TREE_GROWING;
+		}
+
+		@Override
+		public float getStateProgress() {
+			return 0;
+		}
+
+		@Override
+		public boolean cutOff() {
+			return false;
+		}
+
+		@Override
+		public boolean canBeCut() {
+			return false;
+		}
+	}
+
+	private static class RecordingHandler implements TimeEventQueue.ITimeEventHandler {
+		private final List<String> executed = new ArrayList<String>();
+
+		@Override
+		public void handleTimeEvent(AbstractObjectsManagerObject mapObject, boolean shouldRemove) {
+			executed.add(((TestObject) mapObject).id + (shouldRemove ? "-remove" : ""));
+		}
+	}
+}
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.map.partition.IMaterialsDistributionSettings;
+import jsettlers.common.material.EMaterialType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.grid.partition.manager.manageables.IManageableBearer;
+import jsettlers.logic.map.grid.partition.manager.manageables.interfaces.IBarrack;
+import jsettlers.logic.map.grid.partition.manager.manageables.interfaces.IDiggerRequester;
+import jsettlers.logic.map.grid.partition.manager.materials.interfaces.IMaterialRequest;
+import jsettlers.logic.map.grid.partition.manager.materials.requests.MaterialRequestObject;
+import jsettlers.logic.map.grid.partition.manager.objects.WorkerCreationRequest;
+
+/**
+ * Test for the class {@link PositionsTransfer}. The managers resulting of a transfer are compared with the managers resulting of transferring the
+ * positions one by one with {@link PartitionManager#removePositionTo(int, int, PartitionManager, boolean)}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class PositionsTransferTest {
+	private static final int WIDTH = 60;
+	private static final int HEIGHT = 40;
+	private static final int NUMBER_OF_OLD_MANAGERS = 3;
+	private static final int NUMBER_OF_NEW_MANAGERS = 2;
+
+	@Test
+	public void testTransferEqualsSinglePositionTransfers() throws IOException {
+		for (int seed = 0; seed < 20; seed++) {
+			PartitionManager[] expected = createManagers(seed);
+			PartitionManager[] actual = createManagers(seed);
+
+			List<TransferredPosition> positions = createTransferredPositions(seed);
+			PositionsTransfer transfer = new PositionsTransfer(WIDTH, HEIGHT);
+			for (TransferredPosition position : positions) {
+				expected[position.oldManager].removePositionTo(position.x, position.y, expected[position.newManager], position.samePlayer);
+				transfer.add(position.x, position.y, actual[position.oldManager], actual[position.newManager], position.samePlayer);
+			}
+			transfer.execute();
+			assertTrue(transfer.isEmpty());
+
+			for (int i = 0; i < expected.length; i++) {
+				assertArrayEquals("seed: " + seed + " manager: " + i, serialize(expected[i]), serialize(actual[i]));
+			}
+		}
+	}
+
+	@Test
+	public void testTransferCanBeReused() throws IOException {
+		PartitionManager[] expected = createManagers(1);
+		PartitionManager[] actual = createManagers(1);
+		PositionsTransfer transfer = new PositionsTransfer(WIDTH, HEIGHT);
+
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				expected[0].removePositionTo(x, y, expected[NUMBER_OF_OLD_MANAGERS + y % 2], true);
+				transfer.add(x, y, actual[0], actual[NUMBER_OF_OLD_MANAGERS + y % 2], true);
+			}
+			transfer.execute(); // one transfer per row
+		}
+
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(serialize(expected[i]), serialize(actual[i]));
+		}
+	}
+
+	private static PartitionManager[] createManagers(long seed) {
+		Random random = new Random(seed);
+		PartitionManager[] managers = new PartitionManager[NUMBER_OF_OLD_MANAGERS + NUMBER_OF_NEW_MANAGERS];
+		for (int i = 0; i < managers.length; i++) {
+			managers[i] = new PartitionManager(null);
+		}
+
+		for (int i = 0; i < 400; i++) {
+			PartitionManager manager = managers[random.nextInt(managers.length)];
+			ShortPoint2D position = new ShortPoint2D(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+			EMaterialType materialType = EMaterialType.VALUES[random.nextInt(EMaterialType.NUMBER_OF_DROPPABLE_MATERIALS)];
+
+			switch (random.nextInt(4)) {
+			case 0:
+				manager.addOffer(position, materialType);
+				break;
+			case 1:
+				manager.addJobless(new TestBearer(i, position));
+				break;
+			case 2:
+				EBuildingType buildingType = null;
+				if (materialType.isDistributionConfigurable()) {
+					IMaterialsDistributionSettings distributionSettings = manager.getPartitionSettings().getDistributionSettings(materialType);
+					if (distributionSettings.getNumberOfBuildings() == 0) {
+						break;
+					}
+					buildingType = distributionSettings.getBuildingType(random.nextInt(distributionSettings.getNumberOfBuildings()));
+				}
+				manager.request(materialType, new TestMaterialRequest(i, position, buildingType));
+				break;
+			case 3:
+				manager.requestDiggers(new TestDiggerRequester(i, position), (byte) 2);
+				break;
+			}
+		}
+		return managers;
+	}
+
+	private static List<TransferredPosition> createTransferredPositions(long seed) {
+		Random random = new Random(seed);
+		List<TransferredPosition> positions = new ArrayList<TransferredPosition>();
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				if (random.nextInt(3) != 0) {
+					positions.add(new TransferredPosition(x, y, random.nextInt(NUMBER_OF_OLD_MANAGERS), NUMBER_OF_OLD_MANAGERS
+							+ random.nextInt(NUMBER_OF_NEW_MANAGERS), random.nextInt(4) != 0));
+				}
+			}
+		}
+		Collections.shuffle(positions, random);
+		return positions;
+	}
+
+	private static byte[] serialize(Serializable object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(object);
+		oos.close();
+		return bytes.toByteArray();
+	}
+
+	private static class TransferredPosition {
+		final int x;
+		final int y;
+		final int oldManager;
+		final int newManager;
+		final boolean samePlayer;
+
+		TransferredPosition(int x, int y, int oldManager, int newManager, boolean samePlayer) {
+			this.x = x;
+			this.y = y;
+			this.oldManager = oldManager;
+			this.newManager = newManager;
+			this.samePlayer = samePlayer;
+		}
+	}
+
+	private static class TestBearer implements IManageableBearer {
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+		private final ShortPoint2D position;
+
+		TestBearer(int id, ShortPoint2D position) {
+			this.id = id;
+			this.position = position;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public boolean deliver(EMaterialType materialType, ShortPoint2D offerPosition, IMaterialRequest request) {
+			return false;
+		}
+
+		@Override
+		public boolean becomeWorker(IWorkerRequester requester, WorkerCreationRequest request) {
+			return false;
+		}
+
+		@Override
+		public boolean becomeWorker(IWorkerRequester requester, WorkerCreationRequest request, ShortPoint2D offer) {
+			return false;
+		}
+
+		@Override
+		public boolean becomeSoldier(IBarrack barrack) {
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return "TestBearer " + id;
+		}
+	}
+
+	private static class TestMaterialRequest extends MaterialRequestObject {
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+		private final ShortPoint2D position;
+		private final EBuildingType buildingType;
+
+		TestMaterialRequest(int id, ShortPoint2D position, EBuildingType buildingType) {
+			this.id = id;
+			this.position = position;
+			this.buildingType = buildingType;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		protected short getStillNeeded() {
+			return 1;
+		}
+
+		@Override
+		protected int getInDeliveryable() {
+			return 1;
+		}
+
+		@Override
+		protected void materialDelivered() {
+		}
+
+		@Override
+		protected boolean isRoundRobinRequest() {
+			return false;
+		}
+
+		@Override
+		protected EBuildingType getBuildingType() {
+			return buildingType;
+		}
+
+		@Override
+		public String toString() {
+			return "TestMaterialRequest " + id;
+		}
+	}
+
+	private static class TestDiggerRequester implements IDiggerRequester, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+		private final ShortPoint2D position;
+
+		TestDiggerRequester(int id, ShortPoint2D position) {
+			this.id = id;
+			this.position = position;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public EBuildingType getBuildingType() {
+			return EBuildingType.LUMBERJACK;
+		}
+
+		@Override
+		public boolean isDiggerRequestActive() {
+			return true;
+		}
+
+		@Override
+		public byte getAverageHeight() {
+			return 0;
+		}
+
+		@Override
+		public void diggerRequestFailed() {
+		}
+
+		@Override
+		public String toString() {
+			return "TestDiggerRequester " + id;
+		}
+	}
+}
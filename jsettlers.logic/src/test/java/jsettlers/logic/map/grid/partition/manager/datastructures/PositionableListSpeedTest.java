@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager.datastructures;
+
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableListTest.SimpleList;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableListTest.TestLocatable;
+
+/**
+ * Assigns jobs to the nearest of many jobless objects with the {@link PositionableList} and with a simple list searching all its elements. Both
+ * must assign the same objects. This is the workload the grid of buckets of the {@link PositionableList} is made for; the times are not checked,
+ * as they depend on the machine.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class PositionableListSpeedTest {
+	private static final int SIZE = 1024;
+	private static final int NUMBER_OF_JOBLESS = 5000;
+	private static final int NUMBER_OF_ASSIGNMENTS = 50000;
+
+	@Test
+	public void testSpeed() {
+		Random random = new Random(1);
+		PositionableList<TestLocatable> list = new PositionableList<TestLocatable>();
+		SimpleList reference = new SimpleList();
+		for (int i = 0; i < NUMBER_OF_JOBLESS; i++) {
+			TestLocatable jobless = new TestLocatable(i, random.nextInt(SIZE), random.nextInt(SIZE));
+			list.insert(jobless);
+			reference.objects.add(jobless);
+		}
+
+		for (int i = 0; i < NUMBER_OF_ASSIGNMENTS; i++) {
+			ShortPoint2D request = new ShortPoint2D(random.nextInt(SIZE), random.nextInt(SIZE));
+			TestLocatable assigned = list.removeObjectNextTo(request);
+			TestLocatable expected = reference.removeObjectNextTo(request, null);
+			assertSame(expected, assigned);
+
+			// the job is done somewhere else and the movable becomes jobless again
+			assigned.setPos(random.nextInt(SIZE), random.nextInt(SIZE));
+			list.insert(assigned);
+			reference.objects.add(assigned);
+		}
+	}
+}
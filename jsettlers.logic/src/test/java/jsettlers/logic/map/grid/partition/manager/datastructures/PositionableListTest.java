@@ -0,0 +1,356 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.queue.ITypeAcceptor;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.MathUtils;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList.IMovedVisitor;
+
+/**
+ * Test for the class {@link PositionableList}. The results are compared with a simple list searching all its elements.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class PositionableListTest {
+	private static final int WIDTH = 300;
+	private static final int HEIGHT = 200;
+
+	@Test
+	public void testNearestWithSameDistanceReturnsFirstInserted() {
+		PositionableList<TestLocatable> list = new PositionableList<TestLocatable>();
+		for (int i = 0; i < 100; i++) {
+			list.insert(new TestLocatable(i, 150 + i % 2, 150));
+		}
+		TestLocatable left = new TestLocatable(100, 99, 100);
+		TestLocatable right = new TestLocatable(101, 101, 100);
+		list.insert(left);
+		list.insert(right);
+
+		assertSame(left, list.removeObjectNextTo(new ShortPoint2D(100, 100)));
+		assertSame(right, list.removeObjectNextTo(new ShortPoint2D(100, 100)));
+	}
+
+	@Test
+	public void testMovingObjectsAreFoundAtTheirNewPosition() {
+		PositionableList<TestLocatable> list = new PositionableList<TestLocatable>();
+		for (int i = 0; i < 100; i++) {
+			list.insert(new TestLocatable(i, 10 + i, 10));
+		}
+		TestLocatable moving = new TestLocatable(100, 10, 190);
+		list.insert(moving);
+
+		moving.setPos(280, 180);
+		assertSame(moving, list.getObjectCloseTo(new ShortPoint2D(290, 190)));
+		assertSame(moving, list.getObjectAt(new ShortPoint2D(280, 180)));
+		assertNull(list.getObjectAt(new ShortPoint2D(10, 190)));
+
+		list.remove(moving);
+		assertNull(moving.listener);
+	}
+
+	@Test
+	public void testObjectInsertedTwice() {
+		PositionableList<TestLocatable> list = new PositionableList<TestLocatable>();
+		for (int i = 0; i < 100; i++) {
+			list.insert(new TestLocatable(i, 10 + i, 10));
+		}
+		TestLocatable moving = new TestLocatable(100, 10, 190);
+		list.insert(moving);
+		list.insert(moving);
+
+		moving.setPos(280, 180);
+		assertSame(moving, list.removeObjectNextTo(new ShortPoint2D(290, 190)));
+		assertSame(list, moving.listener);
+
+		moving.setPos(200, 100);
+		assertSame(moving, list.getObjectAt(new ShortPoint2D(200, 100)));
+		assertNull(list.getObjectAt(new ShortPoint2D(280, 180)));
+
+		list.remove(moving);
+		assertNull(moving.listener);
+		assertNull(list.getObjectAt(new ShortPoint2D(200, 100)));
+	}
+
+	@Test
+	public void testAddAllMovesTheObjects() {
+		PositionableList<TestLocatable> list = new PositionableList<TestLocatable>();
+		PositionableList<TestLocatable> otherList = new PositionableList<TestLocatable>();
+		TestLocatable first = new TestLocatable(0, 10, 10);
+		TestLocatable moving = new TestLocatable(1, 20, 20);
+		TestLocatable last = new TestLocatable(2, 30, 30);
+		list.insert(first);
+		otherList.insert(moving);
+		otherList.insert(last);
+
+		list.addAll(otherList);
+
+		assertTrue(otherList.isEmpty());
+		assertEquals(Arrays.asList(first, moving, last), toList(list));
+		assertSame(list, moving.listener);
+
+		moving.setPos(100, 100);
+		assertSame(moving, list.getObjectAt(new ShortPoint2D(100, 100)));
+		assertNull(otherList.getObjectAt(new ShortPoint2D(100, 100)));
+	}
+
+	@Test
+	public void testRandomOperationsBehaveLikeSimpleList() throws Exception {
+		for (int seed = 0; seed < 10; seed++) {
+			runRandomOperations(seed, 20 + seed * 50);
+		}
+	}
+
+	private void runRandomOperations(long seed, int targetSize) throws Exception {
+		Random random = new Random(seed);
+		PositionableList<TestLocatable> list = new PositionableList<TestLocatable>();
+		SimpleList reference = new SimpleList();
+		ITypeAcceptor<TestLocatable> evenAcceptor = new ITypeAcceptor<TestLocatable>() {
+			@Override
+			public boolean accepts(TestLocatable object) {
+				return object.id % 2 == 0;
+			}
+		};
+
+		int nextId = 0;
+		for (int step = 0; step < 5000; step++) {
+			ShortPoint2D position = randomPosition(random);
+			int operation = random.nextInt(10);
+
+			if (operation == 0 && !reference.objects.isEmpty() && random.nextInt(4) == 0) {
+				TestLocatable object = reference.objects.get(random.nextInt(reference.objects.size()));
+				list.insert(object);
+				reference.objects.add(object);
+			} else if (operation < 3 || reference.objects.size() < targetSize / 2) {
+				TestLocatable object = new TestLocatable(nextId++, position.x, position.y);
+				list.insert(object);
+				reference.objects.add(object);
+			} else if (operation == 3) {
+				assertSame(reference.removeObjectNextTo(position, null), list.removeObjectNextTo(position));
+			} else if (operation == 4) {
+				assertSame(reference.removeObjectNextTo(position, evenAcceptor), list.removeObjectNextTo(position, evenAcceptor));
+			} else if (operation == 5) {
+				TestLocatable object = reference.objects.get(random.nextInt(reference.objects.size()));
+				assertSame(reference.getObjectAt(object.getPos()), list.getObjectAt(object.getPos()));
+				assertSame(reference.removeObjectAt(object.getPos()), list.removeObjectAt(object.getPos()));
+			} else if (operation == 6) {
+				TestLocatable object = reference.objects.remove(random.nextInt(reference.objects.size()));
+				list.remove(object);
+			} else if (operation == 7) {
+				TestLocatable object = reference.objects.get(random.nextInt(reference.objects.size()));
+				if (random.nextBoolean()) {
+					object.setPos(position.x, position.y);
+				} else {
+					object.setPos(Math.max(0, Math.min(WIDTH - 1, object.x + random.nextInt(3) - 1)), Math.max(0, Math.min(HEIGHT - 1, object.y + random.nextInt(3) - 1)));
+				}
+			} else if (operation == 8) {
+				ShortPoint2D objectPosition = reference.objects.get(random.nextInt(reference.objects.size())).getPos();
+				PositionableList<TestLocatable> newList = new PositionableList<TestLocatable>();
+				final List<TestLocatable> visited = new ArrayList<TestLocatable>();
+				list.moveObjectsAtPositionTo(objectPosition, newList, new IMovedVisitor<TestLocatable>() {
+					@Override
+					public void visit(TestLocatable moved) {
+						visited.add(moved);
+					}
+				});
+				assertEquals(reference.removeObjectsAt(objectPosition), visited);
+				assertEquals(visited, toList(newList));
+				list.addAll(newList);
+				reference.objects.addAll(visited);
+			} else {
+				list = serializeAndDeserialize(list);
+				reference.objects = toList(list);
+			}
+
+			assertEquals(reference.objects.isEmpty(), list.isEmpty());
+		}
+
+		assertEquals(reference.objects, toList(list));
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		PositionableList<TestLocatable> list = new PositionableList<TestLocatable>();
+		List<TestLocatable> expected = new ArrayList<TestLocatable>();
+		for (int i = 0; i < 100; i++) {
+			TestLocatable object = new TestLocatable(i, i, i);
+			list.insert(object);
+			if (i % 3 != 0) {
+				expected.add(object);
+			}
+		}
+
+		for (Iterator<TestLocatable> iterator = list.iterator(); iterator.hasNext();) {
+			if (iterator.next().id % 3 == 0) {
+				iterator.remove();
+			}
+		}
+
+		assertEquals(expected, toList(list));
+		assertEquals(66, list.size());
+		assertNull(list.getObjectAt(new ShortPoint2D(3, 3)));
+		assertSame(expected.get(0), list.getObjectCloseTo(new ShortPoint2D(0, 0)));
+	}
+
+	private static ShortPoint2D randomPosition(Random random) {
+		return new ShortPoint2D(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+	}
+
+	private static List<TestLocatable> toList(PositionableList<TestLocatable> list) {
+		List<TestLocatable> result = new ArrayList<TestLocatable>();
+		for (TestLocatable object : list) {
+			result.add(object);
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static PositionableList<TestLocatable> serializeAndDeserialize(PositionableList<TestLocatable> list) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(list);
+		oos.close();
+
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		PositionableList<TestLocatable> result = (PositionableList<TestLocatable>) ois.readObject();
+		ois.close();
+		assertTrue(result.size() == list.size());
+		return result;
+	}
+
+	/**
+	 * Simple implementation searching all elements that is used as reference.
+	 */
+	static class SimpleList {
+		List<TestLocatable> objects = new ArrayList<TestLocatable>();
+
+		TestLocatable getObjectAt(ShortPoint2D position) {
+			for (TestLocatable object : objects) {
+				if (object.getPos().equals(position)) {
+					return object;
+				}
+			}
+			return null;
+		}
+
+		TestLocatable removeObjectAt(ShortPoint2D position) {
+			TestLocatable object = getObjectAt(position);
+			objects.remove(object);
+			return object;
+		}
+
+		List<TestLocatable> removeObjectsAt(ShortPoint2D position) {
+			List<TestLocatable> result = new ArrayList<TestLocatable>();
+			for (Iterator<TestLocatable> iterator = objects.iterator(); iterator.hasNext();) {
+				TestLocatable object = iterator.next();
+				if (object.getPos().equals(position)) {
+					iterator.remove();
+					result.add(object);
+				}
+			}
+			return result;
+		}
+
+		TestLocatable getObjectCloseTo(ShortPoint2D position, ITypeAcceptor<TestLocatable> acceptor) {
+			int bestDistance = Integer.MAX_VALUE;
+			TestLocatable best = null;
+			for (TestLocatable object : objects) {
+				if (acceptor != null && !acceptor.accepts(object)) {
+					continue;
+				}
+				int distance = MathUtils.squareHypot(position, object.getPos());
+				if (distance < bestDistance) {
+					bestDistance = distance;
+					best = object;
+				}
+			}
+			return best;
+		}
+
+		TestLocatable removeObjectNextTo(ShortPoint2D position, ITypeAcceptor<TestLocatable> acceptor) {
+			TestLocatable object = getObjectCloseTo(position, acceptor);
+			objects.remove(object);
+			return object;
+		}
+	}
+
+	static class TestLocatable implements ILocatable, IMovingLocatable, java.io.Serializable {
+		private static final long serialVersionUID = 1L;
+
+		final int id;
+		int x;
+		int y;
+		IPositionChangedListener listener;
+
+		TestLocatable(int id, int x, int y) {
+			this.id = id;
+			this.x = x;
+			this.y = y;
+		}
+
+		void setPos(int x, int y) {
+			this.x = x;
+			this.y = y;
+			if (listener != null) {
+				listener.positionChanged(this);
+			}
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public void setPositionChangedListener(IPositionChangedListener listener) {
+			assertTrue("object is already tracked by another list", listener == null || this.listener == null || this.listener == listener);
+			this.listener = listener;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof TestLocatable && ((TestLocatable) obj).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public String toString() {
+			return "TestLocatable [id=" + id + ", x=" + x + ", y=" + y + "]";
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.list;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+import jsettlers.logic.map.loading.newmap.MapFileHeader.MapType;
+
+/**
+ * Tests the {@link MapHeaderIndex}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class MapHeaderIndexTest {
+	private File directory;
+	private File indexFile;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("mapheaderindex").toFile();
+		directory.deleteOnExit();
+		indexFile = new File(directory, "mapheaders.index");
+		indexFile.deleteOnExit();
+	}
+
+	@Test
+	public void testHeadersAreStoredPersistently() throws IOException {
+		File map = createFile("map1.rmap", 100);
+		MapFileHeader header = createHeader("map one", 17);
+
+		MapHeaderIndex index = new MapHeaderIndex(indexFile);
+		assertNull(index.get(map));
+		index.startScan();
+		index.put(map, header);
+		index.save();
+
+		MapFileHeader indexedHeader = new MapHeaderIndex(indexFile).get(map);
+		assertNotNull(indexedHeader);
+		assertEquals(header.getName(), indexedHeader.getName());
+		assertEquals(header.getUniqueId(), indexedHeader.getUniqueId());
+		assertEquals(header.getCreationDate(), indexedHeader.getCreationDate());
+		assertArrayEquals(header.getPreviewImage(), indexedHeader.getPreviewImage());
+	}
+
+	@Test
+	public void testChangedFilesAreNotReturned() throws IOException {
+		File map = createFile("map1.rmap", 100);
+
+		MapHeaderIndex index = new MapHeaderIndex(indexFile);
+		index.put(map, createHeader("map one", 1));
+		index.save();
+
+		assertTrue(map.setLastModified(map.lastModified() - 10000));
+		assertNull(new MapHeaderIndex(indexFile).get(map));
+	}
+
+	@Test
+	public void testNewEntriesAreAppended() throws IOException {
+		File map1 = createFile("map1.rmap", 100);
+		File map2 = createFile("map2.rmap", 200);
+
+		MapHeaderIndex index = new MapHeaderIndex(indexFile);
+		index.startScan();
+		index.put(map1, createHeader("map one", 1));
+		index.save();
+		long firstLength = indexFile.length();
+
+		index.startScan();
+		assertNotNull(index.get(map1));
+		index.put(map2, createHeader("map two", 2));
+		index.save();
+		assertTrue(indexFile.length() > firstLength);
+
+		MapHeaderIndex reloadedIndex = new MapHeaderIndex(indexFile);
+		assertEquals(2, reloadedIndex.size());
+		assertEquals("map one", reloadedIndex.get(map1).getName());
+		assertEquals("map two", reloadedIndex.get(map2).getName());
+	}
+
+	@Test
+	public void testUnusedEntriesAreRemoved() throws IOException {
+		File map1 = createFile("map1.rmap", 100);
+		File map2 = createFile("map2.rmap", 200);
+
+		MapHeaderIndex index = new MapHeaderIndex(indexFile);
+		index.startScan();
+		index.put(map1, createHeader("map one", 1));
+		index.put(map2, createHeader("map two", 2));
+		index.save();
+
+		index.startScan();
+		assertNotNull(index.get(map2));
+		index.save();
+
+		MapHeaderIndex reloadedIndex = new MapHeaderIndex(indexFile);
+		assertEquals(1, reloadedIndex.size());
+		assertNull(reloadedIndex.get(map1));
+		assertNotNull(reloadedIndex.get(map2));
+	}
+
+	@Test
+	public void testDamagedIndexIsIgnored() throws IOException {
+		File map = createFile("map1.rmap", 100);
+		try (FileOutputStream out = new FileOutputStream(indexFile)) {
+			out.write(new byte[] { 1, 2, 3, 4, 5 });
+		}
+
+		MapHeaderIndex index = new MapHeaderIndex(indexFile);
+		assertEquals(0, index.size());
+		index.put(map, createHeader("map one", 1));
+		index.save();
+
+		assertNotNull(new MapHeaderIndex(indexFile).get(map));
+	}
+
+	private File createFile(String name, int length) throws IOException {
+		File file = new File(directory, name);
+		file.deleteOnExit();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(new byte[length]);
+		}
+		return file;
+	}
+
+	private static MapFileHeader createHeader(String name, int color) {
+		short[] previewImage = new short[MapFileHeader.PREVIEW_IMAGE_SIZE * MapFileHeader.PREVIEW_IMAGE_SIZE];
+		for (int i = 0; i < previewImage.length; i++) {
+			previewImage[i] = (short) (color * i);
+		}
+		return new MapFileHeader(MapType.SAVED_SINGLE, name, null, "description", (short) 64, (short) 64, (short) 1, (short) 2, new Date(1234567890L),
+				previewImage);
+	}
+}
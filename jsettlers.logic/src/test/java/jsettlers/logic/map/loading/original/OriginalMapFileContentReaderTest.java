@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.original;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.logic.map.loading.EMapStartResources;
+import jsettlers.logic.map.loading.original.OriginalMapFileDataStructs.EMapFilePartType;
+import jsettlers.logic.map.loading.original.OriginalMapFileDataStructs.EMapFileVersion;
+
+/**
+ * Tests the {@link OriginalMapFileContentReader} with a generated map file that is read from a stream and from a memory mapped file.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class OriginalMapFileContentReaderTest {
+	private static final int WIDTH_HEIGHT = 64;
+	private static final int PREVIEW_SIZE = 32;
+	private static final String QUEST_TEXT = "Conquer the island";
+
+	@Test
+	public void testMappedFileAndStreamReadTheSameMap() throws IOException {
+		byte[] mapFile = createMapFile(new Random(0));
+		File file = writeToTemporaryFile(mapFile);
+
+		OriginalMapFileContentReader streamReader = new OriginalMapFileContentReader(new ByteArrayInputStream(mapFile));
+		OriginalMapFileContentReader fileReader = new OriginalMapFileContentReader(file);
+
+		readHeader(streamReader);
+		readHeader(fileReader);
+
+		assertEquals(WIDTH_HEIGHT, fileReader.widthHeight);
+		assertEquals(streamReader.fileChecksum, fileReader.fileChecksum);
+		assertTrue(fileReader.isSinglePlayerMap);
+		assertEquals(2, fileReader.mapData.getPlayerCount());
+		assertEquals(streamReader.mapData.getStartPoint(1), fileReader.mapData.getStartPoint(1));
+		assertEquals(streamReader.readMapQuestText(), fileReader.readMapQuestText());
+		assertTrue(QUEST_TEXT.startsWith(fileReader.readMapQuestText()));
+		assertArrayEquals(streamReader.getPreviewImage(), fileReader.getPreviewImage());
+
+		streamReader.freeBuffer();
+		fileReader.freeBuffer();
+		streamReader.reOpen(new ByteArrayInputStream(mapFile));
+		fileReader.reOpen(file);
+
+		readMapData(streamReader);
+		readMapData(fileReader);
+
+		boolean hasHeights = false;
+		for (int y = 0; y < WIDTH_HEIGHT; y++) {
+			for (int x = 0; x < WIDTH_HEIGHT; x++) {
+				assertEquals(streamReader.mapData.getLandscapeHeight(x, y), fileReader.mapData.getLandscapeHeight(x, y));
+				assertEquals(streamReader.mapData.getLandscape(x, y), fileReader.mapData.getLandscape(x, y));
+				hasHeights |= fileReader.mapData.getLandscapeHeight(x, y) != 0;
+			}
+		}
+		assertTrue(hasHeights);
+	}
+
+	@Test
+	public void testAreaIsReadAfterHeader() throws IOException {
+		byte[] mapFile = createMapFile(new Random(1));
+		OriginalMapFileContentReader reader = new OriginalMapFileContentReader(writeToTemporaryFile(mapFile));
+
+		// the header only decrypts the beginning of the area; reading the map data has to decrypt the rest of it
+		readHeader(reader);
+		assertTrue(reader.readMapData());
+
+		OriginalMapFileContentReader expectedReader = new OriginalMapFileContentReader(new ByteArrayInputStream(mapFile));
+		assertTrue(expectedReader.loadMapResources());
+		expectedReader.readMapInfo();
+		assertTrue(expectedReader.readMapData());
+
+		for (int y = 0; y < WIDTH_HEIGHT; y++) {
+			for (int x = 0; x < WIDTH_HEIGHT; x++) {
+				assertEquals(expectedReader.mapData.getLandscapeHeight(x, y), reader.mapData.getLandscapeHeight(x, y));
+			}
+		}
+	}
+
+	private static void readHeader(OriginalMapFileContentReader reader) {
+		assertTrue(reader.isChecksumValid());
+		assertTrue(reader.loadMapResources());
+		reader.readBasicMapInformation(PREVIEW_SIZE, PREVIEW_SIZE);
+	}
+
+	private static void readMapData(OriginalMapFileContentReader reader) {
+		assertTrue(reader.loadMapResources());
+		reader.readBasicMapInformation();
+		assertTrue(reader.readMapData());
+		assertTrue(reader.readStacks());
+		assertTrue(reader.readSettlers());
+		assertTrue(reader.readBuildings());
+	}
+
+	private static File writeToTemporaryFile(byte[] data) throws IOException {
+		File file = File.createTempFile("original-map", ".map");
+		file.deleteOnExit();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(data);
+		}
+		return file;
+	}
+
+	private static byte[] createMapFile(Random random) {
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		writeInt(file, 0); // checksum, set below
+		writeInt(file, EMapFileVersion.DEFAULT.value);
+
+		ByteBuffer mapInfo = allocate(12);
+		mapInfo.putInt(1).putInt(2).putInt(EMapStartResources.MEDIUM_GOODS.value);
+		writePart(file, EMapFilePartType.MAP_INFO, mapInfo);
+
+		ByteBuffer playerInfo = allocate(2 * (12 + 33));
+		for (int player = 0; player < 2; player++) {
+			playerInfo.putInt(0).putInt(10 + player * 40).putInt(20 + player * 20);
+			playerInfo.put(("Player " + player).getBytes()).position(playerInfo.position() + 33 - 8);
+		}
+		writePart(file, EMapFilePartType.PLAYER_INFO, playerInfo);
+
+		ByteBuffer preview = allocate(4 + WIDTH_HEIGHT * WIDTH_HEIGHT * 2);
+		preview.putShort((short) WIDTH_HEIGHT).putShort((short) 0);
+		while (preview.hasRemaining()) {
+			preview.putShort((short) random.nextInt(0x7FFF));
+		}
+		writePart(file, EMapFilePartType.PREVIEW, preview);
+
+		ByteBuffer area = allocate(4 + WIDTH_HEIGHT * WIDTH_HEIGHT * 6);
+		area.putInt(WIDTH_HEIGHT);
+		for (int i = 0; i < WIDTH_HEIGHT * WIDTH_HEIGHT; i++) {
+			area.put((byte) random.nextInt(30)).put((byte) 0).put((byte) 0).put((byte) 0).put((byte) 0).put((byte) 0);
+		}
+		writePart(file, EMapFilePartType.AREA, area);
+
+		writePart(file, EMapFilePartType.SETTLERS, allocate(4));
+		writePart(file, EMapFilePartType.BUILDINGS, allocate(4));
+		writePart(file, EMapFilePartType.STACKS, allocate(4));
+
+		ByteBuffer questText = allocate(QUEST_TEXT.length() + 1);
+		questText.put(QUEST_TEXT.getBytes());
+		writePart(file, EMapFilePartType.QUEST_TEXT, questText);
+
+		writeInt(file, EMapFilePartType.EOF.value);
+		writeInt(file, 8);
+		writeInt(file, 0); // padding
+
+		byte[] data = file.toByteArray();
+		ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(0, calculateChecksum(data));
+		return data;
+	}
+
+	private static ByteBuffer allocate(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static void writePart(ByteArrayOutputStream file, EMapFilePartType type, ByteBuffer data) {
+		byte[] part = data.array();
+		writeInt(file, type.value);
+		writeInt(file, part.length + 8);
+
+		int key = type.value & 0xFF;
+		for (byte plain : part) {
+			byte encrypted = (byte) (plain ^ key);
+			file.write(encrypted);
+			key = (key << 1) ^ (encrypted ^ key);
+		}
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		out.write(value);
+		out.write(value >> 8);
+		out.write(value >> 16);
+		out.write(value >> 24);
+	}
+
+	private static int calculateChecksum(byte[] data) {
+		ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+		int checksum = 0;
+		for (int i = 8; i < (data.length & 0xFFFFFFFC); i += 4) {
+			checksum = (checksum >>> 31) | ((checksum << 1) ^ buffer.getInt(i));
+		}
+		return checksum;
+	}
+}
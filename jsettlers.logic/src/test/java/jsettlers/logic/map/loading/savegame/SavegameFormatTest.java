@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the chunked savegame format of {@link SavegameWriter}, {@link SavegameSnapshot} and {@link SavegameReader}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class SavegameFormatTest {
+
+	@Test
+	public void testRoundTripUncompressed() throws IOException, ClassNotFoundException {
+		testRoundTrip(false);
+	}
+
+	@Test
+	public void testRoundTripCompressed() throws IOException, ClassNotFoundException {
+		testRoundTrip(true);
+	}
+
+	@Test
+	public void testCompressionReducesSize() throws IOException {
+		ArraysHolder holder = new ArraysHolder(new Random(0), 200);
+		assertTrue(write(holder, true).length < write(holder, false).length);
+	}
+
+	@Test
+	public void testPlainSerializationWritesArraysInline() throws IOException, ClassNotFoundException {
+		ArraysHolder holder = new ArraysHolder(new Random(1), 50);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(holder);
+		oos.close();
+
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()));
+		holder.assertEqualTo((ArraysHolder) ois.readObject());
+	}
+
+	@Test
+	public void testStreamIsPositionedBehindReadChunks() throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SavegameWriter writer = new SavegameWriter(out, true);
+		writer.writeHeader();
+		writer.writeObjects(new ObjectWriter("first"));
+		writer.writeObjects(new ObjectWriter(new ArraysHolder(new Random(2), 100)));
+		writer.finish();
+		out.write(42);
+
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		SavegameReader reader = new SavegameReader(in);
+		reader.readHeader();
+		ObjectReader firstReader = new ObjectReader();
+		reader.readObjects(firstReader);
+		assertEquals("first", firstReader.object);
+
+		reader.readObjects(new ObjectReader());
+		reader.readEnd();
+		assertEquals(42, in.read());
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testSnapshotIsIndependentOfLaterChanges() throws IOException, ClassNotFoundException {
+		ArraysHolder holder = new ArraysHolder(new Random(5), 100);
+		ArraysHolder expected = new ArraysHolder(new Random(5), 100);
+
+		SavegameSnapshot snapshot = new SavegameSnapshot();
+		snapshot.addObjects(new ObjectWriter(holder));
+		holder.bytes[17]++;
+		holder.shorts[42]++;
+		holder.bitSet.flip(99);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.writeTo(out, true);
+
+		SavegameReader reader = new SavegameReader(new ByteArrayInputStream(out.toByteArray()));
+		reader.readHeader();
+		ObjectReader objectReader = new ObjectReader();
+		reader.readObjects(objectReader);
+		reader.readEnd();
+
+		expected.assertEqualTo((ArraysHolder) objectReader.object);
+	}
+
+	@Test
+	public void testSnapshotIsWrittenLikeWriter() throws IOException {
+		ArraysHolder holder = new ArraysHolder(new Random(6), 100);
+
+		SavegameSnapshot snapshot = new SavegameSnapshot();
+		snapshot.addObjects(new ObjectWriter(holder));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.writeTo(out, true);
+
+		assertArrayEquals(write(holder, true), out.toByteArray());
+	}
+
+	@Test(expected = UnsupportedSavegameVersionException.class)
+	public void testJavaSerializationStreamIsRejected() throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject("old savegame");
+		oos.close();
+
+		new SavegameReader(new ByteArrayInputStream(out.toByteArray())).readHeader();
+	}
+
+	@Test(expected = UnsupportedSavegameVersionException.class)
+	public void testOtherVersionIsRejected() throws IOException {
+		byte[] savegame = write("other version", false);
+		savegame[5]++; // the version follows the magic number
+
+		new SavegameReader(new ByteArrayInputStream(savegame)).readHeader();
+	}
+
+	private void testRoundTrip(boolean compress) throws IOException, ClassNotFoundException {
+		Random random = new Random(compress ? 3 : 4);
+		ArraysHolder holder = new ArraysHolder(random, 300);
+
+		SavegameReader reader = new SavegameReader(new ByteArrayInputStream(write(holder, compress)));
+		reader.readHeader();
+		ObjectReader objectReader = new ObjectReader();
+		reader.readObjects(objectReader);
+		reader.readEnd();
+
+		holder.assertEqualTo((ArraysHolder) objectReader.object);
+	}
+
+	private static byte[] write(Object object, boolean compress) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SavegameWriter writer = new SavegameWriter(out, compress);
+		writer.writeHeader();
+		writer.writeObjects(new ObjectWriter(object));
+		writer.finish();
+		return out.toByteArray();
+	}
+
+	private static class ObjectWriter implements SavegameWriter.IObjectsWriter {
+		private final Object object;
+
+		ObjectWriter(Object object) {
+			this.object = object;
+		}
+
+		@Override
+		public void writeObjects(ObjectOutputStream oos) throws IOException {
+			oos.writeObject(object);
+		}
+	}
+
+	private static class ObjectReader implements SavegameReader.IObjectsReader {
+		Object object;
+
+		@Override
+		public void readObjects(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+			object = ois.readObject();
+		}
+	}
+
+	private static class ArraysHolder implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String name = "holder";
+		private transient byte[] bytes;
+		private transient short[] shorts;
+		private transient BitSet bitSet;
+
+		ArraysHolder(Random random, int size) {
+			bytes = new byte[size * size];
+			shorts = new short[size * size];
+			bitSet = new BitSet(size * size);
+			for (int i = 0; i < size * size; i++) {
+				bytes[i] = (byte) random.nextInt(4);
+				shorts[i] = (short) (random.nextInt(3) * 1000);
+				bitSet.set(i, random.nextInt(5) == 0);
+			}
+		}
+
+		private void writeObject(ObjectOutputStream oos) throws IOException {
+			oos.defaultWriteObject();
+			SavegameArrays.writeBytes(oos, bytes);
+			SavegameArrays.writeShorts(oos, shorts);
+			SavegameArrays.writeBitSet(oos, bitSet);
+		}
+
+		private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+			ois.defaultReadObject();
+			bytes = SavegameArrays.readBytes(ois);
+			shorts = SavegameArrays.readShorts(ois);
+			bitSet = SavegameArrays.readBitSet(ois);
+		}
+
+		void assertEqualTo(ArraysHolder other) {
+			assertEquals(name, other.name);
+			assertArrayEquals(bytes, other.bytes);
+			assertArrayEquals(shorts, other.shorts);
+			assertEquals(bitSet, other.bitSet);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.movable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.grid.movable.MovableGrid;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Test for the class {@link MovableStore}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class MovableStoreTest {
+	private MainGrid grid;
+	private MovableStore store;
+
+	@Before
+	public void loadMap() throws Exception {
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		MapLoader map = MapUtils.getMountainlake();
+		grid = map.loadMainGrid(PlayerSetting.createDefaultSettings((byte) 0, (byte) map.getMaxPlayers())).getMainGrid();
+		grid.stopThreads();
+		store = grid.getGameContext().getMovableStore();
+	}
+
+	@After
+	public void clearState() {
+		JSettlersGame.clearState();
+	}
+
+	@Test
+	public void testStoreMatchesMovables() {
+		List<Movable> movables = new ArrayList<Movable>(grid.getGameContext().getAllMovables());
+		assertTrue(movables.size() > 0);
+		assertEquals(movables.size(), countAlive());
+		assertLivingIDsMatch();
+
+		MovableGrid movableGrid = grid.getMovableGrid();
+		for (Movable movable : movables) {
+			int id = movable.getID();
+			assertSame(movable, store.getMovable(id));
+			assertTrue(store.isAlive(id));
+			assertEquals(movable.getPos().x, store.getX(id));
+			assertEquals(movable.getPos().y, store.getY(id));
+			assertEquals(movable.getPlayerId(), store.getPlayerId(id));
+			assertEquals(movable.getMovableType(), store.getMovableType(id));
+			assertEquals(movableGrid.getMovableAt(movable.getPos().x, movable.getPos().y) == movable, store.isVisible(id));
+		}
+	}
+
+	@Test
+	public void testKilledMovablesAreRemoved() {
+		Movable movable = grid.getGameContext().getAllMovables().peek();
+		int id = movable.getID();
+		int aliveBefore = countAlive();
+		long stateHashBefore = store.getStateHash();
+
+		movable.kill();
+
+		assertFalse(store.isAlive(id));
+		assertNull(store.getMovable(id));
+		assertEquals(aliveBefore - 1, countAlive());
+		assertLivingIDsMatch();
+		assertTrue(stateHashBefore != store.getStateHash());
+		assertEquals(movable.getPos().x, store.getX(id));
+		assertEquals(movable.getPos().y, store.getY(id));
+	}
+
+	@Test
+	public void testUnknownIds() {
+		assertNull(store.getMovable(MovableStore.FIRST_ID - 1));
+		assertNull(store.getMovable(store.getEndID()));
+	}
+
+	private void assertLivingIDsMatch() {
+		assertEquals(countAlive(), store.getNumberOfMovables());
+		Set<Integer> livingIDs = new HashSet<Integer>();
+		for (int i = 0; i < store.getNumberOfMovables(); i++) {
+			int id = store.getLivingID(i);
+			assertTrue(store.isAlive(id));
+			assertTrue(livingIDs.add(id));
+		}
+	}
+
+	private int countAlive() {
+		int alive = 0;
+		for (int id = MovableStore.FIRST_ID; id < store.getEndID(); id++) {
+			if (store.isAlive(id)) {
+				alive++;
+			}
+		}
+		return alive;
+	}
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for the class {@link RescheduleTimer}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class RescheduleTimerTest {
+	private static final List<Integer> calls = new ArrayList<Integer>();
+
+	@Before
+	@After
+	public void clearTimer() {
+		RescheduleTimer.stopAndClear();
+		calls.clear();
+	}
+
+	@Test
+	public void testExecutionOrderIsSchedulingOrder() {
+		TestTimerable first = new TestTimerable(1, -1);
+		TestTimerable second = new TestTimerable(2, -1);
+		TestTimerable third = new TestTimerable(3, -1);
+		RescheduleTimer.add(second, 50);
+		RescheduleTimer.add(first, 50);
+		RescheduleTimer.add(third, 60);
+		assertEquals(3, RescheduleTimer.getScheduledCount());
+		assertEquals(1, RescheduleTimer.getOccupiedSlotsCount());
+		assertEquals(3, RescheduleTimer.getMaxSlotOccupancy());
+
+		runSlots(3);
+
+		assertEquals(Arrays.asList(2, 1, 3), calls);
+		assertEquals(0, RescheduleTimer.getScheduledCount());
+		assertFalse(first.getTimerSlotLink().isScheduled());
+	}
+
+	@Test
+	public void testRescheduling() {
+		TestTimerable timerable = new TestTimerable(1, 50);
+		RescheduleTimer.add(timerable, 25);
+
+		runSlots(7);
+
+		assertEquals(Arrays.asList(1, 1, 1), calls);
+		assertTrue(timerable.getTimerSlotLink().isScheduled());
+		assertEquals(1, RescheduleTimer.getScheduledCount());
+	}
+
+	@Test
+	public void testRemove() {
+		TestTimerable first = new TestTimerable(1, -1);
+		TestTimerable second = new TestTimerable(2, -1);
+		TestTimerable third = new TestTimerable(3, -1);
+		RescheduleTimer.add(first, 50);
+		RescheduleTimer.add(second, 50);
+		RescheduleTimer.add(third, 50);
+
+		RescheduleTimer.remove(second);
+		RescheduleTimer.remove(second);
+		assertEquals(2, RescheduleTimer.getScheduledCount());
+
+		runSlots(3);
+		assertEquals(Arrays.asList(1, 3), calls);
+	}
+
+	@Test
+	public void testRemoveDuringExecution() {
+		TestTimerable second = new TestTimerable(2, -1);
+		TestTimerable first = new TestTimerable(1, -1, second);
+		RescheduleTimer.add(first, 50);
+		RescheduleTimer.add(second, 50);
+
+		runSlots(3);
+		assertEquals(Arrays.asList(1), calls);
+		assertEquals(0, RescheduleTimer.getScheduledCount());
+	}
+
+	@Test
+	public void testAddingAgainSchedulesTimerableTwice() {
+		TestTimerable timerable = new TestTimerable(1, -1);
+		TestTimerable other = new TestTimerable(2, -1);
+		RescheduleTimer.add(timerable, 100);
+		RescheduleTimer.add(other, 50);
+		RescheduleTimer.add(timerable, 50);
+		assertEquals(3, RescheduleTimer.getScheduledCount());
+
+		runSlots(3);
+		assertEquals(Arrays.asList(2, 1), calls);
+		assertTrue(timerable.getTimerSlotLink().isScheduled());
+		runSlots(2);
+		assertEquals(Arrays.asList(2, 1, 1), calls);
+		assertEquals(0, RescheduleTimer.getScheduledCount());
+	}
+
+	@Test
+	public void testReschedulingScheduledTimerable() {
+		TestTimerable timerable = new TestTimerable(1, 50);
+		RescheduleTimer.add(timerable, 75);
+		RescheduleTimer.add(timerable, 25);
+
+		runSlots(2);
+		assertEquals(Arrays.asList(1), calls);
+		assertEquals(2, RescheduleTimer.getScheduledCount());
+
+		runSlots(2);
+		assertEquals(Arrays.asList(1, 1, 1), calls);
+		assertEquals(2, RescheduleTimer.getScheduledCount());
+	}
+
+	@Test
+	public void testSerializationKeepsTimerableScheduledTwice() throws Exception {
+		TestTimerable timerable = new TestTimerable(1, -1);
+		RescheduleTimer.add(timerable, 50);
+		RescheduleTimer.add(new TestTimerable(2, -1), 50);
+		RescheduleTimer.add(timerable, 50);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		RescheduleTimer.saveTo(oos);
+		oos.close();
+
+		RescheduleTimer.loadFrom(new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())));
+		assertEquals(3, RescheduleTimer.getScheduledCount());
+
+		runSlots(3);
+		assertEquals(Arrays.asList(1, 2, 1), calls);
+	}
+
+	@Test
+	public void testSerializationKeepsOrder() throws Exception {
+		RescheduleTimer.add(new TestTimerable(2, -1), 50);
+		RescheduleTimer.add(new TestTimerable(1, -1), 50);
+		RescheduleTimer.add(new TestTimerable(3, -1), 75);
+		runSlots(1);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		RescheduleTimer.saveTo(oos);
+		oos.close();
+
+		RescheduleTimer.loadFrom(new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())));
+		assertEquals(3, RescheduleTimer.getScheduledCount());
+
+		runSlots(3);
+		assertEquals(Arrays.asList(2, 1, 3), calls);
+	}
+
+	private static void runSlots(int slots) {
+		for (int i = 0; i < slots; i++) {
+			RescheduleTimer.get().timerEvent();
+		}
+	}
+
+	private static class TestTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+		private final int delay;
+		private final IScheduledTimerable toRemove;
+		private final TimerSlotLink timerSlotLink = new TimerSlotLink(this);
+
+		TestTimerable(int id, int delay) {
+			this(id, delay, null);
+		}
+
+		TestTimerable(int id, int delay, IScheduledTimerable toRemove) {
+			this.id = id;
+			this.delay = delay;
+			this.toRemove = toRemove;
+		}
+
+		@Override
+		public int timerEvent() {
+			calls.add(id);
+			if (toRemove != null) {
+				RescheduleTimer.remove(toRemove);
+			}
+			return delay;
+		}
+
+		@Override
+		public void kill() {
+		}
+
+		@Override
+		public TimerSlotLink getTimerSlotLink() {
+			return timerSlotLink;
+		}
+	}
+}
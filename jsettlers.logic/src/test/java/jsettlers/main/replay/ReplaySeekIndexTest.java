@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main.replay;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link ReplaySeekIndex}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class ReplaySeekIndexTest {
+
+	@Test
+	public void testReadWrittenSnapshots() throws IOException {
+		ReplaySeekIndex index = ReplaySeekIndex.read(new ByteArrayInputStream(createIndex(3)));
+
+		List<ReplaySeekIndex.Snapshot> snapshots = index.getSnapshots();
+		assertEquals(3, snapshots.size());
+		for (int i = 0; i < snapshots.size(); i++) {
+			ReplaySeekIndex.Snapshot snapshot = snapshots.get(i);
+			assertEquals(getGameTime(i), snapshot.getGameTime());
+			assertEquals(1000 * i, snapshot.getReplayPosition());
+			assertArrayEquals(getRemainingTasks(i), readAll(snapshot.openRemainingTasks()));
+			assertArrayEquals(getSavegame(i), readAll(snapshot.getInputStream()));
+		}
+	}
+
+	@Test
+	public void testGetSnapshotBefore() throws IOException {
+		ReplaySeekIndex index = ReplaySeekIndex.read(new ByteArrayInputStream(createIndex(3)));
+		List<ReplaySeekIndex.Snapshot> snapshots = index.getSnapshots();
+
+		assertNull(index.getSnapshotBefore(getGameTime(0)));
+		assertSame(snapshots.get(0), index.getSnapshotBefore(getGameTime(0) + 1));
+		assertSame(snapshots.get(0), index.getSnapshotBefore(getGameTime(1)));
+		assertSame(snapshots.get(1), index.getSnapshotBefore(getGameTime(2)));
+		assertSame(snapshots.get(2), index.getSnapshotBefore(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testIncompleteSnapshotIsIgnored() throws IOException {
+		byte[] index = createIndex(2);
+		byte[] truncatedIndex = Arrays.copyOf(index, index.length - 3);
+
+		assertEquals(1, ReplaySeekIndex.read(new ByteArrayInputStream(truncatedIndex)).getSnapshots().size());
+	}
+
+	@Test
+	public void testEmptyIndex() throws IOException {
+		assertEquals(0, ReplaySeekIndex.read(new ByteArrayInputStream(createIndex(0))).getSnapshots().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void testOtherFileIsRejected() throws IOException {
+		ReplaySeekIndex.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+	}
+
+	private static byte[] createIndex(int numberOfSnapshots) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(out);
+		ReplaySeekIndex.writeHeader(dos);
+		for (int i = 0; i < numberOfSnapshots; i++) {
+			ReplaySeekIndex.writeSnapshot(dos, getGameTime(i), 1000 * i, getRemainingTasks(i), getSavegame(i));
+		}
+		return out.toByteArray();
+	}
+
+	private static int getGameTime(int index) {
+		return (index + 1) * 10 * 60 * 1000;
+	}
+
+	private static byte[] getRemainingTasks(int index) {
+		byte[] tasks = new byte[index * 3];
+		Arrays.fill(tasks, (byte) index);
+		return tasks;
+	}
+
+	private static byte[] getSavegame(int index) {
+		byte[] savegame = new byte[100 + index];
+		for (int i = 0; i < savegame.length; i++) {
+			savegame[i] = (byte) (i * 7 + index);
+		}
+		return savegame;
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[64];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+}
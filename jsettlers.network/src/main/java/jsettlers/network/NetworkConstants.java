@@ -45,13 +45,17 @@ public final class NetworkConstants {
 		}
 
 		// public static final int SERVER_PORT = 10213; // VERSION 1
-		public static final int SERVER_PORT = 10214; // VERSION 2
+		// public static final int SERVER_PORT = 10214; // VERSION 2
+		public static final int SERVER_PORT = 10215; // VERSION 3
 
 		public static final int BROADCAST_PORT = 10233;
 		public static final String BROADCAST_MESSAGE = "JSETTLERS-LAN-SERVER-BROADCAST-V1";
 		public static final int BROADCAST_BUFFER_LENGTH = BROADCAST_MESSAGE.length();
 
 		public static final long OPEN_MATCHES_SEND_INTERVAL_MS = 5 * 1000;
+
+		public static final int SCHEDULER_TICK_MS = 2;
+		public static final int SCHEDULER_WHEEL_SIZE = 512;
 	}
 
 	public final static class Client {
@@ -74,6 +78,10 @@ public final class NetworkConstants {
 		 * The number of steps the server can run ahead of the clients.
 		 */
 		public static int LOCKSTEP_DEFAULT_LEAD_STEPS = 3;
+		/**
+		 * The number of locksteps between two exchanges of the state hashes of the game.
+		 */
+		public static int STATE_HASH_INTERVAL_LOCKSTEPS = 10;
 	}
 
 	/**
@@ -144,7 +152,8 @@ public final class NetworkConstants {
 		CHAT_MESSAGE,
 		TIME_SYNC,
 
-		CHANGE_START_FINISHED;
+		CHANGE_START_FINISHED,
+		STATE_HASH;
 
 		private static final ENetworkKey[] values = ENetworkKey.values();
 		private final byte ordinal;
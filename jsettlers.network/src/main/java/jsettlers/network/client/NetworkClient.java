@@ -20,11 +20,16 @@ import java.util.Timer;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.client.interfaces.IDesyncListener;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.client.interfaces.INetworkClient;
 import jsettlers.network.client.interfaces.INetworkConnector;
+import jsettlers.network.client.interfaces.IStateHashSupplier;
 import jsettlers.network.client.interfaces.ITaskScheduler;
 import jsettlers.network.client.receiver.IPacketReceiver;
+import jsettlers.network.client.statehash.StateHashComparison;
+import jsettlers.network.client.statehash.StateHashListener;
+import jsettlers.network.client.statehash.StateHashSenderTimerable;
 import jsettlers.network.client.task.TaskPacketListener;
 import jsettlers.network.client.task.packets.TaskPacket;
 import jsettlers.network.client.time.ISynchronizableClock;
@@ -82,7 +87,7 @@ public class NetworkClient implements ITaskScheduler, INetworkConnector, INetwor
 		this(new AsyncChannel(serverAddress, NetworkConstants.Server.SERVER_PORT), channelClosedListener);
 	}
 
-	NetworkClient(AsyncChannel channel, final IChannelClosedListener channelClosedListener, INetworkClientClock gameClock) {
+	public NetworkClient(AsyncChannel channel, final IChannelClosedListener channelClosedListener, INetworkClientClock gameClock) {
 		this.channel = channel;
 		channel.setChannelClosedListener(new IChannelClosedListener() {
 			@Override
@@ -252,6 +257,15 @@ public class NetworkClient implements ITaskScheduler, INetworkConnector, INetwor
 		timer.schedule(timeSyncSender, 0, NetworkConstants.Client.TIME_SYNC_SEND_INTERVALL);
 	}
 
+	@Override
+	public void startStateHashComparison(IStateHashSupplier stateHashSupplier, IDesyncListener desyncListener) {
+		StateHashComparison comparison = new StateHashComparison(desyncListener);
+		channel.registerListener(new StateHashListener(comparison));
+
+		short period = (short) (NetworkConstants.Client.STATE_HASH_INTERVAL_LOCKSTEPS * NetworkConstants.Client.LOCKSTEP_PERIOD);
+		clock.schedule(new StateHashSenderTimerable(channel, clock, stateHashSupplier, comparison, playerInfo.getId()), period);
+	}
+
 	void matchInfoUpdated(MatchInfoUpdatePacket matchInfoUpdate) {
 		switch (matchInfoUpdate.getUpdateReason()) {
 		case PLAYER_LEFT:
@@ -17,8 +17,10 @@ package jsettlers.network.client;
 import java.util.Arrays;
 
 import jsettlers.network.NetworkConstants;
+import jsettlers.network.client.interfaces.IDesyncListener;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.client.interfaces.INetworkConnector;
+import jsettlers.network.client.interfaces.IStateHashSupplier;
 import jsettlers.network.client.interfaces.ITaskScheduler;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
@@ -77,4 +79,9 @@ public class OfflineNetworkConnector implements ITaskScheduler, INetworkConnecto
 		return startFinished;
 	}
 
+	@Override
+	public void startStateHashComparison(IStateHashSupplier stateHashSupplier, IDesyncListener desyncListener) {
+		// there are no other players to compare the state with
+	}
+
 }
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.client.interfaces;
+
+/**
+ * Listener that is informed when the game state of another player diverged from the local one.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public interface IDesyncListener {
+	/**
+	 * Called when the state hashes of another player differ from the local ones. This is only reported for the first lockstep with differing
+	 * hashes of every player, as the games don't converge again.
+	 * 
+	 * @param lockstep
+	 *            The lockstep after which the hashes have been calculated.
+	 * @param playerId
+	 *            The id of the player whose game diverged from the local one.
+	 * @param localHashes
+	 *            The local hashes as returned by {@link IStateHashSupplier#getStateHashes()}.
+	 * @param remoteHashes
+	 *            The hashes of the other player.
+	 */
+	void desyncDetected(int lockstep, String playerId, long[] localHashes, long[] remoteHashes);
+}
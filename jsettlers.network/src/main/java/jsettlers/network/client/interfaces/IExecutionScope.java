@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.client.interfaces;
+
+/**
+ * A scope the {@link IGameClock} enters on the executing thread before it executes a time slice and exits afterwards. This can be used to
+ * bind thread local state of the game to the thread executing it.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public interface IExecutionScope {
+	/**
+	 * Called before the clock executes a time slice.
+	 * 
+	 * @return State that is handed to {@link #exitExecution(Object)}.
+	 */
+	Object enterExecution();
+
+	/**
+	 * Called after the clock executed a time slice.
+	 * 
+	 * @param previousState
+	 *            The value returned by the corresponding call of {@link #enterExecution()}.
+	 */
+	void exitExecution(Object previousState);
+}
@@ -35,6 +35,31 @@ public interface IGameClock extends IPausingSupplier {
 
 	void setTaskExecutor(ITaskExecutor taskExecutor);
 
+	/**
+	 * Sets the scope entered around the execution of every time slice on the executing thread.
+	 * 
+	 * @param executionScope
+	 *            The scope or <code>null</code>.
+	 */
+	void setExecutionScope(IExecutionScope executionScope);
+
+	/**
+	 * Enables or disables the maximum speed mode. In this mode, the time slices are executed one after another as fast as possible instead of
+	 * following the wall clock and the executed tasks aren't logged. This is meant for headless games, like replays or AI games. Pausing still
+	 * works as usual.
+	 * 
+	 * @param maximumSpeed
+	 *            <code>true</code> to run as fast as possible, <code>false</code> to follow the wall clock again.
+	 */
+	void setMaximumSpeed(boolean maximumSpeed);
+
+	boolean isMaximumSpeed();
+
+	/**
+	 * @return The number of time slices executed per second of wall clock time, measured over the last few seconds of execution.
+	 */
+	float getTimeSlicesPerSecond();
+
 	void multiplyGameSpeed(float factor);
 
 	void setGameSpeed(float speedFactor);
@@ -64,8 +89,10 @@ public interface IGameClock extends IPausingSupplier {
 	 * Saves the remaining tasks to the given stream.
 	 * 
 	 * @param dos
+	 * @return The number of bytes written to the replay log so far or -1 if no replay log is written. The remaining tasks and this position are
+	 *         determined together, so every task not saved to the given stream is logged after this position.
 	 */
-	void saveRemainingTasks(DataOutputStream dos) throws IOException;
+	int saveRemainingTasks(DataOutputStream dos) throws IOException;
 
 	void loadReplayLogFromStream(DataInputStream dataInputStream);
 
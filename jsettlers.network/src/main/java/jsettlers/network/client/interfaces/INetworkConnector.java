@@ -43,4 +43,15 @@ public interface INetworkConnector {
 	void setStartFinished(boolean startFinished);
 
 	boolean haveAllPlayersStartFinished();
+
+	/**
+	 * Starts the exchange of the state hashes with the other players. This must be called before the game clock is started, so that all clients
+	 * calculate their hashes at the same game times.
+	 * 
+	 * @param stateHashSupplier
+	 *            The supplier of the hashes of the local game state.
+	 * @param desyncListener
+	 *            The listener to be informed when the game of another player diverged from the local one.
+	 */
+	void startStateHashComparison(IStateHashSupplier stateHashSupplier, IDesyncListener desyncListener);
 }
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.client.statehash;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import jsettlers.network.client.interfaces.IDesyncListener;
+import jsettlers.network.common.packets.StateHashPacket;
+
+/**
+ * Compares the local state hashes with the ones received from the other players. As the clients run a few locksteps apart, the hashes of either
+ * side can arrive first. Therefore the local hashes of the last locksteps and the remote hashes not yet calculated locally are kept.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class StateHashComparison {
+	private static final int MAX_STORED_HASHES = 64;
+
+	private final IDesyncListener desyncListener;
+
+	private final LinkedHashMap<Integer, long[]> localHashes = new LinkedHashMap<Integer, long[]>() {
+		private static final long serialVersionUID = 2954871839245718343L;
+
+		@Override
+		protected boolean removeEldestEntry(Entry<Integer, long[]> eldest) {
+			return size() > MAX_STORED_HASHES;
+		}
+	};
+	private final LinkedList<StateHashPacket> pendingRemoteHashes = new LinkedList<StateHashPacket>();
+	private final Set<String> desyncedPlayers = new HashSet<String>();
+
+	private int lastLocalLockstep = Integer.MIN_VALUE;
+
+	public StateHashComparison(IDesyncListener desyncListener) {
+		this.desyncListener = desyncListener;
+	}
+
+	/**
+	 * Stores the local hashes of the given lockstep and compares them with the hashes already received for it.
+	 * 
+	 * @param lockstep
+	 * @param hashes
+	 */
+	public synchronized void localHashesCalculated(int lockstep, long[] hashes) {
+		localHashes.put(lockstep, hashes);
+		lastLocalLockstep = lockstep;
+
+		for (Iterator<StateHashPacket> iterator = pendingRemoteHashes.iterator(); iterator.hasNext();) {
+			StateHashPacket remote = iterator.next();
+			if (remote.getLockstep() <= lockstep) {
+				iterator.remove();
+				compare(localHashes.get(remote.getLockstep()), remote);
+			}
+		}
+	}
+
+	/**
+	 * Compares the hashes of another player with the local ones or keeps them until the local hashes of the lockstep have been calculated.
+	 * 
+	 * @param remote
+	 */
+	public synchronized void remoteHashesReceived(StateHashPacket remote) {
+		if (remote.getLockstep() > lastLocalLockstep) {
+			pendingRemoteHashes.addLast(remote);
+			if (pendingRemoteHashes.size() > MAX_STORED_HASHES) {
+				pendingRemoteHashes.removeFirst();
+			}
+		} else {
+			compare(localHashes.get(remote.getLockstep()), remote);
+		}
+	}
+
+	private void compare(long[] local, StateHashPacket remote) {
+		if (local == null) { // the local hashes of this lockstep are not available any more or have never been calculated
+			return;
+		}
+
+		if (!Arrays.equals(local, remote.getHashes()) && desyncedPlayers.add(remote.getPlayerId())) {
+			desyncListener.desyncDetected(remote.getLockstep(), remote.getPlayerId(), local, remote.getHashes());
+		}
+	}
+
+}
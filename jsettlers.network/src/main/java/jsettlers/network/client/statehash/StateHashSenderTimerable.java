@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.client.statehash;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.client.interfaces.IGameClock;
+import jsettlers.network.client.interfaces.IStateHashSupplier;
+import jsettlers.network.common.packets.StateHashPacket;
+import jsettlers.network.infrastructure.channel.AsyncChannel;
+import jsettlers.network.synchronic.timer.INetworkTimerable;
+
+/**
+ * Calculates the state hashes every {@link NetworkConstants.Client#STATE_HASH_INTERVAL_LOCKSTEPS} locksteps and sends them to the other players.
+ * As this is scheduled on the {@link IGameClock}, the hashes are calculated at the same game time on every client.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class StateHashSenderTimerable implements INetworkTimerable {
+
+	private final AsyncChannel channel;
+	private final IGameClock clock;
+	private final IStateHashSupplier stateHashSupplier;
+	private final StateHashComparison comparison;
+	private final String playerId;
+
+	public StateHashSenderTimerable(AsyncChannel channel, IGameClock clock, IStateHashSupplier stateHashSupplier, StateHashComparison comparison,
+			String playerId) {
+		this.channel = channel;
+		this.clock = clock;
+		this.stateHashSupplier = stateHashSupplier;
+		this.comparison = comparison;
+		this.playerId = playerId;
+	}
+
+	@Override
+	public void timerEvent() {
+		int lockstep = clock.getTime() / NetworkConstants.Client.LOCKSTEP_PERIOD;
+		long[] hashes = stateHashSupplier.getStateHashes();
+
+		comparison.localHashesCalculated(lockstep, hashes);
+		channel.sendPacketAsync(NetworkConstants.ENetworkKey.STATE_HASH, new StateHashPacket(playerId, lockstep, hashes));
+	}
+
+}
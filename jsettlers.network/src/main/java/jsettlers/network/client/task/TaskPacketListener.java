@@ -15,14 +15,19 @@
 package jsettlers.network.client.task;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
 import jsettlers.network.infrastructure.channel.GenericDeserializer;
 import jsettlers.network.infrastructure.channel.listeners.PacketChannelListener;
 
 /**
+ * This listener receives the {@link SyncTasksPacket}s and forwards them to the {@link ISyncTasksPacketScheduler}. A run of empty locksteps sent
+ * with a single packet is forwarded as a separate packet for every lockstep, so
+ * every forwarded packet covers exactly one lockstep.
  * 
  * @author Andreas Eberle
  * 
@@ -38,6 +43,16 @@ public class TaskPacketListener extends PacketChannelListener<SyncTasksPacket> {
 
 	@Override
 	protected void receivePacket(ENetworkKey key, SyncTasksPacket packet) throws IOException {
-		receiver.scheduleSyncTasksPacket(packet);
+		int followingEmptyLocksteps = packet.getFollowingEmptyLocksteps();
+		if (followingEmptyLocksteps == 0) {
+			receiver.scheduleSyncTasksPacket(packet);
+		} else { // the receiver only handles single locksteps (e.g. for the replay), so the run is split up
+			receiver.scheduleSyncTasksPacket(new SyncTasksPacket(packet.getLockstepNumber(), packet.getTasks()));
+		}
+
+		int lockstep = packet.getLockstepNumber();
+		for (int i = 0; i < followingEmptyLocksteps; i++) {
+			receiver.scheduleSyncTasksPacket(new SyncTasksPacket(++lockstep, Collections.<TaskPacket> emptyList()));
+		}
 	}
 }
@@ -3,12 +3,16 @@ package jsettlers.network.client.task.packets;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.utils.VarIntUtils;
 
 /**
+ * This packet contains the tasks that need to be executed in the given lockstep. It also unlocks the given number of empty locksteps following it.
+ * This way, the server can send a run of locksteps with a single packet.
  * 
  * @author Andreas Eberle
  * 
@@ -16,20 +20,27 @@ import jsettlers.network.infrastructure.channel.packet.Packet;
 public class SyncTasksPacket extends Packet {
 
 	private int lockstepNumber;
+	private int followingEmptyLocksteps;
 	private List<TaskPacket> tasks;
 
 	public SyncTasksPacket() {
 	}
 
 	public SyncTasksPacket(int packetNumber, List<TaskPacket> tasks) {
+		this(packetNumber, 0, tasks);
+	}
+
+	public SyncTasksPacket(int packetNumber, int followingEmptyLocksteps, List<TaskPacket> tasks) {
 		this.lockstepNumber = packetNumber;
+		this.followingEmptyLocksteps = followingEmptyLocksteps;
 		this.tasks = tasks;
 	}
 
 	@Override
 	public void serialize(DataOutputStream dos) throws IOException {
-		dos.writeInt(lockstepNumber);
-		dos.writeInt(tasks.size());
+		VarIntUtils.writeVarInt(dos, lockstepNumber);
+		VarIntUtils.writeVarInt(dos, followingEmptyLocksteps);
+		VarIntUtils.writeVarInt(dos, tasks.size());
 
 		for (TaskPacket curr : tasks) {
 			curr.serialize(dos);
@@ -38,12 +49,48 @@ public class SyncTasksPacket extends Packet {
 
 	@Override
 	public void deserialize(DataInputStream dis) throws IOException {
+		lockstepNumber = VarIntUtils.readVarInt(dis);
+		followingEmptyLocksteps = VarIntUtils.readVarInt(dis);
+		int numberOfTasks = VarIntUtils.readVarInt(dis);
+		tasks = new ArrayList<TaskPacket>(numberOfTasks);
+
+		for (int i = 0; i < numberOfTasks; i++) {
+			TaskPacket task = TaskPacket.DEFAULT_DESERIALIZER.deserialize(null, dis);
+			tasks.add(task);
+		}
+	}
+
+	/**
+	 * Serializes this packet in the format used by replay files. The replay format does not support runs of empty locksteps.
+	 * 
+	 * @param dos
+	 * @throws IOException
+	 */
+	public void serializeForReplay(DataOutputStream dos) throws IOException {
+		assert followingEmptyLocksteps == 0;
+
+		dos.writeInt(lockstepNumber);
+		dos.writeInt(tasks.size());
+
+		for (TaskPacket curr : tasks) {
+			curr.serializeForReplay(dos);
+		}
+	}
+
+	/**
+	 * Deserializes a packet written with {@link #serializeForReplay(DataOutputStream)}.
+	 * 
+	 * @param dis
+	 * @throws IOException
+	 */
+	public void deserializeFromReplay(DataInputStream dis) throws IOException {
 		lockstepNumber = dis.readInt();
+		followingEmptyLocksteps = 0;
 		int numberOfTasks = dis.readInt();
 		tasks = new LinkedList<TaskPacket>();
 
 		for (int i = 0; i < numberOfTasks; i++) {
-			TaskPacket task = TaskPacket.DEFAULT_DESERIALIZER.deserialize(null, dis);
+			TaskPacket task = TaskPacket.REPLAY_DESERIALIZER.deserialize(null, dis);
 			tasks.add(task);
 		}
 	}
@@ -53,6 +100,7 @@ public class SyncTasksPacket extends Packet {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + lockstepNumber;
+		result = prime * result + followingEmptyLocksteps;
 		result = prime * result + ((tasks == null) ? 0 : tasks.hashCode());
 		return result;
 	}
@@ -68,6 +116,8 @@ public class SyncTasksPacket extends Packet {
 		SyncTasksPacket other = (SyncTasksPacket) obj;
 		if (lockstepNumber != other.lockstepNumber)
 			return false;
+		if (followingEmptyLocksteps != other.followingEmptyLocksteps)
+			return false;
 		if (tasks == null) {
 			if (other.tasks != null)
 				return false;
@@ -83,6 +133,13 @@ public class SyncTasksPacket extends Packet {
 		return lockstepNumber;
 	}
 
+	/**
+	 * @return the number of empty locksteps following the lockstep of this packet that are unlocked by this packet, too.
+	 */
+	public int getFollowingEmptyLocksteps() {
+		return followingEmptyLocksteps;
+	}
+
 	/**
 	 * @return the tasks
 	 */
@@ -92,6 +149,6 @@ public class SyncTasksPacket extends Packet {
 
 	@Override
 	public String toString() {
-		return "lockstep: " + lockstepNumber + " tasks: " + tasks;
+		return "lockstep: " + lockstepNumber + " following empty: " + followingEmptyLocksteps + " tasks: " + tasks;
 	}
 }
@@ -18,12 +18,23 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.infrastructure.channel.IDeserializingable;
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.utils.VarIntUtils;
 
 /**
+ * A task that is executed synchronously by all clients of a match.
+ * <p />
+ * A task has two serialized forms: The network form written by {@link #serialize(DataOutputStream)} uses variable length integers and allows the
+ * task to encode id lists compactly with {@link #writeIds(DataOutputStream, List)}. The replay form written by
+ * {@link #serializeForReplay(DataOutputStream)} is the original format with fixed length integers. It must not change, so old replays can still be
+ * loaded.
  * 
  * @author Andreas Eberle
  * 
@@ -33,39 +44,125 @@ public abstract class TaskPacket extends Packet {
 
 		@Override
 		public TaskPacket deserialize(ENetworkKey key, DataInputStream dis) throws IOException {
-			try {
-				dis.readInt(); // read the length in bytes from the stream. We don't need it here, only the server needs it.
-				String className = dis.readUTF();
-				@SuppressWarnings("unchecked")
-				Class<? extends TaskPacket> taskClass = (Class<? extends TaskPacket>) Class.forName(className);
-				TaskPacket packet = taskClass.newInstance();
-				packet.deserializeTask(dis);
-				return packet;
-			} catch (Exception e) {
-				throw new IOException(e);
-			}
+			VarIntUtils.readVarInt(dis); // read the length in bytes from the stream. We don't need it here, only the server needs it.
+			return deserializeTaskWithClassName(new CompactDataInputStream(dis));
+		}
+	};
+
+	public static final IDeserializingable<TaskPacket> REPLAY_DESERIALIZER = new IDeserializingable<TaskPacket>() {
+
+		@Override
+		public TaskPacket deserialize(ENetworkKey key, DataInputStream dis) throws IOException {
+			dis.readInt(); // read the length in bytes from the stream. We don't need it here.
+			return deserializeTaskWithClassName(dis);
 		}
 	};
 
 	@Override
 	public final void serialize(DataOutputStream dos) throws IOException {
 		ByteArrayOutputStream bufferOutStream = new ByteArrayOutputStream();
-		DataOutputStream bufferDataOutStream = new DataOutputStream(bufferOutStream);
+		serializeTaskWithClassName(new CompactDataOutputStream(bufferOutStream));
 
-		bufferDataOutStream.writeUTF(this.getClass().getName());
-		serializeTask(bufferDataOutStream);
-		bufferDataOutStream.flush();
+		VarIntUtils.writeVarInt(dos, bufferOutStream.size());
+		bufferOutStream.writeTo(dos);
+	}
+
+	/**
+	 * Serializes this task in the format used by replay files.
+	 * 
+	 * @param dos
+	 * @throws IOException
+	 */
+	public final void serializeForReplay(DataOutputStream dos) throws IOException {
+		ByteArrayOutputStream bufferOutStream = new ByteArrayOutputStream();
+		serializeTaskWithClassName(new DataOutputStream(bufferOutStream));
 
 		dos.writeInt(bufferOutStream.size());
 		bufferOutStream.writeTo(dos);
 	}
 
+	private void serializeTaskWithClassName(DataOutputStream bufferDataOutStream) throws IOException {
+		bufferDataOutStream.writeUTF(this.getClass().getName());
+		serializeTask(bufferDataOutStream);
+		bufferDataOutStream.flush();
+	}
+
 	protected abstract void serializeTask(DataOutputStream dos) throws IOException;
 
 	@Override
 	public final void deserialize(DataInputStream dis) throws IOException {
 	}
 
+	private static TaskPacket deserializeTaskWithClassName(DataInputStream dis) throws IOException {
+		try {
+			String className = dis.readUTF();
+			@SuppressWarnings("unchecked")
+			Class<? extends TaskPacket> taskClass = (Class<? extends TaskPacket>) Class.forName(className);
+			TaskPacket packet = taskClass.newInstance();
+			packet.deserializeTask(dis);
+			return packet;
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+
 	protected abstract void deserializeTask(DataInputStream dis) throws IOException;
 
+	/**
+	 * Writes a list of ids. In the network form, the ids are delta encoded as variable length integers, which is especially short for sorted lists.
+	 * The order of the ids is kept in both forms.
+	 * 
+	 * @param dos
+	 *            The stream given to {@link #serializeTask(DataOutputStream)}.
+	 * @param ids
+	 * @throws IOException
+	 */
+	protected static void writeIds(DataOutputStream dos, List<Integer> ids) throws IOException {
+		if (dos instanceof CompactDataOutputStream) {
+			VarIntUtils.writeDeltaEncoded(dos, ids);
+		} else {
+			dos.writeInt(ids.size());
+			for (Integer curr : ids) {
+				dos.writeInt(curr);
+			}
+		}
+	}
+
+	/**
+	 * Reads a list of ids written with {@link #writeIds(DataOutputStream, List)}.
+	 * 
+	 * @param dis
+	 *            The stream given to {@link #deserializeTask(DataInputStream)}.
+	 * @return
+	 * @throws IOException
+	 */
+	protected static List<Integer> readIds(DataInputStream dis) throws IOException {
+		if (dis instanceof CompactDataInputStream) {
+			return VarIntUtils.readDeltaEncoded(dis);
+		} else {
+			int numberOfElements = dis.readInt();
+			List<Integer> ids = new ArrayList<Integer>(numberOfElements);
+			for (int i = 0; i < numberOfElements; i++) {
+				ids.add(dis.readInt());
+			}
+			return ids;
+		}
+	}
+
+	/**
+	 * Marks the streams of the network form.
+	 */
+	private static final class CompactDataOutputStream extends DataOutputStream {
+		CompactDataOutputStream(OutputStream out) {
+			super(out);
+		}
+	}
+
+	private static final class CompactDataInputStream extends DataInputStream {
+		CompactDataInputStream(InputStream in) {
+			super(in);
+		}
+	}
 }
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.common.packets;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import jsettlers.network.infrastructure.channel.packet.Packet;
+
+/**
+ * This subclass of {@link Packet} contains the hashes of the game state of a player after the given lockstep. The hashes are exchanged between the
+ * players to detect if their games diverged.
+ *
+ * @author Andreas Eberle
+ *
+ */
+public class StateHashPacket extends Packet {
+
+	private String playerId;
+	private int lockstep;
+	private long[] hashes;
+
+	public StateHashPacket() {
+	}
+
+	public StateHashPacket(String playerId, int lockstep, long[] hashes) {
+		this.playerId = playerId;
+		this.lockstep = lockstep;
+		this.hashes = hashes;
+	}
+
+	@Override
+	public void serialize(DataOutputStream dos) throws IOException {
+		dos.writeUTF(playerId);
+		dos.writeInt(lockstep);
+		dos.writeByte(hashes.length);
+		for (long hash : hashes) {
+			dos.writeLong(hash);
+		}
+	}
+
+	@Override
+	public void deserialize(DataInputStream dis) throws IOException {
+		playerId = dis.readUTF();
+		lockstep = dis.readInt();
+		hashes = new long[dis.readUnsignedByte()];
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = dis.readLong();
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((playerId == null) ? 0 : playerId.hashCode());
+		result = prime * result + lockstep;
+		result = prime * result + Arrays.hashCode(hashes);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		StateHashPacket other = (StateHashPacket) obj;
+		if (playerId == null) {
+			if (other.playerId != null)
+				return false;
+		} else if (!playerId.equals(other.playerId))
+			return false;
+		if (lockstep != other.lockstep)
+			return false;
+		if (!Arrays.equals(hashes, other.hashes))
+			return false;
+		return true;
+	}
+
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	public int getLockstep() {
+		return lockstep;
+	}
+
+	public long[] getHashes() {
+		return hashes;
+	}
+}
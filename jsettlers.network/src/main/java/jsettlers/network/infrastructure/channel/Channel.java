@@ -14,18 +14,19 @@
  *******************************************************************************/
 package jsettlers.network.infrastructure.channel;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.buffer.ByteBufferInputStream;
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.channel.packet.PacketFrame;
 import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
 import jsettlers.network.infrastructure.channel.ping.IRoundTripTimeSupplier;
 import jsettlers.network.infrastructure.channel.ping.PingPacket;
@@ -41,11 +42,17 @@ import jsettlers.network.infrastructure.log.SwitchableLogger;
 /**
  * This class builds up a logical channel between to network partners. The class allows to send data of type {@link Packet} to the partner and to
  * register {@link IChannelListener}s to receive incoming data as a callback.
+ * <p />
+ * This implementation reads the incoming data with a thread of its own. Subclasses doing their own I/O use the {@link #Channel(Logger)}
+ * constructor, extend {@link #start()}, override {@link #sendFrame(PacketFrame)}, {@link #close()} and {@link #isClosed()} and
+ * hand the received packets to {@link #receivePacket(ENetworkKey, int, DataInputStream)}.
  * 
  * @author Andreas Eberle
  * 
  */
 public class Channel implements Runnable, IRoundTripTimeSupplier {
+	private static final int INITIAL_RECEIVE_BUFFER_SIZE = 1024;
+
 	private final Thread thread;
 
 	private final SwitchableLogger logger;
@@ -53,8 +60,11 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	private final DataOutputStream outStream;
 	private final DataInputStream inStream;
 
-	private final ByteArrayOutputStream byteBufferOutStream = new ByteArrayOutputStream();
-	private final DataOutputStream bufferDataOutStream = new DataOutputStream(byteBufferOutStream);
+	private byte[] frameCopyBuffer;
+
+	private ByteBuffer receiveBuffer;
+	private final ByteBufferInputStream receiveStream = new ByteBufferInputStream();
+	private final DataInputStream receiveDataIn = new DataInputStream(receiveStream);
 
 	private final HashMap<ENetworkKey, IChannelListener> listenerRegistry = new HashMap<ENetworkKey, IChannelListener>();
 
@@ -92,6 +102,23 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		thread = new Thread(this, "ChannelForSocket_" + socket);
 	}
 
+	/**
+	 * Creates a {@link Channel} without a socket and a receiving thread. This constructor is meant for subclasses doing their own I/O.
+	 * 
+	 * @param logger
+	 *            The logger to be used.
+	 */
+	protected Channel(Logger logger) {
+		this.logger = new SwitchableLogger(logger);
+		this.socket = null;
+		this.outStream = null;
+		this.inStream = null;
+		this.thread = null;
+
+		pingPacketListener = new PingPacketListener(this.logger, this);
+		registerListener(pingPacketListener);
+	}
+
 	/**
 	 * Starts the message receiving of this {@link Channel}.
 	 * <p />
@@ -104,32 +131,51 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	 */
 	public void start() {
 		started = true;
-		thread.start();
+		if (thread != null) {
+			thread.start();
+		}
 	}
 
-	public synchronized void sendPacket(ENetworkKey key, Packet packet) {
-		if (socket.isClosed())
+	public void sendPacket(ENetworkKey key, Packet packet) {
+		if (isClosed())
 			return;
 
+		PacketFrame frame;
 		try {
-			sendPacketData(key, packet);
+			frame = PacketFrame.serialize(key, packet);
 		} catch (IOException e) {
+			return;
 		}
-	}
 
-	private void sendPacketData(ENetworkKey key, Packet packet) throws IOException {
-		bufferDataOutStream.flush();
-		byteBufferOutStream.reset();
+		try {
+			sendFrame(frame);
+		} finally {
+			frame.release();
+		}
+	}
 
-		packet.serialize(bufferDataOutStream); // write packet to buffer to calculate length
-		bufferDataOutStream.flush();
-		final int length = byteBufferOutStream.size();
+	/**
+	 * Sends an already serialized packet. Use this method to send the same packet to multiple {@link Channel}s.
+	 * 
+	 * @param frame
+	 *            The serialized packet. The caller keeps its reference to the frame and has to release it.
+	 */
+	public synchronized void sendFrame(PacketFrame frame) {
+		if (socket.isClosed())
+			return;
 
-		key.writeTo(outStream); // write key, length and the data
-		outStream.writeInt(length);
-		byteBufferOutStream.writeTo(outStream);
+		try {
+			ByteBuffer data = frame.getData();
+			int size = data.remaining();
+			if (frameCopyBuffer == null || frameCopyBuffer.length < size) {
+				frameCopyBuffer = new byte[Integer.highestOneBit(size) << 1];
+			}
+			data.get(frameCopyBuffer, 0, size);
 
-		outStream.flush();
+			outStream.write(frameCopyBuffer, 0, size); // a single write for key, length and data
+			outStream.flush();
+		} catch (IOException e) {
+		}
 	}
 
 	/**
@@ -158,25 +204,7 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 
 				DataInputStream bufferIn = readBytesToBuffer(inStream, length);
 
-				IChannelListener listener = listenerRegistry.get(key);
-
-				if (listener != null) {
-					try {
-						listener.receive(key, length, bufferIn);
-						if (bufferIn.available() > 0) {
-							logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
-						}
-					} catch (Exception e) { // ignore exceptions thrown in receive
-						e.printStackTrace();
-					}
-				} else {
-					logger.warn("NO LISTENER FOUND for key: " + key + "   (" + socket + ")");
-
-					if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
-						sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
-								new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
-					}
-				}
+				receivePacket(key, length, bufferIn);
 
 			} catch (Exception e) {
 				try {
@@ -188,26 +216,66 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 
 		close(); // release the resources
 
+		notifyChannelClosed();
+	}
+
+	/**
+	 * Hands a received packet to the {@link IChannelListener} registered for its key.
+	 * 
+	 * @param key
+	 *            The key of the packet.
+	 * @param length
+	 *            The number of bytes of the packet's data.
+	 * @param bufferIn
+	 *            A stream supplying the packet's data.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 */
+	protected final void receivePacket(ENetworkKey key, int length, DataInputStream bufferIn) throws IOException {
+		IChannelListener listener = listenerRegistry.get(key);
+
+		if (listener != null) {
+			try {
+				listener.receive(key, length, bufferIn);
+				if (bufferIn.available() > 0) {
+					logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
+				}
+			} catch (Exception e) { // ignore exceptions thrown in receive
+				e.printStackTrace();
+			}
+		} else {
+			logger.warn("NO LISTENER FOUND for key: " + key + "   (" + this + ")");
+
+			if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
+				sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
+						new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
+			}
+		}
+	}
+
+	/**
+	 * Informs the {@link IChannelClosedListener} that this {@link Channel} has been shut down.
+	 */
+	protected final void notifyChannelClosed() {
 		if (channelClosedListener != null) {
 			channelClosedListener.channelClosed();
 		}
-		logger.info("Channel listener shut down: " + socket);
+		logger.info("Channel listener shut down: " + this);
 	}
 
 	private DataInputStream readBytesToBuffer(DataInputStream inStream, int length) throws IOException {
-		byte[] data = new byte[length];
-
-		int alreadyRead = 0;
-		while (length - alreadyRead > 0) {
-			int numberOfBytesRead = inStream.read(data, alreadyRead, length - alreadyRead);
-			if (numberOfBytesRead < 0) {
-				throw new IOException("Stream ended to early!");
-			}
-
-			alreadyRead += numberOfBytesRead;
+		if (length < 0 || length > PacketFrame.MAX_PACKET_LENGTH) {
+			throw new IOException("Invalid packet length: " + length);
+		}
+		if (receiveBuffer == null || receiveBuffer.capacity() < length) { // the buffer is reused for all packets
+			receiveBuffer = ByteBuffer.allocate(Math.max(INITIAL_RECEIVE_BUFFER_SIZE, Integer.highestOneBit(length) << 1));
 		}
 
-		return new DataInputStream(new ByteArrayInputStream(data));
+		inStream.readFully(receiveBuffer.array(), 0, length);
+		receiveBuffer.position(0).limit(length);
+		receiveStream.setBuffer(receiveBuffer);
+
+		return receiveDataIn;
 	}
 
 	/**
@@ -275,6 +343,11 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		return started;
 	}
 
+	@Override
+	public String toString() {
+		return String.valueOf(socket);
+	}
+
 	public void setLogger(Logger newLogger) {
 		this.logger.setLogger(newLogger);
 	}
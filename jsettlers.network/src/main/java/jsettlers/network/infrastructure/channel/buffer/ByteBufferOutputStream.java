@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.buffer;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link OutputStream} writing to a {@link ByteBuffer} of a {@link ByteBufferPool}. If the buffer is full, it is replaced by a bigger one of
+ * the pool.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class ByteBufferOutputStream extends OutputStream {
+	private static final int INITIAL_CAPACITY = 256;
+
+	private final ByteBufferPool pool;
+	private ByteBuffer buffer;
+
+	public ByteBufferOutputStream(ByteBufferPool pool) {
+		this.pool = pool;
+		this.buffer = pool.acquire(INITIAL_CAPACITY);
+	}
+
+	@Override
+	public void write(int b) {
+		ensureCapacity(1);
+		buffer.put((byte) b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		ensureCapacity(len);
+		buffer.put(b, off, len);
+	}
+
+	private void ensureCapacity(int length) {
+		if (buffer.remaining() < length) {
+			ByteBuffer newBuffer = pool.acquire(Math.max(buffer.capacity() * 2, buffer.position() + length));
+			buffer.flip();
+			newBuffer.put(buffer);
+			pool.release(buffer);
+			buffer = newBuffer;
+		}
+	}
+
+	/**
+	 * @return The number of bytes written to this stream.
+	 */
+	public int size() {
+		return buffer.position();
+	}
+
+	/**
+	 * Hands the written data over to the caller. The stream can't be used afterwards.
+	 * 
+	 * @return A buffer of the pool containing the written data between position and limit. It has to be released to the pool by the caller.
+	 */
+	public ByteBuffer detachBuffer() {
+		ByteBuffer result = buffer;
+		buffer = null;
+		result.flip();
+		return result;
+	}
+
+	/**
+	 * Releases the buffer of this stream without handing it over. The stream can't be used afterwards.
+	 */
+	@Override
+	public void close() {
+		if (buffer != null) {
+			pool.release(buffer);
+			buffer = null;
+		}
+	}
+}
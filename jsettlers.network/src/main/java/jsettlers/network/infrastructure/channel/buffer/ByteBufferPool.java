@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread safe pool of direct {@link ByteBuffer}s. The buffers are pooled in size classes of powers of two, from {@value #MIN_POOLED_SIZE}
+ * bytes to {@value #MAX_POOLED_SIZE} bytes. Bigger buffers are allocated on every request and not pooled.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class ByteBufferPool {
+	public static final ByteBufferPool DEFAULT_POOL = new ByteBufferPool(256);
+
+	private static final int MIN_SIZE_SHIFT = 8;
+	private static final int MAX_SIZE_SHIFT = 16;
+	private static final int MIN_POOLED_SIZE = 1 << MIN_SIZE_SHIFT;
+	private static final int MAX_POOLED_SIZE = 1 << MAX_SIZE_SHIFT;
+
+	private final ByteBuffer[][] pooledBuffers;
+	private final int[] pooledBuffersCounts;
+
+	private final AtomicLong allocations = new AtomicLong();
+
+	/**
+	 * Creates a new {@link ByteBufferPool}.
+	 * 
+	 * @param maxBuffersPerSize
+	 *            The maximum number of unused buffers kept for every size class.
+	 */
+	public ByteBufferPool(int maxBuffersPerSize) {
+		int sizeClasses = MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1;
+		this.pooledBuffers = new ByteBuffer[sizeClasses][maxBuffersPerSize];
+		this.pooledBuffersCounts = new int[sizeClasses];
+	}
+
+	/**
+	 * Gets a cleared buffer with at least the given capacity.
+	 * 
+	 * @param minCapacity
+	 *            The minimum capacity of the buffer.
+	 * @return A buffer that has to be handed back with {@link #release(ByteBuffer)} when it isn't used any more.
+	 */
+	public ByteBuffer acquire(int minCapacity) {
+		int sizeClass = getSizeClass(minCapacity);
+		if (sizeClass < 0) {
+			allocations.incrementAndGet();
+			return ByteBuffer.allocateDirect(minCapacity);
+		}
+
+		ByteBuffer[] buffers = pooledBuffers[sizeClass];
+		synchronized (buffers) {
+			if (pooledBuffersCounts[sizeClass] > 0) {
+				int index = --pooledBuffersCounts[sizeClass];
+				ByteBuffer buffer = buffers[index];
+				buffers[index] = null;
+				buffer.clear();
+				return buffer;
+			}
+		}
+
+		allocations.incrementAndGet();
+		return ByteBuffer.allocateDirect(1 << (sizeClass + MIN_SIZE_SHIFT));
+	}
+
+	/**
+	 * Hands the given buffer back to the pool. The buffer must not be used by the caller afterwards.
+	 * 
+	 * @param buffer
+	 *            A buffer acquired from this pool.
+	 */
+	public void release(ByteBuffer buffer) {
+		int capacity = buffer.capacity();
+		int sizeClass = getSizeClass(capacity);
+		if (sizeClass < 0 || capacity != 1 << (sizeClass + MIN_SIZE_SHIFT)) {
+			return; // not a pooled buffer
+		}
+
+		ByteBuffer[] buffers = pooledBuffers[sizeClass];
+		synchronized (buffers) {
+			if (pooledBuffersCounts[sizeClass] < buffers.length) { // otherwise the buffer is left to the garbage collector
+				buffers[pooledBuffersCounts[sizeClass]++] = buffer;
+			}
+		}
+	}
+
+	private static int getSizeClass(int capacity) {
+		if (capacity > MAX_POOLED_SIZE) {
+			return -1;
+		} else if (capacity <= MIN_POOLED_SIZE) {
+			return 0;
+		} else {
+			return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SIZE_SHIFT;
+		}
+	}
+
+	/**
+	 * @return The number of buffers allocated by this pool since its creation.
+	 */
+	public long getAllocations() {
+		return allocations.get();
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.packet;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.buffer.ByteBufferOutputStream;
+import jsettlers.network.infrastructure.channel.buffer.ByteBufferPool;
+
+/**
+ * A {@link Packet} serialized to its wire format (key, length and data) in a pooled direct {@link ByteBuffer}. A frame can be sent to any
+ * number of {@link Channel}s without serializing the packet again.
+ * <p />
+ * The frame is reference counted. The creator holds the first reference and has to {@link #release()} it when it has handed the frame to all
+ * channels. Channels keeping the frame for a later write {@link #retain()} it. The buffer goes back to the pool when the last reference is
+ * released.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class PacketFrame {
+	/**
+	 * The number of bytes in front of the packet's data: the key byte and the length int.
+	 */
+	public static final int HEADER_LENGTH = 5;
+	/**
+	 * The maximum number of data bytes of a packet. The channels reject longer packets and close the connection.
+	 */
+	public static final int MAX_PACKET_LENGTH = 16 * 1024 * 1024;
+
+	private static final AtomicIntegerFieldUpdater<PacketFrame> REFERENCES_UPDATER = AtomicIntegerFieldUpdater.newUpdater(PacketFrame.class,
+			"references");
+
+	private final ByteBufferPool pool;
+	private final ByteBuffer buffer;
+	private volatile int references = 1;
+
+	private PacketFrame(ByteBufferPool pool, ByteBuffer buffer) {
+		this.pool = pool;
+		this.buffer = buffer;
+	}
+
+	public static PacketFrame serialize(ENetworkKey key, Packet packet) throws IOException {
+		return serialize(key, packet, ByteBufferPool.DEFAULT_POOL);
+	}
+
+	public static PacketFrame serialize(ENetworkKey key, Packet packet, ByteBufferPool pool) throws IOException {
+		ByteBufferOutputStream out = new ByteBufferOutputStream(pool);
+		try {
+			DataOutputStream dataOut = new DataOutputStream(out);
+			key.writeTo(dataOut);
+			dataOut.writeInt(0); // placeholder for the length
+			packet.serialize(dataOut);
+			dataOut.flush();
+		} catch (IOException e) {
+			out.close();
+			throw e;
+		}
+
+		ByteBuffer buffer = out.detachBuffer();
+		buffer.putInt(1, buffer.limit() - HEADER_LENGTH);
+		return new PacketFrame(pool, buffer);
+	}
+
+	/**
+	 * @return A new view on the bytes of this frame. Its position is the start of the frame and its limit the end.
+	 */
+	public ByteBuffer getData() {
+		ByteBuffer data = buffer.duplicate();
+		data.position(0);
+		return data;
+	}
+
+	/**
+	 * Writes this frame from its start to the given channel without creating a view on the data.
+	 * 
+	 * @param channel
+	 *            The channel to write to.
+	 * @return The number of written bytes. If the channel is non-blocking, this may be less than {@link #size()}.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 */
+	public synchronized int writeTo(WritableByteChannel channel) throws IOException {
+		buffer.position(0);
+		return channel.write(buffer);
+	}
+
+	/**
+	 * @return The number of bytes of this frame including the header.
+	 */
+	public int size() {
+		return buffer.limit();
+	}
+
+	public void retain() {
+		REFERENCES_UPDATER.incrementAndGet(this);
+	}
+
+	public void release() {
+		int remaining = REFERENCES_UPDATER.decrementAndGet(this);
+		if (remaining == 0) {
+			pool.release(buffer);
+		} else if (remaining < 0) {
+			throw new IllegalStateException("PacketFrame released too often.");
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.selector;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single thread driving the I/O of many {@link SelectorChannel}s with a {@link Selector}. This replaces the receiving thread per connection
+ * used by the standard {@link jsettlers.network.infrastructure.channel.Channel}.
+ * <p />
+ * The received packets are handed to the channel listeners on the selector thread, so listeners must not block.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class ChannelSelector implements Runnable {
+	private final Selector selector;
+	private final Thread thread;
+
+	private final ConcurrentLinkedQueue<SelectorChannel> pendingRegistrations = new ConcurrentLinkedQueue<SelectorChannel>();
+	private final ConcurrentLinkedQueue<SelectorChannel> pendingWrites = new ConcurrentLinkedQueue<SelectorChannel>();
+
+	private volatile boolean canceled = false;
+
+	public ChannelSelector(String name) throws IOException {
+		this.selector = Selector.open();
+		this.thread = new Thread(this, name);
+		this.thread.setDaemon(true);
+	}
+
+	public void start() {
+		thread.start();
+	}
+
+	/**
+	 * Stops the selector thread and closes all channels registered with it.
+	 */
+	public void shutdown() {
+		canceled = true;
+		selector.wakeup();
+	}
+
+	void register(SelectorChannel channel) {
+		pendingRegistrations.offer(channel);
+		selector.wakeup();
+	}
+
+	void requestWrite(SelectorChannel channel) {
+		pendingWrites.offer(channel);
+		selector.wakeup();
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (!canceled) {
+				selector.select();
+
+				registerPendingChannels();
+				enablePendingWrites();
+
+				Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+				while (selectedKeys.hasNext()) {
+					SelectionKey key = selectedKeys.next();
+					selectedKeys.remove();
+
+					SelectorChannel channel = (SelectorChannel) key.attachment();
+					try {
+						if (key.isValid() && key.isReadable()) {
+							channel.handleRead();
+						}
+						if (key.isValid() && key.isWritable()) {
+							channel.handleWrite();
+						}
+					} catch (IOException e) {
+						channel.close();
+					} catch (RuntimeException e) { // e.g. a CancelledKeyException; only this channel is affected
+						channel.close();
+					}
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} catch (ClosedSelectorException e) {
+		} finally {
+			closeAll();
+		}
+	}
+
+	private void registerPendingChannels() {
+		SelectorChannel channel;
+		while ((channel = pendingRegistrations.poll()) != null) {
+			try {
+				channel.register(selector);
+			} catch (IOException e) {
+				channel.close();
+			}
+		}
+	}
+
+	private void enablePendingWrites() {
+		SelectorChannel channel;
+		while ((channel = pendingWrites.poll()) != null) {
+			channel.enableWriteInterest();
+		}
+	}
+
+	private void closeAll() {
+		try {
+			for (SelectionKey key : selector.keys()) {
+				((SelectorChannel) key.attachment()).close();
+			}
+		} catch (ClosedSelectorException e) {
+		}
+
+		SelectorChannel channel;
+		while ((channel = pendingRegistrations.poll()) != null) {
+			channel.close();
+		}
+
+		try {
+			selector.close();
+		} catch (IOException e) {
+		}
+	}
+
+	public boolean isAlive() {
+		return thread.isAlive();
+	}
+}
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.selector;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.buffer.ByteBufferInputStream;
+import jsettlers.network.infrastructure.channel.packet.PacketFrame;
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * A {@link Channel} using a non-blocking {@link SocketChannel} driven by a {@link ChannelSelector}. It doesn't need any thread of its own.
+ * <p />
+ * The wire format is the same as the one of the standard {@link Channel}, so both can talk to each other. Sent packets are serialized into
+ * {@link PacketFrame}s, which are written directly if the socket accepts them. Otherwise the frames are queued and written with gathering writes
+ * by the selector thread. The frames are not copied, so a frame broadcasted to many channels is serialized only once.
+ * <p />
+ * The packets are received into a buffer of this channel that is reused for all packets.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class SelectorChannel extends Channel {
+	private static final int HEADER_LENGTH = PacketFrame.HEADER_LENGTH;
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	private static final int INITIAL_WRITE_QUEUE_SIZE = 16;
+
+	private final SocketChannel socketChannel;
+	private final ChannelSelector channelSelector;
+	private final String name;
+
+	private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+	private final ByteBufferInputStream receiveStream = new ByteBufferInputStream();
+	private final DataInputStream receiveDataIn = new DataInputStream(receiveStream);
+
+	/**
+	 * The queued frames are kept between {@link #writeQueueStart} and {@link #writeQueueEnd}, so they can be written with a single gathering write.
+	 */
+	private PacketFrame[] writeQueueFrames = new PacketFrame[INITIAL_WRITE_QUEUE_SIZE];
+	private ByteBuffer[] writeQueueData = new ByteBuffer[INITIAL_WRITE_QUEUE_SIZE];
+	private int writeQueueStart = 0;
+	private int writeQueueEnd = 0;
+	private boolean writePending = false;
+
+	private SelectionKey selectionKey;
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+
+	/**
+	 * Creates a new {@link SelectorChannel}.
+	 * 
+	 * @param logger
+	 *            The logger to be used.
+	 * @param socketChannel
+	 *            The connected socket channel. It will be switched to non-blocking mode.
+	 * @param channelSelector
+	 *            The {@link ChannelSelector} driving the I/O of this channel.
+	 * @throws IOException
+	 *             If the socket channel can't be configured.
+	 */
+	public SelectorChannel(Logger logger, SocketChannel socketChannel, ChannelSelector channelSelector) throws IOException {
+		super(logger);
+		this.socketChannel = socketChannel;
+		this.channelSelector = channelSelector;
+		this.name = String.valueOf(socketChannel.socket());
+
+		socketChannel.configureBlocking(false);
+		receiveStream.setBuffer(readBuffer);
+	}
+
+	/**
+	 * Opens a connection to the given address.
+	 * 
+	 * @param logger
+	 *            The logger to be used.
+	 * @param host
+	 * @param port
+	 * @param channelSelector
+	 *            The {@link ChannelSelector} driving the I/O of the new channel.
+	 * @return The connected, but not yet started channel.
+	 * @throws IOException
+	 *             If the connection can't be opened.
+	 */
+	public static SelectorChannel connect(Logger logger, String host, int port, ChannelSelector channelSelector) throws IOException {
+		SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress(host, port));
+		return new SelectorChannel(logger, socketChannel, channelSelector);
+	}
+
+	/**
+	 * Starts the message receiving of this {@link SelectorChannel} by registering it at its {@link ChannelSelector}.
+	 */
+	@Override
+	public void start() {
+		super.start();
+		channelSelector.register(this);
+	}
+
+	void register(Selector selector) throws IOException {
+		if (!isClosed()) {
+			selectionKey = socketChannel.register(selector, SelectionKey.OP_READ, this);
+			synchronized (this) {
+				if (writePending) {
+					enableWriteInterest();
+				}
+			}
+		}
+	}
+
+	@Override
+	public synchronized void sendFrame(PacketFrame frame) {
+		if (isClosed()) {
+			return;
+		}
+
+		int written = 0;
+		if (!writePending) {
+			try {
+				written = frame.writeTo(socketChannel); // if nothing is queued, the frame is written without queuing it
+			} catch (IOException e) {
+				close();
+				return;
+			}
+		}
+
+		if (written < frame.size()) {
+			frame.retain();
+			enqueue(frame, written);
+
+			if (!writePending) {
+				writePending = true;
+				channelSelector.requestWrite(this);
+			}
+		}
+	}
+
+	private void enqueue(PacketFrame frame, int alreadyWritten) {
+		if (writeQueueEnd == writeQueueFrames.length) {
+			int queued = writeQueueEnd - writeQueueStart;
+			if (queued * 2 > writeQueueFrames.length) { // grow the queue
+				writeQueueFrames = Arrays.copyOf(writeQueueFrames, writeQueueFrames.length * 2);
+				writeQueueData = Arrays.copyOf(writeQueueData, writeQueueData.length * 2);
+			}
+			System.arraycopy(writeQueueFrames, writeQueueStart, writeQueueFrames, 0, queued);
+			System.arraycopy(writeQueueData, writeQueueStart, writeQueueData, 0, queued);
+			Arrays.fill(writeQueueFrames, queued, writeQueueEnd, null);
+			Arrays.fill(writeQueueData, queued, writeQueueEnd, null);
+			writeQueueStart = 0;
+			writeQueueEnd = queued;
+		}
+
+		writeQueueFrames[writeQueueEnd] = frame;
+		writeQueueData[writeQueueEnd] = frame.getData();
+		writeQueueData[writeQueueEnd].position(alreadyWritten);
+		writeQueueEnd++;
+	}
+
+	private void writeQueuedData() throws IOException {
+		while (writeQueueStart < writeQueueEnd) {
+			long written = socketChannel.write(writeQueueData, writeQueueStart, writeQueueEnd - writeQueueStart);
+
+			while (writeQueueStart < writeQueueEnd && !writeQueueData[writeQueueStart].hasRemaining()) {
+				writeQueueFrames[writeQueueStart].release();
+				writeQueueFrames[writeQueueStart] = null;
+				writeQueueData[writeQueueStart] = null;
+				writeQueueStart++;
+			}
+
+			if (written == 0) {
+				break; // the socket's send buffer is full
+			}
+		}
+
+		if (writeQueueStart == writeQueueEnd) {
+			writeQueueStart = 0;
+			writeQueueEnd = 0;
+		}
+	}
+
+	private void releaseQueuedFrames() {
+		for (int i = writeQueueStart; i < writeQueueEnd; i++) {
+			writeQueueFrames[i].release();
+			writeQueueFrames[i] = null;
+			writeQueueData[i] = null;
+		}
+		writeQueueStart = 0;
+		writeQueueEnd = 0;
+	}
+
+	synchronized void enableWriteInterest() {
+		if (selectionKey != null && selectionKey.isValid() && writePending) {
+			selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		}
+	}
+
+	synchronized void handleWrite() throws IOException {
+		writeQueuedData();
+		if (writeQueueStart == writeQueueEnd) {
+			writePending = false;
+			selectionKey.interestOps(SelectionKey.OP_READ);
+		}
+	}
+
+	void handleRead() throws IOException {
+		if (socketChannel.read(readBuffer) < 0) {
+			close();
+			return;
+		}
+
+		readBuffer.flip();
+		while (readBuffer.remaining() >= HEADER_LENGTH) {
+			int start = readBuffer.position();
+			int length = readBuffer.getInt(start + 1);
+			if (length < 0 || length > PacketFrame.MAX_PACKET_LENGTH) {
+				throw new IOException("Invalid packet length: " + length);
+			}
+			if (readBuffer.remaining() < HEADER_LENGTH + length) {
+				break;
+			}
+
+			int limit = readBuffer.limit();
+			int end = start + HEADER_LENGTH + length;
+			readBuffer.limit(end); // the stream reads the packet directly from the buffer
+
+			ENetworkKey key = ENetworkKey.readFrom(receiveDataIn);
+			receiveDataIn.readInt();
+			receivePacket(key, length, receiveDataIn);
+
+			readBuffer.limit(limit);
+			readBuffer.position(end);
+		}
+
+		if (readBuffer.remaining() >= HEADER_LENGTH) { // the packet doesn't fit into the buffer
+			int packetLength = HEADER_LENGTH + readBuffer.getInt(readBuffer.position() + 1);
+			if (packetLength > readBuffer.capacity()) {
+				ByteBuffer newBuffer = ByteBuffer.allocate(Integer.highestOneBit(packetLength) << 1);
+				newBuffer.put(readBuffer);
+				readBuffer = newBuffer;
+				receiveStream.setBuffer(readBuffer);
+				return;
+			}
+		}
+		readBuffer.compact();
+	}
+
+	@Override
+	public void close() {
+		if (closed.compareAndSet(false, true)) {
+			if (selectionKey != null) {
+				try {
+					selectionKey.cancel();
+				} catch (CancelledKeyException e) {
+				}
+			}
+			try {
+				socketChannel.close();
+			} catch (IOException e) {
+			}
+
+			synchronized (this) {
+				releaseQueuedFrames();
+			}
+
+			notifyChannelClosed();
+		}
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed.get() || !socketChannel.isOpen();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -19,6 +19,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 /**
+ * This {@link OutputStream} delays the written data to simulate the latency of a real network connection. The delay randomly walks between the
+ * given minimum and maximum delay to simulate jitter.
  * 
  * @author Andreas Eberle
  * 
@@ -26,10 +28,18 @@ import java.io.OutputStream;
 public class DelayedOutputStream extends OutputStream {
 
 	private static final int BUFFER_LENGTH = 2000;
+	public static final int MAX_SUPPORTED_DELAY = BUFFER_LENGTH - 1;
+
+	private static final int DEFAULT_MIN_DELAY = 80;
+	private static final int DEFAULT_MAX_DELAY = 120;
+	private static final int DEFAULT_MAX_DELAY_STEP = 10;
 
 	private final Thread thread;
 	private final ByteArrayOutputStream[] buffers = new ByteArrayOutputStream[BUFFER_LENGTH];
 	private final OutputStream out;
+	private final int minDelay;
+	private final int maxDelay;
+	private final int maxDelayStep;
 
 	private boolean closed;
 
@@ -37,7 +47,30 @@ public class DelayedOutputStream extends OutputStream {
 	private int currReadSlot = 0;
 
 	public DelayedOutputStream(OutputStream out) {
+		this(out, DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY, DEFAULT_MAX_DELAY_STEP);
+	}
+
+	/**
+	 * 
+	 * @param out
+	 *            The stream the delayed data is written to.
+	 * @param minDelay
+	 *            Minimum delay in milliseconds.
+	 * @param maxDelay
+	 *            Maximum delay in milliseconds. It must not be larger than {@link #MAX_SUPPORTED_DELAY}.
+	 * @param maxDelayStep
+	 *            Maximum change of the delay per millisecond.
+	 */
+	public DelayedOutputStream(OutputStream out, int minDelay, int maxDelay, int maxDelayStep) {
+		if (minDelay < 0 || maxDelay < minDelay || maxDelay > MAX_SUPPORTED_DELAY) {
+			throw new IllegalArgumentException("Unsupported delay: " + minDelay + " - " + maxDelay);
+		}
+
 		this.out = out;
+		this.minDelay = minDelay;
+		this.maxDelay = maxDelay;
+		this.maxDelayStep = maxDelayStep;
+		this.currWriteSlot = Math.min(currWriteSlot, maxDelay);
 		for (int i = 0; i < buffers.length; i++) {
 			buffers[i] = new ByteArrayOutputStream();
 		}
@@ -60,10 +93,6 @@ public class DelayedOutputStream extends OutputStream {
 	}
 
 	private final class DelayedOutStreamWriter extends Thread {
-		private static final int MIN_DELAY = 80;
-		private static final int MAX_DELAY = 120;
-		private static final int MAX_DELAY_STEP = 10;
-
 		private DelayedOutStreamWriter() {
 			super("delayedOutStreamWriter");
 		}
@@ -75,8 +104,8 @@ public class DelayedOutputStream extends OutputStream {
 				currWriteSlot = (currWriteSlot + 1) % BUFFER_LENGTH;
 
 				int currDist = (BUFFER_LENGTH + currWriteSlot - currReadSlot) % BUFFER_LENGTH;
-				int targetDistance = Math.min(MAX_DELAY,
-						Math.max(MIN_DELAY, (int) (currDist + Math.random() * MAX_DELAY_STEP * 2 - MAX_DELAY_STEP)));
+				int targetDistance = Math.min(maxDelay,
+						Math.max(minDelay, (int) (currDist + Math.random() * maxDelayStep * 2 - maxDelayStep)));
 
 				// System.out.println("ssdsf");
 				if (targetDistance >= currDist) {
@@ -36,6 +36,11 @@ public class DelayedSocket implements ISocket {
 		this.delayedOut = new DelayedOutputStream(socket.getOutputStream());
 	}
 
+	public DelayedSocket(Socket socket, int minDelay, int maxDelay, int maxDelayStep) throws IOException {
+		this.socket = socket;
+		this.delayedOut = new DelayedOutputStream(socket.getOutputStream(), minDelay, maxDelay, maxDelayStep);
+	}
+
 	@Override
 	public OutputStream getOutputStream() throws IOException {
 		return delayedOut;
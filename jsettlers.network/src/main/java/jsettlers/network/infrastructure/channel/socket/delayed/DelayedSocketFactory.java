@@ -28,11 +28,39 @@ import jsettlers.network.infrastructure.channel.socket.SocketConnectException;
  * 
  */
 public class DelayedSocketFactory implements ISocketFactory {
+	private final int minDelay;
+	private final int maxDelay;
+	private final int maxDelayStep;
+
+	public DelayedSocketFactory() {
+		this(-1, -1, -1);
+	}
+
+	/**
+	 * Creates a factory for sockets with the given delay. See {@link DelayedOutputStream#DelayedOutputStream(java.io.OutputStream, int, int, int)}.
+	 * 
+	 * @param minDelay
+	 * @param maxDelay
+	 * @param maxDelayStep
+	 */
+	public DelayedSocketFactory(int minDelay, int maxDelay, int maxDelayStep) {
+		this.minDelay = minDelay;
+		this.maxDelay = maxDelay;
+		this.maxDelayStep = maxDelayStep;
+	}
+
+	private ISocket createSocket(Socket socket) throws IOException {
+		if (minDelay < 0) {
+			return new DelayedSocket(socket);
+		} else {
+			return new DelayedSocket(socket, minDelay, maxDelay, maxDelayStep);
+		}
+	}
 
 	@Override
 	public ISocket generateSocket(String host, int port) throws SocketConnectException {
 		try {
-			return new DelayedSocket(new Socket(host, port));
+			return createSocket(new Socket(host, port));
 		} catch (IOException e) {
 			e.printStackTrace();
 			throw new SocketConnectException("Error during socket connection");
@@ -42,7 +70,7 @@ public class DelayedSocketFactory implements ISocketFactory {
 	@Override
 	public ISocket generateSocket(Socket socket) throws SocketConnectException {
 		try {
-			return new DelayedSocket(socket);
+			return createSocket(socket);
 		} catch (IOException e) {
 			e.printStackTrace();
 			throw new SocketConnectException("Error during socket connection");
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.scheduler;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single thread executing many {@link ScheduledTask}s with a hashed timing wheel. Scheduling and canceling a task costs constant time, regardless
+ * of the number of scheduled tasks.
+ * <p />
+ * The time is divided into ticks. The tasks are stored in the bucket of the tick their deadline falls into, tasks more than one revolution of the
+ * wheel ahead additionally count the remaining rounds. After every tick, the tasks of its bucket are executed. Therefore the tasks are executed up
+ * to one tick after their deadline.
+ * <p />
+ * Periodic tasks are executed at a fixed rate. If an execution is late by more than a whole period, the missed executions are skipped instead of
+ * being executed in a burst.
+ * <p />
+ * The tasks are executed on the thread of the scheduler, so they must not block.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class HashedWheelScheduler implements Runnable {
+	private final long tickDuration;
+	private final ScheduledTask[] wheel;
+	private final int mask;
+	private final long startTime;
+	private final Thread thread;
+
+	private final ConcurrentLinkedQueue<ScheduledTask> pendingTasks = new ConcurrentLinkedQueue<ScheduledTask>();
+
+	private volatile boolean canceled = false;
+
+	/**
+	 * 
+	 * @param name
+	 *            Name of the thread of the scheduler.
+	 * @param tickDurationMs
+	 *            The duration of a tick in milliseconds. This is the precision of the scheduler.
+	 * @param wheelSize
+	 *            The number of buckets of the wheel. This is rounded up to the next power of two.
+	 */
+	public HashedWheelScheduler(String name, int tickDurationMs, int wheelSize) {
+		if (tickDurationMs < 1) {
+			throw new IllegalArgumentException("tickDurationMs must not be less than 1.");
+		}
+		if (wheelSize < 1 || wheelSize > (1 << 30)) {
+			throw new IllegalArgumentException("wheelSize must be between 1 and 2^30.");
+		}
+
+		this.tickDuration = TimeUnit.MILLISECONDS.toNanos(tickDurationMs);
+		this.wheel = new ScheduledTask[normalizeWheelSize(wheelSize)];
+		this.mask = wheel.length - 1;
+		this.startTime = System.nanoTime();
+		this.thread = new Thread(this, name);
+		this.thread.setDaemon(true);
+	}
+
+	private static int normalizeWheelSize(int wheelSize) {
+		int normalizedSize = 1;
+		while (normalizedSize < wheelSize) {
+			normalizedSize <<= 1;
+		}
+		return normalizedSize;
+	}
+
+	public void start() {
+		thread.start();
+	}
+
+	/**
+	 * Stops the scheduler. Scheduled tasks will not be executed anymore.
+	 */
+	public void shutdown() {
+		canceled = true;
+		thread.interrupt();
+	}
+
+	/**
+	 * Schedules the given task for a single execution after the given delay.
+	 * 
+	 * @param task
+	 * @param delayMs
+	 */
+	public void schedule(ScheduledTask task, long delayMs) {
+		schedule(task, delayMs, 0);
+	}
+
+	/**
+	 * Schedules the given task for periodic executions at a fixed rate, starting after the given delay.
+	 * 
+	 * @param task
+	 * @param delayMs
+	 * @param periodMs
+	 */
+	public void scheduleAtFixedRate(ScheduledTask task, long delayMs, long periodMs) {
+		if (periodMs <= 0) {
+			throw new IllegalArgumentException("periodMs must be positive.");
+		}
+		schedule(task, delayMs, periodMs);
+	}
+
+	private void schedule(ScheduledTask task, long delayMs, long periodMs) {
+		if (delayMs < 0) {
+			throw new IllegalArgumentException("delayMs must not be negative.");
+		}
+		if (canceled) {
+			throw new IllegalStateException("Scheduler already shut down.");
+		}
+
+		task.markScheduled();
+		task.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+		task.period = TimeUnit.MILLISECONDS.toNanos(periodMs);
+		pendingTasks.offer(task);
+	}
+
+	@Override
+	public void run() {
+		long tick = (System.nanoTime() - startTime) / tickDuration;
+
+		while (!canceled) {
+			if (!waitForEndOfTick(tick)) {
+				continue;
+			}
+
+			addPendingTasks(tick);
+			executeTasks(tick);
+			tick++;
+		}
+
+		pendingTasks.clear();
+	}
+
+	private boolean waitForEndOfTick(long tick) {
+		long endOfTick = startTime + (tick + 1) * tickDuration;
+
+		long sleepTime;
+		while ((sleepTime = endOfTick - System.nanoTime()) > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(sleepTime);
+			} catch (InterruptedException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void addPendingTasks(long currentTick) {
+		ScheduledTask task;
+		while ((task = pendingTasks.poll()) != null) {
+			if (!task.isCanceled()) {
+				add(task, currentTick);
+			}
+		}
+	}
+
+	private void add(ScheduledTask task, long currentTick) {
+		long tick = Math.max(currentTick, (task.deadline - startTime) / tickDuration);
+		task.remainingRounds = (tick - currentTick) / wheel.length;
+		task.bucket = (int) (tick & mask);
+
+		task.previous = null;
+		task.next = wheel[task.bucket];
+		if (task.next != null) {
+			task.next.previous = task;
+		}
+		wheel[task.bucket] = task;
+	}
+
+	private void remove(ScheduledTask task) {
+		if (task.previous != null) {
+			task.previous.next = task.next;
+		} else {
+			wheel[task.bucket] = task.next;
+		}
+		if (task.next != null) {
+			task.next.previous = task.previous;
+		}
+		task.previous = null;
+		task.next = null;
+	}
+
+	private void executeTasks(long currentTick) {
+		ScheduledTask task = wheel[(int) (currentTick & mask)];
+
+		while (task != null) {
+			ScheduledTask next = task.next; // rescheduled tasks are added in front of the list, so they are not visited again
+
+			if (task.isCanceled()) {
+				remove(task);
+			} else if (task.remainingRounds > 0) {
+				task.remainingRounds--;
+			} else {
+				remove(task);
+				execute(task, currentTick);
+			}
+
+			task = next;
+		}
+	}
+
+	private void execute(ScheduledTask task, long currentTick) {
+		long now = System.nanoTime();
+		long lateness = Math.max(0, now - task.deadline);
+
+		int skipped = 0;
+		if (task.period > 0) {
+			skipped = (int) (lateness / task.period);
+			task.deadline += (skipped + 1) * task.period;
+		}
+		task.executed(lateness, skipped);
+
+		try {
+			task.run();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+
+		if (task.period > 0 && !task.isCanceled()) {
+			add(task, currentTick + 1);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.scheduler;
+
+/**
+ * A task that can be executed once or periodically by a {@link HashedWheelScheduler}. Every execution records how late it started compared to its
+ * deadline. Growing lateness or skipped executions show that the scheduler thread is saturated.
+ * <p />
+ * A task can only be scheduled once.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public abstract class ScheduledTask implements Runnable {
+	private volatile boolean scheduled = false;
+	private volatile boolean canceled = false;
+
+	// only accessed by the thread of the scheduler
+	long deadline;
+	long period;
+	long remainingRounds;
+	int bucket;
+	ScheduledTask previous;
+	ScheduledTask next;
+
+	private volatile int executions = 0;
+	private volatile int skippedExecutions = 0;
+	private volatile long latenessSum = 0;
+	private volatile long maxLateness = 0;
+
+	final synchronized void markScheduled() {
+		if (scheduled) {
+			throw new IllegalStateException("Task already scheduled.");
+		}
+		scheduled = true;
+	}
+
+	/**
+	 * Cancels this task. If it is currently running, the running execution completes, but it will never run again.
+	 */
+	public void cancel() {
+		canceled = true;
+	}
+
+	public boolean isCanceled() {
+		return canceled;
+	}
+
+	final void executed(long lateness, int skipped) {
+		executions++;
+		skippedExecutions += skipped;
+		latenessSum += lateness;
+		maxLateness = Math.max(maxLateness, lateness);
+	}
+
+	public int getExecutions() {
+		return executions;
+	}
+
+	/**
+	 * @return The number of executions of a periodic task that have been skipped, because the task was more than a whole period late.
+	 */
+	public int getSkippedExecutions() {
+		return skippedExecutions;
+	}
+
+	/**
+	 * @return The average time in milliseconds the executions of this task started after their deadline. This includes up to one tick of the
+	 *         scheduler.
+	 */
+	public float getAverageLateness() {
+		int executions = this.executions;
+		return executions > 0 ? latenessSum / 1e6f / executions : 0;
+	}
+
+	/**
+	 * @return The maximum time in milliseconds an execution of this task started after its deadline.
+	 */
+	public float getMaxLateness() {
+		return maxLateness / 1e6f;
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Methods to write and read integers with a variable length encoding. Every byte holds seven bits of the value, starting with the lowest bits. The
+ * highest bit of a byte is set if another byte follows. Small values therefore only need a single byte.
+ * <p />
+ * Signed values are zigzag encoded first (0, -1, 1, -2, 2, ... are mapped to 0, 1, 2, 3, 4, ...), so small negative values are short, too.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public final class VarIntUtils {
+	private static final int MAX_VAR_INT_BYTES = 5;
+
+	private VarIntUtils() {
+	}
+
+	/**
+	 * Writes the given value as unsigned variable length integer.
+	 * 
+	 * @param out
+	 * @param value
+	 *            The value is interpreted as unsigned value, so negative values need five bytes.
+	 * @throws IOException
+	 */
+	public static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	public static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int i = 0; i < MAX_VAR_INT_BYTES; i++) {
+			int currByte = in.readUnsignedByte();
+			value |= (currByte & 0x7F) << (7 * i);
+			if ((currByte & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length integer.");
+	}
+
+	public static void writeSignedVarInt(DataOutput out, int value) throws IOException {
+		writeVarInt(out, (value << 1) ^ (value >> 31));
+	}
+
+	public static int readSignedVarInt(DataInput in) throws IOException {
+		int value = readVarInt(in);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Writes the given list with the differences between successive values. This is most efficient for sorted lists of close values, like ids, but
+	 * keeps the order of any list.
+	 * 
+	 * @param out
+	 * @param values
+	 * @throws IOException
+	 */
+	public static void writeDeltaEncoded(DataOutput out, List<Integer> values) throws IOException {
+		writeVarInt(out, values.size());
+
+		int previous = 0;
+		for (Integer value : values) {
+			writeSignedVarInt(out, value - previous); // an overflow is reverted when reading
+			previous = value;
+		}
+	}
+
+	public static List<Integer> readDeltaEncoded(DataInput in) throws IOException {
+		int size = readVarInt(in);
+		List<Integer> values = new ArrayList<Integer>(size);
+
+		int previous = 0;
+		for (int i = 0; i < size; i++) {
+			previous += readSignedVarInt(in);
+			values.add(previous);
+		}
+		return values;
+	}
+}
@@ -15,12 +15,15 @@
 package jsettlers.network.server;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.selector.ChannelSelector;
+import jsettlers.network.infrastructure.channel.selector.SelectorChannel;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
@@ -30,6 +33,9 @@ import jsettlers.network.server.lan.LanServerAddressBroadcastListener;
 import jsettlers.network.server.lan.LanServerBroadcastThread;
 
 /**
+ * Accepts the clients connecting to the game server. The I/O of all client channels is driven by a single {@link ChannelSelector} instead of a
+ * thread per connection. Only if {@link NetworkConstants#USE_DELAYED_SOCKETS} is set, the thread per connection {@link Channel}s are used, as the
+ * delayed sockets need them.
  * 
  * @author Andreas Eberle
  * 
@@ -38,7 +44,8 @@ public final class GameServerThread extends Thread {
 
 	private static final Logger LOGGER = LoggerManager.ROOT_LOGGER;
 
-	private final ServerSocket serverSocket;
+	private final ServerSocketChannel serverSocketChannel;
+	private final ChannelSelector channelSelector;
 	private final ServerManager manager;
 	private final LanServerBroadcastThread lanBroadcastThread;
 
@@ -47,7 +54,9 @@ public final class GameServerThread extends Thread {
 
 	public GameServerThread(boolean lan) throws IOException {
 		super("GameServer");
-		this.serverSocket = new ServerSocket(NetworkConstants.Server.SERVER_PORT);
+		this.serverSocketChannel = ServerSocketChannel.open();
+		this.serverSocketChannel.socket().bind(new InetSocketAddress(NetworkConstants.Server.SERVER_PORT));
+		this.channelSelector = new ChannelSelector("GameServerSelector");
 		this.manager = new ServerManager(new InMemoryDB());
 
 		this.setDaemon(true);
@@ -66,20 +75,28 @@ public final class GameServerThread extends Thread {
 		System.out.println("Server up and running!");
 		while (!canceled) {
 			try {
-				Socket clientSocket = serverSocket.accept();
+				SocketChannel clientSocketChannel = serverSocketChannel.accept();
 
-				Channel clientChannel = new Channel(LOGGER, ISocketFactory.DEFAULT_FACTORY.generateSocket(clientSocket));
+				Channel clientChannel = createChannel(clientSocketChannel);
 				manager.identifyNewChannel(clientChannel);
 				clientChannel.start();
 
-				LOGGER.log("accepted new client (" + ++counter + "): " + clientSocket);
-			} catch (SocketException e) {
+				LOGGER.log("accepted new client (" + ++counter + "): " + clientChannel);
+			} catch (ClosedChannelException e) {
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
 		}
 	}
 
+	private Channel createChannel(SocketChannel clientSocketChannel) throws IOException {
+		if (NetworkConstants.USE_DELAYED_SOCKETS) {
+			return new Channel(LOGGER, ISocketFactory.DEFAULT_FACTORY.generateSocket(clientSocketChannel.socket()));
+		} else {
+			return new SelectorChannel(LOGGER, clientSocketChannel, channelSelector);
+		}
+	}
+
 	/**
 	 * NOTE: THIS METHOD IS BLOCKING for the given time
 	 * 
@@ -114,6 +131,7 @@ public final class GameServerThread extends Thread {
 
 	@Override
 	public synchronized void start() {
+		channelSelector.start();
 		super.start();
 		manager.start();
 	}
@@ -121,9 +139,10 @@ public final class GameServerThread extends Thread {
 	public synchronized void shutdown() {
 		canceled = true;
 		try {
-			serverSocket.close();
+			serverSocketChannel.close();
 		} catch (IOException e) {
 		}
+		channelSelector.shutdown();
 
 		if (lanBroadcastThread != null)
 			lanBroadcastThread.shutdown();
@@ -14,14 +14,14 @@
  *******************************************************************************/
 package jsettlers.network.server;
 
-import java.util.Timer;
-
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.OpenNewMatchPacket;
+import jsettlers.network.common.packets.StateHashPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.reject.RejectPacket;
+import jsettlers.network.infrastructure.scheduler.HashedWheelScheduler;
 import jsettlers.network.server.db.IDBFacade;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
 import jsettlers.network.server.listeners.ChatMessageForwardingListener;
@@ -29,6 +29,7 @@ import jsettlers.network.server.listeners.IdentifyUserListener;
 import jsettlers.network.server.listeners.ReadyStatePacketListener;
 import jsettlers.network.server.listeners.ServerChannelClosedListener;
 import jsettlers.network.server.listeners.StartFinishedSignalListener;
+import jsettlers.network.server.listeners.StateHashForwardingListener;
 import jsettlers.network.server.listeners.TimeSyncForwardingListener;
 import jsettlers.network.server.listeners.matches.JoinMatchListener;
 import jsettlers.network.server.listeners.matches.LeaveMatchListener;
@@ -47,8 +48,8 @@ import jsettlers.network.server.match.Player;
 public class ServerManager implements IServerManager {
 
 	private final IDBFacade database;
-	private final Timer sendMatchesListTimer = new Timer("SendMatchesListTimer", true);
-	private final Timer matchesTaskDistributionTimer = new Timer("MatchesTaskDistributionTimer", true);
+	private final HashedWheelScheduler scheduler = new HashedWheelScheduler("ServerScheduler", NetworkConstants.Server.SCHEDULER_TICK_MS,
+			NetworkConstants.Server.SCHEDULER_WHEEL_SIZE);
 	private final MatchesListSendingTimerTask matchSendingTask;
 
 	public ServerManager(IDBFacade db) {
@@ -57,12 +58,12 @@ public class ServerManager implements IServerManager {
 	}
 
 	public synchronized void start() {
-		sendMatchesListTimer.schedule(matchSendingTask, 0, NetworkConstants.Server.OPEN_MATCHES_SEND_INTERVAL_MS);
+		scheduler.start();
+		scheduler.scheduleAtFixedRate(matchSendingTask, 0, NetworkConstants.Server.OPEN_MATCHES_SEND_INTERVAL_MS);
 	}
 
 	public synchronized void shutdown() {
-		sendMatchesListTimer.cancel();
-		matchesTaskDistributionTimer.cancel();
+		scheduler.shutdown();
 	}
 
 	public void identifyNewChannel(Channel channel) {
@@ -84,6 +85,7 @@ public class ServerManager implements IServerManager {
 			channel.registerListener(new JoinMatchListener(this, player));
 			channel.registerListener(new ChatMessageForwardingListener(this, player));
 			channel.registerListener(new TimeSyncForwardingListener(this, player));
+			channel.registerListener(new StateHashForwardingListener(this, player));
 			channel.registerListener(new ReadyStatePacketListener(this, player));
 			channel.registerListener(new StartFinishedSignalListener(this, player));
 
@@ -132,7 +134,7 @@ public class ServerManager implements IServerManager {
 	@Override
 	public void startMatch(Player player) {
 		try {
-			player.startMatch(matchesTaskDistributionTimer);
+			player.startMatch(scheduler);
 		} catch (IllegalStateException e) {
 			e.printStackTrace();
 			player.sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
@@ -161,6 +163,15 @@ public class ServerManager implements IServerManager {
 		}
 	}
 
+	@Override
+	public void distributeStateHash(Player player, StateHashPacket packet) {
+		try {
+			player.distributeStateHash(packet);
+		} catch (IllegalStateException e) {
+			e.printStackTrace();
+		}
+	}
+
 	@Override
 	public void joinMatch(String matchId, Player player) {
 		Match match = database.getMatchById(matchId);
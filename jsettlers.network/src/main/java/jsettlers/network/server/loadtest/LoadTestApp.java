@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.channel.socket.delayed.DelayedSocketFactory;
+import jsettlers.network.infrastructure.channel.socket.standard.JavaSocketFactory;
+import jsettlers.network.server.GameServerThread;
+import jsettlers.network.server.match.Match;
+import jsettlers.network.server.match.lockstep.LockstepStatistics;
+
+/**
+ * This application starts a local {@link GameServerThread} and plays the given number of matches with scripted {@link LoadTestClient}s. The clients
+ * send synthetic tasks and the data they send to the server can be delayed to simulate latency and jitter. At the end, it reports per match:
+ * <ul>
+ * <li>the time the clients waited for locksteps (stall time),</li>
+ * <li>the lead steps the server adapted to the ping of the players,</li>
+ * <li>the latency of the tasks from sending until execution.</li>
+ * </ul>
+ * The CPU time of the server is measured for its threads as a whole, so the server itself doesn't need to be instrumented.
+ * Usage: <code>LoadTestApp [-matches M] [-players K] [-duration seconds] [-tasks tasksPerSecondAndPlayer] [-ids idsPerTask] [-minDelay ms]
+ * [-maxDelay ms] [-jitter msPerMs] [-verbose]</code>
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class LoadTestApp {
+	static final int TIMEOUT = 10000;
+
+	private static final String LOCALHOST = "localhost";
+	private static final String MATCH_NAME_PREFIX = "LoadTest-";
+	private static final String[] SERVER_THREAD_NAMES = { "GameServer", "GameServerSelector", "ServerScheduler" };
+
+	private int matches = 4;
+	private int players = 4;
+	private int duration = 60;
+	private float tasksPerSecond = 1;
+	private int idsPerTask = 50;
+	private int minDelay = 0;
+	private int maxDelay = 0;
+	private int jitter = 10;
+	private boolean verbose = false;
+
+	private final PrintStream out = System.out;
+	private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		LoadTestApp app = new LoadTestApp();
+		try {
+			app.parseArguments(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: LoadTestApp [-matches M] [-players K] [-duration seconds] [-tasks tasksPerSecondAndPlayer] [-ids idsPerTask]"
+					+ " [-minDelay ms] [-maxDelay ms] [-jitter msPerMs] [-verbose]");
+			System.exit(1);
+		}
+
+		app.run();
+		System.exit(0); // the clocks of the clients might still wait for locksteps
+	}
+
+	private void parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String name = args[i];
+			if ("-verbose".equals(name)) {
+				verbose = true;
+				continue;
+			} else if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + name);
+			}
+
+			String value = args[++i];
+			try {
+				if ("-matches".equals(name)) {
+					matches = Integer.parseInt(value);
+				} else if ("-players".equals(name)) {
+					players = Integer.parseInt(value);
+				} else if ("-duration".equals(name)) {
+					duration = Integer.parseInt(value);
+				} else if ("-tasks".equals(name)) {
+					tasksPerSecond = Float.parseFloat(value);
+				} else if ("-ids".equals(name)) {
+					idsPerTask = Integer.parseInt(value);
+				} else if ("-minDelay".equals(name)) {
+					minDelay = Integer.parseInt(value);
+				} else if ("-maxDelay".equals(name)) {
+					maxDelay = Integer.parseInt(value);
+				} else if ("-jitter".equals(name)) {
+					jitter = Integer.parseInt(value);
+				} else {
+					throw new IllegalArgumentException("Unknown argument " + name);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+			}
+		}
+
+		maxDelay = Math.max(minDelay, maxDelay);
+		if (matches < 1 || players < 1 || duration < 1) {
+			throw new IllegalArgumentException("At least one match with one player must run for one second.");
+		}
+	}
+
+	public void run() throws IOException, InterruptedException {
+		out.println(String.format("Load test: %d matches with %d players for %d s, %.2f tasks per second and player with %d ids, delay %d - %d ms",
+				matches, players, duration, tasksPerSecond, idsPerTask, minDelay, maxDelay));
+		if (!verbose) { // the clocks and the server log every lockstep wait and every task
+			System.setOut(new PrintStream(new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+			}));
+		}
+
+		GameServerThread server = new GameServerThread(false);
+		server.start();
+
+		ISocketFactory socketFactory = maxDelay > 0 ? new DelayedSocketFactory(minDelay, maxDelay, jitter) : new JavaSocketFactory();
+		List<List<LoadTestClient>> matchClients = new ArrayList<List<LoadTestClient>>();
+		Timer taskGenerator = new Timer("LoadTestTaskGenerator", true);
+		try {
+			for (int match = 0; match < matches; match++) {
+				matchClients.add(startMatch(match, socketFactory));
+			}
+
+			Map<String, Match> serverMatches = new HashMap<String, Match>();
+			for (Match match : server.getDatabase().getMatches()) {
+				serverMatches.put(match.getName(), match);
+			}
+
+			long[] waitingTimeStart = new long[matches * players];
+			int[] stallsStart = new int[matches * players];
+			for (int match = 0; match < matches; match++) {
+				for (int player = 0; player < players; player++) {
+					LoadTestClient client = matchClients.get(match).get(player);
+					waitingTimeStart[match * players + player] = client.getLockstepWaitingTime();
+					stallsStart[match * players + player] = client.getLockstepStalls();
+				}
+			}
+			long serverCpuStart = getServerThreadsCpuTime();
+			long start = System.nanoTime();
+
+			scheduleTasks(taskGenerator, matchClients);
+			Thread.sleep(duration * 1000L);
+			taskGenerator.cancel();
+
+			long wallTime = System.nanoTime() - start;
+			long serverCpu = getServerThreadsCpuTime() - serverCpuStart;
+
+			out.println();
+			out.println(" match | rtt ms | locksteps | packets | lead steps min/avg/max | stalls | stall ms avg/max | tasks | latency ms avg/max |"
+					+ " tick lateness ms avg/max | skipped ticks");
+			for (int match = 0; match < matches; match++) {
+				Match serverMatch = serverMatches.get(MATCH_NAME_PREFIX + match);
+				printMatchReport(match, matchClients.get(match), serverMatch.getLockstepStatistics(), waitingTimeStart, stallsStart);
+			}
+
+			double wallMs = wallTime / 1e6;
+			out.println();
+			out.println(String.format("server threads cpu: %.1f ms in %.1f ms wall time (%.1f%% of a core)", serverCpu / 1e6, wallMs,
+					100 * serverCpu / 1e6 / wallMs));
+			out.println(String.format("cpu per match: %.2f ms/s server threads", serverCpu / 1e6 / matches / (wallMs / 1000)));
+			if (serverCpu > 0) {
+				out.println(String.format("estimated capacity: %.0f matches of this kind per core", matches * wallTime / (double) serverCpu));
+			}
+		} finally {
+			taskGenerator.cancel();
+			for (List<LoadTestClient> clients : matchClients) {
+				for (LoadTestClient client : clients) {
+					client.close();
+				}
+			}
+			server.shutdown();
+		}
+	}
+
+	private List<LoadTestClient> startMatch(int match, ISocketFactory socketFactory) throws IOException, InterruptedException {
+		List<LoadTestClient> clients = new ArrayList<LoadTestClient>();
+		for (int player = 0; player < players; player++) {
+			LoadTestClient client = new LoadTestClient("loadtest-" + match + "-" + player, socketFactory, LOCALHOST);
+			clients.add(client);
+			client.logIn();
+		}
+
+		String matchId = clients.get(0).openMatch(MATCH_NAME_PREFIX + match, players);
+		for (LoadTestClient client : clients.subList(1, clients.size())) {
+			client.joinMatch(matchId);
+		}
+		clients.get(0).startMatch();
+
+		for (LoadTestClient client : clients) {
+			client.startClock();
+		}
+		return clients;
+	}
+
+	private void scheduleTasks(Timer taskGenerator, List<List<LoadTestClient>> matchClients) {
+		if (tasksPerSecond <= 0) {
+			return;
+		}
+
+		long period = Math.max(1, (long) (1000 / tasksPerSecond));
+		Random random = new Random(0);
+		for (List<LoadTestClient> clients : matchClients) {
+			for (final LoadTestClient client : clients) {
+				taskGenerator.scheduleAtFixedRate(new TimerTask() {
+					@Override
+					public void run() {
+						client.sendTask(idsPerTask);
+					}
+				}, random.nextInt((int) period), period);
+			}
+		}
+	}
+
+	private void printMatchReport(int match, List<LoadTestClient> clients, LockstepStatistics lockstepStatistics, long[] waitingTimeStart,
+			int[] stallsStart) {
+		int rttSum = 0;
+		int stalls = 0;
+		long waitingTimeSum = 0;
+		long maxWaitingTime = 0;
+		int executedTasks = 0;
+		long latencySum = 0;
+		long maxLatency = 0;
+		for (int player = 0; player < clients.size(); player++) {
+			LoadTestClient client = clients.get(player);
+			long waitingTime = client.getLockstepWaitingTime() - waitingTimeStart[match * players + player];
+			rttSum += client.getRoundTripTime();
+			stalls += client.getLockstepStalls() - stallsStart[match * players + player];
+			waitingTimeSum += waitingTime;
+			maxWaitingTime = Math.max(maxWaitingTime, waitingTime);
+			executedTasks += client.getExecutedTasks();
+			latencySum += client.getLatencySum();
+			maxLatency = Math.max(maxLatency, client.getMaxLatency());
+		}
+
+		out.println(String.format("%6d | %6d | %9d | %7d | %6d / %5.2f / %6d | %6d | %7d / %6d | %5d | %8.1f / %7.1f | %13.2f / %7.1f | %13d", match,
+				rttSum / clients.size(), lockstepStatistics.getSentLocksteps(), lockstepStatistics.getSentPackets(),
+				lockstepStatistics.getMinLeadSteps(), lockstepStatistics.getAverageLeadSteps(), lockstepStatistics.getMaxLeadSteps(), stalls,
+				waitingTimeSum / clients.size(), maxWaitingTime, executedTasks, executedTasks > 0 ? latencySum / 1e6 / executedTasks : 0,
+				maxLatency / 1e6, lockstepStatistics.getAverageTickLateness(), lockstepStatistics.getMaxTickLateness(),
+				lockstepStatistics.getSkippedTicks()));
+	}
+
+	/**
+	 * The server and the clients run in the same JVM, therefore only the CPU time of the threads of the server is summed up.
+	 * 
+	 * @return CPU time of the server threads in nanoseconds.
+	 */
+	private long getServerThreadsCpuTime() {
+		if (!threadMXBean.isThreadCpuTimeSupported()) {
+			return 0;
+		}
+
+		List<String> serverThreadNames = Arrays.asList(SERVER_THREAD_NAMES);
+		long cpuTime = 0;
+		for (ThreadInfo threadInfo : threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds())) {
+			if (threadInfo != null && serverThreadNames.contains(threadInfo.getThreadName())) {
+				cpuTime += Math.max(0, threadMXBean.getThreadCpuTime(threadInfo.getThreadId()));
+			}
+		}
+		return cpuTime;
+	}
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.client.NetworkClient;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.common.packets.MapInfoPacket;
+import jsettlers.network.infrastructure.channel.AsyncChannel;
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.server.match.EPlayerState;
+import jsettlers.network.synchronic.timer.ITaskExecutor;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * A scripted player of the {@link LoadTestApp}. It uses a {@link NetworkClient} with its own {@link NetworkTimer} like a real game, but instead of
+ * user input, it sends synthetic {@link LoadTestTaskPacket}s and measures their latency until they are executed.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class LoadTestClient implements ITaskExecutor {
+	private static final int STATE_POLLING_PERIOD = 10;
+
+	private final String id;
+	private final NetworkTimer clock;
+	private final NetworkClient client;
+	private final Random random;
+
+	private volatile int executedTasks;
+	private volatile long latencySum;
+	private volatile long maxLatency;
+
+	public LoadTestClient(String id, ISocketFactory socketFactory, String host) throws IOException {
+		this.id = id;
+		this.clock = new NetworkTimer();
+		this.clock.setTaskExecutor(this);
+		this.client = new NetworkClient(new AsyncChannel(socketFactory.generateSocket(host, NetworkConstants.Server.SERVER_PORT)), null, clock);
+		this.random = new Random(id.hashCode());
+	}
+
+	public void logIn() throws InterruptedException {
+		client.logIn(id, id, null);
+		waitForState(EPlayerState.LOGGED_IN);
+	}
+
+	public String openMatch(String name, int maxPlayers) throws InterruptedException {
+		client.openNewMatch(name, maxPlayers, new MapInfoPacket(name, name, id, id, maxPlayers), random.nextLong(), null, null, null);
+		waitForState(EPlayerState.IN_MATCH);
+		return client.getMatchInfo().getId();
+	}
+
+	public void joinMatch(String matchId) throws InterruptedException {
+		client.joinMatch(matchId, null, null, null);
+		waitForState(EPlayerState.IN_MATCH);
+		client.setReadyState(true);
+	}
+
+	/**
+	 * Starts the match. The ready states of the other players are sent asynchronously, so starting is retried until the match has been started.
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void startMatch() throws InterruptedException {
+		client.setReadyState(true);
+		long timeout = System.currentTimeMillis() + LoadTestApp.TIMEOUT;
+		while (client.getState() != EPlayerState.IN_RUNNING_MATCH) {
+			if (System.currentTimeMillis() > timeout) {
+				throw new IllegalStateException(id + " could not start the match.");
+			}
+			client.startMatch();
+			Thread.sleep(10 * STATE_POLLING_PERIOD);
+		}
+	}
+
+	public void startClock() throws InterruptedException {
+		waitForState(EPlayerState.IN_RUNNING_MATCH);
+		clock.startExecution();
+	}
+
+	private void waitForState(EPlayerState state) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + LoadTestApp.TIMEOUT;
+		while (client.getState() != state) {
+			if (System.currentTimeMillis() > timeout) {
+				throw new IllegalStateException(id + " did not reach state " + state + " but is " + client.getState());
+			}
+			Thread.sleep(STATE_POLLING_PERIOD);
+		}
+	}
+
+	/**
+	 * Sends a synthetic task with a sorted list of random ids, like a move command of selected movables.
+	 * 
+	 * @param numberOfIds
+	 */
+	public void sendTask(int numberOfIds) {
+		List<Integer> ids = new ArrayList<Integer>(numberOfIds);
+		int currId = random.nextInt(1000);
+		for (int i = 0; i < numberOfIds; i++) {
+			currId += 1 + random.nextInt(10);
+			ids.add(currId);
+		}
+		client.scheduleTask(new LoadTestTaskPacket(System.nanoTime(), ids));
+	}
+
+	@Override
+	public void executeTask(TaskPacket task) {
+		long latency = System.nanoTime() - ((LoadTestTaskPacket) task).getCreationTime();
+		executedTasks++; // only called by the thread of the clock
+		latencySum += latency;
+		maxLatency = Math.max(maxLatency, latency);
+	}
+
+	public void close() {
+		client.close();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public EPlayerState getState() {
+		return client.getState();
+	}
+
+	public int getExecutedTasks() {
+		return executedTasks;
+	}
+
+	/**
+	 * @return The sum of the latencies of all executed tasks in nanoseconds.
+	 */
+	public long getLatencySum() {
+		return latencySum;
+	}
+
+	/**
+	 * @return The maximum latency of the executed tasks in nanoseconds.
+	 */
+	public long getMaxLatency() {
+		return maxLatency;
+	}
+
+	/**
+	 * @return The total time in milliseconds the clock of this client has been waiting for locksteps.
+	 */
+	public long getLockstepWaitingTime() {
+		return clock.getLockstepWaitingTime();
+	}
+
+	public int getLockstepStalls() {
+		return clock.getLockstepStalls();
+	}
+
+	public int getRoundTripTime() {
+		return client.getRoundTripTimeInMs();
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.loadtest;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import jsettlers.network.client.task.packets.TaskPacket;
+
+/**
+ * A synthetic task generated by the {@link LoadTestClient}s. It carries a list of ids like a move command of selected movables and the time it has
+ * been created at, to measure the latency until its execution.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class LoadTestTaskPacket extends TaskPacket {
+	private long creationTime;
+	private List<Integer> ids;
+
+	public LoadTestTaskPacket() {
+	}
+
+	/**
+	 * 
+	 * @param creationTime
+	 *            Creation time as given by {@link System#nanoTime()}.
+	 * @param ids
+	 */
+	public LoadTestTaskPacket(long creationTime, List<Integer> ids) {
+		this.creationTime = creationTime;
+		this.ids = ids;
+	}
+
+	@Override
+	protected void serializeTask(DataOutputStream dos) throws IOException {
+		dos.writeLong(creationTime);
+		writeIds(dos, ids);
+	}
+
+	@Override
+	protected void deserializeTask(DataInputStream dis) throws IOException {
+		creationTime = dis.readLong();
+		ids = readIds(dis);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (int) (creationTime ^ (creationTime >>> 32));
+		result = prime * result + ((ids == null) ? 0 : ids.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		LoadTestTaskPacket other = (LoadTestTaskPacket) obj;
+		if (creationTime != other.creationTime)
+			return false;
+		if (ids == null) {
+			if (other.ids != null)
+				return false;
+		} else if (!ids.equals(other.ids))
+			return false;
+		return true;
+	}
+
+	public long getCreationTime() {
+		return creationTime;
+	}
+
+	public List<Integer> getIds() {
+		return ids;
+	}
+}
@@ -14,9 +14,9 @@
  *******************************************************************************/
 package jsettlers.network.server.match;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.LinkedList;
-import java.util.Timer;
 import java.util.UUID;
 
 import jsettlers.network.NetworkConstants;
@@ -29,9 +29,12 @@ import jsettlers.network.common.packets.MatchStartPacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.channel.packet.PacketFrame;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
+import jsettlers.network.infrastructure.scheduler.HashedWheelScheduler;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
+import jsettlers.network.server.match.lockstep.LockstepStatistics;
 import jsettlers.network.server.match.lockstep.TaskCollectingListener;
 import jsettlers.network.server.match.lockstep.TaskSendingTimerTask;
 
@@ -162,15 +165,35 @@ public class Match {
 	 * @param packet
 	 */
 	public void sendMessage(Player sendingPlayer, ENetworkKey key, Packet packet) {
-		synchronized (players) {
-			for (Player curr : players) {
-				if (sendingPlayer == null || !curr.getId().equals(sendingPlayer.getId())) {
-					curr.sendPacket(key, packet);
+		PacketFrame frame; // serialize the packet only once for all players
+		try {
+			frame = PacketFrame.serialize(key, packet);
+		} catch (IOException e) {
+			logger.error(e);
+			return;
+		}
+
+		try {
+			synchronized (players) {
+				for (Player curr : players) {
+					if (sendingPlayer == null || !curr.getId().equals(sendingPlayer.getId())) {
+						curr.sendFrame(frame);
+					}
 				}
 			}
+		} finally {
+			frame.release();
 		}
 	}
 
+	/**
+	 * @return The statistics of the lockstep distribution or <code>null</code> if the match is not running.
+	 */
+	public LockstepStatistics getLockstepStatistics() {
+		TaskSendingTimerTask taskSendingTimerTask = this.taskSendingTimerTask;
+		return taskSendingTimerTask != null ? taskSendingTimerTask.getStatistics() : null;
+	}
+
 	public void join(Player player) {
 		synchronized (players) {
 			players.add(player);
@@ -203,7 +226,7 @@ public class Match {
 		}
 	}
 
-	public synchronized void startMatch(Timer timer) throws NotAllPlayersReadyException {
+	public synchronized void startMatch(HashedWheelScheduler scheduler) throws NotAllPlayersReadyException {
 		if (state == EMatchState.RUNNING || state == EMatchState.FINISHED) {
 			return; // match already started
 		}
@@ -220,7 +243,7 @@ public class Match {
 
 		this.taskCollectingListener = new TaskCollectingListener();
 		this.taskSendingTimerTask = new TaskSendingTimerTask(logger, taskCollectingListener, this);
-		timer.schedule(taskSendingTimerTask, NetworkConstants.Client.LOCKSTEP_PERIOD, NetworkConstants.Client.LOCKSTEP_PERIOD / 2 - 2);
+		scheduler.scheduleAtFixedRate(taskSendingTimerTask, NetworkConstants.Client.LOCKSTEP_PERIOD, NetworkConstants.Client.LOCKSTEP_PERIOD / 2 - 2);
 
 		synchronized (players) {
 			int i = 0;
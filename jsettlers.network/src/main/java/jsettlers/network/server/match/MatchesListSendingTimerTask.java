@@ -15,20 +15,20 @@
 package jsettlers.network.server.match;
 
 import java.util.List;
-import java.util.TimerTask;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.common.packets.ArrayOfMatchInfosPacket;
 import jsettlers.network.common.packets.MatchInfoPacket;
+import jsettlers.network.infrastructure.scheduler.ScheduledTask;
 import jsettlers.network.server.db.IDBFacade;
 
 /**
- * This {@link TimerTask} implementation gets the logged in players and sends them the open matches on every call to {@link #run()}.
+ * This {@link ScheduledTask} implementation gets the logged in players and sends them the open matches on every call to {@link #run()}.
  * 
  * @author Andreas Eberle
  * 
  */
-public class MatchesListSendingTimerTask extends TimerTask {
+public class MatchesListSendingTimerTask extends ScheduledTask {
 	private final IDBFacade db;
 
 	public MatchesListSendingTimerTask(IDBFacade db) {
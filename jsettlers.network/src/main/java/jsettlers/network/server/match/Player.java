@@ -14,17 +14,18 @@
  *******************************************************************************/
 package jsettlers.network.server.match;
 
-import java.util.Timer;
-
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.NetworkConstants.ENetworkMessage;
 import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
+import jsettlers.network.common.packets.StateHashPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
 import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.channel.packet.PacketFrame;
 import jsettlers.network.infrastructure.log.LoggerManager;
+import jsettlers.network.infrastructure.scheduler.HashedWheelScheduler;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
 import jsettlers.network.server.match.lockstep.TaskCollectingListener;
 
@@ -81,13 +82,17 @@ public class Player {
 		channel.sendPacket(key, packet);
 	}
 
+	public void sendFrame(PacketFrame frame) {
+		channel.sendFrame(frame);
+	}
+
 	public synchronized boolean isInMatch() {
 		return state == EPlayerState.IN_MATCH || state == EPlayerState.IN_RUNNING_MATCH;
 	}
 
-	public void startMatch(Timer timer) throws IllegalStateException, NotAllPlayersReadyException {
+	public void startMatch(HashedWheelScheduler scheduler) throws IllegalStateException, NotAllPlayersReadyException {
 		EPlayerState.assertState(state, EPlayerState.IN_MATCH);
-		match.startMatch(timer);
+		match.startMatch(scheduler);
 	}
 
 	void matchStarted(TaskCollectingListener taskListener) {
@@ -105,6 +110,11 @@ public class Player {
 		match.distributeTimeSync(this, packet);
 	}
 
+	public void distributeStateHash(StateHashPacket packet) throws IllegalStateException {
+		EPlayerState.assertState(state, EPlayerState.IN_RUNNING_MATCH);
+		match.sendMessage(this, ENetworkKey.STATE_HASH, packet);
+	}
+
 	public void setReady(boolean ready) throws IllegalStateException {
 		EPlayerState.assertState(state, EPlayerState.IN_MATCH);
 		if (playerInfo.isReady() != ready) { // only update if there is a real change
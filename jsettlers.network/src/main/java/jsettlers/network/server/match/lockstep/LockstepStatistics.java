@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.server.match.lockstep;
+
+/**
+ * A snapshot of the statistics of the lockstep distribution of a match. The lead steps are the number of locksteps the server allows the clients to
+ * run ahead of their acknowledged lockstep. They are adapted to the ping of the players.
+ * <p />
+ * The ticks are the periodic executions of the {@link TaskSendingTimerTask} by the scheduler of the server. Their lateness shows if the server is
+ * saturated.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class LockstepStatistics {
+	private final int sentLocksteps;
+	private final int sentPackets;
+	private final int leadSteps;
+	private final int minLeadSteps;
+	private final int maxLeadSteps;
+	private final float averageLeadSteps;
+	private final int ticks;
+	private final int skippedTicks;
+	private final float averageTickLateness;
+	private final float maxTickLateness;
+
+	public LockstepStatistics(int sentLocksteps, int sentPackets, int leadSteps, int minLeadSteps, int maxLeadSteps, float averageLeadSteps, int ticks,
+			int skippedTicks, float averageTickLateness, float maxTickLateness) {
+		this.sentLocksteps = sentLocksteps;
+		this.sentPackets = sentPackets;
+		this.leadSteps = leadSteps;
+		this.minLeadSteps = minLeadSteps;
+		this.maxLeadSteps = maxLeadSteps;
+		this.averageLeadSteps = averageLeadSteps;
+		this.ticks = ticks;
+		this.skippedTicks = skippedTicks;
+		this.averageTickLateness = averageTickLateness;
+		this.maxTickLateness = maxTickLateness;
+	}
+
+	public int getSentLocksteps() {
+		return sentLocksteps;
+	}
+
+	/**
+	 * @return The number of packets used to send the locksteps. This is lower than the number of locksteps if runs of empty locksteps have been sent
+	 *         with a single packet.
+	 */
+	public int getSentPackets() {
+		return sentPackets;
+	}
+
+	public int getLeadSteps() {
+		return leadSteps;
+	}
+
+	public int getMinLeadSteps() {
+		return minLeadSteps;
+	}
+
+	public int getMaxLeadSteps() {
+		return maxLeadSteps;
+	}
+
+	/**
+	 * @return The lead steps averaged over the sent packets.
+	 */
+	public float getAverageLeadSteps() {
+		return averageLeadSteps;
+	}
+
+	public int getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * @return The number of ticks that have been skipped, because the scheduler was late by more than a whole period.
+	 */
+	public int getSkippedTicks() {
+		return skippedTicks;
+	}
+
+	/**
+	 * @return The average time in milliseconds the ticks started after their deadline.
+	 */
+	public float getAverageTickLateness() {
+		return averageTickLateness;
+	}
+
+	/**
+	 * @return The maximum time in milliseconds a tick started after its deadline.
+	 */
+	public float getMaxTickLateness() {
+		return maxTickLateness;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("locksteps: %d packets: %d lead steps: %d (min: %d avg: %.2f max: %d) ticks: %d (skipped: %d lateness avg: %.1f ms max: %.1f ms)",
+				sentLocksteps, sentPackets, leadSteps, minLeadSteps, averageLeadSteps, maxLeadSteps, ticks, skippedTicks, averageTickLateness,
+				maxTickLateness);
+	}
+}
@@ -15,12 +15,12 @@
 package jsettlers.network.server.match.lockstep;
 
 import java.util.List;
-import java.util.TimerTask;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
 import jsettlers.network.infrastructure.channel.ping.RoundTripTime;
 import jsettlers.network.infrastructure.log.Logger;
+import jsettlers.network.infrastructure.scheduler.ScheduledTask;
 import jsettlers.network.infrastructure.utils.MaximumSlotBuffer;
 import jsettlers.network.server.match.Match;
 import jsettlers.network.server.packets.ServersideSyncTasksPacket;
@@ -31,7 +31,7 @@ import jsettlers.network.server.packets.ServersideTaskPacket;
  * @author Andreas Eberle
  * 
  */
-public class TaskSendingTimerTask extends TimerTask {
+public class TaskSendingTimerTask extends ScheduledTask {
 	private final Logger logger;
 	private final TaskCollectingListener taskCollectingListener;
 	private final Match match;
@@ -42,6 +42,12 @@ public class TaskSendingTimerTask extends TimerTask {
 	private int minimumLeadTimeMs = NetworkConstants.Client.LOCKSTEP_DEFAULT_LEAD_STEPS * NetworkConstants.Client.LOCKSTEP_PERIOD;
 	private int leadSteps = minimumLeadTimeMs / NetworkConstants.Client.LOCKSTEP_PERIOD;
 
+	private int sentPackets = 0;
+	private long leadStepsSum = 0;
+	private int minLeadSteps = leadSteps;
+	private int maxLeadSteps = leadSteps;
+	private int reportedSkippedTicks = 0;
+
 	public TaskSendingTimerTask(Logger logger, TaskCollectingListener taskCollectingListener, Match match) {
 		this.logger = logger;
 		this.taskCollectingListener = taskCollectingListener;
@@ -50,22 +56,49 @@ public class TaskSendingTimerTask extends TimerTask {
 
 	@Override
 	public void run() {
+		reportSkippedTicks();
+
 		if (lockstepCounter > currentLockstepMax) {
 			return;
 		}
 
 		List<ServersideTaskPacket> tasksList = taskCollectingListener.getAndResetTasks();
-		ServersideSyncTasksPacket syncTasksPacket = new ServersideSyncTasksPacket(lockstepCounter++, tasksList);
+		int followingEmptyLocksteps = getCoalescableLocksteps();
+		ServersideSyncTasksPacket syncTasksPacket = new ServersideSyncTasksPacket(lockstepCounter, followingEmptyLocksteps, tasksList);
+		lockstepCounter += 1 + followingEmptyLocksteps;
+		sentPackets++;
+		leadStepsSum += leadSteps;
 		match.broadcastMessage(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, syncTasksPacket);
 	}
 
+	private void reportSkippedTicks() {
+		int skippedTicks = getSkippedExecutions();
+		if (skippedTicks > reportedSkippedTicks) {
+			logger.warn(String.format("server saturated: skipped %d lockstep ticks   max tick lateness: %.1f ms", skippedTicks - reportedSkippedTicks,
+					getMaxLateness()));
+			reportedSkippedTicks = skippedTicks;
+		}
+	}
+
+	/**
+	 * Normally, every acknowledge allows a single new lockstep, which is sent on its own. If the allowed locksteps are more than one step ahead of the
+	 * sent ones (e.g. after a delayed acknowledge), the clients' lead dropped below the lead steps and they are waiting for these locksteps. Then all
+	 * of them are sent with a single packet instead of catching up step by step.
+	 * 
+	 * @return The number of empty locksteps that can be sent after the current one.
+	 */
+	private int getCoalescableLocksteps() {
+		int allowedLocksteps = currentLockstepMax - lockstepCounter;
+		return allowedLocksteps >= 2 ? allowedLocksteps : 0;
+	}
+
 	public void receivedLockstepAcknowledge(int acknowledgedLockstep) {
 		currentLockstepMax = Math.max(currentLockstepMax, acknowledgedLockstep + leadSteps);
 		// logger.info("lead steps: " + leadSteps);
 	}
 
 	final void pingUpdated(int rtt, int jitter) {
-		if (rtt < 0 || rtt > 10000 || jitter > 5000) {
+		if (rtt < 0 || rtt > 10000 || jitter < 0 || jitter > 5000) {
 			return; // this is an exceptional high rtt, we can not adapt to this
 		}
 
@@ -77,6 +110,8 @@ public class TaskSendingTimerTask extends TimerTask {
 		}
 
 		leadSteps = (int) Math.ceil(((float) minimumLeadTimeMs) / NetworkConstants.Client.LOCKSTEP_PERIOD);
+		minLeadSteps = Math.min(minLeadSteps, leadSteps);
+		maxLeadSteps = Math.max(maxLeadSteps, leadSteps);
 
 		if (rtt > NetworkConstants.RTT_LOGGING_THRESHOLD || jitter > NetworkConstants.JITTER_LOGGING_THRESHOLD) {
 			logger.info(String.format("rtt/2: %5d   jitter: %d   min lead time: %4d   lead steps: %2d",
@@ -84,6 +119,13 @@ public class TaskSendingTimerTask extends TimerTask {
 		}
 	}
 
+	public LockstepStatistics getStatistics() {
+		int sentPackets = this.sentPackets;
+		float averageLeadSteps = sentPackets > 0 ? ((float) leadStepsSum) / sentPackets : leadSteps;
+		return new LockstepStatistics(lockstepCounter, sentPackets, leadSteps, minLeadSteps, maxLeadSteps, averageLeadSteps, getExecutions(),
+				getSkippedExecutions(), getAverageLateness(), getMaxLateness());
+	}
+
 	private MaximumSlotBuffer rttMaximum = new MaximumSlotBuffer(0);
 	private MaximumSlotBuffer jitterMaximum = new MaximumSlotBuffer(0);
 
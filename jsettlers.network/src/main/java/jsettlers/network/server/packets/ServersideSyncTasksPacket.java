@@ -17,12 +17,13 @@ package jsettlers.network.server.packets;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.utils.VarIntUtils;
 
 /**
  * This subclass of {@link Packet} is the server side representation of the client side {@link SyncTasksPacket}. The server side representation uses
@@ -35,20 +36,27 @@ import jsettlers.network.infrastructure.channel.packet.Packet;
 public class ServersideSyncTasksPacket extends Packet {
 
 	private int lockstepNumber;
+	private int followingEmptyLocksteps;
 	private List<ServersideTaskPacket> tasks;
 
 	public ServersideSyncTasksPacket() {
 	}
 
 	public ServersideSyncTasksPacket(int packetNumber, List<ServersideTaskPacket> tasks) {
+		this(packetNumber, 0, tasks);
+	}
+
+	public ServersideSyncTasksPacket(int packetNumber, int followingEmptyLocksteps, List<ServersideTaskPacket> tasks) {
 		this.lockstepNumber = packetNumber;
+		this.followingEmptyLocksteps = followingEmptyLocksteps;
 		this.tasks = tasks;
 	}
 
 	@Override
 	public void serialize(DataOutputStream dos) throws IOException {
-		dos.writeInt(lockstepNumber);
-		dos.writeInt(tasks.size());
+		VarIntUtils.writeVarInt(dos, lockstepNumber);
+		VarIntUtils.writeVarInt(dos, followingEmptyLocksteps);
+		VarIntUtils.writeVarInt(dos, tasks.size());
 
 		for (ServersideTaskPacket curr : tasks) {
 			curr.serialize(dos);
@@ -57,9 +65,10 @@ public class ServersideSyncTasksPacket extends Packet {
 
 	@Override
 	public void deserialize(DataInputStream dis) throws IOException {
-		lockstepNumber = dis.readInt();
-		int numberOfTasks = dis.readInt();
-		tasks = new LinkedList<ServersideTaskPacket>();
+		lockstepNumber = VarIntUtils.readVarInt(dis);
+		followingEmptyLocksteps = VarIntUtils.readVarInt(dis);
+		int numberOfTasks = VarIntUtils.readVarInt(dis);
+		tasks = new ArrayList<ServersideTaskPacket>(numberOfTasks);
 
 		for (int i = 0; i < numberOfTasks; i++) {
 			ServersideTaskPacket curr = new ServersideTaskPacket();
@@ -73,6 +82,7 @@ public class ServersideSyncTasksPacket extends Packet {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + lockstepNumber;
+		result = prime * result + followingEmptyLocksteps;
 		result = prime * result + ((tasks == null) ? 0 : tasks.hashCode());
 		return result;
 	}
@@ -88,6 +98,8 @@ public class ServersideSyncTasksPacket extends Packet {
 		ServersideSyncTasksPacket other = (ServersideSyncTasksPacket) obj;
 		if (lockstepNumber != other.lockstepNumber)
 			return false;
+		if (followingEmptyLocksteps != other.followingEmptyLocksteps)
+			return false;
 		if (tasks == null) {
 			if (other.tasks != null)
 				return false;
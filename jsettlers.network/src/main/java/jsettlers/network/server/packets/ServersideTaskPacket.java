@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.utils.VarIntUtils;
 
 /**
  * This class extends the {@link Packet} class and does not really deserialize the data. It just stores the bytes to write them back on the stream
@@ -40,13 +41,13 @@ public final class ServersideTaskPacket extends Packet {
 
 	@Override
 	public void serialize(DataOutputStream dos) throws IOException {
-		dos.writeInt(data.length);
+		VarIntUtils.writeVarInt(dos, data.length);
 		dos.write(data);
 	}
 
 	@Override
 	public void deserialize(DataInputStream dis) throws IOException {
-		final int length = dis.readInt();
+		final int length = VarIntUtils.readVarInt(dis);
 		this.data = new byte[length];
 
 		int alreadyRead = 0;
@@ -28,6 +28,7 @@ import java.util.TimerTask;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.client.INetworkClientClock;
+import jsettlers.network.client.interfaces.IExecutionScope;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
 
@@ -40,6 +41,7 @@ import jsettlers.network.client.task.packets.TaskPacket;
  */
 public final class NetworkTimer extends TimerTask implements INetworkClientClock {
 	public static final short TIME_SLICE = 50;
+	private static final long TIME_SLICES_MEASUREMENT_PERIOD = 5000000000L; // ns
 	private Comparator<SyncTasksPacket> tasksByTimeComperator = new Comparator<SyncTasksPacket>() {
 		@Override
 		public int compare(SyncTasksPacket o1, SyncTasksPacket o2) {
@@ -65,8 +67,19 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	private float progress = 0.0f;
 
 	private boolean scheduled = false;
+	private volatile boolean stopped = false;
+	private volatile boolean maximumSpeed = false;
+	private boolean maximumSpeedLoopRunning = false;
+
+	private long measurementStart = System.nanoTime();
+	private int measuredTimeSlices = 0;
+	private volatile float timeSlicesPerSecond = 0;
+
+	private volatile long lockstepWaitingNanos = 0;
+	private volatile int lockstepStalls = 0;
 
 	private ITaskExecutor taskExecutor;
+	private volatile IExecutionScope executionScope;
 	private DataOutputStream replayLogStream;
 
 	public NetworkTimer() {
@@ -87,12 +100,14 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		if (!scheduled) {
 			scheduled = true;
 			timer.schedule(this, 0, TIME_SLICE);
+			startMaximumSpeedLoopIfNeeded();
 		}
 	}
 
 	@Override
 	public void stopExecution() {
 		setPausing(true);
+		stopped = true;
 		timer.cancel();
 
 		closeReplayLogStreamIfNeeded();
@@ -100,7 +115,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 	@Override
 	public void run() {
-		if (!isPausing) {
+		if (!isPausing && !maximumSpeed) {
 			if (pauseTime <= 0) { // this is used for synchronizing the network clients
 				progress += speedFactor;
 
@@ -114,16 +129,81 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		}
 	}
 
+	/**
+	 * Executes the time slices as fast as possible as long as the maximum speed mode is enabled. This runs on the thread of the {@link #timer}, so
+	 * the regular scheduled executions are blocked meanwhile.
+	 */
+	private void runAtMaximumSpeed() {
+		try {
+			while (maximumSpeed && !stopped) {
+				if (!executeRunIfNotPausing()) {
+					sleepTimeSlice();
+				}
+			}
+		} finally {
+			synchronized (this) {
+				maximumSpeedLoopRunning = false;
+				startMaximumSpeedLoopIfNeeded(); // maximum speed might have been enabled again in the meantime
+			}
+		}
+	}
+
+	/**
+	 * Checks the pausing state while holding the lock, so that no time slice is executed after {@link #fastForwardTo(int)} paused the game.
+	 * 
+	 * @return <code>true</code> if a time slice has been executed.
+	 */
+	private synchronized boolean executeRunIfNotPausing() {
+		if (isPausing) {
+			return false;
+		} else if (pauseTime > 0) {
+			pauseTime -= TIME_SLICE;
+			return false;
+		} else {
+			executeRun();
+			return true;
+		}
+	}
+
+	private synchronized void startMaximumSpeedLoopIfNeeded() {
+		if (maximumSpeed && scheduled && !stopped && !maximumSpeedLoopRunning) {
+			try {
+				timer.schedule(new TimerTask() {
+					@Override
+					public void run() {
+						runAtMaximumSpeed();
+					}
+				}, 0);
+				maximumSpeedLoopRunning = true;
+			} catch (IllegalStateException e) { // the timer has been stopped in the meantime
+			}
+		}
+	}
+
+	private static void sleepTimeSlice() {
+		try {
+			Thread.sleep(TIME_SLICE);
+		} catch (InterruptedException e) {
+		}
+	}
+
 	private synchronized void executeRun() {
+		IExecutionScope executionScope = this.executionScope;
+		Object previousScopeState = executionScope != null ? executionScope.enterExecution() : null;
 		try {
 			time += TIME_SLICE;
 			final int lockstep = time / NetworkConstants.Client.LOCKSTEP_PERIOD;
 
 			// check if the lockstep is allowed
 			synchronized (lockstepLock) {
-				while (lockstep > maxAllowedLockstep) {
-					System.out.println("WAITING for lockstep!");
-					lockstepLock.wait();
+				if (lockstep > maxAllowedLockstep) {
+					long waitingStart = System.nanoTime();
+					while (lockstep > maxAllowedLockstep) {
+						System.out.println("WAITING for lockstep!");
+						lockstepLock.wait();
+					}
+					lockstepWaitingNanos += System.nanoTime() - waitingStart;
+					lockstepStalls++;
 				}
 			}
 
@@ -135,7 +215,9 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 			while (tasksPacket != null && tasksPacket.getLockstepNumber() <= lockstep) {
 				assert tasksPacket.getLockstepNumber() == lockstep : "FOUND TasksPacket FOR older lockstep!";
 
-				System.out.println("Executing SyncTaskPacket(" + tasksPacket + ") in " + getLockstepText(lockstep));
+				if (!maximumSpeed) {
+					System.out.println("Executing SyncTaskPacket(" + tasksPacket + ") in " + getLockstepText(lockstep));
+				}
 
 				try {
 					executeTasksPacket(tasksPacket);
@@ -156,9 +238,30 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 			for (ScheduledTimerable curr : timerables) {
 				curr.checkExecution(TIME_SLICE);
 			}
+
+			measureTimeSlice();
 		} catch (Throwable t) {
 			System.err.println("WARNING: Networking Timer catched Throwable!!!");
 			t.printStackTrace();
+		} finally {
+			if (executionScope != null) {
+				executionScope.exitExecution(previousScopeState);
+			}
+		}
+	}
+
+	private void measureTimeSlice() {
+		measuredTimeSlices++;
+		long now = System.nanoTime();
+		long elapsed = now - measurementStart;
+		if (elapsed >= TIME_SLICES_MEASUREMENT_PERIOD) {
+			timeSlicesPerSecond = measuredTimeSlices * 1E9f / elapsed;
+			measuredTimeSlices = 0;
+			measurementStart = now;
+
+			if (maximumSpeed) {
+				System.out.println("Game time: " + time + "ms, executing " + (int) timeSlicesPerSecond + " time slices per second");
+			}
 		}
 	}
 
@@ -244,9 +347,16 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 		System.out.println("Playing game forward to game time: " + targetGameTime);
 
+		long start = System.nanoTime();
+		int startTime = time;
 		while (time < targetGameTime) {
 			executeRun();
 		}
+
+		long duration = Math.max(1, System.nanoTime() - start);
+		int timeSlices = (time - startTime) / TIME_SLICE;
+		System.out.println("Played " + timeSlices + " time slices in " + (duration / 1000000) + "ms ("
+				+ (int) (timeSlices * 1E9f / duration) + " time slices per second)");
 	}
 
 	// methods for pausing
@@ -287,6 +397,41 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		this.taskExecutor = taskExecutor;
 	}
 
+	@Override
+	public void setMaximumSpeed(boolean maximumSpeed) {
+		this.maximumSpeed = maximumSpeed;
+		startMaximumSpeedLoopIfNeeded();
+	}
+
+	@Override
+	public boolean isMaximumSpeed() {
+		return maximumSpeed;
+	}
+
+	/**
+	 * @return The total time in milliseconds this timer has been waiting for the server to unlock the next lockstep.
+	 */
+	public long getLockstepWaitingTime() {
+		return lockstepWaitingNanos / 1000000;
+	}
+
+	/**
+	 * @return The number of times this timer had to wait for the server to unlock the next lockstep.
+	 */
+	public int getLockstepStalls() {
+		return lockstepStalls;
+	}
+
+	@Override
+	public float getTimeSlicesPerSecond() {
+		return timeSlicesPerSecond;
+	}
+
+	@Override
+	public void setExecutionScope(IExecutionScope executionScope) {
+		this.executionScope = executionScope;
+	}
+
 	@Override
 	public void scheduleSyncTasksPacket(SyncTasksPacket tasksPacket) {
 		assert maxAllowedLockstep == Integer.MAX_VALUE
@@ -295,7 +440,9 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 		if (!tasksPacket.getTasks().isEmpty()) {
 			synchronized (tasks) {
-				System.out.println("Scheduled SyncTasksPacket(" + tasksPacket + " for " + getLockstepText(tasksPacket.getLockstepNumber()));
+				if (!maximumSpeed) {
+					System.out.println("Scheduled SyncTasksPacket(" + tasksPacket + " for " + getLockstepText(tasksPacket.getLockstepNumber()));
+				}
 				tasks.addLast(tasksPacket);
 				Collections.sort(tasks, tasksByTimeComperator);
 				saveReplayIfNeeded(tasksPacket);
@@ -311,7 +458,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	private void saveReplayIfNeeded(SyncTasksPacket tasksPacket) {
 		if (replayLogStream != null) {
 			try {
-				tasksPacket.serialize(replayLogStream);
+				tasksPacket.serializeForReplay(replayLogStream);
 				replayLogStream.flush();
 			} catch (IOException e) {
 				e.printStackTrace();
@@ -343,11 +490,16 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	}
 
 	@Override
-	public synchronized void saveRemainingTasks(DataOutputStream dos) throws IOException {
-		for (SyncTasksPacket task : tasks) {
-			task.serialize(dos);
+	public synchronized int saveRemainingTasks(DataOutputStream dos) throws IOException {
+		synchronized (tasks) { // new packets are logged while holding this lock
+			for (SyncTasksPacket task : tasks) {
+				task.serializeForReplay(dos);
+			}
+			dos.flush();
+
+			DataOutputStream replayLogStream = this.replayLogStream;
+			return replayLogStream != null ? replayLogStream.size() : -1;
 		}
-		dos.flush();
 	}
 
 	private void closeReplayLogStreamIfNeeded() {
@@ -368,7 +520,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		try {
 			while (true) {
 				SyncTasksPacket currPacket = new SyncTasksPacket();
-				currPacket.deserialize(dataInputStream);
+				currPacket.deserializeFromReplay(dataInputStream);
 				scheduleSyncTasksPacket(currPacket);
 			}
 		} catch (IOException e1) { // something went wrong, or the stream was empty
@@ -19,6 +19,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.LinkedList;
 
+import jsettlers.network.client.interfaces.IExecutionScope;
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
@@ -72,6 +73,26 @@ public class NetworkClientClockMock implements INetworkClientClock {
 		throw new UnsupportedOperationException("not mocked");
 	}
 
+	@Override
+	public void setMaximumSpeed(boolean maximumSpeed) {
+		throw new UnsupportedOperationException("not mocked");
+	}
+
+	@Override
+	public boolean isMaximumSpeed() {
+		return false;
+	}
+
+	@Override
+	public float getTimeSlicesPerSecond() {
+		throw new UnsupportedOperationException("not mocked");
+	}
+
+	@Override
+	public void setExecutionScope(IExecutionScope executionScope) {
+		throw new UnsupportedOperationException("not mocked");
+	}
+
 	@Override
 	public void multiplyGameSpeed(float factor) {
 		throw new UnsupportedOperationException("not mocked");
@@ -146,7 +167,8 @@ public class NetworkClientClockMock implements INetworkClientClock {
 	}
 
 	@Override
-	public void saveRemainingTasks(DataOutputStream dos) throws IOException {
+	public int saveRemainingTasks(DataOutputStream dos) throws IOException {
+		return -1;
 	}
 
 	@Override
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.client.statehash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import jsettlers.network.client.interfaces.IDesyncListener;
+import jsettlers.network.common.packets.StateHashPacket;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link StateHashComparison}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class StateHashComparisonTest {
+
+	private final List<StateHashPacket> desyncs = new LinkedList<StateHashPacket>();
+	private final StateHashComparison comparison = new StateHashComparison(new IDesyncListener() {
+		@Override
+		public void desyncDetected(int lockstep, String playerId, long[] localHashes, long[] remoteHashes) {
+			desyncs.add(new StateHashPacket(playerId, lockstep, remoteHashes));
+		}
+	});
+
+	@Test
+	public void testEqualHashes() {
+		comparison.localHashesCalculated(10, new long[] { 1, 2 });
+		comparison.remoteHashesReceived(new StateHashPacket("remote", 10, new long[] { 1, 2 }));
+		comparison.remoteHashesReceived(new StateHashPacket("remote", 20, new long[] { 3, 4 }));
+		comparison.localHashesCalculated(20, new long[] { 3, 4 });
+
+		assertEquals(0, desyncs.size());
+	}
+
+	@Test
+	public void testRemoteHashesAfterLocalOnes() {
+		comparison.localHashesCalculated(10, new long[] { 1, 2 });
+		comparison.localHashesCalculated(20, new long[] { 3, 4 });
+		comparison.remoteHashesReceived(new StateHashPacket("remote", 10, new long[] { 1, 5 }));
+
+		assertEquals(1, desyncs.size());
+		assertEquals(10, desyncs.get(0).getLockstep());
+		assertArrayEquals(new long[] { 1, 5 }, desyncs.get(0).getHashes());
+	}
+
+	@Test
+	public void testRemoteHashesBeforeLocalOnes() {
+		comparison.localHashesCalculated(10, new long[] { 1, 2 });
+		comparison.remoteHashesReceived(new StateHashPacket("remote", 20, new long[] { 3, 5 }));
+		assertEquals(0, desyncs.size());
+
+		comparison.localHashesCalculated(20, new long[] { 3, 4 });
+		assertEquals(1, desyncs.size());
+		assertEquals(20, desyncs.get(0).getLockstep());
+	}
+
+	@Test
+	public void testDesyncIsReportedOncePerPlayer() {
+		for (int lockstep = 10; lockstep <= 50; lockstep += 10) {
+			comparison.localHashesCalculated(lockstep, new long[] { lockstep });
+			comparison.remoteHashesReceived(new StateHashPacket("remote1", lockstep, new long[] { -lockstep }));
+			comparison.remoteHashesReceived(new StateHashPacket("remote2", lockstep, new long[] { lockstep < 30 ? lockstep : 0 }));
+		}
+
+		assertEquals(2, desyncs.size());
+		assertEquals("remote1", desyncs.get(0).getPlayerId());
+		assertEquals(10, desyncs.get(0).getLockstep());
+		assertEquals("remote2", desyncs.get(1).getPlayerId());
+		assertEquals(30, desyncs.get(1).getLockstep());
+	}
+}
@@ -28,6 +28,7 @@ import jsettlers.network.client.task.packets.SyncTasksPacket;
 public class SyncTasksPacketSchedulerMock implements ISyncTasksPacketScheduler {
 	private LinkedList<SyncTasksPacket> buffer;
 	private int unlockedLockstep = 0;
+	private int numberOfEmptyPackets = 0;
 
 	public SyncTasksPacketSchedulerMock() {
 		this.buffer = new LinkedList<SyncTasksPacket>();
@@ -49,9 +50,15 @@ public class SyncTasksPacketSchedulerMock implements ISyncTasksPacketScheduler {
 
 		if (!tasksPacket.getTasks().isEmpty()) {
 			buffer.add(tasksPacket);
+		} else {
+			numberOfEmptyPackets++;
 		}
 	}
 
+	public int getNumberOfEmptyPackets() {
+		return numberOfEmptyPackets;
+	}
+
 	public int getUnlockedLockstepNumber() {
 		return unlockedLockstep;
 	}
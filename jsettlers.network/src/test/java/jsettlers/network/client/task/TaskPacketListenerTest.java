@@ -16,6 +16,8 @@ package jsettlers.network.client.task;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
@@ -76,4 +78,46 @@ public class TaskPacketListenerTest {
 		assertEquals(testPacket1, tasks.get(0));
 		assertEquals(testPacket2, tasks.get(1));
 	}
+
+	@Test
+	public void testReceiveRunOfEmptyLocksteps() throws InterruptedException {
+		SyncTasksPacketSchedulerMock taskReceiver = new SyncTasksPacketSchedulerMock();
+		TaskPacketListener listener = new TaskPacketListener(taskReceiver);
+		c1.registerListener(listener);
+
+		TaskPacket testPacket = new TestTaskPacket("sdfsdf", 2342, (byte) 3);
+		c2.sendPacket(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new SyncTasksPacket(0, Arrays.asList(testPacket)));
+		c2.sendPacket(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new SyncTasksPacket(1, 5, Arrays.asList(testPacket)));
+		c2.sendPacket(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new SyncTasksPacket(7, 0, Arrays.asList(testPacket)));
+
+		Thread.sleep(30);
+		List<SyncTasksPacket> packets = taskReceiver.popBufferedPackets();
+		assertEquals(3, packets.size());
+		assertEquals(1, packets.get(1).getLockstepNumber());
+		assertEquals(7, packets.get(2).getLockstepNumber());
+		assertEquals(7, taskReceiver.getUnlockedLockstepNumber());
+		assertEquals(5, taskReceiver.getNumberOfEmptyPackets());
+	}
+
+	@Test
+	public void testHeadPacketOfRunIsForwardedAsSingleLockstep() throws InterruptedException, IOException {
+		SyncTasksPacketSchedulerMock taskReceiver = new SyncTasksPacketSchedulerMock();
+		TaskPacketListener listener = new TaskPacketListener(taskReceiver);
+		c1.registerListener(listener);
+
+		TaskPacket testPacket = new TestTaskPacket("sdfsdf", 2342, (byte) 3);
+		c2.sendPacket(NetworkConstants.ENetworkKey.SYNCHRONOUS_TASK, new SyncTasksPacket(4, 3, Arrays.asList(testPacket)));
+
+		Thread.sleep(30);
+		List<SyncTasksPacket> packets = taskReceiver.popBufferedPackets();
+		assertEquals(1, packets.size());
+		SyncTasksPacket headPacket = packets.get(0);
+		assertEquals(4, headPacket.getLockstepNumber());
+		assertEquals(0, headPacket.getFollowingEmptyLocksteps());
+		assertEquals(Arrays.asList(testPacket), headPacket.getTasks());
+		assertEquals(7, taskReceiver.getUnlockedLockstepNumber());
+		assertEquals(3, taskReceiver.getNumberOfEmptyPackets());
+
+		headPacket.serializeForReplay(new DataOutputStream(new ByteArrayOutputStream())); // must not trip the single lockstep assertion
+	}
 }
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.client.task.packets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jsettlers.network.client.task.TestTaskPacket;
+import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.server.packets.ServersideSyncTasksPacket;
+import jsettlers.network.server.packets.ServersideTaskPacket;
+
+import org.junit.Test;
+
+/**
+ * Tests the network and the replay format of the {@link SyncTasksPacket} and the {@link TaskPacket}s.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class SyncTasksPacketTest {
+
+	@Test
+	public void testReplayFormatUnchanged() throws IOException {
+		SyncTasksPacket packet = new SyncTasksPacket(2342, Arrays.asList(createIdsTask(3), new TestTaskPacket("bla", 234, (byte) -5)));
+
+		ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
+		DataOutputStream expected = new DataOutputStream(expectedOut);
+		expected.writeInt(2342);
+		expected.writeInt(2);
+
+		ByteArrayOutputStream taskOut = new ByteArrayOutputStream();
+		DataOutputStream task = new DataOutputStream(taskOut);
+		task.writeUTF(IdsTestTaskPacket.class.getName());
+		task.writeInt(3);
+		task.writeInt(1000);
+		task.writeInt(1001);
+		task.writeInt(1002);
+		expected.writeInt(taskOut.size());
+		taskOut.writeTo(expected);
+
+		taskOut.reset();
+		task.writeUTF(TestTaskPacket.class.getName());
+		task.writeUTF("bla");
+		task.writeInt(234);
+		task.writeByte(-5);
+		expected.writeInt(taskOut.size());
+		taskOut.writeTo(expected);
+
+		assertArrayEquals(expectedOut.toByteArray(), serializeForReplay(packet));
+	}
+
+	@Test
+	public void testReplayRoundTrip() throws IOException {
+		SyncTasksPacket packet = new SyncTasksPacket(234234, Arrays.asList(createIdsTask(200), new TestTaskPacket("bla", 234, (byte) -5)));
+
+		SyncTasksPacket readPacket = new SyncTasksPacket();
+		readPacket.deserializeFromReplay(new DataInputStream(new ByteArrayInputStream(serializeForReplay(packet))));
+
+		assertEquals(packet, readPacket);
+	}
+
+	@Test
+	public void testNetworkRoundTrip() throws IOException {
+		SyncTasksPacket packet = new SyncTasksPacket(234234, 12, Arrays.asList(createIdsTask(200), new TestTaskPacket("bla", 234, (byte) -5)));
+
+		byte[] data = serialize(packet);
+		SyncTasksPacket readPacket = new SyncTasksPacket();
+		readPacket.deserialize(new DataInputStream(new ByteArrayInputStream(data)));
+
+		assertEquals(packet, readPacket);
+		assertEquals(12, readPacket.getFollowingEmptyLocksteps());
+	}
+
+	@Test
+	public void testNetworkFormatIsShorter() throws IOException {
+		SyncTasksPacket emptyPacket = new SyncTasksPacket(100, new ArrayList<TaskPacket>());
+		assertEquals(3, serialize(emptyPacket).length);
+		assertEquals(8, serializeForReplay(emptyPacket).length);
+
+		SyncTasksPacket idsPacket = new SyncTasksPacket(100, Arrays.asList(createIdsTask(300)));
+		assertTrue(serialize(idsPacket).length < serializeForReplay(idsPacket).length / 3);
+	}
+
+	@Test
+	public void testServerRelaysNetworkFormat() throws IOException {
+		List<TaskPacket> tasks = Arrays.asList(createIdsTask(5), new TestTaskPacket("bla", 234, (byte) -5));
+
+		List<ServersideTaskPacket> serversideTasks = new ArrayList<ServersideTaskPacket>();
+		for (TaskPacket task : tasks) {
+			ServersideTaskPacket serversideTask = new ServersideTaskPacket();
+			serversideTask.deserialize(new DataInputStream(new ByteArrayInputStream(serialize(task))));
+			serversideTasks.add(serversideTask);
+		}
+
+		SyncTasksPacket readPacket = new SyncTasksPacket();
+		readPacket.deserialize(new DataInputStream(new ByteArrayInputStream(serialize(new ServersideSyncTasksPacket(23, 4, serversideTasks)))));
+
+		assertEquals(new SyncTasksPacket(23, 4, tasks), readPacket);
+	}
+
+	private static IdsTestTaskPacket createIdsTask(int numberOfIds) {
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int i = 0; i < numberOfIds; i++) {
+			ids.add(1000 + i);
+		}
+		return new IdsTestTaskPacket(ids);
+	}
+
+	private static byte[] serialize(Packet packet) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(out);
+		packet.serialize(dos);
+		dos.flush();
+		return out.toByteArray();
+	}
+
+	private static byte[] serializeForReplay(SyncTasksPacket packet) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(out);
+		packet.serializeForReplay(dos);
+		dos.flush();
+		return out.toByteArray();
+	}
+
+	public static class IdsTestTaskPacket extends TaskPacket {
+		private List<Integer> ids;
+
+		public IdsTestTaskPacket() {
+		}
+
+		public IdsTestTaskPacket(List<Integer> ids) {
+			this.ids = ids;
+		}
+
+		@Override
+		protected void serializeTask(DataOutputStream dos) throws IOException {
+			writeIds(dos, ids);
+		}
+
+		@Override
+		protected void deserializeTask(DataInputStream dis) throws IOException {
+			ids = readIds(dis);
+		}
+
+		@Override
+		public int hashCode() {
+			return ids.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof IdsTestTaskPacket && ids.equals(((IdsTestTaskPacket) obj).ids);
+		}
+	}
+}
@@ -91,14 +91,19 @@ public class PacketSerializationTest {
 				{ new MatchInfoUpdatePacket(ENetworkMessage.NO_LISTENER_FOUND, new PlayerInfoPacket("IDBLA82348-#�l�34r",
 						"NameBKUIH893428())/\"�/", true), createMatchInfoPacket()), d(MatchInfoUpdatePacket.class) },
 				{ new TimeSyncPacket(23424), d(TimeSyncPacket.class) },
+				{ new StateHashPacket("player(/&%\"1", 2342, new long[] { 234234234234L, -1L, 0L, Long.MIN_VALUE }), d(StateHashPacket.class) },
 
 				{ new ServersideTaskPacket("sdfsfsdf".getBytes()), d(ServersideTaskPacket.class) },
 				{ new ServersideSyncTasksPacket(23, Arrays.asList(new ServersideTaskPacket("dsfjsfj".getBytes()),
 						new ServersideTaskPacket("ehgdhd".getBytes()))), d(ServersideSyncTasksPacket.class) },
+				{ new ServersideSyncTasksPacket(234234, 17, Arrays.asList(new ServersideTaskPacket("dsfjsfj".getBytes()))),
+						d(ServersideSyncTasksPacket.class) },
 
 				{ new TestTaskPacket("tesdfk��l9/&%/%&\"\\u8u23jo", 23424, (byte) -2), TaskPacket.DEFAULT_DESERIALIZER },
 				{ new SyncTasksPacket(234, Arrays.asList((TaskPacket) new TestTaskPacket("dsfdsdf", 23, (byte) -3),
 						(TaskPacket) new TestTaskPacket("dsfs��#��dsdf", 4345, (byte) 5))), d(SyncTasksPacket.class) },
+				{ new SyncTasksPacket(2342342, 300, Arrays.asList((TaskPacket) new TestTaskPacket("dsfdsdf", 23, (byte) -3))),
+						d(SyncTasksPacket.class) },
 
 				{ new BooleanMessagePacket(true), d(BooleanMessagePacket.class) },
 				{ new ChatMessagePacket("authorId(, message)U)(Z", "message'**�##\"\\ppoisudf08u("), d(ChatMessagePacket.class) },
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.packet;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.IChannelListener;
+import jsettlers.network.infrastructure.channel.selector.ChannelSelector;
+import jsettlers.network.infrastructure.channel.selector.SelectorChannel;
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.log.Logger;
+import jsettlers.network.infrastructure.log.LoggerManager;
+import jsettlers.network.server.packets.ServersideSyncTasksPacket;
+import jsettlers.network.server.packets.ServersideTaskPacket;
+
+import org.junit.Test;
+
+/**
+ * Broadcasts lockstep packets to the {@link #RECIPIENTS} players of a match the way {@link jsettlers.network.server.match.Match} does and measures
+ * the bytes allocated by the sending thread and the number of write system calls.
+ * <p />
+ * The following ways of sending are compared:
+ * <ul>
+ * <li>serializing the packet for every recipient and writing key, length and data to the unbuffered socket stream, as the {@link Channel}
+ * did before {@link PacketFrame}s were introduced,</li>
+ * <li>{@link Channel#sendPacket(ENetworkKey, Packet)} for every recipient,</li>
+ * <li>{@link SelectorChannel#sendPacket(ENetworkKey, Packet)} for every recipient,</li>
+ * <li>serializing a single {@link PacketFrame} and sending it to all {@link SelectorChannel}s.</li>
+ * </ul>
+ * Sending a shared {@link PacketFrame} must allocate less than every other way of sending and must not need more write system calls than
+ * sending a packet with a single write. The system calls are read from /proc/self/io, so they are only checked on Linux. The allocated bytes
+ * are only checked on a HotSpot JVM.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class PacketFrameSpeedTest {
+	private static final int RECIPIENTS = 8;
+	private static final int BROADCASTS = 20000;
+	private static final int TASKS_PER_LOCKSTEP = 4;
+	private static final Logger LOGGER = LoggerManager.ROOT_LOGGER;
+
+	private enum ESendingMode {
+		SERIALIZE_PER_RECIPIENT_TO_STREAM,
+		CHANNEL_SEND_PACKET,
+		SELECTOR_CHANNEL_SEND_PACKET,
+		SELECTOR_CHANNEL_SHARED_FRAME
+	}
+
+	@Test
+	public void testSpeed() throws Exception {
+		List<ServersideTaskPacket> tasks = new ArrayList<ServersideTaskPacket>();
+		for (int i = 0; i < TASKS_PER_LOCKSTEP; i++) {
+			tasks.add(new ServersideTaskPacket(new byte[32]));
+		}
+
+		EnumMap<ESendingMode, Measurement> measurements = new EnumMap<ESendingMode, Measurement>(ESendingMode.class);
+		for (int round = 0; round < 2; round++) { // the first round warms up the JVM
+			for (ESendingMode mode : ESendingMode.values()) {
+				measurements.put(mode, runBenchmark(mode, tasks));
+			}
+		}
+
+		Measurement sharedFrame = measurements.get(ESendingMode.SELECTOR_CHANNEL_SHARED_FRAME);
+		for (ESendingMode mode : ESendingMode.values()) {
+			Measurement measurement = measurements.get(mode);
+			if (mode != ESendingMode.SELECTOR_CHANNEL_SHARED_FRAME && measurement.senderAllocations > 0) {
+				assertTrue(mode.toString(), sharedFrame.senderAllocations < measurement.senderAllocations);
+			}
+		}
+
+		if (sharedFrame.writeCalls >= 0) {
+			assertTrue(sharedFrame.writeCalls <= measurements.get(ESendingMode.CHANNEL_SEND_PACKET).writeCalls);
+			assertTrue(sharedFrame.writeCalls < measurements.get(ESendingMode.SERIALIZE_PER_RECIPIENT_TO_STREAM).writeCalls);
+		}
+	}
+
+	private Measurement runBenchmark(ESendingMode mode, List<ServersideTaskPacket> tasks) throws Exception {
+		ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+		serverSocketChannel.socket().bind(new InetSocketAddress("localhost", 0));
+		int port = serverSocketChannel.socket().getLocalPort();
+
+		ChannelSelector clientSelector = new ChannelSelector("ClientSelector");
+		clientSelector.start();
+		ChannelSelector serverSelector = new ChannelSelector("ServerSelector");
+		serverSelector.start();
+
+		final AtomicInteger received = new AtomicInteger();
+		IChannelListener countingListener = new IChannelListener() {
+			@Override
+			public ENetworkKey[] getKeys() {
+				return new ENetworkKey[] { ENetworkKey.SYNCHRONOUS_TASK };
+			}
+
+			@Override
+			public void receive(ENetworkKey key, int length, DataInputStream stream) throws IOException {
+				stream.skipBytes(length);
+				received.incrementAndGet();
+			}
+		};
+
+		SelectorChannel[] clients = new SelectorChannel[RECIPIENTS];
+		Channel[] serverChannels = new Channel[RECIPIENTS];
+		DataOutputStream[] serverStreams = new DataOutputStream[RECIPIENTS];
+		for (int i = 0; i < RECIPIENTS; i++) {
+			clients[i] = SelectorChannel.connect(LOGGER, "localhost", port, clientSelector);
+			clients[i].registerListener(countingListener);
+			clients[i].start();
+
+			SocketChannel acceptedSocket = serverSocketChannel.accept();
+			switch (mode) {
+			case SERIALIZE_PER_RECIPIENT_TO_STREAM:
+				serverStreams[i] = new DataOutputStream(acceptedSocket.socket().getOutputStream());
+				break;
+			case CHANNEL_SEND_PACKET:
+				serverChannels[i] = new Channel(LOGGER, ISocketFactory.DEFAULT_FACTORY.generateSocket(acceptedSocket.socket()));
+				serverChannels[i].start();
+				break;
+			default:
+				serverChannels[i] = new SelectorChannel(LOGGER, acceptedSocket, serverSelector);
+				serverChannels[i].start();
+				break;
+			}
+		}
+
+		ByteArrayOutputStream byteBufferOutStream = new ByteArrayOutputStream();
+		DataOutputStream bufferDataOutStream = new DataOutputStream(byteBufferOutStream);
+
+		Thread.sleep(100);
+		long senderAllocationsBefore = getAllocatedBytes();
+		long writeCallsBefore = getWriteSystemCalls();
+
+		for (int broadcast = 0; broadcast < BROADCASTS; broadcast++) {
+			ServersideSyncTasksPacket packet = new ServersideSyncTasksPacket(broadcast, tasks);
+
+			switch (mode) {
+			case SERIALIZE_PER_RECIPIENT_TO_STREAM:
+				for (DataOutputStream outStream : serverStreams) {
+					bufferDataOutStream.flush();
+					byteBufferOutStream.reset();
+					packet.serialize(bufferDataOutStream);
+					bufferDataOutStream.flush();
+
+					ENetworkKey.SYNCHRONOUS_TASK.writeTo(outStream);
+					outStream.writeInt(byteBufferOutStream.size());
+					byteBufferOutStream.writeTo(outStream);
+					outStream.flush();
+				}
+				break;
+			case CHANNEL_SEND_PACKET:
+			case SELECTOR_CHANNEL_SEND_PACKET:
+				for (Channel channel : serverChannels) {
+					channel.sendPacket(ENetworkKey.SYNCHRONOUS_TASK, packet);
+				}
+				break;
+			case SELECTOR_CHANNEL_SHARED_FRAME:
+				PacketFrame frame = PacketFrame.serialize(ENetworkKey.SYNCHRONOUS_TASK, packet);
+				for (Channel channel : serverChannels) {
+					channel.sendFrame(frame);
+				}
+				frame.release();
+				break;
+			}
+		}
+
+		while (received.get() < BROADCASTS * RECIPIENTS) {
+			Thread.sleep(1);
+		}
+
+		long writeCalls = writeCallsBefore < 0 ? -1 : getWriteSystemCalls() - writeCallsBefore;
+		long senderAllocations = getAllocatedBytes() - senderAllocationsBefore;
+
+		for (int i = 0; i < RECIPIENTS; i++) {
+			clients[i].close();
+			if (serverChannels[i] != null) {
+				serverChannels[i].close();
+			}
+			if (serverStreams[i] != null) {
+				serverStreams[i].close();
+			}
+		}
+		serverSelector.shutdown();
+		clientSelector.shutdown();
+		serverSocketChannel.close();
+
+		return new Measurement(senderAllocations, writeCalls);
+	}
+
+	/**
+	 * @return The bytes allocated by the current thread or 0 if the JVM doesn't support to count them.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+			return 0;
+		}
+		return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * @return The number of write system calls of this process or -1 if they can't be read.
+	 */
+	private static long getWriteSystemCalls() {
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader("/proc/self/io"));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.startsWith("syscw:")) {
+						return Long.parseLong(line.substring(6).trim());
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+		}
+		return -1;
+	}
+
+	private static class Measurement {
+		private final long senderAllocations;
+		private final long writeCalls;
+
+		Measurement(long senderAllocations, long writeCalls) {
+			this.senderAllocations = senderAllocations;
+			this.writeCalls = writeCalls;
+		}
+	}
+}
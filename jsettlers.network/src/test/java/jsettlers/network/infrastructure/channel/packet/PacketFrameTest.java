@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.packet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.TestPacket;
+import jsettlers.network.infrastructure.channel.buffer.ByteBufferInputStream;
+import jsettlers.network.infrastructure.channel.buffer.ByteBufferPool;
+
+import org.junit.Test;
+
+/**
+ * Test for the class {@link PacketFrame}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class PacketFrameTest {
+	private final ByteBufferPool pool = new ByteBufferPool(4);
+
+	@Test
+	public void testSerialization() throws IOException {
+		TestPacket packet = new TestPacket("testString", 4711);
+		PacketFrame frame = PacketFrame.serialize(ENetworkKey.TEST_PACKET, packet, pool);
+
+		ByteBufferInputStream in = new ByteBufferInputStream();
+		in.setBuffer(frame.getData());
+		DataInputStream dataIn = new DataInputStream(in);
+
+		assertEquals(ENetworkKey.TEST_PACKET, ENetworkKey.readFrom(dataIn));
+		assertEquals(frame.size() - PacketFrame.HEADER_LENGTH, dataIn.readInt());
+
+		TestPacket deserialized = new TestPacket();
+		deserialized.deserialize(dataIn);
+		assertEquals(packet, deserialized);
+		assertEquals(0, dataIn.available());
+
+		frame.release();
+	}
+
+	@Test
+	public void testBigPacket() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			builder.append("bigPacket");
+		}
+		TestPacket packet = new TestPacket(builder.toString(), 42);
+		PacketFrame frame = PacketFrame.serialize(ENetworkKey.TEST_PACKET, packet, pool);
+
+		ByteBufferInputStream in = new ByteBufferInputStream();
+		in.setBuffer(frame.getData());
+		DataInputStream dataIn = new DataInputStream(in);
+		ENetworkKey.readFrom(dataIn);
+		dataIn.readInt();
+
+		TestPacket deserialized = new TestPacket();
+		deserialized.deserialize(dataIn);
+		assertEquals(packet, deserialized);
+
+		frame.release();
+	}
+
+	@Test
+	public void testBufferIsRecycled() throws IOException {
+		PacketFrame frame = PacketFrame.serialize(ENetworkKey.TEST_PACKET, new TestPacket(1), pool);
+		frame.retain();
+		frame.release();
+
+		ByteBuffer buffer = pool.acquire(frame.size());
+		assertEquals(2, pool.getAllocations()); // the frame's buffer is still in use
+		pool.release(buffer);
+
+		frame.release();
+		long allocations = pool.getAllocations();
+
+		for (int i = 0; i < 10; i++) {
+			PacketFrame.serialize(ENetworkKey.TEST_PACKET, new TestPacket(i), pool).release();
+		}
+		assertEquals(allocations, pool.getAllocations());
+
+		ByteBufferPool otherPool = new ByteBufferPool(1);
+		ByteBuffer first = otherPool.acquire(100);
+		otherPool.release(first);
+		assertSame(first, otherPool.acquire(200));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReleaseTooOften() throws IOException {
+		PacketFrame frame = PacketFrame.serialize(ENetworkKey.TEST_PACKET, new TestPacket(1), pool);
+		frame.release();
+		frame.release();
+	}
+}
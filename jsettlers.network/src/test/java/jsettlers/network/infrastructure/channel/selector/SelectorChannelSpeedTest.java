@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.selector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.TestPacket;
+import jsettlers.network.infrastructure.channel.listeners.PacketChannelListener;
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.log.Logger;
+import jsettlers.network.infrastructure.log.LoggerManager;
+
+import org.junit.Test;
+
+/**
+ * Compares the thread per connection {@link Channel} with the {@link SelectorChannel} on the server side of {@link #CLIENTS} simulated clients.
+ * The {@link Channel}s need a thread per connection, while the {@link SelectorChannel}s must not need any additional thread. Both must deliver
+ * packets broadcasted to all clients.
+ * <p />
+ * The simulated clients use {@link SelectorChannel}s of their own {@link ChannelSelector}, so they don't distort the thread count.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class SelectorChannelSpeedTest {
+	private static final int CLIENTS = 200;
+	private static final int BROADCASTS = 50;
+	private static final Logger LOGGER = LoggerManager.ROOT_LOGGER;
+
+	@Test
+	public void testSpeed() throws Exception {
+		int channelThreads = runBenchmark(false);
+		int selectorChannelThreads = runBenchmark(true);
+
+		assertTrue(channelThreads >= CLIENTS);
+		assertTrue(selectorChannelThreads < CLIENTS / 10); // other threads of the JVM may start or end meanwhile
+	}
+
+	/**
+	 * @return The number of threads started for the server side channels.
+	 */
+	private int runBenchmark(boolean useSelector) throws Exception {
+		ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+		serverSocketChannel.socket().bind(new InetSocketAddress("localhost", 0));
+		int port = serverSocketChannel.socket().getLocalPort();
+
+		ChannelSelector clientSelector = new ChannelSelector("ClientSelector");
+		clientSelector.start();
+		ChannelSelector serverSelector = new ChannelSelector("ServerSelector");
+		serverSelector.start();
+
+		SelectorChannel[] clients = new SelectorChannel[CLIENTS];
+		SocketChannel[] acceptedSockets = new SocketChannel[CLIENTS];
+		BroadcastListener listener = new BroadcastListener();
+		for (int i = 0; i < CLIENTS; i++) {
+			clients[i] = SelectorChannel.connect(LOGGER, "localhost", port, clientSelector);
+			clients[i].registerListener(listener);
+			clients[i].start();
+			acceptedSockets[i] = serverSocketChannel.accept();
+		}
+
+		int threadsBefore = Thread.activeCount();
+
+		Channel[] serverChannels = new Channel[CLIENTS];
+		for (int i = 0; i < CLIENTS; i++) {
+			if (useSelector) {
+				serverChannels[i] = new SelectorChannel(LOGGER, acceptedSockets[i], serverSelector);
+			} else {
+				serverChannels[i] = new Channel(LOGGER, ISocketFactory.DEFAULT_FACTORY.generateSocket(acceptedSockets[i].socket()));
+			}
+			serverChannels[i].start();
+		}
+
+		int startedThreads = Thread.activeCount() - threadsBefore;
+
+		for (int broadcast = 0; broadcast < BROADCASTS; broadcast++) {
+			listener.reset();
+			for (Channel serverChannel : serverChannels) {
+				serverChannel.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(broadcast));
+			}
+			listener.await();
+		}
+
+		for (int i = 0; i < CLIENTS; i++) {
+			serverChannels[i].close();
+			clients[i].close();
+		}
+		serverSelector.shutdown();
+		clientSelector.shutdown();
+		serverSocketChannel.close();
+
+		return startedThreads;
+	}
+
+	private static class BroadcastListener extends PacketChannelListener<TestPacket> {
+		private CountDownLatch latch;
+
+		BroadcastListener() {
+			super(ENetworkKey.TEST_PACKET, TestPacket.DEFAULT_DESERIALIZER);
+		}
+
+		void reset() {
+			latch = new CountDownLatch(CLIENTS);
+		}
+
+		void await() throws InterruptedException, IOException {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new IOException("Broadcast not received by all clients.");
+			}
+			assertEquals(0, latch.getCount());
+		}
+
+		@Override
+		protected void receivePacket(ENetworkKey key, TestPacket packet) {
+			latch.countDown();
+		}
+	}
+}
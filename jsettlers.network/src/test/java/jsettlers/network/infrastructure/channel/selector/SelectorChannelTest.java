@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.selector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.IChannelClosedListener;
+import jsettlers.network.infrastructure.channel.TestPacket;
+import jsettlers.network.infrastructure.channel.TestPacketListener;
+import jsettlers.network.infrastructure.channel.packet.PacketFrame;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for the class {@link SelectorChannel}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class SelectorChannelTest {
+	private ServerSocketChannel serverSocketChannel;
+	private ChannelSelector channelSelector;
+
+	private SelectorChannel c1;
+	private Channel c2;
+
+	@Before
+	public void setUp() throws IOException {
+		serverSocketChannel = ServerSocketChannel.open();
+		serverSocketChannel.socket().bind(new InetSocketAddress("localhost", 0));
+
+		channelSelector = new ChannelSelector("TestSelector");
+		channelSelector.start();
+
+		c2 = new Channel("localhost", serverSocketChannel.socket().getLocalPort());
+		c1 = new SelectorChannel(new ConsoleLogger("c1"), serverSocketChannel.accept(), channelSelector);
+
+		c1.start();
+		c2.start();
+		c1.initPinging();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		c1.close();
+		c2.close();
+		channelSelector.shutdown();
+		serverSocketChannel.close();
+	}
+
+	@Test
+	public void testConnection() throws Exception {
+		TestPacketListener listener1 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		TestPacketListener listener2 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		c1.registerListener(listener1);
+		c2.registerListener(listener2);
+		TestPacket testPackage = new TestPacket("dlkfjs", -23423);
+		c1.sendPacket(ENetworkKey.TEST_PACKET, testPackage);
+		c2.sendPacket(ENetworkKey.TEST_PACKET, testPackage);
+
+		Thread.sleep(80);
+
+		assertEquals(1, listener1.packets.size());
+		assertEquals(testPackage, listener1.packets.get(0));
+
+		assertEquals(1, listener2.packets.size());
+		assertEquals(testPackage, listener2.packets.get(0));
+	}
+
+	@Test
+	public void testMultiPackets() throws Exception {
+		TestPacketListener listener1 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		TestPacketListener listener2 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		c1.registerListener(listener1);
+		c2.registerListener(listener2);
+
+		final int NUMBER_OF_PACKETS = 2000;
+
+		for (int i = 0; i < NUMBER_OF_PACKETS; i++) {
+			c1.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+			c2.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(i));
+		}
+
+		Thread.sleep(200);
+
+		assertEquals(NUMBER_OF_PACKETS, listener1.packets.size());
+		assertEquals(NUMBER_OF_PACKETS, listener2.packets.size());
+
+		for (int i = 0; i < NUMBER_OF_PACKETS; i++) {
+			assertEquals(i, listener1.packets.get(i).getTestInt());
+			assertEquals(i, listener2.packets.get(i).getTestInt());
+		}
+	}
+
+	@Test
+	public void testBigPacket() throws Exception {
+		TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		c2.registerListener(listener);
+
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			builder.append("bigPacket");
+		}
+		TestPacket testPackage = new TestPacket(builder.toString(), 42);
+		c1.sendPacket(ENetworkKey.TEST_PACKET, testPackage);
+
+		Thread.sleep(100);
+
+		assertEquals(1, listener.packets.size());
+		assertEquals(testPackage, listener.packets.get(0));
+	}
+
+	@Test
+	public void testSendFrame() throws Exception {
+		TestPacketListener listener1 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		TestPacketListener listener2 = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		c1.registerListener(listener1);
+		c2.registerListener(listener2);
+
+		TestPacket testPackage = new TestPacket("frame", 23);
+		PacketFrame frame = PacketFrame.serialize(ENetworkKey.TEST_PACKET, testPackage);
+		c1.sendFrame(frame);
+		c2.sendFrame(frame);
+		c1.sendFrame(frame);
+		frame.release();
+
+		Thread.sleep(80);
+
+		assertEquals(1, listener1.packets.size());
+		assertEquals(testPackage, listener1.packets.get(0));
+		assertEquals(2, listener2.packets.size());
+		assertEquals(testPackage, listener2.packets.get(1));
+	}
+
+	@Test
+	public void testRoundTripTime() throws InterruptedException {
+		Thread.sleep(100);
+
+		assertTrue(System.currentTimeMillis() - c1.getRoundTripTime().getLastUpdated() < 50);
+		assertTrue(System.currentTimeMillis() - c2.getRoundTripTime().getLastUpdated() < 50);
+	}
+
+	@Test
+	public void testCloseOneSide() throws InterruptedException {
+		assertFalse(c1.isClosed());
+		assertFalse(c2.isClosed());
+
+		c1.close();
+		assertTrue(c1.isClosed());
+
+		Thread.sleep(40);
+		assertTrue(c2.isClosed());
+	}
+
+	@Test
+	public void testCloseOtherSide() throws InterruptedException {
+		assertFalse(c1.isClosed());
+		assertFalse(c2.isClosed());
+
+		c2.close();
+		assertTrue(c2.isClosed());
+
+		Thread.sleep(40);
+		assertTrue(c1.isClosed());
+	}
+
+	@Test
+	public void testChannelClosedListener() throws InterruptedException {
+		final int[] closed = new int[1];
+
+		c1.setChannelClosedListener(new IChannelClosedListener() {
+			@Override
+			public void channelClosed() {
+				closed[0]++;
+			}
+		});
+
+		c2.close();
+
+		Thread.sleep(40);
+		assertEquals(1, closed[0]);
+
+		c1.close();
+		Thread.sleep(40);
+		assertEquals(1, closed[0]);
+	}
+
+	@Test
+	public void testSendingOnClosedChannel() {
+		c1.close();
+		c2.close();
+
+		c1.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket("sdfsdf", 1434));
+		c2.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket("dsfsw", 32423));
+	}
+
+	@Test
+	public void testOverflowingPacketLengthClosesOnlyThisChannel() throws Exception {
+		testInvalidPacketLength(Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void testHugePacketLengthClosesOnlyThisChannel() throws Exception {
+		testInvalidPacketLength(1 << 30);
+	}
+
+	@Test
+	public void testTooLongPacketClosesOnlyThisChannel() throws Exception {
+		testInvalidPacketLength(PacketFrame.MAX_PACKET_LENGTH + 1);
+	}
+
+	private void testInvalidPacketLength(int length) throws Exception {
+		Socket client = new Socket("localhost", serverSocketChannel.socket().getLocalPort());
+		SelectorChannel c3 = new SelectorChannel(new ConsoleLogger("c3"), serverSocketChannel.accept(), channelSelector);
+		c3.start();
+
+		DataOutputStream out = new DataOutputStream(client.getOutputStream());
+		ENetworkKey.TEST_PACKET.writeTo(out);
+		out.writeInt(length);
+		out.write(new byte[100]);
+		out.flush();
+
+		Thread.sleep(80);
+		assertTrue(c3.isClosed());
+		assertTrue(channelSelector.isAlive());
+		client.close();
+
+		TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		c1.registerListener(listener);
+		TestPacket testPackage = new TestPacket("still working", 3);
+		c2.sendPacket(ENetworkKey.TEST_PACKET, testPackage);
+
+		Thread.sleep(80);
+		assertFalse(c1.isClosed());
+		assertEquals(1, listener.packets.size());
+		assertEquals(testPackage, listener.packets.get(0));
+	}
+
+	@Test
+	public void testShutdownSelectorClosesChannels() throws InterruptedException {
+		channelSelector.shutdown();
+
+		Thread.sleep(40);
+		assertFalse(channelSelector.isAlive());
+		assertTrue(c1.isClosed());
+		assertTrue(c2.isClosed());
+	}
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the class {@link HashedWheelScheduler}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class HashedWheelSchedulerTest {
+
+	private HashedWheelScheduler scheduler;
+
+	@Before
+	public void setUp() {
+		scheduler = new HashedWheelScheduler("TestScheduler", 2, 8);
+		scheduler.start();
+	}
+
+	@After
+	public void tearDown() {
+		scheduler.shutdown();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIncorrectTickDuration() {
+		new HashedWheelScheduler("TestScheduler", 0, 8);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIncorrectWheelSize() {
+		new HashedWheelScheduler("TestScheduler", 2, 0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testScheduleTwice() {
+		CountingTask task = new CountingTask(1);
+		scheduler.schedule(task, 10);
+		scheduler.schedule(task, 10);
+	}
+
+	@Test
+	public void testSingleExecution() throws InterruptedException {
+		CountingTask task = new CountingTask(1);
+		long start = System.nanoTime();
+		scheduler.schedule(task, 30);
+
+		assertTrue(task.await(1000));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+
+		Thread.sleep(50);
+		assertEquals(1, task.getCalls());
+		assertEquals(1, task.getExecutions());
+	}
+
+	@Test
+	public void testDelayLongerThanWheel() throws InterruptedException {
+		CountingTask task = new CountingTask(1);
+		long start = System.nanoTime();
+		scheduler.schedule(task, 100); // the wheel covers only 16 ms
+
+		assertTrue(task.await(1000));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+	}
+
+	@Test
+	public void testFixedRate() throws InterruptedException {
+		CountingTask task = new CountingTask(10);
+		long start = System.nanoTime();
+		scheduler.scheduleAtFixedRate(task, 0, 10);
+
+		assertTrue(task.await(1000));
+		long duration = System.nanoTime() - start;
+		assertTrue(duration >= TimeUnit.MILLISECONDS.toNanos(90));
+		assertTrue(duration < TimeUnit.MILLISECONDS.toNanos(500));
+	}
+
+	@Test
+	public void testCancel() throws InterruptedException {
+		CountingTask task = new CountingTask(3);
+		scheduler.scheduleAtFixedRate(task, 0, 10);
+		assertTrue(task.await(1000));
+
+		task.cancel();
+		Thread.sleep(20); // a running execution may still complete
+		int calls = task.getCalls();
+		Thread.sleep(50);
+		assertEquals(calls, task.getCalls());
+	}
+
+	@Test
+	public void testCancelBeforeExecution() throws InterruptedException {
+		CountingTask task = new CountingTask(1);
+		scheduler.schedule(task, 30);
+		task.cancel();
+
+		assertTrue(!task.await(80));
+		assertEquals(0, task.getCalls());
+	}
+
+	@Test
+	public void testSkippedExecutionsOfBlockedScheduler() throws InterruptedException {
+		CountingTask periodicTask = new CountingTask(5);
+		scheduler.scheduleAtFixedRate(periodicTask, 0, 10);
+		scheduler.schedule(new ScheduledTask() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(55);
+				} catch (InterruptedException e) {
+				}
+			}
+		}, 5);
+
+		assertTrue(periodicTask.await(1000));
+		assertTrue(periodicTask.getSkippedExecutions() >= 4);
+		assertTrue(periodicTask.getMaxLateness() >= 40);
+	}
+
+	@Test
+	public void testExceptionDoesNotStopScheduler() throws InterruptedException {
+		scheduler.schedule(new ScheduledTask() {
+			@Override
+			public void run() {
+				throw new RuntimeException("expected by the test");
+			}
+		}, 0);
+		CountingTask task = new CountingTask(1);
+		scheduler.schedule(task, 10);
+
+		assertTrue(task.await(1000));
+	}
+
+	private static class CountingTask extends ScheduledTask {
+		private final AtomicInteger calls = new AtomicInteger();
+		private final CountDownLatch latch;
+
+		CountingTask(int expectedCalls) {
+			this.latch = new CountDownLatch(expectedCalls);
+		}
+
+		@Override
+		public void run() {
+			calls.incrementAndGet();
+			latch.countDown();
+		}
+
+		boolean await(long timeoutMs) throws InterruptedException {
+			return latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+		}
+
+		int getCalls() {
+			return calls.get();
+		}
+	}
+}
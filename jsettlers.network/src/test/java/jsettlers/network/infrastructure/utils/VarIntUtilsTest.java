@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link VarIntUtils}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class VarIntUtilsTest {
+	private static final int[] VALUES = { 0, 1, -1, 63, -64, 64, 127, 128, 255, 16383, 16384, 2097151, 2097152, 268435455, 268435456,
+			Integer.MAX_VALUE, Integer.MIN_VALUE };
+
+	@Test
+	public void testVarIntLength() throws IOException {
+		assertEquals(1, writeVarInt(0).length);
+		assertEquals(1, writeVarInt(127).length);
+		assertEquals(2, writeVarInt(128).length);
+		assertEquals(2, writeVarInt(16383).length);
+		assertEquals(3, writeVarInt(16384).length);
+		assertEquals(5, writeVarInt(Integer.MAX_VALUE).length);
+		assertEquals(5, writeVarInt(-1).length);
+	}
+
+	@Test
+	public void testVarIntRoundTrip() throws IOException {
+		for (int value : VALUES) {
+			DataInputStream dis = new DataInputStream(new ByteArrayInputStream(writeVarInt(value)));
+			assertEquals(value, VarIntUtils.readVarInt(dis));
+			assertEquals(-1, dis.read());
+		}
+	}
+
+	@Test
+	public void testSignedVarIntRoundTrip() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(out);
+		for (int value : VALUES) {
+			VarIntUtils.writeSignedVarInt(dos, value);
+		}
+
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+		for (int value : VALUES) {
+			assertEquals(value, VarIntUtils.readSignedVarInt(dis));
+		}
+		assertEquals(-1, dis.read());
+	}
+
+	@Test
+	public void testSmallNegativeValuesAreShort() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		VarIntUtils.writeSignedVarInt(new DataOutputStream(out), -64);
+		assertEquals(1, out.size());
+	}
+
+	@Test
+	public void testDeltaEncodedRoundTrip() throws IOException {
+		assertDeltaEncodedRoundTrip(Collections.<Integer> emptyList());
+		assertDeltaEncodedRoundTrip(Arrays.asList(3, 5, 6, 10, 200, 201, 202));
+		assertDeltaEncodedRoundTrip(Arrays.asList(202, 5, 201, 3, 3));
+		assertDeltaEncodedRoundTrip(Arrays.asList(Integer.MIN_VALUE, Integer.MAX_VALUE, 0, Integer.MIN_VALUE));
+	}
+
+	@Test
+	public void testSortedIdsAreShort() throws IOException {
+		Integer[] ids = new Integer[300];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = 100000 + 3 * i;
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		VarIntUtils.writeDeltaEncoded(new DataOutputStream(out), Arrays.asList(ids));
+		assertEquals(2 + 3 + (ids.length - 1), out.size());
+	}
+
+	@Test(expected = EOFException.class)
+	public void testTruncatedVarInt() throws IOException {
+		byte[] data = writeVarInt(16384);
+		VarIntUtils.readVarInt(new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 1)));
+	}
+
+	@Test(expected = IOException.class)
+	public void testMalformedVarInt() throws IOException {
+		byte[] data = { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0 };
+		VarIntUtils.readVarInt(new DataInputStream(new ByteArrayInputStream(data)));
+	}
+
+	private static byte[] writeVarInt(int value) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		VarIntUtils.writeVarInt(new DataOutputStream(out), value);
+		return out.toByteArray();
+	}
+
+	private static void assertDeltaEncodedRoundTrip(List<Integer> values) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		VarIntUtils.writeDeltaEncoded(new DataOutputStream(out), values);
+
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(values, VarIntUtils.readDeltaEncoded(dis));
+		assertEquals(-1, dis.read());
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.synchronic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for the maximum speed mode of the {@link NetworkTimer}.
+ * 
+ * @author Andreas Eberle
+ * 
+ */
+public class NetworkTimerTest {
+	private final NetworkTimer timer = new NetworkTimer(true);
+
+	@After
+	public void stopTimer() {
+		timer.stopExecution();
+	}
+
+	@Test
+	public void testMaximumSpeedIsFasterThanWallClock() throws InterruptedException {
+		timer.setMaximumSpeed(true);
+		timer.startExecution();
+
+		Thread.sleep(300);
+		timer.setPausing(true);
+
+		assertTrue("game time: " + timer.getTime(), timer.getTime() > 10 * 300);
+	}
+
+	@Test
+	public void testMaximumSpeedCanBeEnabledWhileRunning() throws InterruptedException {
+		timer.startExecution();
+		Thread.sleep(100);
+		timer.setMaximumSpeed(true);
+
+		Thread.sleep(300);
+		timer.setPausing(true);
+
+		assertTrue("game time: " + timer.getTime(), timer.getTime() > 10 * 300);
+	}
+
+	@Test
+	public void testPausingStopsMaximumSpeedExecution() throws InterruptedException {
+		timer.setPausing(true);
+		timer.setMaximumSpeed(true);
+		timer.startExecution();
+
+		Thread.sleep(200);
+
+		assertEquals(0, timer.getTime());
+	}
+
+	@Test
+	public void testFastForwardToStopsAtTargetTimeWithMaximumSpeed() throws InterruptedException {
+		timer.setPausing(true);
+		timer.setMaximumSpeed(true);
+		timer.startExecution();
+
+		timer.fastForwardTo(10000000);
+		int time = timer.getTime();
+		Thread.sleep(100);
+
+		assertEquals(10000000, time);
+		assertEquals(time, timer.getTime());
+	}
+}
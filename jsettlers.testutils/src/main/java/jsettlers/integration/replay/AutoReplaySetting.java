@@ -32,7 +32,7 @@ public class AutoReplaySetting {
 
 	public static Collection<AutoReplaySetting> getDefaultSettings() {
 		return Arrays.asList(
-				new AutoReplaySetting("fullproduction", 10, 20, 40, 90, 150)
+				new AutoReplaySetting("fullproduction", 10, 20, 40, 50, 90, 150)
 				);
 	}
 
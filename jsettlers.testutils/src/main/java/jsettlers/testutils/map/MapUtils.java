@@ -19,13 +19,13 @@ import static org.junit.Assert.assertNotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
 
 import jsettlers.common.map.MapLoadException;
 import jsettlers.input.PlayerState;
 import jsettlers.logic.constants.ExtendedRandom;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.grid.GameSerializer;
 import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.loading.newmap.MapFileHeader;
 import jsettlers.logic.map.loading.list.MapList;
@@ -52,14 +52,14 @@ public final class MapUtils {
 				CountingInputStream actualStream = new CountingInputStream(RemakeMapLoader.getMapInputStream(actualSavegame.getListedMap()))) {
 			MapFileHeader expectedHeader = MapFileHeader.readFromStream(expectedStream);
 			MatchConstants.init(new NetworkTimer(true), 0L);
-			MatchConstants.deserialize(new ObjectInputStream(expectedStream));
+			GameSerializer.readMatchConstants(expectedStream);
 			int expectedTime = MatchConstants.clock().getTime();
 			ExtendedRandom expectedRandom = MatchConstants.random();
 			MatchConstants.clearState();
 
 			MapFileHeader actualHeader = MapFileHeader.readFromStream(actualStream);
 			MatchConstants.init(new NetworkTimer(true), 1L);
-			MatchConstants.deserialize(new ObjectInputStream(actualStream));
+			GameSerializer.readMatchConstants(actualStream);
 			int actualTime = MatchConstants.clock().getTime();
 			ExtendedRandom actualRandom = MatchConstants.random();
 			MatchConstants.clearState();
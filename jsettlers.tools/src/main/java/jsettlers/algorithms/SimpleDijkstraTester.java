@@ -55,7 +55,7 @@ public class SimpleDijkstraTester {
 		DummyEmptyAStarMap aStarMap = new DummyEmptyAStarMap(WIDTH, HEIGHT);
 		aStarMap.setBlocked(120, 100, true);
 
-		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(map, new BucketQueueAStar(aStarMap, WIDTH, HEIGHT), WIDTH, HEIGHT);
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(map, new BucketQueueAStar(aStarMap, WIDTH, HEIGHT), aStarMap, WIDTH, HEIGHT);
 
 		IPathCalculatable requester = new IPathCalculatable() {
 			private static final long serialVersionUID = 8994674255605105284L;